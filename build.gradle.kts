@@ -1,10 +1,10 @@
 plugins {
 	signing
 	id("java-library")
-	id("org.jetbrains.dokka") version "1.4.10"
+	id("org.jetbrains.dokka") version "1.5.31"
 	id("maven-publish")
-	kotlin("jvm") version "1.4.10"
-	kotlin("plugin.serialization") version "1.4.10"
+	kotlin("jvm") version "1.5.31"
+	kotlin("plugin.serialization") version "1.5.31"
 }
 
 /* ---------------------------------------------------------
@@ -30,13 +30,35 @@ java {
 	withSourcesJar()
 }
 
+// Benchmarks, compiled and run apart from the test suite
+val benchmark: SourceSet by sourceSets.creating {
+	compileClasspath += sourceSets.main.get().output
+	runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["benchmarkImplementation"].extendsFrom(configurations.implementation.get())
+
 tasks {
 	compileKotlin.configure {
 		kotlinOptions.jvmTarget = "11"
+		kotlinOptions.freeCompilerArgs += "-Xopt-in=kotlin.RequiresOptIn"
 	}
 
 	compileTestKotlin.configure {
 		kotlinOptions.jvmTarget = "11"
+		kotlinOptions.freeCompilerArgs += "-Xopt-in=kotlin.RequiresOptIn"
+	}
+
+	named<org.jetbrains.kotlin.gradle.tasks.KotlinCompile>("compileBenchmarkKotlin") {
+		kotlinOptions.jvmTarget = "11"
+		kotlinOptions.freeCompilerArgs += "-Xopt-in=kotlin.RequiresOptIn"
+	}
+
+	register<JavaExec>("benchmark") {
+		description = "Compare json against binary serial formats"
+		group = "verification"
+		classpath = benchmark.runtimeClasspath
+		mainClass.set("benchmark.HttpSerialFormatBenchmarkKt")
 	}
 }
 
@@ -46,10 +68,13 @@ dependencies {
 	implementation(kotlin("stdlib"))
 	implementation(kotlin("reflect"))
 	/* serialization */
-	implementation("org.jetbrains.kotlinx:kotlinx-serialization-core:1.0.0")
-	implementation("org.jetbrains.kotlinx:kotlinx-serialization-json:1.0.0")
+	implementation("org.jetbrains.kotlinx:kotlinx-serialization-core:1.3.0")
+	implementation("org.jetbrains.kotlinx:kotlinx-serialization-json:1.3.0")
+	implementation("org.jetbrains.kotlinx:kotlinx-serialization-cbor:1.3.0")
+	implementation("org.jetbrains.kotlinx:kotlinx-serialization-protobuf:1.3.0")
 	/* coroutines */
-	implementation("org.jetbrains.kotlinx:kotlinx-coroutines-core:1.4.0-M1")
+	implementation("org.jetbrains.kotlinx:kotlinx-coroutines-core:1.5.2")
+	implementation("org.jetbrains.kotlinx:kotlinx-coroutines-jdk9:1.5.2")
 	/* test */
 	implementation("junit", "junit", "4.12")
 }
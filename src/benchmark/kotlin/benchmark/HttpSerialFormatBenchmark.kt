@@ -0,0 +1,105 @@
+package benchmark
+
+import com.github.ushiosan23.networkutils.http.HttpSerialFormat
+import kotlinx.serialization.BinaryFormat
+import kotlinx.serialization.KSerializer
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.StringFormat
+import kotlinx.serialization.builtins.ListSerializer
+
+/**
+ * Compare json against binary formats with representative payloads: one small object and a large catalog.
+ * Each case is warmed up first, the median of the measured runs is printed.
+ * Run with `./gradlew benchmark`. It is not part of the test suite because timings depend on the machine.
+ */
+fun main() {
+	val formats = listOf(HttpSerialFormat.JSON, HttpSerialFormat.CBOR, HttpSerialFormat.PROTOBUF)
+	val catalog = (0 until CATALOG_SIZE).map(::release)
+
+	println("%-10s %-24s %10s %12s %12s".format("payload", "format", "bytes", "encode us", "decode us"))
+	for (format in formats) run("single", format, Release.serializer(), release(42))
+	for (format in formats) run("catalog", format, ListSerializer(Release.serializer()), catalog)
+}
+
+/**
+ * Measure one format with one payload
+ *
+ * @param name Payload name
+ * @param format Target format
+ * @param serializer Payload serializer
+ * @param payload Target payload
+ */
+private fun <T> run(name: String, format: HttpSerialFormat, serializer: KSerializer<T>, payload: T) {
+	val bytes = encode(format, serializer, payload)
+	check(decode(format, serializer, bytes) == payload) { "$format does not round trip" }
+
+	// Iterations per sample, so small payloads are not measured below timer resolution
+	val batch = maxOf(1, BATCH_BYTES / bytes.size)
+	repeat(WARMUP) {
+		repeat(batch) { decode(format, serializer, encode(format, serializer, payload)) }
+	}
+
+	val encodeTime = median { repeat(batch) { encode(format, serializer, payload) } } / batch
+	val decodeTime = median { repeat(batch) { decode(format, serializer, bytes) } } / batch
+	println(
+		"%-10s %-24s %10d %12.2f %12.2f".format(name, format, bytes.size, encodeTime / 1000.0, decodeTime / 1000.0)
+	)
+}
+
+/**
+ * Run block many times
+ *
+ * @param block Measured block
+ * @return Median time in nanoseconds
+ */
+private inline fun median(block: () -> Unit): Long {
+	val samples = LongArray(SAMPLES) {
+		val start = System.nanoTime()
+		block()
+		System.nanoTime() - start
+	}
+
+	samples.sort()
+	return samples[SAMPLES / 2]
+}
+
+private fun <T> encode(format: HttpSerialFormat, serializer: KSerializer<T>, value: T): ByteArray =
+	when (val serial = format.format) {
+		is BinaryFormat -> serial.encodeToByteArray(serializer, value)
+		else -> (serial as StringFormat).encodeToString(serializer, value).toByteArray()
+	}
+
+private fun <T> decode(format: HttpSerialFormat, serializer: KSerializer<T>, bytes: ByteArray): T =
+	when (val serial = format.format) {
+		is BinaryFormat -> serial.decodeFromByteArray(serializer, bytes)
+		else -> (serial as StringFormat).decodeFromString(serializer, String(bytes))
+	}
+
+private fun release(index: Int) = Release(
+	id = index.toLong() * 7919,
+	name = "release-$index",
+	version = "3.$index.${index % 10}",
+	size = 1_048_576L + index,
+	stable = index % 3 != 0,
+	downloads = List(8) { it * index },
+	tags = listOf("mono", "x64", "platform-${index % 4}")
+)
+
+@Serializable
+data class Release(
+	val id: Long,
+	val name: String,
+	val version: String,
+	val size: Long,
+	val stable: Boolean,
+	val downloads: List<Int>,
+	val tags: List<String>
+)
+
+private const val CATALOG_SIZE = 2_000
+
+private const val BATCH_BYTES = 64 * 1024
+
+private const val WARMUP = 20
+
+private const val SAMPLES = 31
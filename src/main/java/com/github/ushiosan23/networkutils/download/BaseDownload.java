@@ -141,10 +141,24 @@ public abstract class BaseDownload {
 	 *
 	 * --------------------------------------------------------- */
 
+	/**
+	 * Add download listener
+	 *
+	 * @param listener Target listener
+	 */
 	public void addDownloadListener(DownloadListener listener) {
 		addListener(listener, DownloadListener.class);
 	}
 
+	/**
+	 * Remove download listener
+	 *
+	 * @param listener Target listener
+	 */
+	public void removeDownloadListener(DownloadListener listener) {
+		removeListener(listener, DownloadListener.class);
+	}
+
 	/* ---------------------------------------------------------
 	 *
 	 * Fire methods
@@ -1,13 +1,18 @@
 package com.github.ushiosan23.networkutils.download;
 
 import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.ConcurrencyLimitPolicy;
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URL;
 import java.net.http.HttpHeaders;
@@ -40,11 +45,31 @@ public final class DownloadElement extends BaseDownload {
 	 */
 	private DownloadStatusEvent lastStatus;
 
+	/**
+	 * Last dispatched status
+	 */
+	private volatile DownloadStatusEvent currentStatus;
+
+	/**
+	 * Current download stream. Closed to abort blocking reads
+	 */
+	private volatile InputStream downloadStream;
+
+	/**
+	 * Shared host concurrency limits or {@code null}
+	 */
+	private volatile ConcurrencyLimitPolicy limiter;
+
 	/**
 	 * Download thread
 	 */
 	private Thread downloadThread;
 
+	/**
+	 * Download buffer size
+	 */
+	private static final int BUFFER_SIZE = 8 * 1024;
+
 	/* ---------------------------------------------------------
 	 *
 	 * Constructors
@@ -133,6 +158,56 @@ public final class DownloadElement extends BaseDownload {
 		downloadThread.start();
 	}
 
+	/**
+	 * Download in current thread. Listeners are called from this thread.
+	 *
+	 * @return {@link DownloadStatusEvent} final status (finished, paused or cancelled)
+	 * @throws IOException Error if download fails. Listeners receive an event with the error too
+	 */
+	@NotNull
+	public DownloadStatusEvent download() throws IOException {
+		return downloadProcess();
+	}
+
+	/**
+	 * Share host concurrency limits with requests. Download waits for a slot of its host before
+	 * the transfer starts and keeps it until the transfer ends
+	 *
+	 * @param limiter Target limiter or {@code null} to download without limits
+	 */
+	public void setLimiter(@Nullable ConcurrencyLimitPolicy limiter) {
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Get host concurrency limits
+	 *
+	 * @return {@link ConcurrencyLimitPolicy} limiter or {@code null}
+	 */
+	@Nullable
+	public ConcurrencyLimitPolicy getLimiter() {
+		return limiter;
+	}
+
+	/**
+	 * Cancel download and abort current transfer
+	 */
+	@Override
+	public void cancel() {
+		super.cancel();
+		closeStream();
+	}
+
+	/**
+	 * Get last dispatched status
+	 *
+	 * @return {@link DownloadStatusEvent} status or {@code null} if download is not started
+	 */
+	@Nullable
+	public DownloadStatusEvent getStatus() {
+		return currentStatus;
+	}
+
 	/**
 	 * Waits for this thread to die.
 	 *
@@ -188,50 +263,145 @@ public final class DownloadElement extends BaseDownload {
 		};
 	}
 
+	/**
+	 * Abort transfer without failing if download is already finished
+	 */
+	void abort() {
+		synchronized (lock) {
+			if (isFinished) return;
+			isCancelled = true;
+		}
+		closeStream();
+	}
+
+	/**
+	 * Close current download stream. Blocked reads fail immediately
+	 */
+	private void closeStream() {
+		InputStream stream = downloadStream;
+		if (stream == null) return;
+
+		try {
+			stream.close();
+		} catch (IOException ignored) {
+		}
+	}
+
 	/**
 	 * Download process
 	 *
-	 * @throws Exception Any download error
+	 * @return {@link DownloadStatusEvent} final status
+	 * @throws IOException Any download error
 	 */
-	private void downloadProcess() throws Exception {
+	@NotNull
+	private DownloadStatusEvent downloadProcess() throws IOException {
 		int downloadRead;
 		// Initialize properties
-		File tmpFile = generateTemporalFile(downloadURL);
-		FileOutputStream fOutput = new FileOutputStream(tmpFile);
-		BufferedInputStream buffered = new BufferedInputStream(downloadURL.toURL().openStream());
+		File tmpFile = null;
+		ConcurrencyLimitPolicy.Permit permit = null;
 		lastStatus = DownloadStatusEvent.getDefault(DownloadElement.this);
-		downloadBuffer = new byte[1024];
-		// Configure event
-		lastStatus.isIndefinite = isIndefinite();
-		lastStatus.totalSize = downloadSize();
-
-		// Iterate all download data
-		while (
-			(downloadRead = buffered.read(downloadBuffer, 0, downloadBuffer.length)) != -1 &&
-				!isCancelled() &&
-				!isPaused()
-		) {
-			// Write download data
-			fOutput.write(downloadBuffer);
-			// Change download status
-			lastStatus.downloaded += downloadRead;
-			if (!lastStatus.isIndefinite)
-				lastStatus.downloadProgress = lastStatus.downloaded * 100f / lastStatus.totalSize;
-			// Fire events
-			fireListener(lastStatus.cloneSelf());
+		downloadBuffer = new byte[BUFFER_SIZE];
+
+		try {
+			// Configure event
+			lastStatus.totalSize = downloadSize();
+			lastStatus.isIndefinite = isIndefinite();
+			tmpFile = generateTemporalFile(downloadURL);
+			permit = acquirePermit();
+
+			try (
+				FileOutputStream fOutput = new FileOutputStream(tmpFile);
+				BufferedInputStream buffered = new BufferedInputStream(downloadURL.toURL().openStream())
+			) {
+				downloadStream = buffered;
+
+				// Iterate all download data
+				while (
+					!isCancelled() &&
+						!isPaused() &&
+						(downloadRead = buffered.read(downloadBuffer, 0, downloadBuffer.length)) != -1
+				) {
+					// Write download data
+					fOutput.write(downloadBuffer, 0, downloadRead);
+					// Change download status
+					lastStatus.downloadSize = downloadRead;
+					lastStatus.downloaded += downloadRead;
+					if (!lastStatus.isIndefinite)
+						lastStatus.downloadProgress = lastStatus.downloaded * 100f / lastStatus.totalSize;
+					// Fire events
+					dispatchStatus();
+				}
+			} finally {
+				downloadStream = null;
+			}
+		} catch (IOException e) {
+			// Stream closed by cancel()
+			if (!isCancelled()) {
+				if (permit != null) permit.drop();
+				deleteTemporalFile(tmpFile);
+				lastStatus.error = e;
+				dispatchStatus();
+				throw e;
+			}
+		} finally {
+			// Transfer time is not a round trip sample
+			if (permit != null) permit.ignore();
 		}
 
-		// Close resources
-		fOutput.flush();
-		fOutput.close();
-		buffered.close();
 		// Configure status
-		lastStatus.isCancelled = isCancelled();
-		lastStatus.isPaused = isPaused();
-		lastStatus.isFinished = !isPaused() && !isCancelled();
+		synchronized (lock) {
+			lastStatus.isCancelled = isCancelled;
+			lastStatus.isPaused = isPaused && !isCancelled;
+			lastStatus.isFinished = !isPaused && !isCancelled;
+			isFinished = lastStatus.isFinished;
+		}
+		lastStatus.downloadSize = 0L;
 		lastStatus.tmpFile = lastStatus.isFinished ? tmpFile : null;
+		if (lastStatus.isCancelled) deleteTemporalFile(tmpFile);
 
-		fireListener(lastStatus.cloneSelf());
+		return dispatchStatus();
+	}
+
+	/**
+	 * Wait for a slot of the download host
+	 *
+	 * @return {@link ConcurrencyLimitPolicy.Permit} permit or {@code null} if download has no limiter
+	 * @throws IOException Error if slot is not available or thread is interrupted
+	 */
+	@Nullable
+	private ConcurrencyLimitPolicy.Permit acquirePermit() throws IOException {
+		ConcurrencyLimitPolicy current = limiter;
+		if (current == null) return null;
+
+		try {
+			return current.acquire(HttpCall.hostKey(downloadURL));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a download slot.");
+		}
+	}
+
+	/**
+	 * Save status snapshot and fire listeners
+	 *
+	 * @return {@link DownloadStatusEvent} dispatched snapshot
+	 */
+	@NotNull
+	private DownloadStatusEvent dispatchStatus() {
+		DownloadStatusEvent status = lastStatus.cloneSelf();
+
+		currentStatus = status;
+		fireListener(status);
+		return status;
+	}
+
+	/**
+	 * Delete unfinished temporal file
+	 *
+	 * @param file Target file or {@code null}
+	 */
+	private static void deleteTemporalFile(@Nullable File file) {
+		if (file != null && !file.delete()) file.deleteOnExit();
 	}
 
 	@NotNull
@@ -67,6 +67,11 @@ public final class DownloadStatusEvent extends EventObject implements Serializab
 	 */
 	File tmpFile = null;
 
+	/**
+	 * Download error
+	 */
+	IOException error = null;
+
 	/* ---------------------------------------------------------
 	 *
 	 * Constructors
@@ -194,6 +199,25 @@ public final class DownloadStatusEvent extends EventObject implements Serializab
 		return tmpFile;
 	}
 
+	/**
+	 * Get download error
+	 *
+	 * @return {@link IOException} error or {@code null} if download did not fail
+	 */
+	@Nullable
+	public IOException getError() {
+		return error;
+	}
+
+	/**
+	 * Check if this is the last status of the download (finished, paused, cancelled or failed)
+	 *
+	 * @return Done status
+	 */
+	public boolean isDone() {
+		return isFinished || isPaused || isCancelled || error != null;
+	}
+
 	/**
 	 * Move download to specific location
 	 *
@@ -240,10 +264,13 @@ public final class DownloadStatusEvent extends EventObject implements Serializab
 	 * Clone current object
 	 *
 	 * @return A cloned instance
-	 * @throws CloneNotSupportedException Error if clone is not supported
 	 */
-	DownloadStatusEvent cloneSelf() throws CloneNotSupportedException {
-		return (DownloadStatusEvent) clone();
+	DownloadStatusEvent cloneSelf() {
+		try {
+			return (DownloadStatusEvent) clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
 	}
 
 }
@@ -0,0 +1,199 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Request future that really aborts the exchange when it is cancelled.
+ * Client futures ignore cancellation, so the response body subscription is cancelled too
+ * and the connection stops receiving data.
+ *
+ * @param <T> Response body type
+ */
+final class CancellableExchange<T> extends CompletableFuture<HttpResponse<T>> {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Subscription marker used after cancellation
+	 */
+	private static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+		@Override
+		public void request(long n) {
+		}
+
+		@Override
+		public void cancel() {
+		}
+	};
+
+	/**
+	 * Current body subscription
+	 */
+	private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+
+	/**
+	 * Client future
+	 */
+	private volatile CompletableFuture<HttpResponse<T>> source;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create exchange. Use {@link #send(Function, HttpResponse.BodyHandler, Executor)}
+	 */
+	private CancellableExchange() {
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Start cancellable exchange
+	 *
+	 * @param sender    Action that sends request with received handler
+	 * @param handler   Response body handler
+	 * @param callbacks Executor used to complete the exchange (dependent stages run on it)
+	 *                  or {@code null} to complete it in the client thread
+	 * @param <T>       Response body type
+	 * @return {@link CompletableFuture} request response. Cancel it to abort the request
+	 */
+	@NotNull
+	static <T> CompletableFuture<HttpResponse<T>> send(
+		@NotNull Function<HttpResponse.BodyHandler<T>, CompletableFuture<HttpResponse<T>>> sender,
+		@NotNull HttpResponse.BodyHandler<T> handler,
+		@Nullable Executor callbacks
+	) {
+		CancellableExchange<T> exchange = new CancellableExchange<>();
+		CompletableFuture<HttpResponse<T>> future = sender.apply(info -> exchange.new TrackingSubscriber(handler.apply(info)));
+
+		exchange.source = future;
+		future.whenComplete((response, error) -> {
+			if (callbacks == null) {
+				exchange.finish(response, error);
+				return;
+			}
+
+			try {
+				callbacks.execute(() -> exchange.finish(response, error));
+			} catch (RejectedExecutionException e) {
+				// Saturated executor, report rejection to the caller
+				if (error != null) e.addSuppressed(error);
+				exchange.completeExceptionally(e);
+			}
+		});
+		// Cancelled while request was starting
+		if (exchange.isCancelled()) future.cancel(true);
+
+		return exchange;
+	}
+
+	/**
+	 * Complete exchange with request result
+	 *
+	 * @param response Request response
+	 * @param error    Request error or {@code null} if request succeeded
+	 */
+	private void finish(HttpResponse<T> response, Throwable error) {
+		if (error != null) completeExceptionally(error);
+		else complete(response);
+	}
+
+	/**
+	 * Cancel request and abort response transfer
+	 *
+	 * @param mayInterruptIfRunning Ignored, request threads are never interrupted
+	 * @return {@code true} if request was cancelled
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if (!cancelled) return false;
+
+		CompletableFuture<HttpResponse<T>> current = source;
+		if (current != null) current.cancel(mayInterruptIfRunning);
+
+		Flow.Subscription active = subscription.getAndSet(CANCELLED);
+		if (active != null) active.cancel();
+		return true;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Tracking subscriber
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Body subscriber that registers its subscription
+	 */
+	private final class TrackingSubscriber implements HttpResponse.BodySubscriber<T> {
+
+		/**
+		 * Real subscriber
+		 */
+		private final HttpResponse.BodySubscriber<T> downstream;
+
+		/**
+		 * Create subscriber
+		 *
+		 * @param downstream Real subscriber
+		 */
+		private TrackingSubscriber(@NotNull HttpResponse.BodySubscriber<T> downstream) {
+			this.downstream = downstream;
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return downstream.getBody();
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription current) {
+			downstream.onSubscribe(current);
+
+			// Retried and redirected exchanges replace previous subscription
+			Flow.Subscription previous = subscription.getAndUpdate(value -> value == CANCELLED ? CANCELLED : current);
+			if (previous == CANCELLED) current.cancel();
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			downstream.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			downstream.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			downstream.onComplete();
+		}
+
+	}
+
+}
@@ -0,0 +1,469 @@
+package com.github.ushiosan23.networkutils.http;
+
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Connection usage tracker of one profile.
+ * The client does not expose its pool, so connections are modeled from the request flow: a request
+ * reuses a connection if another request to the same host finished less than the keep-alive timeout ago
+ * and that connection is not in use, otherwise it opens a new one. HTTP/2 hosts share one connection.
+ * Optionally limits in-flight requests (HTTP/1.1 connections) per host, extra requests wait in order.
+ * A request holds its connection until its response body is received, fails or is cancelled.
+ */
+final class ConnectionTracker {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Client keep-alive property (seconds)
+	 */
+	static final String KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+	/**
+	 * Client pool size property
+	 */
+	static final String POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+
+	/**
+	 * Client default keep-alive (seconds)
+	 */
+	private static final long DEFAULT_KEEP_ALIVE = 1200;
+
+	/**
+	 * Hosts by key
+	 */
+	private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+	/**
+	 * Max in-flight requests per host or {@code 0} if unlimited
+	 */
+	private final int maxPerHost;
+
+	/**
+	 * Opened connections
+	 */
+	private final LongAdder opened = new LongAdder();
+
+	/**
+	 * Requests that reused a connection
+	 */
+	private final LongAdder reused = new LongAdder();
+
+	/**
+	 * Connections opened by warm-up
+	 */
+	private final LongAdder warmed = new LongAdder();
+
+	/**
+	 * Requests that waited a free connection
+	 */
+	private final LongAdder waited = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create tracker
+	 *
+	 * @param maxPerHost Max in-flight requests per host or {@code 0} if unlimited
+	 */
+	ConnectionTracker(int maxPerHost) {
+		this.maxPerHost = maxPerHost;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Send call through the tracker
+	 *
+	 * @param call      Target call
+	 * @param transport Action that sends the call
+	 * @param warmUp    Call opens a warm-up connection
+	 * @param <T>       Response body type
+	 * @return {@link CompletableFuture} request result. Cancelling it cancels the transport or the wait
+	 */
+	@NotNull
+	<T> CompletableFuture<HttpResponse<T>> send(
+		@NotNull HttpCall<T> call,
+		@NotNull Function<HttpCall<T>, CompletableFuture<HttpResponse<T>>> transport,
+		boolean warmUp
+	) {
+		Host host = hosts.computeIfAbsent(call.getHostKey(), key -> new Host());
+		CompletableFuture<Void> slot = host.acquire();
+		if (!slot.isDone()) waited.increment();
+
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		slot.whenComplete((ignored, waitError) -> {
+			// Abandoned waiters never got a slot
+			if (waitError != null) return;
+			if (result.isDone()) {
+				host.release(false, null, System.nanoTime());
+				return;
+			}
+
+			boolean reuse = host.lease(System.nanoTime());
+			if (reuse) reused.increment();
+			else opened.increment();
+			if (warmUp && !reuse) warmed.increment();
+
+			// Connection stays busy until the body is consumed, streamed bodies outlive the response future
+			Lease lease = new Lease(host);
+			HttpResponse.BodyHandler<T> handler = call.getHandler();
+			HttpCall<T> tracked = call.withHandler(info -> {
+				// The client (JDK 11) closes the connection after HEAD
+				boolean keep = !call.getMethod().equalsIgnoreCase("HEAD") && !info.headers()
+					.firstValue("Connection")
+					.map("close"::equalsIgnoreCase)
+					.orElse(false);
+				return new ReleasingSubscriber<>(handler.apply(info), lease, keep, info.version());
+			});
+
+			CompletableFuture<HttpResponse<T>> future;
+			try {
+				future = transport.apply(tracked);
+			} catch (RuntimeException e) {
+				future = CompletableFuture.failedFuture(e);
+			}
+
+			CompletableFuture<HttpResponse<T>> source = future;
+			source.whenComplete((response, error) -> {
+				// Failed exchanges usually close their connection
+				if (error != null) {
+					lease.release(false, null);
+					result.completeExceptionally(error);
+				} else {
+					result.complete(response);
+				}
+			});
+			result.whenComplete((response, error) -> {
+				if (result.isCancelled()) source.cancel(true);
+			});
+		});
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) host.abandon(slot);
+		});
+		return result;
+	}
+
+	/**
+	 * Create statistics snapshot
+	 *
+	 * @return {@link HttpConnectionStats} current statistics
+	 */
+	@NotNull
+	HttpConnectionStats getStats() {
+		long now = System.nanoTime();
+		int idle = 0;
+		int active = 0;
+		int queued = 0;
+
+		for (Host host : hosts.values()) {
+			synchronized (host) {
+				host.expire(now);
+				idle += host.idle.size();
+				active += host.active;
+				queued += host.waiters.size();
+			}
+		}
+		return new HttpConnectionStats(
+			opened.sum(), reused.sum(), warmed.sum(), waited.sum(), idle, active, queued, hosts.size()
+		);
+	}
+
+	/**
+	 * Get client keep-alive timeout
+	 *
+	 * @return Keep-alive timeout in nanoseconds
+	 */
+	static long keepAliveNanos() {
+		long seconds = Long.getLong(KEEP_ALIVE_PROPERTY, DEFAULT_KEEP_ALIVE);
+		return TimeUnit.SECONDS.toNanos(seconds <= 0 ? DEFAULT_KEEP_ALIVE : seconds);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Host
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Connections of one host
+	 */
+	private final class Host {
+
+		/**
+		 * Release times of idle connections, most recent last
+		 */
+		private final ArrayDeque<Long> idle = new ArrayDeque<>();
+
+		/**
+		 * Requests waiting a free slot
+		 */
+		private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+		/**
+		 * In-flight requests (and slots given to waiters)
+		 */
+		private int active;
+
+		/**
+		 * Host answered with HTTP/2
+		 */
+		private boolean multiplexed;
+
+		/**
+		 * Last HTTP/2 activity
+		 */
+		private long lastUse;
+
+		/**
+		 * Get request slot
+		 *
+		 * @return {@link CompletableFuture} completed when request can be sent
+		 */
+		@NotNull
+		synchronized CompletableFuture<Void> acquire() {
+			if (maxPerHost == 0 || multiplexed || active < maxPerHost) {
+				active++;
+				return CompletableFuture.completedFuture(null);
+			}
+
+			CompletableFuture<Void> waiter = new CompletableFuture<>();
+			waiters.add(waiter);
+			return waiter;
+		}
+
+		/**
+		 * Take connection for a request
+		 *
+		 * @param now Current time
+		 * @return {@code true} if a kept-alive connection is reused
+		 */
+		synchronized boolean lease(long now) {
+			expire(now);
+			if (multiplexed) {
+				boolean alive = lastUse != 0;
+				lastUse = now;
+				return alive;
+			}
+			return idle.pollLast() != null;
+		}
+
+		/**
+		 * Give back request slot and connection
+		 *
+		 * @param keep    Connection stays open
+		 * @param version Response version or {@code null} if request failed
+		 * @param now     Current time
+		 */
+		void release(boolean keep, @Nullable HttpClient.Version version, long now) {
+			CompletableFuture<Void> next;
+
+			synchronized (this) {
+				if (version == HttpClient.Version.HTTP_2) {
+					multiplexed = true;
+					idle.clear();
+					lastUse = keep ? now : 0;
+				} else if (keep) {
+					idle.addLast(now);
+				}
+
+				next = waiters.poll();
+				if (next == null) active--;
+			}
+			// Slot goes directly to the next request
+			if (next != null) next.complete(null);
+		}
+
+		/**
+		 * Forget cancelled waiter
+		 *
+		 * @param waiter Target waiter
+		 */
+		void abandon(@NotNull CompletableFuture<Void> waiter) {
+			synchronized (this) {
+				if (!waiters.remove(waiter)) return;
+			}
+			waiter.cancel(false);
+		}
+
+		/**
+		 * Drop connections idle longer than the keep-alive timeout
+		 *
+		 * @param now Current time
+		 */
+		private void expire(long now) {
+			long keepAlive = keepAliveNanos();
+
+			while (!idle.isEmpty() && now - idle.peekFirst() > keepAlive) idle.pollFirst();
+			if (multiplexed && lastUse != 0 && now - lastUse > keepAlive) lastUse = 0;
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Lease
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Request slot of one call, given back once
+	 */
+	private static final class Lease {
+
+		/**
+		 * Slot owner
+		 */
+		private final Host host;
+
+		/**
+		 * Slot was given back
+		 */
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		/**
+		 * Create lease
+		 *
+		 * @param host Slot owner
+		 */
+		private Lease(@NotNull Host host) {
+			this.host = host;
+		}
+
+		/**
+		 * Give back slot and connection. Later calls are ignored
+		 *
+		 * @param keep    Connection stays open
+		 * @param version Response version or {@code null} if request failed
+		 */
+		void release(boolean keep, @Nullable HttpClient.Version version) {
+			if (released.compareAndSet(false, true)) host.release(keep, version, System.nanoTime());
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Releasing subscriber
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Body subscriber that gives back the slot when the body ends
+	 *
+	 * @param <T> Response body type
+	 */
+	private static final class ReleasingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+		/**
+		 * Real subscriber
+		 */
+		private final HttpResponse.BodySubscriber<T> downstream;
+
+		/**
+		 * Call slot
+		 */
+		private final Lease lease;
+
+		/**
+		 * Connection stays open after a complete body
+		 */
+		private final boolean keep;
+
+		/**
+		 * Response version
+		 */
+		private final HttpClient.Version version;
+
+		/**
+		 * Create subscriber
+		 *
+		 * @param downstream Real subscriber
+		 * @param lease      Call slot
+		 * @param keep       Connection stays open after a complete body
+		 * @param version    Response version
+		 */
+		private ReleasingSubscriber(
+			@NotNull HttpResponse.BodySubscriber<T> downstream,
+			@NotNull Lease lease,
+			boolean keep,
+			@NotNull HttpClient.Version version
+		) {
+			this.downstream = downstream;
+			this.lease = lease;
+			this.keep = keep;
+			this.version = version;
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return downstream.getBody();
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			downstream.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+					subscription.request(n);
+				}
+
+				@Override
+				public void cancel() {
+					// Aborted bodies close their connection
+					lease.release(false, null);
+					subscription.cancel();
+				}
+			});
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			downstream.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			lease.release(false, null);
+			downstream.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			// Slot is free before the body is handed to the caller
+			lease.release(keep, version);
+			downstream.onComplete();
+		}
+
+	}
+
+}
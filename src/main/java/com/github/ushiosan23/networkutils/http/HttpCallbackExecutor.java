@@ -0,0 +1,223 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded callback executor.
+ * Isolates response callbacks from client threads: at most {@code maxPending} callbacks can be
+ * queued or running, extra callbacks are rejected with {@link RejectedExecutionException} instead of
+ * growing the queue. All submissions are counted, so slow handlers can be detected.
+ */
+public final class HttpCallbackExecutor implements Executor {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Real executor
+	 */
+	private final Executor delegate;
+
+	/**
+	 * Max queued and running callbacks
+	 */
+	private final int maxPending;
+
+	/**
+	 * Current queued and running callbacks
+	 */
+	private final AtomicInteger pending = new AtomicInteger();
+
+	/**
+	 * Accepted callbacks
+	 */
+	private final LongAdder submitted = new LongAdder();
+
+	/**
+	 * Finished callbacks
+	 */
+	private final LongAdder completed = new LongAdder();
+
+	/**
+	 * Callbacks that threw an exception
+	 */
+	private final LongAdder failed = new LongAdder();
+
+	/**
+	 * Rejected callbacks
+	 */
+	private final LongAdder rejected = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Limit callbacks submitted to an existing executor
+	 *
+	 * @param delegate   Real executor
+	 * @param maxPending Max queued and running callbacks
+	 */
+	public HttpCallbackExecutor(@NotNull Executor delegate, int maxPending) {
+		if (maxPending <= 0) throw new IllegalArgumentException("Max pending callbacks must be positive.");
+
+		this.delegate = delegate;
+		this.maxPending = maxPending;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create executor with its own daemon threads. Idle threads are released.
+	 *
+	 * @param name       Threads name prefix
+	 * @param threads    Max callback threads
+	 * @param maxPending Max queued and running callbacks
+	 * @return {@link HttpCallbackExecutor} Instance result.
+	 */
+	@NotNull
+	@Contract("_, _, _ -> new")
+	public static HttpCallbackExecutor newFixed(@NotNull String name, int threads, int maxPending) {
+		if (threads <= 0) throw new IllegalArgumentException("Threads must be positive.");
+
+		AtomicInteger counter = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			threads,
+			threads,
+			60,
+			TimeUnit.SECONDS,
+			new LinkedBlockingQueue<>(),
+			runnable -> {
+				Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		);
+
+		executor.allowCoreThreadTimeOut(true);
+		return new HttpCallbackExecutor(executor, maxPending);
+	}
+
+	/**
+	 * Execute callback or reject it if executor is saturated
+	 *
+	 * @param command Target callback
+	 * @throws RejectedExecutionException if max pending callbacks was reached
+	 */
+	@Override
+	public void execute(@NotNull Runnable command) {
+		int current;
+		do {
+			current = pending.get();
+			if (current >= maxPending) {
+				rejected.increment();
+				throw new RejectedExecutionException("Callback executor is saturated (" + maxPending + " pending).");
+			}
+		} while (!pending.compareAndSet(current, current + 1));
+
+		try {
+			delegate.execute(() -> {
+				try {
+					command.run();
+				} catch (Throwable e) {
+					failed.increment();
+					throw e;
+				} finally {
+					pending.decrementAndGet();
+					completed.increment();
+				}
+			});
+			submitted.increment();
+		} catch (RejectedExecutionException e) {
+			pending.decrementAndGet();
+			rejected.increment();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get max queued and running callbacks
+	 *
+	 * @return Max pending callbacks
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+
+	/**
+	 * Get current queued and running callbacks
+	 *
+	 * @return Pending callbacks
+	 */
+	public int getPending() {
+		return pending.get();
+	}
+
+	/**
+	 * Get accepted callbacks
+	 *
+	 * @return Submitted count
+	 */
+	public long getSubmitted() {
+		return submitted.sum();
+	}
+
+	/**
+	 * Get finished callbacks (including failed callbacks)
+	 *
+	 * @return Completed count
+	 */
+	public long getCompleted() {
+		return completed.sum();
+	}
+
+	/**
+	 * Get callbacks that threw an exception
+	 *
+	 * @return Failed count
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Get rejected callbacks
+	 *
+	 * @return Rejected count
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"HttpCallbackExecutor[pending=%d/%d, submitted=%d, completed=%d, failed=%d, rejected=%d]",
+			getPending(), maxPending, getSubmitted(), getCompleted(), getFailed(), getRejected()
+		);
+	}
+
+}
@@ -0,0 +1,413 @@
+package com.github.ushiosan23.networkutils.http;
+
+import com.github.ushiosan23.networkutils.http.policy.HttpPolicy;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLContext;
+import java.net.http.HttpClient;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Client profile.
+ * Groups the http client configuration shared by many request actions: protocol version,
+ * timeouts, client executor, the executor used to run response callbacks and request policies.
+ * Each profile owns one lazily created {@link HttpClient}, so connections are reused between requests
+ * of the same profile. Connections can be opened before the first request with {@link HttpConnectionWarmer}.
+ */
+public final class HttpClientProfile {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Default profile. Uses the shared connector client and runs callbacks in the thread that completes the request
+	 */
+	private static final HttpClientProfile DEFAULT = newBuilder().build();
+
+	/**
+	 * Protocol version
+	 */
+	private final HttpClient.Version version;
+
+	/**
+	 * Max time to establish connections or {@code null} to use system default
+	 */
+	private final Duration connectTimeout;
+
+	/**
+	 * Redirect policy
+	 */
+	private final HttpClient.Redirect redirect;
+
+	/**
+	 * Client internal executor or {@code null} to use client default
+	 */
+	private final Executor clientExecutor;
+
+	/**
+	 * Response callbacks executor or {@code null} to run callbacks in the completing thread
+	 */
+	private final Executor callbackExecutor;
+
+	/**
+	 * Request policies in application order
+	 */
+	private final List<HttpPolicy> policies;
+
+	/**
+	 * TLS configuration or {@code null} to use system defaults
+	 */
+	private final HttpTlsConfig tls;
+
+	/**
+	 * Connection usage and per host limits
+	 */
+	private final ConnectionTracker connections;
+
+	/**
+	 * Client SSL context. Created with the client
+	 */
+	private volatile InstrumentedSSLContext sslContext;
+
+	/**
+	 * Profile client. Created on first request
+	 */
+	private volatile HttpClient client;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create profile from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private HttpClientProfile(@NotNull Builder builder) {
+		version = builder.version;
+		connectTimeout = builder.connectTimeout;
+		redirect = builder.redirect;
+		clientExecutor = builder.clientExecutor;
+		callbackExecutor = builder.callbackExecutor;
+		policies = List.copyOf(builder.policies);
+		tls = builder.tls;
+		connections = new ConnectionTracker(builder.maxConnectionsPerHost);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create profile builder
+	 *
+	 * @return {@link HttpClientProfile.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Get default profile
+	 *
+	 * @return {@link HttpClientProfile} default profile
+	 */
+	@NotNull
+	public static HttpClientProfile getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Configure the client connection pool. Applies to all clients of the JVM and only works before
+	 * the first client request, because the client reads these values once.
+	 *
+	 * @param idleTimeout Max time an idle connection is kept alive (default 20 minutes)
+	 * @param maxPoolSize Max idle connections kept by each client or {@code 0} if unlimited
+	 */
+	public static void configurePool(@NotNull Duration idleTimeout, int maxPoolSize) {
+		if (idleTimeout.getSeconds() < 1 || maxPoolSize < 0)
+			throw new IllegalArgumentException("Idle timeout must be at least one second and pool size cannot be negative.");
+
+		System.setProperty(ConnectionTracker.KEEP_ALIVE_PROPERTY, Long.toString(idleTimeout.getSeconds()));
+		System.setProperty(ConnectionTracker.POOL_SIZE_PROPERTY, Integer.toString(maxPoolSize));
+	}
+
+	/**
+	 * Get profile client. Default profile uses {@link HttpConnector#getHttpClient()}
+	 *
+	 * @return {@link HttpClient} Instance object
+	 */
+	@NotNull
+	public HttpClient getClient() {
+		if (this == DEFAULT) return HttpConnector.getHttpClient();
+
+		HttpClient current = client;
+		if (current == null) {
+			synchronized (this) {
+				current = client;
+				if (current == null) client = current = createClient();
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Get response callbacks executor
+	 *
+	 * @return {@link Executor} callbacks executor or {@code null} if callbacks run in the completing thread
+	 */
+	@Nullable
+	public Executor getCallbackExecutor() {
+		return callbackExecutor;
+	}
+
+	/**
+	 * Get request policies. Shared by all actions of this profile (state like limits or circuits is shared too)
+	 *
+	 * @return {@link List} policies in application order
+	 */
+	@NotNull
+	public List<HttpPolicy> getPolicies() {
+		return policies;
+	}
+
+	/**
+	 * Get connection statistics
+	 *
+	 * @return {@link HttpConnectionStats} statistics snapshot
+	 */
+	@NotNull
+	public HttpConnectionStats getConnectionStats() {
+		return connections.getStats();
+	}
+
+	/**
+	 * Get TLS handshake statistics. Default profile uses the shared connector client and has no statistics
+	 *
+	 * @return {@link HttpTlsStats} statistics snapshot
+	 */
+	@NotNull
+	public HttpTlsStats getTlsStats() {
+		InstrumentedSSLContext current = sslContext;
+		return current == null ? new HttpTlsStats(0, 0, 0, 0) : current.getStats();
+	}
+
+	/**
+	 * Get connection tracker. Every request of the profile is sent through it
+	 *
+	 * @return {@link ConnectionTracker} profile tracker
+	 */
+	@NotNull
+	ConnectionTracker getConnections() {
+		return connections;
+	}
+
+	/**
+	 * Create profile client
+	 *
+	 * @return {@link HttpClient} New instance
+	 */
+	@NotNull
+	private HttpClient createClient() {
+		HttpClient.Builder builder = HttpClient.newBuilder()
+			.version(version)
+			.followRedirects(redirect);
+
+		if (connectTimeout != null) builder.connectTimeout(connectTimeout);
+		if (clientExecutor != null) builder.executor(clientExecutor);
+
+		// Handshakes are measured with system defaults too
+		SSLContext context;
+		try {
+			context = tls == null ? SSLContext.getDefault() : tls.createContext();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SSL context cannot be created.", e);
+		}
+		sslContext = new InstrumentedSSLContext(context);
+		builder.sslContext(sslContext);
+		if (tls != null) builder.sslParameters(tls.createParameters(context));
+		return builder.build();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Client profile builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Protocol version
+		 */
+		private HttpClient.Version version = HttpClient.Version.HTTP_1_1;
+
+		/**
+		 * Max time to establish connections
+		 */
+		private Duration connectTimeout;
+
+		/**
+		 * Redirect policy
+		 */
+		private HttpClient.Redirect redirect = HttpClient.Redirect.NEVER;
+
+		/**
+		 * Client internal executor
+		 */
+		private Executor clientExecutor;
+
+		/**
+		 * Response callbacks executor
+		 */
+		private Executor callbackExecutor;
+
+		/**
+		 * Request policies
+		 */
+		private final List<HttpPolicy> policies = new ArrayList<>();
+
+		/**
+		 * Max in-flight requests per host
+		 */
+		private int maxConnectionsPerHost;
+
+		/**
+		 * TLS configuration
+		 */
+		private HttpTlsConfig tls;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set protocol version.
+		 *
+		 * @param version Target version
+		 * @return Current builder instance.
+		 */
+		public Builder withVersion(@NotNull HttpClient.Version version) {
+			this.version = version;
+			return this;
+		}
+
+		/**
+		 * Set connection timeout.
+		 *
+		 * @param timeout Max time to establish connections or {@code null} to use system default
+		 * @return Current builder instance.
+		 */
+		public Builder withConnectTimeout(@Nullable Duration timeout) {
+			if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+				throw new IllegalArgumentException("Connect timeout must be positive.");
+
+			connectTimeout = timeout;
+			return this;
+		}
+
+		/**
+		 * Set redirect policy.
+		 *
+		 * @param redirect Target policy
+		 * @return Current builder instance.
+		 */
+		public Builder withRedirect(@NotNull HttpClient.Redirect redirect) {
+			this.redirect = redirect;
+			return this;
+		}
+
+		/**
+		 * Set client internal executor. Used by the client to process connections and responses.
+		 *
+		 * @param executor Target executor or {@code null} to use client default
+		 * @return Current builder instance.
+		 */
+		public Builder withClientExecutor(@Nullable Executor executor) {
+			clientExecutor = executor;
+			return this;
+		}
+
+		/**
+		 * Set response callbacks executor. Futures returned by request actions complete in this executor and
+		 * {@link com.github.ushiosan23.networkutils.http.response.HttpAction} callbacks run on it,
+		 * so slow callbacks never block client threads.
+		 *
+		 * @param executor Target executor or {@code null} to run callbacks in the completing thread
+		 * @return Current builder instance.
+		 * @see HttpCallbackExecutor
+		 */
+		public Builder withCallbackExecutor(@Nullable Executor executor) {
+			callbackExecutor = executor;
+			return this;
+		}
+
+		/**
+		 * Set TLS configuration (protocols, cipher suites, ALPN, session cache, trusted certificates).
+		 *
+		 * @param tls Target configuration or {@code null} to use system defaults
+		 * @return Current builder instance.
+		 */
+		public Builder withTls(@Nullable HttpTlsConfig tls) {
+			this.tls = tls;
+			return this;
+		}
+
+		/**
+		 * Set max connections per host. HTTP/1.1 opens one connection per in-flight request,
+		 * so extra requests wait in order until a connection is free. HTTP/2 hosts are not limited.
+		 *
+		 * @param max Max connections or {@code 0} if unlimited (default)
+		 * @return Current builder instance.
+		 */
+		public Builder withMaxConnectionsPerHost(int max) {
+			if (max < 0) throw new IllegalArgumentException("Max connections cannot be negative.");
+
+			maxConnectionsPerHost = max;
+			return this;
+		}
+
+		/**
+		 * Add request policy. First policy wraps all the others.
+		 *
+		 * @param policy Target policy
+		 * @return Current builder instance.
+		 */
+		public Builder withPolicy(@NotNull HttpPolicy policy) {
+			policies.add(policy);
+			return this;
+		}
+
+		/**
+		 * Build client profile.
+		 *
+		 * @return {@link HttpClientProfile} Instance result.
+		 */
+		@NotNull
+		public HttpClientProfile build() {
+			return new HttpClientProfile(this);
+		}
+
+	}
+
+}
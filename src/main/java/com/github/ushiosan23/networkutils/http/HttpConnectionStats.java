@@ -0,0 +1,187 @@
+package com.github.ushiosan23.networkutils.http;
+
+/**
+ * Connection statistics of a client profile.
+ * The client does not expose its connection pool, so values are estimated from the request flow
+ * and the keep-alive timeout ({@link HttpClientProfile#configurePool}). Snapshot taken by
+ * {@link HttpClientProfile#getConnectionStats()}.
+ */
+public final class HttpConnectionStats {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Opened connections
+	 */
+	private final long opened;
+
+	/**
+	 * Requests that reused a connection
+	 */
+	private final long reused;
+
+	/**
+	 * Connections opened by warm-up
+	 */
+	private final long warmed;
+
+	/**
+	 * Requests that waited a free connection
+	 */
+	private final long waited;
+
+	/**
+	 * Idle connections
+	 */
+	private final int idle;
+
+	/**
+	 * Connections in use
+	 */
+	private final int active;
+
+	/**
+	 * Requests waiting a free connection
+	 */
+	private final int queued;
+
+	/**
+	 * Known hosts
+	 */
+	private final int hosts;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create statistics snapshot
+	 *
+	 * @param opened Opened connections
+	 * @param reused Requests that reused a connection
+	 * @param warmed Connections opened by warm-up
+	 * @param waited Requests that waited a free connection
+	 * @param idle   Idle connections
+	 * @param active Connections in use
+	 * @param queued Requests waiting a free connection
+	 * @param hosts  Known hosts
+	 */
+	HttpConnectionStats(long opened, long reused, long warmed, long waited, int idle, int active, int queued, int hosts) {
+		this.opened = opened;
+		this.reused = reused;
+		this.warmed = warmed;
+		this.waited = waited;
+		this.idle = idle;
+		this.active = active;
+		this.queued = queued;
+		this.hosts = hosts;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get opened connections (every handshake paid)
+	 *
+	 * @return Opened connections count
+	 */
+	public long getOpened() {
+		return opened;
+	}
+
+	/**
+	 * Get requests sent over a kept-alive connection
+	 *
+	 * @return Reused connections count
+	 */
+	public long getReused() {
+		return reused;
+	}
+
+	/**
+	 * Get rate of requests that reused a connection
+	 *
+	 * @return Reuse rate (0-1) or {@code 0} if there are no requests
+	 */
+	public double getReuseRate() {
+		long total = opened + reused;
+		return total == 0 ? 0 : (double) reused / total;
+	}
+
+	/**
+	 * Get connections opened by warm-up
+	 *
+	 * @return Warmed connections count
+	 */
+	public long getWarmed() {
+		return warmed;
+	}
+
+	/**
+	 * Get requests that waited for a free connection (max connections per host reached)
+	 *
+	 * @return Waited requests count
+	 */
+	public long getWaited() {
+		return waited;
+	}
+
+	/**
+	 * Get idle connections kept alive
+	 *
+	 * @return Idle connections count
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * Get connections in use
+	 *
+	 * @return Active connections count
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * Get requests waiting for a free connection
+	 *
+	 * @return Queued requests count
+	 */
+	public int getQueued() {
+		return queued;
+	}
+
+	/**
+	 * Get hosts contacted by the profile
+	 *
+	 * @return Hosts count
+	 */
+	public int getHosts() {
+		return hosts;
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"HttpConnectionStats[opened=%d, reused=%d, reuse-rate=%.2f, warmed=%d, idle=%d, active=%d, queued=%d]",
+			opened, reused, getReuseRate(), warmed, idle, active, queued
+		);
+	}
+
+}
@@ -0,0 +1,375 @@
+package com.github.ushiosan23.networkutils.http;
+
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection warmer.
+ * Opens connections of a profile before the first request, so TCP and TLS handshakes are not paid by
+ * real traffic (after a deploy, for example). Each target receives as many concurrent lightweight
+ * requests as connections must be kept open. Optionally repeats the warm-up periodically, so idle
+ * connections are not closed by the keep-alive timeout. Warm-up requests skip profile policies.
+ */
+public final class HttpConnectionWarmer implements AutoCloseable {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Target profile
+	 */
+	private final HttpClientProfile profile;
+
+	/**
+	 * Warmed uris
+	 */
+	private final List<URI> targets;
+
+	/**
+	 * Connections per target
+	 */
+	private final int connections;
+
+	/**
+	 * Request method
+	 */
+	private final String method;
+
+	/**
+	 * Request timeout
+	 */
+	private final Duration timeout;
+
+	/**
+	 * Keep warm interval or {@code null} to warm once
+	 */
+	private final Duration interval;
+
+	/**
+	 * Periodic warm-up was stopped
+	 */
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * Periodic warm-up was started
+	 */
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	/**
+	 * Successful warm-up requests
+	 */
+	private final LongAdder succeeded = new LongAdder();
+
+	/**
+	 * Failed warm-up requests
+	 */
+	private final LongAdder failed = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create warmer from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private HttpConnectionWarmer(@NotNull Builder builder) {
+		profile = builder.profile;
+		targets = List.copyOf(builder.targets);
+		connections = builder.connections;
+		method = builder.method;
+		timeout = builder.timeout;
+		interval = builder.interval;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create warmer builder
+	 *
+	 * @return {@link HttpConnectionWarmer.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Open connections once. Any response (even errors like {@code 404}) means the connection is open
+	 *
+	 * @return {@link CompletableFuture} successful requests. Never completes exceptionally
+	 */
+	@NotNull
+	public CompletableFuture<Integer> warmUp() {
+		HttpClient client = profile.getClient();
+		ConnectionTracker tracker = profile.getConnections();
+		List<CompletableFuture<Boolean>> requests = new ArrayList<>();
+
+		for (URI target : targets) {
+			for (int i = 0; i < connections; i++) {
+				HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+					.method(method, HttpRequest.BodyPublishers.noBody())
+					.timeout(timeout);
+				HttpCall<Void> call = HttpCall.of(builder.build(), HttpResponse.BodyHandlers.discarding());
+
+				requests.add(
+					tracker.send(call, c -> client.sendAsync(c.getRequest(), c.getHandler()), true)
+						.handle((response, error) -> {
+							if (error == null) succeeded.increment();
+							else failed.increment();
+							return error == null;
+						})
+				);
+			}
+		}
+
+		return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			int result = 0;
+			for (CompletableFuture<Boolean> request : requests) {
+				if (request.join()) result++;
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Open connections now and, if an interval is defined, repeat the warm-up until the warmer is closed
+	 *
+	 * @return {@link CompletableFuture} successful requests of the first warm-up
+	 * @throws IllegalStateException Error if warmer was already started or closed
+	 */
+	@NotNull
+	public CompletableFuture<Integer> start() {
+		if (closed.get() || !started.compareAndSet(false, true))
+			throw new IllegalStateException("Warmer was already started.");
+
+		CompletableFuture<Integer> first = warmUp();
+		if (interval != null) first.whenComplete((result, error) -> schedule());
+		return first;
+	}
+
+	/**
+	 * Stop periodic warm-up. Open connections are not closed
+	 */
+	@Override
+	public void close() {
+		closed.set(true);
+	}
+
+	/**
+	 * Get successful warm-up requests
+	 *
+	 * @return Succeeded count
+	 */
+	public long getSucceeded() {
+		return succeeded.sum();
+	}
+
+	/**
+	 * Get failed warm-up requests
+	 *
+	 * @return Failed count
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"HttpConnectionWarmer[targets=%s, connections=%d, succeeded=%d, failed=%d]",
+			targets, connections, getSucceeded(), getFailed()
+		);
+	}
+
+	/**
+	 * Schedule next warm-up without blocking threads
+	 */
+	private void schedule() {
+		if (closed.get()) return;
+
+		CompletableFuture.delayedExecutor(interval.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+			if (!closed.get()) warmUp().whenComplete((result, error) -> schedule());
+		});
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Connection warmer builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Warmed uris
+		 */
+		private final List<URI> targets = new ArrayList<>();
+
+		/**
+		 * Target profile
+		 */
+		private HttpClientProfile profile = HttpClientProfile.getDefault();
+
+		/**
+		 * Connections per target
+		 */
+		private int connections = 1;
+
+		/**
+		 * Request method
+		 */
+		private String method = "GET";
+
+		/**
+		 * Request timeout
+		 */
+		private Duration timeout = Duration.ofSeconds(10);
+
+		/**
+		 * Keep warm interval
+		 */
+		private Duration interval;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set warmed profile. By default {@link HttpClientProfile#getDefault()}.
+		 *
+		 * @param profile Target profile
+		 * @return Current builder instance.
+		 */
+		public Builder withProfile(@NotNull HttpClientProfile profile) {
+			this.profile = profile;
+			return this;
+		}
+
+		/**
+		 * Add warmed target. Use a cheap endpoint (health check, root path, etc.).
+		 *
+		 * @param uri Target uri
+		 * @return Current builder instance.
+		 */
+		public Builder withTarget(@NotNull URI uri) {
+			if (uri.getScheme() == null || uri.getHost() == null)
+				throw new IllegalArgumentException("Target must be an absolute uri with host.");
+
+			targets.add(uri);
+			return this;
+		}
+
+		/**
+		 * Add warmed target.
+		 *
+		 * @param uri Target uri
+		 * @return Current builder instance.
+		 */
+		public Builder withTarget(@NotNull String uri) {
+			return withTarget(URI.create(uri));
+		}
+
+		/**
+		 * Set connections opened for each target. By default 1.
+		 *
+		 * @param connections Concurrent warm-up requests per target
+		 * @return Current builder instance.
+		 */
+		public Builder withConnections(int connections) {
+			if (connections < 1) throw new IllegalArgumentException("Connections must be positive.");
+
+			this.connections = connections;
+			return this;
+		}
+
+		/**
+		 * Set warm-up request method. By default {@code GET}, response bodies are discarded.
+		 * Avoid {@code HEAD}: the client (JDK 11) closes connections after {@code HEAD} responses.
+		 *
+		 * @param method Request method without body ({@code GET}, {@code OPTIONS}, etc.)
+		 * @return Current builder instance.
+		 */
+		public Builder withMethod(@NotNull String method) {
+			this.method = method;
+			return this;
+		}
+
+		/**
+		 * Set warm-up request timeout. By default 10 seconds.
+		 *
+		 * @param timeout Request timeout
+		 * @return Current builder instance.
+		 */
+		public Builder withTimeout(@NotNull Duration timeout) {
+			if (timeout.isNegative() || timeout.isZero()) throw new IllegalArgumentException("Timeout must be positive.");
+
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * Keep connections warm. Use an interval shorter than the pool idle timeout
+		 * ({@link HttpClientProfile#configurePool}).
+		 *
+		 * @param interval Time between warm-ups or {@code null} to warm once (default)
+		 * @return Current builder instance.
+		 */
+		public Builder withInterval(@Nullable Duration interval) {
+			if (interval != null && (interval.isNegative() || interval.isZero()))
+				throw new IllegalArgumentException("Interval must be positive.");
+
+			this.interval = interval;
+			return this;
+		}
+
+		/**
+		 * Build connection warmer.
+		 *
+		 * @return {@link HttpConnectionWarmer} Instance result.
+		 */
+		@NotNull
+		public HttpConnectionWarmer build() {
+			if (targets.isEmpty()) throw new IllegalStateException("Warmer needs at least one target.");
+
+			return new HttpConnectionWarmer(this);
+		}
+
+	}
+
+}
@@ -1,12 +1,21 @@
 package com.github.ushiosan23.networkutils.http;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.net.URLEncoder;
+import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * HttpConnector class.
@@ -76,26 +85,94 @@ final class HttpConnector {
 	 *
 	 * @param data Target data to make
 	 * @return {@link HttpRequest.BodyPublisher} Instance result
+	 * @see HttpRequestFormData
 	 */
 	@NotNull
 	static HttpRequest.BodyPublisher makeBodyPublisher(@NotNull Map<String, ?> data) {
-		// Make string builder
-		StringBuilder builder = new StringBuilder();
-
-		// Iterate data
-		for (Map.Entry<?, ?> entry : data.entrySet()) {
-			// Check if data is empty
-			// Add add "&" to separate map data
-			if (builder.length() != 0) builder.append("&");
-
-			// Insert data to string builder
-			builder.append(URLEncoder.encode((String) entry.getKey(), StandardCharsets.UTF_8));
-			builder.append("=");
-			builder.append(URLEncoder.encode(entry.getValue().toString(), StandardCharsets.UTF_8));
-		}
+		return HttpRequestFormData.of(data).getBodyPublisher();
+	}
+
+	/**
+	 * Send request with body. If continue timeout is defined the request is sent with
+	 * {@code Expect: 100-continue} header and body is only transferred when server accepts
+	 * the request. Final responses (401, 413, etc.) are returned without sending the body.
+	 * If server does not answer before timeout expires, request fails with {@link HttpTimeoutException}.
+	 * Headers are already sent and the client cannot send the body without the interim response,
+	 * so the request is never sent again (it could be applied twice) and a late {@code 100 Continue}
+	 * does not transfer the body.
+	 *
+	 * @param client          Target client
+	 * @param builder         Request builder without body
+	 * @param method          Request method
+	 * @param body            Request body
+	 * @param continueTimeout Max time to wait interim response or {@code null} to send body directly
+	 * @param handler         Response body handler
+	 * @param <T>             Response body type
+	 * @return {@link CompletableFuture} request response
+	 */
+	@NotNull
+	static <T> CompletableFuture<HttpResponse<T>> sendWithBodyAsync(
+		@NotNull HttpClient client,
+		@NotNull HttpRequest.Builder builder,
+		@NotNull String method,
+		@NotNull HttpRequest.BodyPublisher body,
+		@Nullable Duration continueTimeout,
+		@NotNull HttpResponse.BodyHandler<T> handler
+	) {
+		// Send body directly
+		if (continueTimeout == null)
+			return client.sendAsync(builder.method(method, body).build(), handler);
+
+		// Send expectation and watch body transfer
+		ContinueBodyPublisher continuePublisher = new ContinueBodyPublisher(body);
+		CompletableFuture<HttpResponse<T>> expectFuture = client.sendAsync(
+			builder.method(method, continuePublisher).expectContinue(true).build(),
+			handler
+		);
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+		// Server never answered the expectation. Cancellation does not abort the exchange, so body is locked
+		CompletableFuture.delayedExecutor(continueTimeout.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+			if (expectFuture.isDone() || !continuePublisher.expire()) return;
 
-		// Create body publisher
-		return HttpRequest.BodyPublishers.ofString(builder.toString());
+			result.completeExceptionally(
+				new HttpTimeoutException("Server did not answer \"Expect: 100-continue\" in " + continueTimeout + ".")
+			);
+			expectFuture.cancel(true);
+		});
+
+		expectFuture.whenComplete((response, error) -> {
+			if (error != null) result.completeExceptionally(error);
+			else result.complete(response);
+		});
+
+		return result;
+	}
+
+	/**
+	 * Wait for asynchronous response and rethrow request errors
+	 *
+	 * @param future Target request future
+	 * @param <T>    Response body type
+	 * @return {@link HttpResponse} request response
+	 * @throws IOException          if an I/O error occurs when sending or receiving
+	 * @throws InterruptedException if the operation is interrupted
+	 */
+	static <T> HttpResponse<T> awaitResponse(@NotNull CompletableFuture<HttpResponse<T>> future)
+		throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IOException(cause);
+		}
 	}
 
 	/* ---------------------------------------------------------
@@ -115,6 +192,97 @@ final class HttpConnector {
 			.build();
 	}
 
+	/* ---------------------------------------------------------
+	 *
+	 * Continue publisher
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Body publisher that only transfers the body if the expectation did not expire
+	 */
+	private static final class ContinueBodyPublisher implements HttpRequest.BodyPublisher {
+
+		/**
+		 * Waiting interim response
+		 */
+		private static final int WAITING = 0;
+
+		/**
+		 * Body transfer started
+		 */
+		private static final int STARTED = 1;
+
+		/**
+		 * Expectation expired, body is never transferred
+		 */
+		private static final int EXPIRED = 2;
+
+		/**
+		 * Real body publisher
+		 */
+		private final HttpRequest.BodyPublisher publisher;
+
+		/**
+		 * Body transfer status
+		 */
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+
+		/**
+		 * Create publisher wrapper
+		 *
+		 * @param publisher Real body publisher
+		 */
+		private ContinueBodyPublisher(HttpRequest.BodyPublisher publisher) {
+			this.publisher = publisher;
+		}
+
+		/**
+		 * Lock body transfer if client did not start it yet
+		 *
+		 * @return {@code true} if body will never be transferred
+		 */
+		private boolean expire() {
+			return state.compareAndSet(WAITING, EXPIRED);
+		}
+
+		/**
+		 * Get body content length
+		 *
+		 * @return Body size or {@code -1} if is unknown
+		 */
+		@Override
+		public long contentLength() {
+			return publisher.contentLength();
+		}
+
+		/**
+		 * Subscribe body. Only called by client when server accepts the request.
+		 * After expiration the subscriber fails and the client aborts the exchange
+		 *
+		 * @param subscriber Client subscriber
+		 */
+		@Override
+		public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+			if (state.compareAndSet(WAITING, STARTED) || state.get() == STARTED) {
+				publisher.subscribe(subscriber);
+				return;
+			}
+
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+			subscriber.onError(new HttpTimeoutException("Interim response arrived after continue timeout."));
+		}
+
+	}
+
 	/* ---------------------------------------------------------
 	 *
 	 * Error Status
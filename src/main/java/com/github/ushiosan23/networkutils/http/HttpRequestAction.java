@@ -1,6 +1,9 @@
 package com.github.ushiosan23.networkutils.http;
 
 import com.github.ushiosan23.networkutils.CoroutineElement;
+import com.github.ushiosan23.networkutils.http.compression.HttpCompression;
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import com.github.ushiosan23.networkutils.http.policy.HttpPolicy;
 import com.github.ushiosan23.networkutils.http.response.HttpAction;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -10,17 +13,21 @@ import java.io.File;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiPredicate;
 
 /**
@@ -45,6 +52,42 @@ public class HttpRequestAction extends CoroutineElement {
 	 */
 	private Map<String, String> requestHeaders;
 
+	/**
+	 * Max time to wait {@code 100 Continue} response before failing the request.
+	 * {@code null} if expectation is disabled
+	 */
+	private Duration continueTimeout;
+
+	/**
+	 * Response and request body compression. {@code null} if compression is disabled
+	 */
+	private HttpCompression compression;
+
+	/**
+	 * Max time to wait response headers. {@code null} to wait forever
+	 */
+	private Duration timeout;
+
+	/**
+	 * Client profile
+	 */
+	private HttpClientProfile profile = HttpClientProfile.getDefault();
+
+	/**
+	 * Response callbacks executor. {@code null} to use profile executor
+	 */
+	private Executor callbackExecutor;
+
+	/**
+	 * Request policies. Applied after profile policies
+	 */
+	private final List<HttpPolicy> policies = new ArrayList<>();
+
+	/**
+	 * Default expectation timeout
+	 */
+	public static final Duration DEFAULT_CONTINUE_TIMEOUT = Duration.ofSeconds(1);
+
 	/* ---------------------------------------------------------
 	 *
 	 * Constructor
@@ -69,6 +112,16 @@ public class HttpRequestAction extends CoroutineElement {
 		this(URI.create(uri));
 	}
 
+	/**
+	 * Create action request with expanded uri template.
+	 *
+	 * @param template  Compiled uri template
+	 * @param variables Template values
+	 */
+	public HttpRequestAction(@NotNull HttpUriTemplate template, @NotNull Map<String, ?> variables) {
+		this(template.toUri(variables));
+	}
+
 	/* ---------------------------------------------------------
 	 *
 	 * Public Methods
@@ -86,19 +139,8 @@ public class HttpRequestAction extends CoroutineElement {
 	public boolean exists(boolean attachHeaders) {
 		// Catch error exception
 		try {
-			// Get http client
-			HttpClient client = HttpConnector.getHttpClient();
-			HttpRequest.Builder builder = getBuilder()
-				.uri(requestURI)
-				.method("HEAD", HttpRequest.BodyPublishers.noBody());
-			// Attach headers only if param is defined
-			if (attachHeaders) builder.headers(makeHeaders());
-			// Build request
-			HttpRequest request = builder.build();
-			// Start request
-			HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
 			// Return request status
-			return response.statusCode() == HttpURLConnection.HTTP_OK;
+			return head(attachHeaders).statusCode() == HttpURLConnection.HTTP_OK;
 		} catch (Exception e) {
 			return false;
 		}
@@ -129,17 +171,8 @@ public class HttpRequestAction extends CoroutineElement {
 	public Throwable existsCatching(boolean attachHeaders, @Nullable Runnable runnable) {
 		// Catch error exception
 		try {
-			// Get http client
-			HttpClient client = HttpConnector.getHttpClient();
-			HttpRequest.Builder builder = getBuilder()
-				.uri(requestURI)
-				.method("HEAD", HttpRequest.BodyPublishers.noBody());
-			// Attach headers only if param is defined
-			if (attachHeaders) builder.headers(makeHeaders());
-			// Build request
-			HttpRequest request = builder.build();
 			// Start request
-			HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+			HttpResponse<Void> response = head(attachHeaders);
 			// Return request status
 			if (response.statusCode() == HttpURLConnection.HTTP_OK) {
 				// Check runnable
@@ -179,6 +212,151 @@ public class HttpRequestAction extends CoroutineElement {
 		return this;
 	}
 
+	/**
+	 * Send uploads with {@code Expect: 100-continue} header. Body is only sent when server
+	 * accepts the request, rejected uploads (auth, quota, 413, etc.) return without body transfer.
+	 * If server does not answer in time the request fails with {@link java.net.http.HttpTimeoutException}
+	 * and is not sent again.
+	 *
+	 * @param timeout Max time to wait server answer or {@code null} to disable
+	 * @return {@link HttpRequestAction} current instance
+	 */
+	public HttpRequestAction setExpectContinue(@Nullable Duration timeout) {
+		if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+			throw new IllegalArgumentException("Continue timeout must be positive.");
+
+		continueTimeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Send uploads with {@code Expect: 100-continue} header and default timeout.
+	 *
+	 * @param enabled Expectation status
+	 * @return {@link HttpRequestAction} current instance
+	 * @see #setExpectContinue(Duration)
+	 */
+	public HttpRequestAction setExpectContinue(boolean enabled) {
+		return setExpectContinue(enabled ? DEFAULT_CONTINUE_TIMEOUT : null);
+	}
+
+	/**
+	 * Enable response decompression and optional request body compression.
+	 *
+	 * @param compression Compression configuration or {@code null} to disable compression
+	 * @return {@link HttpRequestAction} current instance
+	 */
+	public HttpRequestAction setCompression(@Nullable HttpCompression compression) {
+		this.compression = compression;
+		return this;
+	}
+
+	/**
+	 * Set client profile. Requests use profile client and callbacks executor.
+	 *
+	 * @param profile Target profile
+	 * @return Current instance
+	 */
+	public HttpRequestAction setProfile(@NotNull HttpClientProfile profile) {
+		this.profile = Objects.requireNonNull(profile);
+		return this;
+	}
+
+	/**
+	 * Get client profile
+	 *
+	 * @return {@link HttpClientProfile} current profile
+	 */
+	@NotNull
+	public HttpClientProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * Set response callbacks executor. Async futures complete in this executor and {@link HttpAction}
+	 * callbacks run on it, so slow callbacks never block client threads. Blocking requests are not affected.
+	 * If executor rejects a callback, the future completes with {@link java.util.concurrent.RejectedExecutionException}.
+	 *
+	 * @param executor Target executor or {@code null} to use profile executor
+	 * @return Current instance
+	 * @see HttpCallbackExecutor
+	 */
+	public HttpRequestAction setCallbackExecutor(@Nullable Executor executor) {
+		callbackExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * Get response callbacks executor
+	 *
+	 * @return {@link Executor} callbacks executor or {@code null} if callbacks run in the completing thread
+	 */
+	@Nullable
+	public Executor getCallbackExecutor() {
+		return callbackExecutor != null ? callbackExecutor : profile.getCallbackExecutor();
+	}
+
+	/**
+	 * Add request policy (retries, limits, etc.). Profile policies are applied first, then action
+	 * policies in registration order: the first policy wraps all the others.
+	 *
+	 * @param policy Target policy
+	 * @return Current instance
+	 */
+	public HttpRequestAction addPolicy(@NotNull HttpPolicy policy) {
+		policies.add(Objects.requireNonNull(policy));
+		return this;
+	}
+
+	/**
+	 * Get request policies, including profile policies, in application order
+	 *
+	 * @return {@link List} policies
+	 */
+	@NotNull
+	public List<HttpPolicy> getPolicies() {
+		if (policies.isEmpty()) return profile.getPolicies();
+
+		List<HttpPolicy> result = new ArrayList<>(profile.getPolicies());
+		result.addAll(policies);
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Set request timeout. Requests without response before timeout fail with
+	 * {@link java.net.http.HttpTimeoutException}.
+	 *
+	 * @param timeout Max time to wait response or {@code null} to wait forever
+	 * @return {@link HttpRequestAction} current instance
+	 */
+	public HttpRequestAction setTimeout(@Nullable Duration timeout) {
+		if (timeout != null && (timeout.isNegative() || timeout.isZero()))
+			throw new IllegalArgumentException("Timeout must be positive.");
+
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Change request uri. Allows reuse the same action with many uris
+	 *
+	 * @param uri Target uri to make request
+	 * @return {@link HttpRequestAction} current instance
+	 */
+	public HttpRequestAction setUri(@NotNull URI uri) {
+		requestURI = uri;
+		return this;
+	}
+
+	/**
+	 * Get request uri
+	 *
+	 * @return {@link URI} current request uri
+	 */
+	public URI getUri() {
+		return requestURI;
+	}
+
 	/**
 	 * Set url query data
 	 *
@@ -200,17 +378,11 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @throws InterruptedException if the operation is interrupted
 	 */
 	public HttpResponse<Void> head(boolean attachHeaders) throws IOException, InterruptedException {
-		// Get http client
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest.Builder builder = getBuilder()
-			.uri(requestURI)
-			.method("HEAD", HttpRequest.BodyPublishers.noBody());
-		// Attach headers only if param is defined
-		if (attachHeaders) builder.headers(makeHeaders());
-		// Build request
-		HttpRequest request = builder.build();
-		// Start request
-		return client.send(request, HttpResponse.BodyHandlers.discarding());
+		// Policies and connection tracking apply to HEAD requests too
+		CompletableFuture<HttpResponse<Void>> future = exchange(
+			"HEAD", Collections.emptyMap(), null, HttpResponse.BodyHandlers.discarding(), null, attachHeaders
+		);
+		return HttpConnector.awaitResponse(future);
 	}
 
 	/**
@@ -221,14 +393,17 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @throws InterruptedException if the operation is interrupted
 	 */
 	public HttpResponse<String> get() throws IOException, InterruptedException {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.GET()
-			.headers(makeHeaders())
-			.build();
+		return send("GET", (String) null, null, HttpResponse.BodyHandlers.ofString());
+	}
 
-		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	/**
+	 * Send GET http request asynchronously.
+	 *
+	 * @return {@link CompletableFuture} request result. Cancel it to abort the request
+	 */
+	@NotNull
+	public CompletableFuture<HttpResponse<String>> getAsync() {
+		return sendAsync("GET", (String) null, null, HttpResponse.BodyHandlers.ofString());
 	}
 
 	/**
@@ -237,17 +412,7 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @param action Target async action.
 	 */
 	public void getAsync(@NotNull HttpAction<HttpResponse<String>> action) {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.GET()
-			.headers(makeHeaders())
-			.build();
-
-		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-			.thenApply(action::invoke)
-			.exceptionally(e -> action.exceptionally(e, request))
-			.thenAccept(action::thenAccept);
+		dispatch(getAsync(), action, "GET");
 	}
 
 	/**
@@ -259,16 +424,14 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @throws InterruptedException if the operation is interrupted
 	 */
 	public HttpResponse<String> post(@Nullable Map<String, String> data) throws IOException, InterruptedException {
-		HttpClient client = HttpConnector.getHttpClient();
 		if (data == null) data = Collections.emptyMap();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.POST(HttpConnector.makeBodyPublisher(data))
-			.header("Content-Type", "application/x-www-form-urlencoded")
-			.headers(makeHeaders())
-			.build();
 
-		return client.send(request, HttpResponse.BodyHandlers.ofString());
+		return send(
+			"POST",
+			HttpRequestFormData.CONTENT_TYPE,
+			HttpConnector.makeBodyPublisher(data),
+			HttpResponse.BodyHandlers.ofString()
+		);
 	}
 
 	/**
@@ -281,30 +444,32 @@ public class HttpRequestAction extends CoroutineElement {
 	 */
 	public HttpResponse<String> postD(@Nullable Map<String, Object> data) throws IOException, InterruptedException {
 		if (data == null) data = Collections.emptyMap();
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequestMultipartFormData.Builder formDataBuilder = HttpRequestMultipartFormData.newBuilder();
+		HttpRequestMultipartFormData multipartFormData = makeMultipartFormData(data);
 
-		for (Map.Entry<String, Object> entry : data.entrySet()) {
-			if (entry.getValue() instanceof File) {
-				formDataBuilder.addFile((File) entry.getValue());
-			} else if (entry.getValue() instanceof Path) {
-				formDataBuilder.addFile(((Path) entry.getValue()).toFile());
-			} else {
-				formDataBuilder.addText(entry.getKey(), (String) entry.getValue());
-			}
-		}
-
-		// Build multipart
-		HttpRequestMultipartFormData multipartFormData = formDataBuilder.build();
+		return send(
+			"POST",
+			multipartFormData.getContentType(),
+			multipartFormData.getBodyPublisher(),
+			HttpResponse.BodyHandlers.ofString()
+		);
+	}
 
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.POST(multipartFormData.getBodyPublisher())
-			.header("Content-Type", multipartFormData.getContentType())
-			.headers(makeHeaders())
-			.build();
+	/**
+	 * Send POST http request asynchronously.
+	 *
+	 * @param data Data to send
+	 * @return {@link CompletableFuture} request result. Cancel it to abort the request
+	 */
+	@NotNull
+	public CompletableFuture<HttpResponse<String>> postAsync(@Nullable Map<String, String> data) {
+		if (data == null) data = Collections.emptyMap();
 
-		return client.send(request, HttpResponse.BodyHandlers.ofString());
+		return sendAsync(
+			"POST",
+			HttpRequestFormData.CONTENT_TYPE,
+			HttpConnector.makeBodyPublisher(data),
+			HttpResponse.BodyHandlers.ofString()
+		);
 	}
 
 	/**
@@ -314,19 +479,32 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @param data   Data to send
 	 */
 	public void postAsync(@NotNull HttpAction<HttpResponse<String>> action, @Nullable Map<String, String> data) {
+		dispatch(postAsync(data), action, "POST");
+	}
+
+	/**
+	 * Send POST http request with data (files and documents) asynchronously.
+	 *
+	 * @param data Data to send
+	 * @return {@link CompletableFuture} request result. Completes with {@link IOException} if any file not exists
+	 */
+	@NotNull
+	public CompletableFuture<HttpResponse<String>> postAsyncD(@Nullable Map<String, Object> data) {
 		if (data == null) data = Collections.emptyMap();
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.POST(HttpConnector.makeBodyPublisher(data))
-			.header("Content-Type", "application/x-www-form-urlencoded")
-			.headers(makeHeaders())
-			.build();
+		HttpRequestMultipartFormData multipartFormData;
 
-		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-			.thenApply(action::invoke)
-			.exceptionally(e -> action.exceptionally(e, request))
-			.thenAccept(action::thenAccept);
+		try {
+			multipartFormData = makeMultipartFormData(data);
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return sendAsync(
+			"POST",
+			multipartFormData.getContentType(),
+			multipartFormData.getBodyPublisher(),
+			HttpResponse.BodyHandlers.ofString()
+		);
 	}
 
 	/**
@@ -338,33 +516,15 @@ public class HttpRequestAction extends CoroutineElement {
 	 */
 	public void postAsyncD(@NotNull HttpAction<HttpResponse<String>> action, @Nullable Map<String, Object> data) throws IOException {
 		if (data == null) data = Collections.emptyMap();
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequestMultipartFormData.Builder formDataBuilder = HttpRequestMultipartFormData.newBuilder();
-
-		for (Map.Entry<String, Object> entry : data.entrySet()) {
-			if (entry.getValue() instanceof File) {
-				formDataBuilder.addFile((File) entry.getValue());
-			} else if (entry.getValue() instanceof Path) {
-				formDataBuilder.addFile(((Path) entry.getValue()).toFile());
-			} else {
-				formDataBuilder.addText(entry.getKey(), (String) entry.getValue());
-			}
-		}
+		// Missing files are reported to the caller
+		HttpRequestMultipartFormData multipartFormData = makeMultipartFormData(data);
 
-		// Build multipart
-		HttpRequestMultipartFormData multipartFormData = formDataBuilder.build();
-
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.POST(multipartFormData.getBodyPublisher())
-			.header("Content-Type", multipartFormData.getContentType())
-			.headers(makeHeaders())
-			.build();
-
-		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-			.thenApply(action::invoke)
-			.exceptionally(e -> action.exceptionally(e, request))
-			.thenAccept(action::thenAccept);
+		dispatch(sendAsync(
+			"POST",
+			multipartFormData.getContentType(),
+			multipartFormData.getBodyPublisher(),
+			HttpResponse.BodyHandlers.ofString()
+		), action, "POST");
 	}
 
 	/**
@@ -375,14 +535,17 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @throws InterruptedException if the operation is interrupted
 	 */
 	public HttpResponse<String> put() throws InterruptedException, IOException {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.PUT(HttpRequest.BodyPublishers.noBody())
-			.headers(makeHeaders())
-			.build();
+		return send("PUT", (String) null, null, HttpResponse.BodyHandlers.ofString());
+	}
 
-		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	/**
+	 * Send PUT http simple request asynchronously.
+	 *
+	 * @return {@link CompletableFuture} request result. Cancel it to abort the request
+	 */
+	@NotNull
+	public CompletableFuture<HttpResponse<String>> putAsync() {
+		return sendAsync("PUT", (String) null, null, HttpResponse.BodyHandlers.ofString());
 	}
 
 	/**
@@ -391,17 +554,7 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @param action Async action request.
 	 */
 	public void putAsync(@NotNull HttpAction<HttpResponse<String>> action) {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.PUT(HttpRequest.BodyPublishers.noBody())
-			.headers(makeHeaders())
-			.build();
-
-		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-			.thenApply(action::invoke)
-			.exceptionally(e -> action.exceptionally(e, request))
-			.thenAccept(action::thenAccept);
+		dispatch(putAsync(), action, "PUT");
 	}
 
 	/**
@@ -412,14 +565,17 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @throws InterruptedException if the operation is interrupted
 	 */
 	public HttpResponse<String> delete() throws IOException, InterruptedException {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.DELETE()
-			.headers(makeHeaders())
-			.build();
+		return send("DELETE", (String) null, null, HttpResponse.BodyHandlers.ofString());
+	}
 
-		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	/**
+	 * Send DELETE http simple request asynchronously.
+	 *
+	 * @return {@link CompletableFuture} request result. Cancel it to abort the request
+	 */
+	@NotNull
+	public CompletableFuture<HttpResponse<String>> deleteAsync() {
+		return sendAsync("DELETE", (String) null, null, HttpResponse.BodyHandlers.ofString());
 	}
 
 	/**
@@ -428,17 +584,89 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @param action Async action request.
 	 */
 	public void deleteAsync(@NotNull HttpAction<HttpResponse<String>> action) {
-		HttpClient client = HttpConnector.getHttpClient();
-		HttpRequest request = getBuilder()
-			.uri(requestURI)
-			.DELETE()
-			.headers(makeHeaders())
-			.build();
+		dispatch(deleteAsync(), action, "DELETE");
+	}
 
-		client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-			.thenApply(action::invoke)
-			.exceptionally(e -> action.exceptionally(e, request))
-			.thenAccept(action::thenAccept);
+	/**
+	 * Send http request with custom response handler.
+	 *
+	 * @param method      Request method
+	 * @param contentType Body content type or {@code null} to use custom headers only
+	 * @param body        Request body or {@code null} if request has no body
+	 * @param handler     Response body handler
+	 * @param <T>         Response body type
+	 * @return {@link HttpResponse} request result.
+	 * @throws IOException          if an I/O error occurs when sending or receiving
+	 * @throws InterruptedException if the operation is interrupted
+	 */
+	public <T> HttpResponse<T> send(
+		@NotNull String method,
+		@Nullable String contentType,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler
+	) throws IOException, InterruptedException {
+		return send(method, contentTypeHeaders(contentType), body, handler);
+	}
+
+	/**
+	 * Send http request with custom response handler asynchronously.
+	 *
+	 * @param method      Request method
+	 * @param contentType Body content type or {@code null} to use custom headers only
+	 * @param body        Request body or {@code null} if request has no body
+	 * @param handler     Response body handler
+	 * @param <T>         Response body type
+	 * @return {@link CompletableFuture} request result.
+	 */
+	@NotNull
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+		@NotNull String method,
+		@Nullable String contentType,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler
+	) {
+		return sendAsync(method, contentTypeHeaders(contentType), body, handler);
+	}
+
+	/**
+	 * Send http request with extra headers and custom response handler.
+	 *
+	 * @param method  Request method
+	 * @param headers Request headers. Headers defined with {@link #setRequestHeaders(Map)} have priority
+	 * @param body    Request body or {@code null} if request has no body
+	 * @param handler Response body handler
+	 * @param <T>     Response body type
+	 * @return {@link HttpResponse} request result.
+	 * @throws IOException          if an I/O error occurs when sending or receiving
+	 * @throws InterruptedException if the operation is interrupted
+	 */
+	public <T> HttpResponse<T> send(
+		@NotNull String method,
+		@NotNull Map<String, String> headers,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler
+	) throws IOException, InterruptedException {
+		return HttpConnector.awaitResponse(exchange(method, headers, body, handler, null));
+	}
+
+	/**
+	 * Send http request with extra headers and custom response handler asynchronously.
+	 *
+	 * @param method  Request method
+	 * @param headers Request headers. Headers defined with {@link #setRequestHeaders(Map)} have priority
+	 * @param body    Request body or {@code null} if request has no body
+	 * @param handler Response body handler
+	 * @param <T>     Response body type
+	 * @return {@link CompletableFuture} request result.
+	 */
+	@NotNull
+	public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+		@NotNull String method,
+		@NotNull Map<String, String> headers,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler
+	) {
+		return exchange(method, headers, body, handler, getCallbackExecutor());
 	}
 
 	/**
@@ -488,11 +716,83 @@ public class HttpRequestAction extends CoroutineElement {
 			headersFormat.add(entry.getKey());
 			headersFormat.add(entry.getValue());
 		}
+		// Negotiate response compression
+		if (compression != null && !containsHeader("Accept-Encoding")) {
+			headersFormat.add("Accept-Encoding");
+			headersFormat.add(compression.getAcceptEncoding());
+		}
 
 		// Return array with headers
 		return headersFormat.toArray(String[]::new);
 	}
 
+	/**
+	 * Wrap response handler with configured decompression
+	 *
+	 * @param handler Real body handler
+	 * @param <T>     Body type
+	 * @return {@link HttpResponse.BodyHandler} handler result
+	 */
+	@NotNull
+	private <T> HttpResponse.BodyHandler<T> makeBodyHandler(@NotNull HttpResponse.BodyHandler<T> handler) {
+		return compression == null ? handler : compression.decoding(handler);
+	}
+
+	/**
+	 * Encode request body with configured compression
+	 *
+	 * @param builder Request builder. Receives {@code Content-Encoding} header if body is encoded
+	 * @param body    Request body
+	 * @return {@link HttpRequest.BodyPublisher} body result
+	 */
+	@NotNull
+	private HttpRequest.BodyPublisher encodeBody(@NotNull HttpRequest.Builder builder, @NotNull HttpRequest.BodyPublisher body) {
+		if (compression == null || !compression.shouldEncode(body)) return body;
+
+		builder.header("Content-Encoding", Objects.requireNonNull(compression.getRequestCodec()).getName());
+		return compression.encoding(body);
+	}
+
+	/**
+	 * Create multipart data from map. {@link File} and {@link Path} values are sent as files.
+	 *
+	 * @param data Map data
+	 * @return {@link HttpRequestMultipartFormData} multipart result
+	 * @throws IOException if any file not exists
+	 */
+	@NotNull
+	private HttpRequestMultipartFormData makeMultipartFormData(@NotNull Map<String, Object> data) throws IOException {
+		HttpRequestMultipartFormData.Builder formDataBuilder = HttpRequestMultipartFormData.newBuilder();
+
+		for (Map.Entry<String, Object> entry : data.entrySet()) {
+			if (entry.getValue() instanceof File) {
+				formDataBuilder.addFile((File) entry.getValue());
+			} else if (entry.getValue() instanceof Path) {
+				formDataBuilder.addFile(((Path) entry.getValue()).toFile());
+			} else {
+				formDataBuilder.addText(entry.getKey(), (String) entry.getValue());
+			}
+		}
+
+		return formDataBuilder.build();
+	}
+
+	/**
+	 * Check if custom headers contains specific header
+	 *
+	 * @param name Header name (case insensitive)
+	 * @return {@code true} if header is defined
+	 */
+	private boolean containsHeader(@NotNull String name) {
+		if (requestHeaders == null) return false;
+
+		for (String key : requestHeaders.keySet()) {
+			if (key.equalsIgnoreCase(name)) return true;
+		}
+
+		return false;
+	}
+
 	/**
 	 * Create query url data.
 	 *
@@ -503,27 +803,20 @@ public class HttpRequestAction extends CoroutineElement {
 		// check if request is empty
 		if (data.isEmpty()) return requestURI;
 		// Create builder
-		StringBuilder builder = new StringBuilder(requestURI.toString());
-
-		if (requestURI.getQuery() == null) {
-			builder.append("?");
-		} else {
-			builder.append("&");
-		}
+		String current = requestURI.toString();
+		StringBuilder builder = new StringBuilder(current.length() + data.size() * 32);
+		char separator = requestURI.getRawQuery() == null ? '?' : '&';
+		builder.append(current);
 
 		// Iterate all data
 		for (Map.Entry<String, String> entry : data.entrySet()) {
-			builder.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
-			builder.append("=");
-			builder.append(URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
-			builder.append("&");
+			builder.append(separator);
+			PercentEncoder.FORM.encode(entry.getKey(), builder);
+			builder.append('=');
+			PercentEncoder.FORM.encode(entry.getValue(), builder);
+			separator = '&';
 		}
 
-		// Delete last ampersand
-		int lastFound = builder.lastIndexOf("&");
-		if (lastFound != -1) builder.deleteCharAt(lastFound);
-
-		System.out.println(builder.toString());
 		return URI.create(builder.toString());
 	}
 
@@ -533,9 +826,148 @@ public class HttpRequestAction extends CoroutineElement {
 	 * @return {@link HttpRequest.Builder} Instance object
 	 */
 	@NotNull
-	@Contract(value = " -> new", pure = true)
+	@Contract(" -> new")
 	private HttpRequest.Builder getBuilder() {
-		return HttpRequest.newBuilder();
+		HttpRequest.Builder builder = HttpRequest.newBuilder();
+		if (timeout != null) builder.timeout(timeout);
+		return builder;
+	}
+
+	/**
+	 * Start cancellable exchange with request defined headers
+	 *
+	 * @param method    Request method
+	 * @param headers   Request headers. Headers defined with {@link #setRequestHeaders(Map)} have priority
+	 * @param body      Request body or {@code null} if request has no body
+	 * @param handler   Response body handler
+	 * @param callbacks Executor used to complete the future or {@code null} to complete it in client thread
+	 * @param <T>       Response body type
+	 * @return {@link CompletableFuture} request result
+	 */
+	@NotNull
+	private <T> CompletableFuture<HttpResponse<T>> exchange(
+		@NotNull String method,
+		@NotNull Map<String, String> headers,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler,
+		@Nullable Executor callbacks
+	) {
+		return exchange(method, headers, body, handler, callbacks, true);
+	}
+
+	/**
+	 * Start cancellable exchange
+	 *
+	 * @param method        Request method
+	 * @param headers       Request headers. Headers defined with {@link #setRequestHeaders(Map)} have priority
+	 * @param body          Request body or {@code null} if request has no body
+	 * @param handler       Response body handler
+	 * @param callbacks     Executor used to complete the future or {@code null} to complete it in client thread
+	 * @param attachHeaders Attach headers defined with {@link #setRequestHeaders(Map)}
+	 * @param <T>           Response body type
+	 * @return {@link CompletableFuture} request result
+	 */
+	@NotNull
+	private <T> CompletableFuture<HttpResponse<T>> exchange(
+		@NotNull String method,
+		@NotNull Map<String, String> headers,
+		@Nullable HttpRequest.BodyPublisher body,
+		@NotNull HttpResponse.BodyHandler<T> handler,
+		@Nullable Executor callbacks,
+		boolean attachHeaders
+	) {
+		HttpClient client = profile.getClient();
+		ConnectionTracker connections = profile.getConnections();
+		HttpRequest.Builder builder = getBuilder().uri(requestURI);
+		for (Map.Entry<String, String> entry : headers.entrySet()) {
+			if (!containsHeader(entry.getKey())) builder.header(entry.getKey(), entry.getValue());
+		}
+		if (attachHeaders) builder.headers(makeHeaders());
+
+		HttpRequest request = builder
+			.method(method, body == null ? HttpRequest.BodyPublishers.noBody() : encodeBody(builder, body))
+			.build();
+		HttpPolicy.Chain chain = new PolicyChain(getPolicies(), 0, new HttpPolicy.Chain() {
+			@NotNull
+			@Override
+			public <R> CompletableFuture<HttpResponse<R>> proceed(@NotNull HttpCall<R> call) {
+				return connections.send(call, target -> transmit(client, target), false);
+			}
+		});
+
+		return CancellableExchange.send(h -> chain.proceed(HttpCall.of(request, h)), makeBodyHandler(handler), callbacks);
+	}
+
+	/**
+	 * Send call with client. Bodies wait {@code 100 Continue} if expectation is enabled
+	 *
+	 * @param client Target client
+	 * @param call   Target call
+	 * @param <T>    Response body type
+	 * @return {@link CompletableFuture} request result
+	 */
+	@NotNull
+	private <T> CompletableFuture<HttpResponse<T>> transmit(@NotNull HttpClient client, @NotNull HttpCall<T> call) {
+		HttpRequest request = call.getRequest();
+		Optional<HttpRequest.BodyPublisher> body = request.bodyPublisher();
+
+		if (continueTimeout == null || body.isEmpty() || body.get().contentLength() == 0)
+			return client.sendAsync(request, call.getHandler());
+
+		return HttpConnector.sendWithBodyAsync(
+			client,
+			call.newRequestBuilder(),
+			request.method(),
+			body.get(),
+			continueTimeout,
+			call.getHandler()
+		);
+	}
+
+	/**
+	 * Create content type headers
+	 *
+	 * @param contentType Body content type or {@code null} if request has no content type
+	 * @return {@link Map} request headers
+	 */
+	@NotNull
+	private static Map<String, String> contentTypeHeaders(@Nullable String contentType) {
+		return contentType == null ?
+			Collections.emptyMap() :
+			Collections.singletonMap("Content-Type", contentType);
+	}
+
+	/**
+	 * Deliver request result to async action
+	 *
+	 * @param future Request future
+	 * @param action Target action
+	 * @param method Request method. Used to describe the failed request
+	 */
+	private void dispatch(
+		@NotNull CompletableFuture<HttpResponse<String>> future,
+		@NotNull HttpAction<HttpResponse<String>> action,
+		@NotNull String method
+	) {
+		future
+			.thenApply(action::invoke)
+			.exceptionally(e -> action.exceptionally(e, makeSourceRequest(method)))
+			.thenAccept(action::thenAccept);
+	}
+
+	/**
+	 * Create request description for error callbacks
+	 *
+	 * @param method Request method
+	 * @return {@link HttpRequest} request without body
+	 */
+	@NotNull
+	private HttpRequest makeSourceRequest(@NotNull String method) {
+		return getBuilder()
+			.uri(requestURI)
+			.method(method, HttpRequest.BodyPublishers.noBody())
+			.headers(makeHeaders())
+			.build();
 	}
 
 	/* ---------------------------------------------------------
@@ -0,0 +1,584 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class to manage form request ({@code application/x-www-form-urlencoded}).
+ * Data is percent-encoded directly into body chunks when the client requests them,
+ * so large forms never exist as a single string or byte array.
+ */
+public final class HttpRequestFormData {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Form content type
+	 */
+	public static final String CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+	/**
+	 * Max size of every body chunk
+	 */
+	static final int CHUNK_SIZE = 16 * 1024;
+
+	/**
+	 * Max encoded bytes of one numeric or boolean value
+	 */
+	private static final int MAX_PRIMITIVE_BYTES = 20;
+
+	/**
+	 * Long min value digits (cannot be negated)
+	 */
+	private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Boolean true bytes
+	 */
+	private static final byte[] TRUE_VALUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Boolean false bytes
+	 */
+	private static final byte[] FALSE_VALUE = "false".getBytes(StandardCharsets.US_ASCII);
+
+	/**
+	 * Form entries
+	 */
+	private final FormEntry[] entries;
+
+	/**
+	 * Total encoded length
+	 */
+	private final long contentLength;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * This class cannot be instanced.
+	 *
+	 * @param entries Form entries
+	 */
+	private HttpRequestFormData(@NotNull FormEntry[] entries) {
+		this.entries = entries;
+
+		long length = entries.length == 0 ? 0 : entries.length - 1;
+		for (FormEntry entry : entries) length += entry.encodedLength();
+		contentLength = length;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get request content type.
+	 *
+	 * @return content type request.
+	 */
+	public String getContentType() {
+		return CONTENT_TYPE;
+	}
+
+	/**
+	 * Get encoded body size.
+	 *
+	 * @return Body size in bytes
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * Get body publisher request. Publisher can be subscribed many times (retries).
+	 *
+	 * @return body publisher.
+	 */
+	public HttpRequest.BodyPublisher getBodyPublisher() {
+		if (contentLength == 0) return HttpRequest.BodyPublishers.noBody();
+		return HttpRequest.BodyPublishers.fromPublisher(this::subscribe, contentLength);
+	}
+
+	/**
+	 * Create request builder.
+	 *
+	 * @return {@link HttpRequestFormData.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Create form from map data. Iterable and array values are sent as multi-valued keys.
+	 *
+	 * @param data Target data
+	 * @return {@link HttpRequestFormData} form result
+	 */
+	@NotNull
+	public static HttpRequestFormData of(@NotNull Map<?, ?> data) {
+		Builder builder = newBuilder();
+
+		for (Map.Entry<?, ?> entry : data.entrySet())
+			builder.add(String.valueOf(entry.getKey()), entry.getValue());
+
+		return builder.build();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Subscribe body chunks
+	 *
+	 * @param subscriber Target subscriber
+	 */
+	private void subscribe(@NotNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+		subscriber.onSubscribe(new FormSubscription(subscriber));
+	}
+
+	/**
+	 * Count decimal digits
+	 *
+	 * @param value Target value
+	 * @return Digits count (including sign)
+	 */
+	private static int longLength(long value) {
+		if (value == Long.MIN_VALUE) return LONG_MIN_VALUE.length;
+
+		int length = value < 0 ? 2 : 1;
+		long current = Math.abs(value);
+
+		while (current >= 10) {
+			current /= 10;
+			length++;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Write decimal digits into buffer
+	 *
+	 * @param value  Target value
+	 * @param output Target buffer
+	 */
+	private static void putLong(long value, @NotNull ByteBuffer output) {
+		if (value == Long.MIN_VALUE) {
+			output.put(LONG_MIN_VALUE);
+			return;
+		}
+
+		int length = longLength(value);
+		int end = output.position() + length;
+		long current = Math.abs(value);
+
+		for (int i = end - 1; i >= end - length; i--) {
+			output.put(i, (byte) ('0' + (current % 10)));
+			current /= 10;
+		}
+
+		if (value < 0) output.put(end - length, (byte) '-');
+		output.position(end);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder section
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Builder class.
+	 */
+	public static final class Builder {
+
+		/**
+		 * Form entries
+		 */
+		private final List<FormEntry> entries = new ArrayList<>();
+
+		/**
+		 * Create empty builder.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Add text value.
+		 *
+		 * @param name  Key name.
+		 * @param value Key value.
+		 * @return Current builder instance.
+		 */
+		public Builder add(@NotNull String name, @NotNull CharSequence value) {
+			entries.add(new FormEntry(name, FormEntry.TEXT, value.toString(), 0));
+			return this;
+		}
+
+		/**
+		 * Add numeric value.
+		 *
+		 * @param name  Key name.
+		 * @param value Key value.
+		 * @return Current builder instance.
+		 */
+		public Builder add(@NotNull String name, long value) {
+			entries.add(new FormEntry(name, FormEntry.LONG, null, value));
+			return this;
+		}
+
+		/**
+		 * Add numeric value.
+		 *
+		 * @param name  Key name.
+		 * @param value Key value.
+		 * @return Current builder instance.
+		 */
+		public Builder add(@NotNull String name, double value) {
+			return add(name, Double.toString(value));
+		}
+
+		/**
+		 * Add boolean value.
+		 *
+		 * @param name  Key name.
+		 * @param value Key value.
+		 * @return Current builder instance.
+		 */
+		public Builder add(@NotNull String name, boolean value) {
+			entries.add(new FormEntry(name, FormEntry.BOOLEAN, null, value ? 1 : 0));
+			return this;
+		}
+
+		/**
+		 * Add any value. Numbers and booleans are written without string conversion,
+		 * iterables and arrays are added as multi-valued keys and {@code null} as empty value.
+		 *
+		 * @param name  Key name.
+		 * @param value Key value.
+		 * @return Current builder instance.
+		 */
+		public Builder add(@NotNull String name, @Nullable Object value) {
+			if (value == null) return add(name, "");
+			if (value instanceof CharSequence) return add(name, (CharSequence) value);
+			if (value instanceof Boolean) return add(name, (boolean) (Boolean) value);
+			if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+				return add(name, ((Number) value).longValue());
+			if (value instanceof Double || value instanceof Float) return add(name, ((Number) value).doubleValue());
+			if (value instanceof Iterable) return addAll(name, (Iterable<?>) value);
+			if (value.getClass().isArray()) {
+				for (int i = 0; i < Array.getLength(value); i++)
+					add(name, Array.get(value, i));
+				return this;
+			}
+
+			return add(name, value.toString());
+		}
+
+		/**
+		 * Add multi-valued key.
+		 *
+		 * @param name   Key name.
+		 * @param values Key values.
+		 * @return Current builder instance.
+		 */
+		public Builder addAll(@NotNull String name, @NotNull Iterable<?> values) {
+			for (Object value : values) add(name, value);
+			return this;
+		}
+
+		/**
+		 * Build request data.
+		 *
+		 * @return {@link HttpRequestFormData} Instance request result.
+		 */
+		@NotNull
+		public HttpRequestFormData build() {
+			return new HttpRequestFormData(entries.toArray(FormEntry[]::new));
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Entry class
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Form key pair
+	 */
+	private static final class FormEntry {
+
+		/**
+		 * Text value type
+		 */
+		private static final int TEXT = 0;
+
+		/**
+		 * Numeric value type
+		 */
+		private static final int LONG = 1;
+
+		/**
+		 * Boolean value type
+		 */
+		private static final int BOOLEAN = 2;
+
+		/**
+		 * Key name
+		 */
+		private final String name;
+
+		/**
+		 * Value type
+		 */
+		private final int type;
+
+		/**
+		 * Text value
+		 */
+		private final String text;
+
+		/**
+		 * Numeric or boolean value
+		 */
+		private final long number;
+
+		/**
+		 * Create form entry
+		 *
+		 * @param name   Key name
+		 * @param type   Value type
+		 * @param text   Text value
+		 * @param number Numeric value
+		 */
+		private FormEntry(@NotNull String name, int type, @Nullable String text, long number) {
+			this.name = name;
+			this.type = type;
+			this.text = text;
+			this.number = number;
+		}
+
+		/**
+		 * Calculate encoded entry length ("name=value")
+		 *
+		 * @return Encoded length
+		 */
+		private long encodedLength() {
+			long length = PercentEncoder.FORM.encodedLength(name) + 1;
+
+			switch (type) {
+				case LONG:
+					return length + longLength(number);
+				case BOOLEAN:
+					return length + (number != 0 ? TRUE_VALUE.length : FALSE_VALUE.length);
+				default:
+					return length + PercentEncoder.FORM.encodedLength(text);
+			}
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Subscription class
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Body subscription. Every subscription has its own encoder cursor.
+	 */
+	private final class FormSubscription implements Flow.Subscription {
+
+		/**
+		 * Separator step
+		 */
+		private static final int STEP_SEPARATOR = 0;
+
+		/**
+		 * Key name step
+		 */
+		private static final int STEP_NAME = 1;
+
+		/**
+		 * Equals sign step
+		 */
+		private static final int STEP_EQUALS = 2;
+
+		/**
+		 * Key value step
+		 */
+		private static final int STEP_VALUE = 3;
+
+		/**
+		 * Body subscriber
+		 */
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+		/**
+		 * Requested chunks
+		 */
+		private final AtomicLong demand = new AtomicLong();
+
+		/**
+		 * Drain loop guard
+		 */
+		private final AtomicInteger wip = new AtomicInteger();
+
+		/**
+		 * Current entry
+		 */
+		private int entryIndex;
+
+		/**
+		 * Current entry step
+		 */
+		private int step = STEP_SEPARATOR;
+
+		/**
+		 * Current text character
+		 */
+		private int charIndex;
+
+		/**
+		 * Subscription was cancelled
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Subscription completed
+		 */
+		private boolean completed;
+
+		/**
+		 * Create subscription
+		 *
+		 * @param subscriber Body subscriber
+		 */
+		private FormSubscription(@NotNull Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		/**
+		 * Request body chunks
+		 *
+		 * @param n Chunks count
+		 */
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				cancelled = true;
+				subscriber.onError(new IllegalArgumentException("Requested chunks must be positive."));
+				return;
+			}
+
+			demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+			drain();
+		}
+
+		/**
+		 * Cancel subscription
+		 */
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		/**
+		 * Emit requested chunks
+		 */
+		private void drain() {
+			if (wip.getAndIncrement() != 0) return;
+
+			do {
+				while (!cancelled && !completed && entryIndex < entries.length && demand.get() > 0) {
+					ByteBuffer chunk = nextChunk();
+					demand.decrementAndGet();
+					subscriber.onNext(chunk);
+				}
+
+				if (!cancelled && !completed && entryIndex >= entries.length) {
+					completed = true;
+					subscriber.onComplete();
+				}
+			} while (wip.decrementAndGet() != 0);
+		}
+
+		/**
+		 * Encode next body chunk
+		 *
+		 * @return Encoded chunk
+		 */
+		@NotNull
+		private ByteBuffer nextChunk() {
+			ByteBuffer chunk = ByteBuffer.allocate((int) Math.max(MAX_PRIMITIVE_BYTES, Math.min(CHUNK_SIZE, contentLength)));
+
+			while (entryIndex < entries.length && chunk.remaining() >= MAX_PRIMITIVE_BYTES) {
+				FormEntry entry = entries[entryIndex];
+
+				switch (step) {
+					case STEP_SEPARATOR:
+						if (entryIndex != 0) chunk.put((byte) '&');
+						step = STEP_NAME;
+						break;
+					case STEP_NAME:
+						charIndex = PercentEncoder.FORM.encode(entry.name, charIndex, chunk);
+						if (charIndex < entry.name.length()) continue;
+						charIndex = 0;
+						step = STEP_EQUALS;
+						break;
+					case STEP_EQUALS:
+						chunk.put((byte) '=');
+						step = STEP_VALUE;
+						break;
+					default:
+						if (entry.type == FormEntry.LONG) {
+							putLong(entry.number, chunk);
+						} else if (entry.type == FormEntry.BOOLEAN) {
+							chunk.put(entry.number != 0 ? TRUE_VALUE : FALSE_VALUE);
+						} else {
+							charIndex = PercentEncoder.FORM.encode(entry.text, charIndex, chunk);
+							if (charIndex < entry.text.length()) continue;
+						}
+
+						charIndex = 0;
+						step = STEP_SEPARATOR;
+						entryIndex++;
+						break;
+				}
+			}
+
+			return chunk.flip();
+		}
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.github.ushiosan23.networkutils.http;
 
+import com.github.ushiosan23.networkutils.http.mime.MimeTypeResolver;
+import com.github.ushiosan23.networkutils.http.mime.MimeTypes;
 import kotlin.Pair;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -115,6 +117,11 @@ public final class HttpRequestMultipartFormData {
 		 */
 		private Charset charset = StandardCharsets.UTF_8;
 
+		/**
+		 * Resolver used to detect file parts content type.
+		 */
+		private MimeTypeResolver mimeTypeResolver = MimeTypes.getDefaultResolver();
+
 		/* ---------------------------------------------------------
 		 *
 		 * Constructors
@@ -156,6 +163,17 @@ public final class HttpRequestMultipartFormData {
 			return this;
 		}
 
+		/**
+		 * Change content type resolver.
+		 *
+		 * @param resolver Resolver element.
+		 * @return Current builder instance.
+		 */
+		public Builder withMimeTypeResolver(@NotNull MimeTypeResolver resolver) {
+			mimeTypeResolver = Objects.requireNonNull(resolver);
+			return this;
+		}
+
 		/**
 		 * Add resource request file.
 		 *
@@ -225,7 +243,7 @@ public final class HttpRequestMultipartFormData {
 					dataItem.getResourcePath().getFileName()
 				).getBytes(charset));
 				stream.write(newLine);
-				stream.write(String.format("Content-Type: %s", dataItem.getMimeType()).getBytes(charset));
+				stream.write(String.format("Content-Type: %s", dataItem.getMimeType(mimeTypeResolver)).getBytes(charset));
 				stream.write(newLine);
 				stream.write(newLine);
 				stream.write(Files.readAllBytes(dataItem.getResourcePath()));
@@ -289,16 +307,20 @@ public final class HttpRequestMultipartFormData {
 		/**
 		 * Get file mime type.
 		 *
-		 * @return File mime type
+		 * @return File mime type or {@link MimeTypes#DEFAULT_MIME_TYPE} if type is unknown
 		 */
 		public String getMimeType() {
-			try {
-				Path path = fileResource.toPath();
-				return Files.probeContentType(path);
-			} catch (Exception e) {
-				e.printStackTrace();
-				return "plain/text";
-			}
+			return getMimeType(MimeTypes.getDefaultResolver());
+		}
+
+		/**
+		 * Get file mime type with specific resolver.
+		 *
+		 * @param resolver Target resolver
+		 * @return File mime type or {@link MimeTypes#DEFAULT_MIME_TYPE} if type is unknown
+		 */
+		public String getMimeType(@NotNull MimeTypeResolver resolver) {
+			return MimeTypes.resolveOrDefault(resolver, fileResource.toPath());
 		}
 
 		/**
@@ -0,0 +1,292 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+
+/**
+ * TLS configuration of a client profile ({@link HttpClientProfile.Builder#withTls(HttpTlsConfig)}).
+ * Defines the SSL context, enabled protocols and cipher suites, ALPN protocols and the size of the
+ * client session cache used to resume sessions. Each profile gets its own session cache unless an
+ * external context is used.
+ */
+public final class HttpTlsConfig {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * External context or {@code null} to create one
+	 */
+	private final SSLContext context;
+
+	/**
+	 * Trusted certificates or {@code null} to use system trust store
+	 */
+	private final KeyStore trustStore;
+
+	/**
+	 * Enabled protocols or {@code null} to use context defaults
+	 */
+	private final String[] protocols;
+
+	/**
+	 * Enabled cipher suites or {@code null} to use context defaults
+	 */
+	private final String[] cipherSuites;
+
+	/**
+	 * ALPN protocols or {@code null} to let the client choose
+	 */
+	private final String[] applicationProtocols;
+
+	/**
+	 * Session cache size or {@code -1} to keep context default
+	 */
+	private final int sessionCacheSize;
+
+	/**
+	 * Session timeout or {@code null} to keep context default
+	 */
+	private final Duration sessionTimeout;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create configuration from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private HttpTlsConfig(@NotNull Builder builder) {
+		context = builder.context;
+		trustStore = builder.trustStore;
+		protocols = builder.protocols;
+		cipherSuites = builder.cipherSuites;
+		applicationProtocols = builder.applicationProtocols;
+		sessionCacheSize = builder.sessionCacheSize;
+		sessionTimeout = builder.sessionTimeout;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create configuration builder
+	 *
+	 * @return {@link HttpTlsConfig.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Create the SSL context and configure its session cache
+	 *
+	 * @return {@link SSLContext} context instance
+	 * @throws IllegalStateException Error if context cannot be created
+	 */
+	@NotNull
+	SSLContext createContext() {
+		SSLContext result = context;
+
+		if (result == null) {
+			try {
+				TrustManagerFactory trust = null;
+				if (trustStore != null) {
+					trust = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+					trust.init(trustStore);
+				}
+
+				result = SSLContext.getInstance("TLS");
+				result.init(null, trust == null ? null : trust.getTrustManagers(), null);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("SSL context cannot be created.", e);
+			}
+		}
+
+		SSLSessionContext sessions = result.getClientSessionContext();
+		if (sessions != null && sessionCacheSize >= 0) sessions.setSessionCacheSize(sessionCacheSize);
+		if (sessions != null && sessionTimeout != null)
+			sessions.setSessionTimeout((int) Math.min(Integer.MAX_VALUE, sessionTimeout.getSeconds()));
+		return result;
+	}
+
+	/**
+	 * Create client parameters
+	 *
+	 * @param context Target context
+	 * @return {@link SSLParameters} parameters with configured protocols, cipher suites and ALPN
+	 */
+	@NotNull
+	SSLParameters createParameters(@NotNull SSLContext context) {
+		SSLParameters result = context.getDefaultSSLParameters();
+
+		if (protocols != null) result.setProtocols(protocols.clone());
+		if (cipherSuites != null) result.setCipherSuites(cipherSuites.clone());
+		if (applicationProtocols != null) result.setApplicationProtocols(applicationProtocols.clone());
+		return result;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * TLS configuration builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * External context
+		 */
+		private SSLContext context;
+
+		/**
+		 * Trusted certificates
+		 */
+		private KeyStore trustStore;
+
+		/**
+		 * Enabled protocols
+		 */
+		private String[] protocols;
+
+		/**
+		 * Enabled cipher suites
+		 */
+		private String[] cipherSuites;
+
+		/**
+		 * ALPN protocols
+		 */
+		private String[] applicationProtocols;
+
+		/**
+		 * Session cache size
+		 */
+		private int sessionCacheSize = -1;
+
+		/**
+		 * Session timeout
+		 */
+		private Duration sessionTimeout;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Use external SSL context (client certificates, custom providers, etc.). Its session cache is shared
+		 * with every user of the context. By default a new context with the system trust store is created.
+		 *
+		 * @param context Initialized context or {@code null} to create one
+		 * @return Current builder instance.
+		 */
+		public Builder withContext(@Nullable SSLContext context) {
+			this.context = context;
+			return this;
+		}
+
+		/**
+		 * Trust only the certificates of the store (private CA, self-signed servers, etc.).
+		 * Ignored if an external context is used.
+		 *
+		 * @param trustStore Trusted certificates or {@code null} to use system trust store
+		 * @return Current builder instance.
+		 */
+		public Builder withTrustStore(@Nullable KeyStore trustStore) {
+			this.trustStore = trustStore;
+			return this;
+		}
+
+		/**
+		 * Set enabled protocols ({@code TLSv1.3}, {@code TLSv1.2}).
+		 *
+		 * @param protocols Protocol names
+		 * @return Current builder instance.
+		 */
+		public Builder withProtocols(@NotNull String... protocols) {
+			if (protocols.length == 0) throw new IllegalArgumentException("At least one protocol is required.");
+
+			this.protocols = protocols.clone();
+			return this;
+		}
+
+		/**
+		 * Set enabled cipher suites in preference order.
+		 *
+		 * @param cipherSuites Cipher suite names
+		 * @return Current builder instance.
+		 */
+		public Builder withCipherSuites(@NotNull String... cipherSuites) {
+			if (cipherSuites.length == 0) throw new IllegalArgumentException("At least one cipher suite is required.");
+
+			this.cipherSuites = cipherSuites.clone();
+			return this;
+		}
+
+		/**
+		 * Set ALPN protocols. Only used by HTTP/1.1 profiles, HTTP/2 profiles always offer
+		 * {@code h2} and {@code http/1.1}.
+		 *
+		 * @param protocols Application protocols in preference order
+		 * @return Current builder instance.
+		 */
+		public Builder withApplicationProtocols(@NotNull String... protocols) {
+			applicationProtocols = protocols.clone();
+			return this;
+		}
+
+		/**
+		 * Set client session cache. Cached sessions let new connections resume instead of
+		 * doing a full handshake.
+		 *
+		 * @param size    Max cached sessions or {@code 0} if unlimited
+		 * @param timeout Max session lifetime
+		 * @return Current builder instance.
+		 */
+		public Builder withSessionCache(int size, @NotNull Duration timeout) {
+			if (size < 0 || timeout.isNegative()) throw new IllegalArgumentException("Size and timeout cannot be negative.");
+
+			sessionCacheSize = size;
+			sessionTimeout = timeout;
+			return this;
+		}
+
+		/**
+		 * Build TLS configuration.
+		 *
+		 * @return {@link HttpTlsConfig} Instance result.
+		 */
+		@NotNull
+		public HttpTlsConfig build() {
+			return new HttpTlsConfig(this);
+		}
+
+	}
+
+}
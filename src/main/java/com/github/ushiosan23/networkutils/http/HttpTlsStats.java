@@ -0,0 +1,135 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+
+/**
+ * TLS handshake statistics of a client profile.
+ * Snapshot taken by {@link HttpClientProfile#getTlsStats()}.
+ */
+public final class HttpTlsStats {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Finished handshakes
+	 */
+	private final long handshakes;
+
+	/**
+	 * Resumed handshakes
+	 */
+	private final long resumed;
+
+	/**
+	 * Failed handshakes
+	 */
+	private final long failed;
+
+	/**
+	 * Total handshake time
+	 */
+	private final long handshakeNanos;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create statistics snapshot
+	 *
+	 * @param handshakes     Finished handshakes
+	 * @param resumed        Resumed handshakes
+	 * @param failed         Failed handshakes
+	 * @param handshakeNanos Total handshake time
+	 */
+	HttpTlsStats(long handshakes, long resumed, long failed, long handshakeNanos) {
+		this.handshakes = handshakes;
+		this.resumed = resumed;
+		this.failed = failed;
+		this.handshakeNanos = handshakeNanos;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get finished handshakes (full and resumed)
+	 *
+	 * @return Handshakes count
+	 */
+	public long getHandshakes() {
+		return handshakes;
+	}
+
+	/**
+	 * Get handshakes that resumed a cached session
+	 *
+	 * @return Resumed handshakes count
+	 */
+	public long getResumed() {
+		return resumed;
+	}
+
+	/**
+	 * Get failed handshakes (untrusted certificates, protocol mismatch, etc.)
+	 *
+	 * @return Failed handshakes count
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	/**
+	 * Get rate of handshakes that resumed a cached session
+	 *
+	 * @return Resumption rate (0-1) or {@code 0} if there are no handshakes
+	 */
+	public double getResumptionRate() {
+		return handshakes == 0 ? 0 : (double) resumed / handshakes;
+	}
+
+	/**
+	 * Get total time spent in finished handshakes
+	 *
+	 * @return {@link Duration} total handshake time
+	 */
+	@NotNull
+	public Duration getTotalTime() {
+		return Duration.ofNanos(handshakeNanos);
+	}
+
+	/**
+	 * Get average handshake time
+	 *
+	 * @return {@link Duration} average time or {@link Duration#ZERO} if there are no handshakes
+	 */
+	@NotNull
+	public Duration getAverageTime() {
+		return handshakes == 0 ? Duration.ZERO : Duration.ofNanos(handshakeNanos / handshakes);
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"HttpTlsStats[handshakes=%d, resumed=%d, failed=%d, resumption-rate=%.2f, average=%dus]",
+			handshakes, resumed, failed, getResumptionRate(), getAverageTime().toNanos() / 1000
+		);
+	}
+
+}
@@ -0,0 +1,484 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled uri template (RFC 6570).
+ * Template is parsed once, every expansion only appends literals and encoded values.
+ * <p>
+ * Supported expressions: {@code {var}}, {@code {+var}}, {@code {#var}}, {@code {.var}},
+ * {@code {/var}}, {@code {;var}}, {@code {?var}} and {@code {&var}} with prefix ({@code {var:3}})
+ * and explode ({@code {var*}}) modifiers. Values can be text, numbers, booleans, iterables and maps.
+ */
+public final class HttpUriTemplate {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Original template
+	 */
+	private final String template;
+
+	/**
+	 * Literal parts. {@code literals[i]} is written before {@code expressions[i]}
+	 */
+	private final String[] literals;
+
+	/**
+	 * Template expressions
+	 */
+	private final Expression[] expressions;
+
+	/**
+	 * Size of all literal parts
+	 */
+	private final int literalLength;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * This class cannot be instanced.
+	 *
+	 * @param template    Original template
+	 * @param literals    Literal parts
+	 * @param expressions Template expressions
+	 */
+	private HttpUriTemplate(@NotNull String template, @NotNull String[] literals, @NotNull Expression[] expressions) {
+		this.template = template;
+		this.literals = literals;
+		this.expressions = expressions;
+
+		int length = 0;
+		for (String literal : literals) length += literal.length();
+		literalLength = length;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Compile uri template.
+	 *
+	 * @param template Target template
+	 * @return {@link HttpUriTemplate} compiled template
+	 * @throws IllegalArgumentException if template is not valid
+	 */
+	@NotNull
+	@Contract("_ -> new")
+	public static HttpUriTemplate compile(@NotNull String template) {
+		List<String> literals = new ArrayList<>();
+		List<Expression> expressions = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int index = 0;
+
+		while (index < template.length()) {
+			int start = template.indexOf('{', index);
+			int end = start == -1 ? -1 : template.indexOf('}', start);
+
+			if (start == -1) {
+				PercentEncoder.RESERVED.encode(template.substring(index), literal);
+				break;
+			}
+			if (end == -1)
+				throw new IllegalArgumentException(String.format("Unclosed expression in template \"%s\".", template));
+
+			PercentEncoder.RESERVED.encode(template.substring(index, start), literal);
+			literals.add(literal.toString());
+			literal.setLength(0);
+			expressions.add(Expression.parse(template, template.substring(start + 1, end)));
+			index = end + 1;
+		}
+
+		literals.add(literal.toString());
+		return new HttpUriTemplate(template, literals.toArray(String[]::new), expressions.toArray(Expression[]::new));
+	}
+
+	/**
+	 * Expand template values. Missing or {@code null} values are ignored.
+	 *
+	 * @param variables Template values
+	 * @return Expanded uri string
+	 */
+	@NotNull
+	public String expand(@NotNull Map<String, ?> variables) {
+		StringBuilder builder = new StringBuilder(literalLength + expressions.length * 16);
+
+		for (int i = 0; i < expressions.length; i++) {
+			builder.append(literals[i]);
+			expressions[i].expand(variables, builder);
+		}
+
+		return builder.append(literals[expressions.length]).toString();
+	}
+
+	/**
+	 * Expand template values as uri object.
+	 *
+	 * @param variables Template values
+	 * @return {@link URI} expanded uri
+	 */
+	@NotNull
+	public URI toUri(@NotNull Map<String, ?> variables) {
+		return URI.create(expand(variables));
+	}
+
+	/**
+	 * Get original template
+	 *
+	 * @return Template string
+	 */
+	@NotNull
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Original template
+	 */
+	@Override
+	public String toString() {
+		return template;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Append value as text
+	 *
+	 * @param value   Target value
+	 * @param encoder Expression encoder
+	 * @param prefix  Max code points or {@code -1} for all
+	 * @param builder Target builder
+	 */
+	private static void appendValue(@NotNull Object value, @NotNull PercentEncoder encoder, int prefix, @NotNull StringBuilder builder) {
+		// Digits and sign never need encoding
+		if (prefix < 0 && (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+			builder.append(((Number) value).longValue());
+			return;
+		}
+
+		CharSequence text = value instanceof CharSequence ? (CharSequence) value : value.toString();
+		if (prefix >= 0 && prefix < text.length()) {
+			String string = text.toString();
+			text = string.substring(0, string.offsetByCodePoints(0, Math.min(prefix, string.codePointCount(0, string.length()))));
+		}
+
+		if (encoder.isSafe(text)) {
+			builder.append(text);
+		} else {
+			encoder.encode(text, builder);
+		}
+	}
+
+	/**
+	 * Get list values
+	 *
+	 * @param value Target value
+	 * @return Iterable values or {@code null} if is not a list
+	 */
+	@Nullable
+	private static Iterable<?> asIterable(@NotNull Object value) {
+		if (value instanceof Iterable) return (Iterable<?>) value;
+		if (value instanceof Object[]) return Arrays.asList((Object[]) value);
+		return null;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Expression class
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Template expression
+	 */
+	private static final class Expression {
+
+		/**
+		 * Text written before the first defined value
+		 */
+		private final String first;
+
+		/**
+		 * Values separator
+		 */
+		private final char separator;
+
+		/**
+		 * Write variable names
+		 */
+		private final boolean named;
+
+		/**
+		 * Text written after name when value is empty
+		 */
+		private final String ifEmpty;
+
+		/**
+		 * Value encoder
+		 */
+		private final PercentEncoder encoder;
+
+		/**
+		 * Expression variables
+		 */
+		private final VarSpec[] variables;
+
+		/**
+		 * Create expression
+		 *
+		 * @param first     First text
+		 * @param separator Values separator
+		 * @param named     Write names
+		 * @param ifEmpty   Empty value text
+		 * @param reserved  Allow reserved characters
+		 * @param variables Expression variables
+		 */
+		private Expression(String first, char separator, boolean named, String ifEmpty, boolean reserved, VarSpec[] variables) {
+			this.first = first;
+			this.separator = separator;
+			this.named = named;
+			this.ifEmpty = ifEmpty;
+			this.encoder = reserved ? PercentEncoder.RESERVED : PercentEncoder.UNRESERVED;
+			this.variables = variables;
+		}
+
+		/**
+		 * Parse expression content
+		 *
+		 * @param template Original template
+		 * @param content  Expression content without braces
+		 * @return {@link Expression} parsed expression
+		 */
+		@NotNull
+		private static Expression parse(@NotNull String template, @NotNull String content) {
+			if (content.isEmpty())
+				throw new IllegalArgumentException(String.format("Empty expression in template \"%s\".", template));
+
+			char operator = content.charAt(0);
+			String list = "+#./;?&".indexOf(operator) == -1 ? content : content.substring(1);
+			String[] names = list.split(",", -1);
+			VarSpec[] variables = new VarSpec[names.length];
+
+			for (int i = 0; i < names.length; i++)
+				variables[i] = VarSpec.parse(template, names[i]);
+
+			switch (operator) {
+				case '+':
+					return new Expression("", ',', false, "", true, variables);
+				case '#':
+					return new Expression("#", ',', false, "", true, variables);
+				case '.':
+					return new Expression(".", '.', false, "", false, variables);
+				case '/':
+					return new Expression("/", '/', false, "", false, variables);
+				case ';':
+					return new Expression(";", ';', true, "", false, variables);
+				case '?':
+					return new Expression("?", '&', true, "=", false, variables);
+				case '&':
+					return new Expression("&", '&', true, "=", false, variables);
+				default:
+					return new Expression("", ',', false, "", false, variables);
+			}
+		}
+
+		/**
+		 * Expand expression values
+		 *
+		 * @param values  Template values
+		 * @param builder Target builder
+		 */
+		private void expand(@NotNull Map<String, ?> values, @NotNull StringBuilder builder) {
+			boolean isFirst = true;
+
+			for (VarSpec variable : variables) {
+				Object value = values.get(variable.name);
+				if (value == null || isEmptyComposite(value)) continue;
+
+				if (isFirst) builder.append(first);
+				else builder.append(separator);
+				isFirst = false;
+
+				if (value instanceof Map) {
+					expandMap(variable, (Map<?, ?>) value, builder);
+					continue;
+				}
+
+				Iterable<?> iterable = asIterable(value);
+				if (iterable != null) {
+					expandList(variable, iterable, builder);
+					continue;
+				}
+
+				if (named) {
+					builder.append(variable.name);
+					CharSequence text = value instanceof CharSequence ? (CharSequence) value : null;
+					if (text != null && text.length() == 0) {
+						builder.append(ifEmpty);
+						continue;
+					}
+					builder.append('=');
+				}
+
+				appendValue(value, encoder, variable.prefix, builder);
+			}
+		}
+
+		/**
+		 * Expand list value
+		 *
+		 * @param variable Target variable
+		 * @param values   List values
+		 * @param builder  Target builder
+		 */
+		private void expandList(@NotNull VarSpec variable, @NotNull Iterable<?> values, @NotNull StringBuilder builder) {
+			Iterator<?> iterator = values.iterator();
+
+			if (!variable.explode && named) builder.append(variable.name).append('=');
+
+			while (iterator.hasNext()) {
+				Object item = iterator.next();
+
+				if (variable.explode && named) {
+					builder.append(variable.name);
+					if (item instanceof CharSequence && ((CharSequence) item).length() == 0) builder.append(ifEmpty);
+					else builder.append('=');
+				}
+
+				appendValue(item, encoder, -1, builder);
+				if (iterator.hasNext()) builder.append(variable.explode ? separator : ',');
+			}
+		}
+
+		/**
+		 * Expand map value
+		 *
+		 * @param variable Target variable
+		 * @param values   Map values
+		 * @param builder  Target builder
+		 */
+		private void expandMap(@NotNull VarSpec variable, @NotNull Map<?, ?> values, @NotNull StringBuilder builder) {
+			Iterator<? extends Map.Entry<?, ?>> iterator = values.entrySet().iterator();
+
+			if (!variable.explode && named) builder.append(variable.name).append('=');
+
+			while (iterator.hasNext()) {
+				Map.Entry<?, ?> entry = iterator.next();
+
+				appendValue(String.valueOf(entry.getKey()), encoder, -1, builder);
+				builder.append(variable.explode ? '=' : ',');
+				appendValue(entry.getValue() == null ? "" : entry.getValue(), encoder, -1, builder);
+				if (iterator.hasNext()) builder.append(variable.explode ? separator : ',');
+			}
+		}
+
+		/**
+		 * Empty lists and maps are undefined values
+		 *
+		 * @param value Target value
+		 * @return {@code true} if value is an empty list or map
+		 */
+		private static boolean isEmptyComposite(@NotNull Object value) {
+			if (value instanceof Map) return ((Map<?, ?>) value).isEmpty();
+			Iterable<?> iterable = asIterable(value);
+			return iterable != null && !iterable.iterator().hasNext();
+		}
+
+	}
+
+	/**
+	 * Expression variable
+	 */
+	private static final class VarSpec {
+
+		/**
+		 * Variable name
+		 */
+		private final String name;
+
+		/**
+		 * Explode modifier
+		 */
+		private final boolean explode;
+
+		/**
+		 * Prefix modifier or {@code -1}
+		 */
+		private final int prefix;
+
+		/**
+		 * Create variable
+		 *
+		 * @param name    Variable name
+		 * @param explode Explode modifier
+		 * @param prefix  Prefix modifier
+		 */
+		private VarSpec(String name, boolean explode, int prefix) {
+			this.name = name;
+			this.explode = explode;
+			this.prefix = prefix;
+		}
+
+		/**
+		 * Parse variable specification
+		 *
+		 * @param template Original template
+		 * @param spec     Variable specification
+		 * @return {@link VarSpec} parsed variable
+		 */
+		@NotNull
+		private static VarSpec parse(@NotNull String template, @NotNull String spec) {
+			String name = spec;
+			boolean explode = false;
+			int prefix = -1;
+
+			if (name.endsWith("*")) {
+				explode = true;
+				name = name.substring(0, name.length() - 1);
+			} else if (name.indexOf(':') != -1) {
+				try {
+					prefix = Integer.parseInt(name.substring(name.indexOf(':') + 1));
+				} catch (NumberFormatException e) {
+					prefix = 0;
+				}
+				if (prefix <= 0 || prefix >= 10000)
+					throw new IllegalArgumentException(String.format("Invalid prefix \"%s\" in template \"%s\".", spec, template));
+				name = name.substring(0, name.indexOf(':'));
+			}
+
+			if (name.isEmpty() || !PercentEncoder.UNRESERVED.isSafe(name.replace("%", "")))
+				throw new IllegalArgumentException(String.format("Invalid variable \"%s\" in template \"%s\".", spec, template));
+
+			return new VarSpec(name, explode, prefix);
+		}
+
+	}
+
+}
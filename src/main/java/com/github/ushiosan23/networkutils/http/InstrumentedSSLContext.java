@@ -0,0 +1,471 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * SSL context that measures the handshakes of its engines.
+ * The client creates one engine per connection, so every full or resumed handshake is seen here.
+ * A handshake is resumed if its session was created before the handshake started.
+ */
+final class InstrumentedSSLContext extends SSLContext {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Handshake counters
+	 */
+	private final Metrics metrics;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create instrumented context
+	 *
+	 * @param delegate Real context
+	 */
+	InstrumentedSSLContext(@NotNull SSLContext delegate) {
+		this(delegate, new Metrics());
+	}
+
+	/**
+	 * Create instrumented context with its counters
+	 *
+	 * @param delegate Real context
+	 * @param metrics  Handshake counters
+	 */
+	private InstrumentedSSLContext(@NotNull SSLContext delegate, @NotNull Metrics metrics) {
+		super(new Spi(delegate, metrics), delegate.getProvider(), delegate.getProtocol());
+		this.metrics = metrics;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create statistics snapshot
+	 *
+	 * @return {@link HttpTlsStats} current statistics
+	 */
+	@NotNull
+	HttpTlsStats getStats() {
+		return new HttpTlsStats(
+			metrics.handshakes.sum(), metrics.resumed.sum(), metrics.failed.sum(), metrics.handshakeNanos.sum()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Metrics
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Handshake counters
+	 */
+	private static final class Metrics {
+
+		/**
+		 * Finished handshakes
+		 */
+		private final LongAdder handshakes = new LongAdder();
+
+		/**
+		 * Resumed handshakes
+		 */
+		private final LongAdder resumed = new LongAdder();
+
+		/**
+		 * Failed handshakes
+		 */
+		private final LongAdder failed = new LongAdder();
+
+		/**
+		 * Total handshake time
+		 */
+		private final LongAdder handshakeNanos = new LongAdder();
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Context implementation
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Context implementation. Engines are wrapped, everything else is delegated
+	 */
+	private static final class Spi extends SSLContextSpi {
+
+		/**
+		 * Real context
+		 */
+		private final SSLContext delegate;
+
+		/**
+		 * Handshake counters
+		 */
+		private final Metrics metrics;
+
+		/**
+		 * Create implementation
+		 *
+		 * @param delegate Real context
+		 * @param metrics  Handshake counters
+		 */
+		private Spi(@NotNull SSLContext delegate, @NotNull Metrics metrics) {
+			this.delegate = delegate;
+			this.metrics = metrics;
+		}
+
+		@Override
+		protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) {
+			throw new UnsupportedOperationException("Instrumented context is already initialized.");
+		}
+
+		@Override
+		protected SSLSocketFactory engineGetSocketFactory() {
+			return delegate.getSocketFactory();
+		}
+
+		@Override
+		protected SSLServerSocketFactory engineGetServerSocketFactory() {
+			return delegate.getServerSocketFactory();
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine() {
+			return new Engine(delegate.createSSLEngine(), metrics);
+		}
+
+		@Override
+		protected SSLEngine engineCreateSSLEngine(String host, int port) {
+			return new Engine(delegate.createSSLEngine(host, port), metrics);
+		}
+
+		@Override
+		protected SSLSessionContext engineGetServerSessionContext() {
+			return delegate.getServerSessionContext();
+		}
+
+		@Override
+		protected SSLSessionContext engineGetClientSessionContext() {
+			return delegate.getClientSessionContext();
+		}
+
+		@Override
+		protected SSLParameters engineGetDefaultSSLParameters() {
+			return delegate.getDefaultSSLParameters();
+		}
+
+		@Override
+		protected SSLParameters engineGetSupportedSSLParameters() {
+			return delegate.getSupportedSSLParameters();
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Engine
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Engine that records its first handshake
+	 */
+	private static final class Engine extends SSLEngine {
+
+		/**
+		 * Handshake not started
+		 */
+		private static final int NEW = 0;
+
+		/**
+		 * Handshake in progress
+		 */
+		private static final int STARTED = 1;
+
+		/**
+		 * Handshake finished or failed
+		 */
+		private static final int DONE = 2;
+
+		/**
+		 * Real engine
+		 */
+		private final SSLEngine delegate;
+
+		/**
+		 * Handshake counters
+		 */
+		private final Metrics metrics;
+
+		/**
+		 * Handshake state
+		 */
+		private final AtomicInteger state = new AtomicInteger(NEW);
+
+		/**
+		 * Handshake start (monotonic)
+		 */
+		private volatile long startNanos;
+
+		/**
+		 * Handshake start (wall clock, compared with session creation)
+		 */
+		private volatile long startMillis;
+
+		/**
+		 * Create engine wrapper
+		 *
+		 * @param delegate Real engine
+		 * @param metrics  Handshake counters
+		 */
+		private Engine(@NotNull SSLEngine delegate, @NotNull Metrics metrics) {
+			super(delegate.getPeerHost(), delegate.getPeerPort());
+			this.delegate = delegate;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public SSLEngineResult wrap(ByteBuffer[] srcs, int offset, int length, ByteBuffer dst) throws SSLException {
+			start();
+			try {
+				return finish(delegate.wrap(srcs, offset, length, dst));
+			} catch (SSLException e) {
+				fail();
+				throw e;
+			}
+		}
+
+		@Override
+		public SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, int offset, int length) throws SSLException {
+			start();
+			try {
+				return finish(delegate.unwrap(src, dsts, offset, length));
+			} catch (SSLException e) {
+				fail();
+				throw e;
+			}
+		}
+
+		@Override
+		public void beginHandshake() throws SSLException {
+			start();
+			delegate.beginHandshake();
+		}
+
+		/**
+		 * Mark handshake start
+		 */
+		private void start() {
+			if (state.get() != NEW) return;
+
+			long nanos = System.nanoTime();
+			long millis = System.currentTimeMillis();
+			if (state.compareAndSet(NEW, STARTED)) {
+				startNanos = nanos;
+				startMillis = millis;
+			}
+		}
+
+		/**
+		 * Record handshake if operation finished it
+		 *
+		 * @param result Operation result
+		 * @return Same result
+		 */
+		@NotNull
+		private SSLEngineResult finish(@NotNull SSLEngineResult result) {
+			if (result.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.FINISHED) return result;
+			if (!state.compareAndSet(STARTED, DONE)) return result;
+
+			SSLSession session = delegate.getSession();
+			metrics.handshakes.increment();
+			metrics.handshakeNanos.add(System.nanoTime() - startNanos);
+			// Resumed sessions come from the session cache, so they are older than the handshake
+			if (session.getCreationTime() < startMillis) metrics.resumed.increment();
+			return result;
+		}
+
+		/**
+		 * Record failed handshake
+		 */
+		private void fail() {
+			if (state.compareAndSet(STARTED, DONE)) metrics.failed.increment();
+		}
+
+		@Override
+		public Runnable getDelegatedTask() {
+			return delegate.getDelegatedTask();
+		}
+
+		@Override
+		public void closeInbound() throws SSLException {
+			delegate.closeInbound();
+		}
+
+		@Override
+		public boolean isInboundDone() {
+			return delegate.isInboundDone();
+		}
+
+		@Override
+		public void closeOutbound() {
+			delegate.closeOutbound();
+		}
+
+		@Override
+		public boolean isOutboundDone() {
+			return delegate.isOutboundDone();
+		}
+
+		@Override
+		public String[] getSupportedCipherSuites() {
+			return delegate.getSupportedCipherSuites();
+		}
+
+		@Override
+		public String[] getEnabledCipherSuites() {
+			return delegate.getEnabledCipherSuites();
+		}
+
+		@Override
+		public void setEnabledCipherSuites(String[] suites) {
+			delegate.setEnabledCipherSuites(suites);
+		}
+
+		@Override
+		public String[] getSupportedProtocols() {
+			return delegate.getSupportedProtocols();
+		}
+
+		@Override
+		public String[] getEnabledProtocols() {
+			return delegate.getEnabledProtocols();
+		}
+
+		@Override
+		public void setEnabledProtocols(String[] protocols) {
+			delegate.setEnabledProtocols(protocols);
+		}
+
+		@Override
+		public SSLSession getSession() {
+			return delegate.getSession();
+		}
+
+		@Override
+		public SSLSession getHandshakeSession() {
+			return delegate.getHandshakeSession();
+		}
+
+		@Override
+		public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+			return delegate.getHandshakeStatus();
+		}
+
+		@Override
+		public void setUseClientMode(boolean mode) {
+			delegate.setUseClientMode(mode);
+		}
+
+		@Override
+		public boolean getUseClientMode() {
+			return delegate.getUseClientMode();
+		}
+
+		@Override
+		public void setNeedClientAuth(boolean need) {
+			delegate.setNeedClientAuth(need);
+		}
+
+		@Override
+		public boolean getNeedClientAuth() {
+			return delegate.getNeedClientAuth();
+		}
+
+		@Override
+		public void setWantClientAuth(boolean want) {
+			delegate.setWantClientAuth(want);
+		}
+
+		@Override
+		public boolean getWantClientAuth() {
+			return delegate.getWantClientAuth();
+		}
+
+		@Override
+		public void setEnableSessionCreation(boolean flag) {
+			delegate.setEnableSessionCreation(flag);
+		}
+
+		@Override
+		public boolean getEnableSessionCreation() {
+			return delegate.getEnableSessionCreation();
+		}
+
+		@Override
+		public SSLParameters getSSLParameters() {
+			return delegate.getSSLParameters();
+		}
+
+		@Override
+		public void setSSLParameters(SSLParameters params) {
+			delegate.setSSLParameters(params);
+		}
+
+		@Override
+		public String getApplicationProtocol() {
+			return delegate.getApplicationProtocol();
+		}
+
+		@Override
+		public String getHandshakeApplicationProtocol() {
+			return delegate.getHandshakeApplicationProtocol();
+		}
+
+		@Override
+		public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+			delegate.setHandshakeApplicationProtocolSelector(selector);
+		}
+
+		@Override
+		public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+			return delegate.getHandshakeApplicationProtocolSelector();
+		}
+
+	}
+
+}
@@ -0,0 +1,256 @@
+package com.github.ushiosan23.networkutils.http;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Percent encoder class.
+ * Encode text as UTF-8 percent-encoded bytes without intermediate strings.
+ */
+final class PercentEncoder {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Form encoder ({@code application/x-www-form-urlencoded}). Same output as {@link java.net.URLEncoder}
+	 */
+	static final PercentEncoder FORM = new PercentEncoder("-._*", true, false);
+
+	/**
+	 * Encoder that only keeps unreserved characters (RFC 3986)
+	 */
+	static final PercentEncoder UNRESERVED = new PercentEncoder("-._~", false, false);
+
+	/**
+	 * Encoder that keeps unreserved, reserved characters and percent-encoded triplets (RFC 3986)
+	 */
+	static final PercentEncoder RESERVED = new PercentEncoder("-._~:/?#[]@!$&'()*+,;=", false, true);
+
+	/**
+	 * Max encoded bytes generated by one code point
+	 */
+	static final int MAX_CHAR_BYTES = 12;
+
+	/**
+	 * Hexadecimal digits
+	 */
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Ascii characters written without encoding
+	 */
+	private final boolean[] safe = new boolean[128];
+
+	/**
+	 * Write spaces as "+"
+	 */
+	private final boolean spaceAsPlus;
+
+	/**
+	 * Keep valid percent-encoded triplets
+	 */
+	private final boolean keepEscapes;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create encoder. Alphanumeric characters are always safe.
+	 *
+	 * @param safeChars   Extra safe characters
+	 * @param spaceAsPlus Write spaces as "+"
+	 * @param keepEscapes Keep valid percent-encoded triplets
+	 */
+	private PercentEncoder(@NotNull String safeChars, boolean spaceAsPlus, boolean keepEscapes) {
+		this.spaceAsPlus = spaceAsPlus;
+		this.keepEscapes = keepEscapes;
+
+		for (char c = 'a'; c <= 'z'; c++) safe[c] = true;
+		for (char c = 'A'; c <= 'Z'; c++) safe[c] = true;
+		for (char c = '0'; c <= '9'; c++) safe[c] = true;
+		for (int i = 0; i < safeChars.length(); i++) safe[safeChars.charAt(i)] = true;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Calculate encoded length
+	 *
+	 * @param text Target text
+	 * @return Encoded bytes count
+	 */
+	long encodedLength(@NotNull CharSequence text) {
+		long length = 0;
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c < 0x80) {
+				length += safe[c] || (c == ' ' && spaceAsPlus) || (c == '%' && keepEscapes && isEscape(text, i)) ? 1 : 3;
+			} else if (c < 0x800) {
+				length += 6;
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 12;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				length += 3;
+			} else {
+				length += 9;
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * Encode text into buffer. Stops when buffer has not space for next character.
+	 *
+	 * @param text   Target text
+	 * @param from   Start character index
+	 * @param output Target buffer
+	 * @return Next character index to encode
+	 */
+	int encode(@NotNull CharSequence text, int from, @NotNull ByteBuffer output) {
+		int index = from;
+
+		while (index < text.length() && output.remaining() >= MAX_CHAR_BYTES) {
+			char c = text.charAt(index++);
+
+			if (c < 0x80) {
+				if (safe[c] || (c == '%' && keepEscapes && isEscape(text, index - 1))) {
+					output.put((byte) c);
+				} else if (c == ' ' && spaceAsPlus) {
+					output.put((byte) '+');
+				} else {
+					putEscaped(output, c);
+				}
+			} else if (c < 0x800) {
+				putEscaped(output, 0xC0 | (c >> 6));
+				putEscaped(output, 0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && index < text.length() && Character.isLowSurrogate(text.charAt(index))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(index++));
+				putEscaped(output, 0xF0 | (codePoint >> 18));
+				putEscaped(output, 0x80 | ((codePoint >> 12) & 0x3F));
+				putEscaped(output, 0x80 | ((codePoint >> 6) & 0x3F));
+				putEscaped(output, 0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				// Malformed input is replaced like String#getBytes
+				putEscaped(output, '?');
+			} else {
+				putEscaped(output, 0xE0 | (c >> 12));
+				putEscaped(output, 0x80 | ((c >> 6) & 0x3F));
+				putEscaped(output, 0x80 | (c & 0x3F));
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * Encode text into string builder.
+	 *
+	 * @param text   Target text
+	 * @param output Target builder
+	 */
+	void encode(@NotNull CharSequence text, @NotNull StringBuilder output) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c < 0x80) {
+				if (safe[c] || (c == '%' && keepEscapes && isEscape(text, i))) {
+					output.append(c);
+				} else if (c == ' ' && spaceAsPlus) {
+					output.append('+');
+				} else {
+					appendEscaped(output, c);
+				}
+			} else if (c < 0x800) {
+				appendEscaped(output, 0xC0 | (c >> 6));
+				appendEscaped(output, 0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				appendEscaped(output, 0xF0 | (codePoint >> 18));
+				appendEscaped(output, 0x80 | ((codePoint >> 12) & 0x3F));
+				appendEscaped(output, 0x80 | ((codePoint >> 6) & 0x3F));
+				appendEscaped(output, 0x80 | (codePoint & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				appendEscaped(output, '?');
+			} else {
+				appendEscaped(output, 0xE0 | (c >> 12));
+				appendEscaped(output, 0x80 | ((c >> 6) & 0x3F));
+				appendEscaped(output, 0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Check if text is already safe and can be written without encoding
+	 *
+	 * @param text Target text
+	 * @return {@code true} if text has only safe characters
+	 */
+	boolean isSafe(@NotNull CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c >= 0x80 || !safe[c]) return false;
+		}
+
+		return true;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Check if text has a percent-encoded triplet at index
+	 *
+	 * @param text  Target text
+	 * @param index Percent sign index
+	 * @return {@code true} if next characters are hexadecimal digits
+	 */
+	private static boolean isEscape(@NotNull CharSequence text, int index) {
+		return index + 2 < text.length() &&
+			Character.digit(text.charAt(index + 1), 16) != -1 &&
+			Character.digit(text.charAt(index + 2), 16) != -1;
+	}
+
+	/**
+	 * Write escaped byte
+	 *
+	 * @param output Target buffer
+	 * @param value  Byte value
+	 */
+	private static void putEscaped(@NotNull ByteBuffer output, int value) {
+		output.put((byte) '%');
+		output.put((byte) HEX[(value >> 4) & 0x0F]);
+		output.put((byte) HEX[value & 0x0F]);
+	}
+
+	/**
+	 * Append escaped byte
+	 *
+	 * @param output Target builder
+	 * @param value  Byte value
+	 */
+	private static void appendEscaped(@NotNull StringBuilder output, int value) {
+		output.append('%');
+		output.append(HEX[(value >> 4) & 0x0F]);
+		output.append(HEX[value & 0x0F]);
+	}
+
+}
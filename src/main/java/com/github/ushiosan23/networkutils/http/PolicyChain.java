@@ -0,0 +1,56 @@
+package com.github.ushiosan23.networkutils.http;
+
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import com.github.ushiosan23.networkutils.http.policy.HttpPolicy;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Policy chain position. Calls next policy or the transport when all policies were applied
+ */
+final class PolicyChain implements HttpPolicy.Chain {
+
+	/**
+	 * Policies in application order
+	 */
+	private final List<HttpPolicy> policies;
+
+	/**
+	 * Next policy index
+	 */
+	private final int index;
+
+	/**
+	 * Last element. Sends the request
+	 */
+	private final HttpPolicy.Chain transport;
+
+	/**
+	 * Create chain position
+	 *
+	 * @param policies  Policies in application order
+	 * @param index     Next policy index
+	 * @param transport Last element
+	 */
+	PolicyChain(@NotNull List<HttpPolicy> policies, int index, @NotNull HttpPolicy.Chain transport) {
+		this.policies = policies;
+		this.index = index;
+		this.transport = transport;
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> proceed(@NotNull HttpCall<T> call) {
+		if (index == policies.size()) return transport.proceed(call);
+
+		try {
+			return policies.get(index).intercept(call, new PolicyChain(policies, index + 1, transport));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+}
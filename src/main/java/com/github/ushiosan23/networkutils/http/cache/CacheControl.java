@@ -0,0 +1,196 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.HttpHeaders;
+import java.util.Locale;
+
+/**
+ * Parsed {@code Cache-Control} directives (RFC 9111 section 5.2).
+ * Unknown directives are ignored and numeric directives without valid value are {@code -1}.
+ */
+final class CacheControl {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * {@code no-store}
+	 */
+	boolean noStore;
+
+	/**
+	 * {@code no-cache} (or {@code Pragma: no-cache} in requests)
+	 */
+	boolean noCache;
+
+	/**
+	 * {@code must-revalidate}
+	 */
+	boolean mustRevalidate;
+
+	/**
+	 * {@code only-if-cached}
+	 */
+	boolean onlyIfCached;
+
+	/**
+	 * {@code max-age} in seconds
+	 */
+	long maxAge = -1;
+
+	/**
+	 * {@code max-stale} in seconds. {@link Long#MAX_VALUE} if directive has no value
+	 */
+	long maxStale = -1;
+
+	/**
+	 * {@code min-fresh} in seconds
+	 */
+	long minFresh = -1;
+
+	/**
+	 * {@code stale-while-revalidate} in seconds (RFC 5861)
+	 */
+	long staleWhileRevalidate = -1;
+
+	/**
+	 * {@code stale-if-error} in seconds (RFC 5861)
+	 */
+	long staleIfError = -1;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create empty directives
+	 */
+	private CacheControl() {
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Parse directives of all {@code Cache-Control} headers
+	 *
+	 * @param headers Target headers
+	 * @param request Headers belong to a request ({@code Pragma: no-cache} is used when there is no {@code Cache-Control})
+	 * @return {@link CacheControl} parsed directives
+	 */
+	@NotNull
+	static CacheControl parse(@NotNull HttpHeaders headers, boolean request) {
+		CacheControl result = new CacheControl();
+
+		for (String value : headers.allValues("Cache-Control")) parseValue(result, value);
+		if (request && headers.allValues("Cache-Control").isEmpty()) {
+			for (String value : headers.allValues("Pragma")) {
+				if (value.toLowerCase(Locale.ROOT).contains("no-cache")) result.noCache = true;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parse one header value. Commas inside quoted strings do not split directives
+	 *
+	 * @param result Target directives
+	 * @param value  Header value
+	 */
+	private static void parseValue(@NotNull CacheControl result, @NotNull String value) {
+		boolean quoted = false;
+		int start = 0;
+
+		for (int i = 0; i <= value.length(); i++) {
+			char current = i < value.length() ? value.charAt(i) : ',';
+
+			if (current == '"') quoted = !quoted;
+			if (current != ',' || quoted) continue;
+
+			parseDirective(result, value.substring(start, i).trim());
+			start = i + 1;
+		}
+	}
+
+	/**
+	 * Parse directive
+	 *
+	 * @param result    Target directives
+	 * @param directive Directive text ({@code name} or {@code name=value})
+	 */
+	private static void parseDirective(@NotNull CacheControl result, @NotNull String directive) {
+		if (directive.isEmpty()) return;
+
+		int index = directive.indexOf('=');
+		String name = (index == -1 ? directive : directive.substring(0, index)).trim().toLowerCase(Locale.ROOT);
+		String argument = index == -1 ? null : directive.substring(index + 1).trim();
+
+		switch (name) {
+			case "no-store":
+				result.noStore = true;
+				break;
+			case "no-cache":
+				// Qualified no-cache only affects listed fields, stored response can still be used
+				if (argument == null) result.noCache = true;
+				break;
+			case "must-revalidate":
+			case "proxy-revalidate":
+				result.mustRevalidate = true;
+				break;
+			case "only-if-cached":
+				result.onlyIfCached = true;
+				break;
+			case "max-age":
+				result.maxAge = seconds(argument);
+				break;
+			case "max-stale":
+				result.maxStale = argument == null ? Long.MAX_VALUE : seconds(argument);
+				break;
+			case "min-fresh":
+				result.minFresh = seconds(argument);
+				break;
+			case "stale-while-revalidate":
+				result.staleWhileRevalidate = seconds(argument);
+				break;
+			case "stale-if-error":
+				result.staleIfError = seconds(argument);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Parse delta seconds. Values over the max are the max (RFC 9111 section 1.2.2)
+	 *
+	 * @param argument Directive argument
+	 * @return Seconds or {@code -1} if argument is invalid
+	 */
+	private static long seconds(String argument) {
+		if (argument == null) return -1;
+
+		String value = argument.startsWith("\"") && argument.endsWith("\"") && argument.length() > 1
+			? argument.substring(1, argument.length() - 1)
+			: argument;
+		if (value.isEmpty()) return -1;
+
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isDigit(value.charAt(i))) return -1;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return Integer.MAX_VALUE;
+		}
+	}
+
+}
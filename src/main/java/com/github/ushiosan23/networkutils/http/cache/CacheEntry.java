@@ -0,0 +1,509 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Stored response. Immutable, revalidation creates a new entry.
+ * Body is a read-only buffer, heap memory or a memory-mapped file region.
+ */
+final class CacheEntry implements HttpResponse.ResponseInfo {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Disk format marker
+	 */
+	private static final int MAGIC = 0x48434531;
+
+	/**
+	 * Heuristic freshness upper bound (1 day)
+	 */
+	private static final long MAX_HEURISTIC = 24 * 60 * 60 * 1000L;
+
+	/**
+	 * Statuses that can be stored without explicit freshness (RFC 9110 section 15.1)
+	 */
+	private static final Set<Integer> HEURISTIC_STATUSES = Set.of(200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501);
+
+	/**
+	 * Headers that a {@code 304} response does not update
+	 */
+	private static final Set<String> KEEP_HEADERS = Set.of("content-length", "content-encoding", "transfer-encoding", "content-range");
+
+	/**
+	 * Cache key
+	 */
+	private final String key;
+
+	/**
+	 * Response status
+	 */
+	private final int status;
+
+	/**
+	 * Response headers
+	 */
+	private final HttpHeaders headers;
+
+	/**
+	 * Response protocol version
+	 */
+	private final HttpClient.Version version;
+
+	/**
+	 * Request header values selected by {@code Vary}
+	 */
+	private final Map<String, List<String>> vary;
+
+	/**
+	 * Time request was sent (epoch millis)
+	 */
+	private final long requestTime;
+
+	/**
+	 * Time response was received (epoch millis)
+	 */
+	private final long responseTime;
+
+	/**
+	 * Raw response body
+	 */
+	private final ByteBuffer body;
+
+	/**
+	 * Parsed response directives
+	 */
+	private final CacheControl control;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create entry
+	 *
+	 * @param key          Cache key
+	 * @param status       Response status
+	 * @param headers      Response headers
+	 * @param version      Protocol version
+	 * @param vary         Selected request headers
+	 * @param requestTime  Request time
+	 * @param responseTime Response time
+	 * @param body         Raw body
+	 */
+	CacheEntry(
+		@NotNull String key,
+		int status,
+		@NotNull HttpHeaders headers,
+		@NotNull HttpClient.Version version,
+		@NotNull Map<String, List<String>> vary,
+		long requestTime,
+		long responseTime,
+		@NotNull ByteBuffer body
+	) {
+		this.key = key;
+		this.status = status;
+		this.headers = headers;
+		this.version = version;
+		this.vary = vary;
+		this.requestTime = requestTime;
+		this.responseTime = responseTime;
+		this.body = body.slice().asReadOnlyBuffer();
+		control = CacheControl.parse(headers, false);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create entry from response
+	 *
+	 * @param key          Cache key
+	 * @param request      Original request
+	 * @param info         Response status and headers
+	 * @param requestTime  Request time
+	 * @param responseTime Response time
+	 * @param body         Raw body
+	 * @return {@link CacheEntry} entry result
+	 */
+	@NotNull
+	static CacheEntry of(
+		@NotNull String key,
+		@NotNull HttpRequest request,
+		@NotNull HttpResponse.ResponseInfo info,
+		long requestTime,
+		long responseTime,
+		@NotNull byte[] body
+	) {
+		Map<String, List<String>> vary = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (String field : varyFields(info.headers())) vary.put(field, request.headers().allValues(field));
+
+		return new CacheEntry(key, info.statusCode(), info.headers(), info.version(), vary, requestTime, responseTime, ByteBuffer.wrap(body));
+	}
+
+	/**
+	 * Check if response can be stored
+	 *
+	 * @param request   Original request
+	 * @param info      Response status and headers
+	 * @param heuristic Heuristic freshness is enabled
+	 * @return {@code true} if response can be stored
+	 */
+	static boolean isStorable(@NotNull HttpRequest request, @NotNull HttpResponse.ResponseInfo info, boolean heuristic) {
+		HttpHeaders headers = info.headers();
+		CacheControl control = CacheControl.parse(headers, false);
+
+		if (control.noStore || CacheControl.parse(request.headers(), true).noStore) return false;
+		if (info.statusCode() == 206 || varyFields(headers).contains("*")) return false;
+
+		boolean explicit = control.maxAge >= 0 || headers.firstValue("Expires").isPresent();
+		if (!explicit && !HEURISTIC_STATUSES.contains(info.statusCode())) return false;
+
+		// Entries without freshness and validators are never used
+		boolean validator = headers.firstValue("ETag").isPresent() || headers.firstValue("Last-Modified").isPresent();
+		return validator || control.staleWhileRevalidate > 0 || control.staleIfError > 0 ||
+			(explicit && control.maxAge != 0) || (heuristic && headers.firstValue("Last-Modified").isPresent());
+	}
+
+	/**
+	 * Get cache key
+	 *
+	 * @return Cache key
+	 */
+	@NotNull
+	String getKey() {
+		return key;
+	}
+
+	@Override
+	public int statusCode() {
+		return status;
+	}
+
+	@Override
+	public HttpHeaders headers() {
+		return headers;
+	}
+
+	@Override
+	public HttpClient.Version version() {
+		return version;
+	}
+
+	/**
+	 * Get response directives
+	 *
+	 * @return {@link CacheControl} directives
+	 */
+	@NotNull
+	CacheControl getControl() {
+		return control;
+	}
+
+	/**
+	 * Get raw body
+	 *
+	 * @return {@link ByteBuffer} independent read-only buffer
+	 */
+	@NotNull
+	ByteBuffer getBody() {
+		return body.duplicate();
+	}
+
+	/**
+	 * Approximate memory used by entry
+	 *
+	 * @return Size in bytes
+	 */
+	long size() {
+		long size = body.capacity() + key.length() + 128;
+
+		for (Map.Entry<String, List<String>> entry : headers.map().entrySet()) {
+			size += entry.getKey().length();
+			for (String value : entry.getValue()) size += value.length() + 16;
+		}
+		return size;
+	}
+
+	/**
+	 * Check if stored response was selected with the same request headers ({@code Vary})
+	 *
+	 * @param request Target request
+	 * @return {@code true} if stored response can be used for the request
+	 */
+	boolean matches(@NotNull HttpRequest request) {
+		for (Map.Entry<String, List<String>> entry : vary.entrySet()) {
+			if (!entry.getValue().equals(request.headers().allValues(entry.getKey()))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Calculate current age (RFC 9111 section 4.2.3)
+	 *
+	 * @param now Current time
+	 * @return Age in milliseconds
+	 */
+	long currentAge(long now) {
+		long date = date("Date", responseTime);
+		long apparentAge = Math.max(0, responseTime - date);
+		long ageValue;
+		try {
+			ageValue = Math.max(0, headers.firstValueAsLong("Age").orElse(0)) * 1000;
+		} catch (NumberFormatException e) {
+			ageValue = 0;
+		}
+		long correctedAge = Math.max(apparentAge, ageValue + (responseTime - requestTime));
+
+		return correctedAge + Math.max(0, now - responseTime);
+	}
+
+	/**
+	 * Calculate freshness lifetime (RFC 9111 section 4.2.1)
+	 *
+	 * @param heuristic Use heuristic freshness if response has no explicit freshness
+	 * @return Lifetime in milliseconds
+	 */
+	long freshnessLifetime(boolean heuristic) {
+		if (control.maxAge >= 0) return control.maxAge * 1000;
+
+		long date = date("Date", responseTime);
+		if (headers.firstValue("Expires").isPresent()) {
+			// Invalid dates (like "0") mean already expired
+			long expires = date("Expires", Long.MIN_VALUE);
+			return expires == Long.MIN_VALUE ? 0 : Math.max(0, expires - date);
+		}
+
+		long lastModified = date("Last-Modified", Long.MIN_VALUE);
+		if (!heuristic || lastModified == Long.MIN_VALUE || !HEURISTIC_STATUSES.contains(status)) return 0;
+		return Math.min(MAX_HEURISTIC, Math.max(0, date - lastModified) / 10);
+	}
+
+	/**
+	 * Create conditional request to validate this entry
+	 *
+	 * @param builder Request builder with original uri and headers
+	 * @return {@link HttpRequest} conditional request. Unconditional if entry has no validators
+	 */
+	@NotNull
+	HttpRequest conditional(@NotNull HttpRequest.Builder builder) {
+		headers.firstValue("ETag").ifPresent(value -> builder.setHeader("If-None-Match", value));
+		headers.firstValue("Last-Modified").ifPresent(value -> builder.setHeader("If-Modified-Since", value));
+
+		return builder.GET().build();
+	}
+
+	/**
+	 * Create entry refreshed by a {@code 304} response (RFC 9111 section 4.3.4)
+	 *
+	 * @param notModified  Validation response headers
+	 * @param requestTime  Validation request time
+	 * @param responseTime Validation response time
+	 * @return {@link CacheEntry} updated entry
+	 */
+	@NotNull
+	CacheEntry revalidated(@NotNull HttpHeaders notModified, long requestTime, long responseTime) {
+		Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		merged.putAll(headers.map());
+
+		for (Map.Entry<String, List<String>> entry : notModified.map().entrySet()) {
+			if (!KEEP_HEADERS.contains(entry.getKey().toLowerCase(Locale.ROOT))) merged.put(entry.getKey(), entry.getValue());
+		}
+		return new CacheEntry(
+			key, status, HttpHeaders.of(merged, (name, value) -> true), version, vary, requestTime, responseTime, body
+		);
+	}
+
+	/**
+	 * Serialize metadata. Body follows metadata on disk
+	 *
+	 * @return Metadata bytes
+	 * @throws IOException Error if metadata cannot be written
+	 */
+	@NotNull
+	byte[] encodeMetadata() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(MAGIC);
+			writeString(output, key);
+			output.writeInt(status);
+			output.writeInt(version.ordinal());
+			output.writeLong(requestTime);
+			output.writeLong(responseTime);
+			writeMap(output, headers.map());
+			writeMap(output, vary);
+			output.writeInt(body.capacity());
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Read entry. Body is a slice of the source buffer (no copy)
+	 *
+	 * @param buffer Serialized entry
+	 * @return {@link CacheEntry} entry or {@code null} if data is corrupted
+	 */
+	@Nullable
+	static CacheEntry decode(@NotNull ByteBuffer buffer) {
+		try {
+			if (buffer.getInt() != MAGIC) return null;
+
+			String key = readString(buffer);
+			int status = buffer.getInt();
+			HttpClient.Version version = HttpClient.Version.values()[buffer.getInt()];
+			long requestTime = buffer.getLong();
+			long responseTime = buffer.getLong();
+			HttpHeaders headers = HttpHeaders.of(readMap(buffer), (name, value) -> true);
+			Map<String, List<String>> vary = readMap(buffer);
+			int length = buffer.getInt();
+			if (length < 0 || length > buffer.remaining()) return null;
+
+			ByteBuffer body = buffer.slice();
+			body.limit(length);
+			return new CacheEntry(key, status, headers, version, vary, requestTime, responseTime, body);
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			return null;
+		}
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Parse date header
+	 *
+	 * @param name     Header name
+	 * @param fallback Value if header is missing or invalid
+	 * @return Epoch millis
+	 */
+	private long date(@NotNull String name, long fallback) {
+		String value = headers.firstValue(name).orElse(null);
+		if (value == null) return fallback;
+
+		try {
+			return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return fallback;
+		}
+	}
+
+	/**
+	 * Get fields listed in {@code Vary} header
+	 *
+	 * @param headers Response headers
+	 * @return Lower case field names
+	 */
+	@NotNull
+	private static List<String> varyFields(@NotNull HttpHeaders headers) {
+		List<String> result = new ArrayList<>();
+
+		for (String value : headers.allValues("Vary")) {
+			for (String field : value.split(",")) {
+				if (!field.isBlank()) result.add(field.trim().toLowerCase(Locale.ROOT));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Write length prefixed UTF-8 string
+	 *
+	 * @param output Target output
+	 * @param value  Target value
+	 * @throws IOException Error if value cannot be written
+	 */
+	private static void writeString(@NotNull DataOutputStream output, @NotNull String value) throws IOException {
+		byte[] data = value.getBytes(StandardCharsets.UTF_8);
+
+		output.writeInt(data.length);
+		output.write(data);
+	}
+
+	/**
+	 * Write multi value map
+	 *
+	 * @param output Target output
+	 * @param map    Target map
+	 * @throws IOException Error if map cannot be written
+	 */
+	private static void writeMap(@NotNull DataOutputStream output, @NotNull Map<String, List<String>> map) throws IOException {
+		output.writeInt(map.size());
+
+		for (Map.Entry<String, List<String>> entry : map.entrySet()) {
+			writeString(output, entry.getKey());
+			output.writeInt(entry.getValue().size());
+			for (String value : entry.getValue()) writeString(output, value);
+		}
+	}
+
+	/**
+	 * Read length prefixed UTF-8 string
+	 *
+	 * @param buffer Source buffer
+	 * @return String result
+	 */
+	@NotNull
+	private static String readString(@NotNull ByteBuffer buffer) {
+		byte[] data = new byte[buffer.getInt()];
+
+		buffer.get(data);
+		return new String(data, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read multi value map
+	 *
+	 * @param buffer Source buffer
+	 * @return Case insensitive map
+	 */
+	@NotNull
+	private static Map<String, List<String>> readMap(@NotNull ByteBuffer buffer) {
+		Map<String, List<String>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		int size = buffer.getInt();
+
+		for (int i = 0; i < size; i++) {
+			String name = readString(buffer);
+			int count = buffer.getInt();
+			List<String> values = new ArrayList<>(count);
+
+			for (int j = 0; j < count; j++) values.add(readString(buffer));
+			result.put(name, values);
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,987 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import com.github.ushiosan23.networkutils.http.policy.HttpPolicy;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Private HTTP cache policy (RFC 9111).
+ * Stores {@code GET} responses, serves them while they are fresh and revalidates stale ones with
+ * {@code If-None-Match}/{@code If-Modified-Since}. Supports {@code Vary} (one variant per uri),
+ * {@code stale-while-revalidate} and {@code stale-if-error} (RFC 5861). Unsafe requests invalidate
+ * the stored response of their uri.
+ * <p>
+ * Entries live in a size bounded in-memory LRU tier and, optionally, in a memory-mapped disk tier
+ * with its own size bound. Raw bodies are stored, so every caller decodes them with its own handler.
+ */
+public final class CachePolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Methods that do not invalidate stored responses
+	 */
+	private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+	/**
+	 * Statuses that allow {@code stale-if-error}
+	 */
+	private static final Set<Integer> ERROR_STATUSES = Set.of(500, 502, 503, 504);
+
+	/**
+	 * Memory tier
+	 */
+	private final CacheStore memory;
+
+	/**
+	 * Disk tier or {@code null}
+	 */
+	private final CacheStore disk;
+
+	/**
+	 * Max stored body size
+	 */
+	private final long maxEntrySize;
+
+	/**
+	 * Heuristic freshness for responses with {@code Last-Modified} only
+	 */
+	private final boolean heuristic;
+
+	/**
+	 * Keys with a background revalidation in progress
+	 */
+	private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Fresh responses served from cache
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Requests without usable stored response
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Conditional requests sent
+	 */
+	private final LongAdder revalidations = new LongAdder();
+
+	/**
+	 * Stored responses confirmed with {@code 304}
+	 */
+	private final LongAdder notModified = new LongAdder();
+
+	/**
+	 * Stale responses served ({@code stale-while-revalidate} and {@code stale-if-error})
+	 */
+	private final LongAdder staleHits = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 * @param disk    Disk tier or {@code null}
+	 */
+	private CachePolicy(@NotNull Builder builder, @Nullable CacheStore disk) {
+		memory = new MemoryCacheStore(builder.memorySize);
+		this.disk = disk;
+		maxEntrySize = builder.maxEntrySize;
+		heuristic = builder.heuristic;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create cache builder
+	 *
+	 * @return {@link CachePolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		HttpRequest request = call.getRequest();
+		String method = request.method().toUpperCase(Locale.ROOT);
+		String key = key(request.uri());
+
+		if (!method.equals("GET")) {
+			if (SAFE_METHODS.contains(method)) return chain.proceed(call);
+
+			// Successful unsafe requests change the resource (RFC 9111 section 4.4)
+			return relay(chain.proceed(call), (response, error) -> {
+				if (response != null && response.statusCode() < 400) invalidate(request.uri());
+			});
+		}
+
+		CacheControl requestControl = CacheControl.parse(request.headers(), true);
+		if (requestControl.noStore) return chain.proceed(call);
+
+		CacheEntry entry = lookup(key);
+		if (entry != null && !entry.matches(request)) entry = null;
+		if (entry == null) {
+			misses.increment();
+			return requestControl.onlyIfCached ? gatewayTimeout(call) : fetch(key, call, chain);
+		}
+
+		long now = System.currentTimeMillis();
+		CacheControl responseControl = entry.getControl();
+		long age = entry.currentAge(now);
+		long lifetime = entry.freshnessLifetime(heuristic);
+		long staleness = age - lifetime;
+		boolean validate = responseControl.noCache || requestControl.noCache;
+
+		if (!validate && isFresh(requestControl, age, lifetime)) {
+			hits.increment();
+			return deliver(entry, call, now);
+		}
+
+		// Stale responses are never used without validation if server requires it
+		boolean staleAllowed = !validate && !responseControl.mustRevalidate;
+		if (staleAllowed && requestControl.maxStale >= 0 && staleness <= seconds(requestControl.maxStale)) {
+			hits.increment();
+			return deliver(entry, call, now);
+		}
+		if (staleAllowed && responseControl.staleWhileRevalidate >= 0 && staleness <= seconds(responseControl.staleWhileRevalidate)) {
+			staleHits.increment();
+			revalidateInBackground(key, entry, call, chain);
+			return deliver(entry, call, now);
+		}
+		if (requestControl.onlyIfCached) return gatewayTimeout(call);
+
+		boolean staleIfError = staleAllowed && staleness <= Math.max(
+			seconds(responseControl.staleIfError),
+			seconds(requestControl.staleIfError)
+		);
+		return revalidate(key, entry, call, chain, staleIfError);
+	}
+
+	/**
+	 * Remove stored response of uri
+	 *
+	 * @param uri Target uri
+	 */
+	public void invalidate(@NotNull URI uri) {
+		String key = key(uri);
+
+		memory.remove(key);
+		if (disk != null) disk.remove(key);
+	}
+
+	/**
+	 * Remove all stored responses
+	 */
+	public void clear() {
+		memory.clear();
+		if (disk != null) disk.clear();
+	}
+
+	/**
+	 * Get fresh responses served from cache
+	 *
+	 * @return Hits count
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Get requests without usable stored response
+	 *
+	 * @return Misses count
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Get conditional requests sent (foreground and background)
+	 *
+	 * @return Revalidations count
+	 */
+	public long getRevalidations() {
+		return revalidations.sum();
+	}
+
+	/**
+	 * Get stored responses confirmed with {@code 304 Not Modified}
+	 *
+	 * @return Not modified count
+	 */
+	public long getNotModified() {
+		return notModified.sum();
+	}
+
+	/**
+	 * Get stale responses served by {@code stale-while-revalidate} or {@code stale-if-error}
+	 *
+	 * @return Stale hits count
+	 */
+	public long getStaleHits() {
+		return staleHits.sum();
+	}
+
+	/**
+	 * Get memory tier size
+	 *
+	 * @return Stored bytes
+	 */
+	public long getMemorySize() {
+		return memory.size();
+	}
+
+	/**
+	 * Get disk tier size
+	 *
+	 * @return Stored bytes or {@code 0} if disk tier is disabled
+	 */
+	public long getDiskSize() {
+		return disk == null ? 0 : disk.size();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"CachePolicy[hits=%d, misses=%d, revalidations=%d, not-modified=%d, stale=%d]",
+			getHits(), getMisses(), getRevalidations(), getNotModified(), getStaleHits()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get cache key of uri
+	 *
+	 * @param uri Target uri
+	 * @return Cache key
+	 */
+	@NotNull
+	private static String key(@NotNull URI uri) {
+		return uri.normalize().toString();
+	}
+
+	/**
+	 * Convert directive seconds to milliseconds
+	 *
+	 * @param seconds Directive value or {@code -1}
+	 * @return Milliseconds or {@code -1}
+	 */
+	private static long seconds(long seconds) {
+		if (seconds < 0) return -1;
+		return seconds > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : seconds * 1000;
+	}
+
+	/**
+	 * Check freshness with request limits ({@code max-age}, {@code min-fresh})
+	 *
+	 * @param control  Request directives
+	 * @param age      Current age
+	 * @param lifetime Freshness lifetime
+	 * @return {@code true} if stored response is fresh enough
+	 */
+	private static boolean isFresh(@NotNull CacheControl control, long age, long lifetime) {
+		if (lifetime <= age) return false;
+		if (control.maxAge >= 0 && age > seconds(control.maxAge)) return false;
+
+		return control.minFresh < 0 || lifetime - age >= seconds(control.minFresh);
+	}
+
+	/**
+	 * Find entry in memory tier, then in disk tier. Disk hits are promoted to memory
+	 *
+	 * @param key Cache key
+	 * @return {@link CacheEntry} entry or {@code null}
+	 */
+	@Nullable
+	private CacheEntry lookup(@NotNull String key) {
+		CacheEntry entry = memory.get(key);
+		if (entry != null || disk == null) return entry;
+
+		entry = disk.get(key);
+		if (entry != null) memory.put(entry);
+		return entry;
+	}
+
+	/**
+	 * Save entry in every tier
+	 *
+	 * @param entry Target entry
+	 */
+	private void store(@NotNull CacheEntry entry) {
+		memory.put(entry);
+		if (disk != null) disk.put(entry);
+	}
+
+	/**
+	 * Send request and store the response while caller receives it
+	 *
+	 * @param key   Cache key
+	 * @param call  Target call
+	 * @param chain Rest of the chain
+	 * @param <T>   Response body type
+	 * @return {@link CompletableFuture} response
+	 */
+	@NotNull
+	private <T> CompletableFuture<HttpResponse<T>> fetch(@NotNull String key, @NotNull HttpCall<T> call, @NotNull Chain chain) {
+		long requestTime = System.currentTimeMillis();
+		HttpRequest request = call.getRequest();
+
+		return chain.proceed(call.withHandler(info -> {
+			HttpResponse.BodySubscriber<T> downstream = call.getHandler().apply(info);
+			if (!CacheEntry.isStorable(request, info, heuristic)) return downstream;
+
+			long responseTime = System.currentTimeMillis();
+			return new StoringSubscriber<>(downstream, maxEntrySize, body ->
+				store(CacheEntry.of(key, request, info, requestTime, responseTime, body))
+			);
+		}));
+	}
+
+	/**
+	 * Validate stale entry and deliver stored or new response
+	 *
+	 * @param key          Cache key
+	 * @param entry        Stale entry
+	 * @param call         Target call
+	 * @param chain        Rest of the chain
+	 * @param staleIfError Entry can be used if server fails
+	 * @param <T>          Response body type
+	 * @return {@link CompletableFuture} response
+	 */
+	@NotNull
+	private <T> CompletableFuture<HttpResponse<T>> revalidate(
+		@NotNull String key,
+		@NotNull CacheEntry entry,
+		@NotNull HttpCall<T> call,
+		@NotNull Chain chain,
+		boolean staleIfError
+	) {
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		CompletableFuture<CacheEntry> validation = validate(key, entry, call, chain);
+
+		validation.whenComplete((updated, error) -> {
+			long now = System.currentTimeMillis();
+			boolean failed = error != null ? unwrap(error) instanceof IOException : ERROR_STATUSES.contains(updated.statusCode());
+
+			if (failed && staleIfError) {
+				staleHits.increment();
+				deliver(entry, call, now).whenComplete((response, failure) -> complete(result, response, failure));
+			} else if (error != null) {
+				result.completeExceptionally(error);
+			} else {
+				deliver(updated, call, now).whenComplete((response, failure) -> complete(result, response, failure));
+			}
+		});
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) validation.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * Start background validation if no other one is running for the key
+	 *
+	 * @param key   Cache key
+	 * @param entry Stale entry
+	 * @param call  Original call
+	 * @param chain Rest of the chain
+	 */
+	private void revalidateInBackground(@NotNull String key, @NotNull CacheEntry entry, @NotNull HttpCall<?> call, @NotNull Chain chain) {
+		if (!revalidating.add(key)) return;
+
+		try {
+			validate(key, entry, call, chain).whenComplete((updated, error) -> revalidating.remove(key));
+		} catch (RuntimeException e) {
+			revalidating.remove(key);
+		}
+	}
+
+	/**
+	 * Send conditional request and update stored entry
+	 *
+	 * @param key   Cache key
+	 * @param entry Stale entry
+	 * @param call  Original call
+	 * @param chain Rest of the chain
+	 * @return {@link CompletableFuture} refreshed entry, new response entry (stored or not) or error
+	 */
+	@NotNull
+	private CompletableFuture<CacheEntry> validate(
+		@NotNull String key,
+		@NotNull CacheEntry entry,
+		@NotNull HttpCall<?> call,
+		@NotNull Chain chain
+	) {
+		revalidations.increment();
+		long requestTime = System.currentTimeMillis();
+		HttpRequest request = call.getRequest();
+		HttpRequest conditional = entry.conditional(call.newRequestBuilder());
+
+		return chain.proceed(HttpCall.of(conditional, HttpResponse.BodyHandlers.ofByteArray())).thenApply(response -> {
+			long responseTime = System.currentTimeMillis();
+
+			if (response.statusCode() == 304) {
+				notModified.increment();
+				CacheEntry refreshed = entry.revalidated(response.headers(), requestTime, responseTime);
+				store(refreshed);
+				return refreshed;
+			}
+
+			CacheEntry updated = CacheEntry.of(key, request, info(response), requestTime, responseTime, response.body());
+			if (ERROR_STATUSES.contains(response.statusCode())) return updated;
+
+			if (CacheEntry.isStorable(request, updated, heuristic) && response.body().length <= maxEntrySize) store(updated);
+			else invalidate(request.uri());
+			return updated;
+		});
+	}
+
+	/**
+	 * Replay entry into the call handler
+	 *
+	 * @param entry Source entry
+	 * @param call  Target call
+	 * @param now   Current time
+	 * @param <T>   Response body type
+	 * @return {@link CompletableFuture} response
+	 */
+	@NotNull
+	private static <T> CompletableFuture<HttpResponse<T>> deliver(@NotNull CacheEntry entry, @NotNull HttpCall<T> call, long now) {
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		HttpHeaders headers = withAge(entry.headers(), entry.currentAge(now));
+		HttpResponse.BodySubscriber<T> subscriber;
+
+		try {
+			subscriber = call.getHandler().apply(new StoredInfo(entry.statusCode(), headers, entry.version()));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		subscriber.getBody().whenComplete((body, error) -> {
+			if (error != null) result.completeExceptionally(error);
+			else result.complete(new CachedResponse<>(call.getRequest(), entry, headers, body));
+		});
+		replay(subscriber, entry.getBody());
+		return result;
+	}
+
+	/**
+	 * Create {@code 504} response for {@code only-if-cached} requests without stored response
+	 *
+	 * @param call Target call
+	 * @param <T>  Response body type
+	 * @return {@link CompletableFuture} gateway timeout response
+	 */
+	@NotNull
+	private static <T> CompletableFuture<HttpResponse<T>> gatewayTimeout(@NotNull HttpCall<T> call) {
+		CacheEntry entry = new CacheEntry(
+			key(call.getUri()), 504, HttpHeaders.of(Map.of(), (name, value) -> true), HttpClient.Version.HTTP_1_1,
+			Map.of(), 0, 0, ByteBuffer.allocate(0)
+		);
+		return deliver(entry, call, 0);
+	}
+
+	/**
+	 * Publish buffer to subscriber when it requests data
+	 *
+	 * @param subscriber Target subscriber
+	 * @param body       Body buffer
+	 */
+	private static void replay(@NotNull HttpResponse.BodySubscriber<?> subscriber, @NotNull ByteBuffer body) {
+		AtomicBoolean done = new AtomicBoolean();
+
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				if (n <= 0 || !done.compareAndSet(false, true)) return;
+
+				if (body.hasRemaining()) subscriber.onNext(List.of(body));
+				subscriber.onComplete();
+			}
+
+			@Override
+			public void cancel() {
+				done.set(true);
+			}
+		});
+	}
+
+	/**
+	 * Replace {@code Age} header (RFC 9111 section 5.1)
+	 *
+	 * @param headers Stored headers
+	 * @param age     Current age in milliseconds
+	 * @return {@link HttpHeaders} headers result
+	 */
+	@NotNull
+	private static HttpHeaders withAge(@NotNull HttpHeaders headers, long age) {
+		Map<String, List<String>> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+		result.putAll(headers.map());
+		result.put("Age", List.of(Long.toString(Math.max(0, age) / 1000)));
+		return HttpHeaders.of(result, (name, value) -> true);
+	}
+
+	/**
+	 * Get response status and headers
+	 *
+	 * @param response Target response
+	 * @return {@link HttpResponse.ResponseInfo} info
+	 */
+	@NotNull
+	private static HttpResponse.ResponseInfo info(@NotNull HttpResponse<?> response) {
+		return new StoredInfo(response.statusCode(), response.headers(), response.version());
+	}
+
+	/**
+	 * Complete future with response or error
+	 *
+	 * @param future   Target future
+	 * @param response Response or {@code null}
+	 * @param error    Error or {@code null}
+	 * @param <R>      Result type
+	 */
+	private static <R> void complete(@NotNull CompletableFuture<R> future, R response, @Nullable Throwable error) {
+		if (error != null) future.completeExceptionally(error);
+		else future.complete(response);
+	}
+
+	/**
+	 * Run action before caller sees the result. Cancelling the result cancels the source
+	 *
+	 * @param source Source future
+	 * @param action Completion action
+	 * @param <R>    Result type
+	 * @return {@link CompletableFuture} result
+	 */
+	@NotNull
+	private static <R> CompletableFuture<R> relay(
+		@NotNull CompletableFuture<R> source,
+		@NotNull BiConsumer<? super R, ? super Throwable> action
+	) {
+		CompletableFuture<R> result = source.whenComplete(action);
+
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled()) source.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * Remove future wrappers from error
+	 *
+	 * @param error Target error
+	 * @return Real error
+	 */
+	@NotNull
+	private static Throwable unwrap(@NotNull Throwable error) {
+		while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null)
+			error = error.getCause();
+		return error;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Response
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Stored status and headers
+	 */
+	private static final class StoredInfo implements HttpResponse.ResponseInfo {
+
+		/**
+		 * Response status
+		 */
+		private final int status;
+
+		/**
+		 * Response headers
+		 */
+		private final HttpHeaders headers;
+
+		/**
+		 * Protocol version
+		 */
+		private final HttpClient.Version version;
+
+		/**
+		 * Create info
+		 *
+		 * @param status  Response status
+		 * @param headers Response headers
+		 * @param version Protocol version
+		 */
+		private StoredInfo(int status, @NotNull HttpHeaders headers, @NotNull HttpClient.Version version) {
+			this.status = status;
+			this.headers = headers;
+			this.version = version;
+		}
+
+		@Override
+		public int statusCode() {
+			return status;
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return headers;
+		}
+
+		@Override
+		public HttpClient.Version version() {
+			return version;
+		}
+
+	}
+
+	/**
+	 * Response served from cache
+	 *
+	 * @param <T> Response body type
+	 */
+	private static final class CachedResponse<T> implements HttpResponse<T> {
+
+		/**
+		 * Caller request
+		 */
+		private final HttpRequest request;
+
+		/**
+		 * Source entry
+		 */
+		private final CacheEntry entry;
+
+		/**
+		 * Response headers with {@code Age}
+		 */
+		private final HttpHeaders headers;
+
+		/**
+		 * Caller body
+		 */
+		private final T body;
+
+		/**
+		 * Create response
+		 *
+		 * @param request Caller request
+		 * @param entry   Source entry
+		 * @param headers Response headers
+		 * @param body    Caller body
+		 */
+		private CachedResponse(@NotNull HttpRequest request, @NotNull CacheEntry entry, @NotNull HttpHeaders headers, T body) {
+			this.request = request;
+			this.entry = entry;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return entry.statusCode();
+		}
+
+		@Override
+		public HttpRequest request() {
+			return request;
+		}
+
+		@Override
+		public Optional<HttpResponse<T>> previousResponse() {
+			return Optional.empty();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return headers;
+		}
+
+		@Override
+		public T body() {
+			return body;
+		}
+
+		@Override
+		public Optional<SSLSession> sslSession() {
+			return Optional.empty();
+		}
+
+		@Override
+		public URI uri() {
+			return request.uri();
+		}
+
+		@Override
+		public HttpClient.Version version() {
+			return entry.version();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("(%s %s) %d", request.method(), request.uri(), statusCode());
+		}
+
+	}
+
+	/**
+	 * Subscriber that keeps a copy of the raw body while caller receives it
+	 *
+	 * @param <T> Response body type
+	 */
+	private static final class StoringSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+		/**
+		 * Caller subscriber
+		 */
+		private final HttpResponse.BodySubscriber<T> downstream;
+
+		/**
+		 * Max copied bytes
+		 */
+		private final long maxSize;
+
+		/**
+		 * Store action
+		 */
+		private final Consumer<byte[]> store;
+
+		/**
+		 * Body copy or {@code null} if body is too large
+		 */
+		private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+		/**
+		 * Create subscriber
+		 *
+		 * @param downstream Caller subscriber
+		 * @param maxSize    Max copied bytes
+		 * @param store      Store action
+		 */
+		private StoringSubscriber(
+			@NotNull HttpResponse.BodySubscriber<T> downstream,
+			long maxSize,
+			@NotNull Consumer<byte[]> store
+		) {
+			this.downstream = downstream;
+			this.maxSize = maxSize;
+			this.store = store;
+		}
+
+		@Override
+		public CompletionStage<T> getBody() {
+			return downstream.getBody();
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			downstream.onSubscribe(subscription);
+		}
+
+		@Override
+		public void onNext(List<ByteBuffer> item) {
+			if (copy != null) {
+				for (ByteBuffer buffer : item) {
+					ByteBuffer source = buffer.duplicate();
+					if (copy.size() + source.remaining() > maxSize) {
+						copy = null;
+						break;
+					}
+
+					byte[] data = new byte[source.remaining()];
+					source.get(data);
+					copy.write(data, 0, data.length);
+				}
+			}
+			downstream.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			copy = null;
+			downstream.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			// Entry is stored before caller sees the body
+			if (copy != null) store.accept(copy.toByteArray());
+			downstream.onComplete();
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Cache builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Memory tier size
+		 */
+		private long memorySize = 32L * 1024 * 1024;
+
+		/**
+		 * Disk tier directory
+		 */
+		private Path diskDirectory;
+
+		/**
+		 * Disk tier size
+		 */
+		private long diskSize;
+
+		/**
+		 * Max stored body size
+		 */
+		private long maxEntrySize = 4L * 1024 * 1024;
+
+		/**
+		 * Heuristic freshness
+		 */
+		private boolean heuristic = true;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set memory tier size. By default 32 MiB.
+		 *
+		 * @param maxBytes Max stored bytes
+		 * @return Current builder instance.
+		 */
+		public Builder withMemorySize(long maxBytes) {
+			if (maxBytes < 0) throw new IllegalArgumentException("Size cannot be negative.");
+
+			memorySize = maxBytes;
+			return this;
+		}
+
+		/**
+		 * Enable disk tier. Entries already stored in the directory are reused.
+		 *
+		 * @param directory Cache directory (created if it does not exist)
+		 * @param maxBytes  Max stored bytes
+		 * @return Current builder instance.
+		 */
+		public Builder withDisk(@NotNull Path directory, long maxBytes) {
+			if (maxBytes <= 0) throw new IllegalArgumentException("Size must be positive.");
+
+			diskDirectory = directory;
+			diskSize = maxBytes;
+			return this;
+		}
+
+		/**
+		 * Set max stored body size. Larger responses are not stored. By default 4 MiB.
+		 *
+		 * @param maxBytes Max body bytes
+		 * @return Current builder instance.
+		 */
+		public Builder withMaxEntrySize(long maxBytes) {
+			if (maxBytes < 0) throw new IllegalArgumentException("Size cannot be negative.");
+
+			maxEntrySize = maxBytes;
+			return this;
+		}
+
+		/**
+		 * Enable or disable heuristic freshness (10% of {@code Last-Modified} age) for responses without
+		 * explicit freshness. Enabled by default.
+		 *
+		 * @param heuristic Heuristic status
+		 * @return Current builder instance.
+		 */
+		public Builder withHeuristicFreshness(boolean heuristic) {
+			this.heuristic = heuristic;
+			return this;
+		}
+
+		/**
+		 * Build cache policy.
+		 *
+		 * @return {@link CachePolicy} Instance result.
+		 * @throws UncheckedIOException Error if disk directory cannot be created or read
+		 */
+		@NotNull
+		public CachePolicy build() {
+			try {
+				CacheStore disk = diskDirectory == null ? null : new DiskCacheStore(diskDirectory, diskSize);
+				return new CachePolicy(this, disk);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+	}
+
+}
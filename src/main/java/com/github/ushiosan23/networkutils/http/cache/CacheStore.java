@@ -0,0 +1,46 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cache storage tier. Implementations are thread safe and evict entries by themselves
+ */
+interface CacheStore {
+
+	/**
+	 * Get stored entry
+	 *
+	 * @param key Cache key
+	 * @return {@link CacheEntry} entry or {@code null} if key is not stored
+	 */
+	@Nullable
+	CacheEntry get(@NotNull String key);
+
+	/**
+	 * Store or replace entry
+	 *
+	 * @param entry Target entry
+	 */
+	void put(@NotNull CacheEntry entry);
+
+	/**
+	 * Remove entry
+	 *
+	 * @param key Cache key
+	 */
+	void remove(@NotNull String key);
+
+	/**
+	 * Remove all entries
+	 */
+	void clear();
+
+	/**
+	 * Get stored bytes
+	 *
+	 * @return Size in bytes
+	 */
+	long size();
+
+}
@@ -0,0 +1,264 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size bounded disk tier. Each entry is one file read with a memory-mapped buffer, so bodies are
+ * replayed from the page cache without copies. Files are evicted in least recently used order and
+ * the index is rebuilt from the directory when the store is created.
+ */
+final class DiskCacheStore implements CacheStore {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Entry file extension
+	 */
+	private static final String EXTENSION = ".entry";
+
+	/**
+	 * Hex digits
+	 */
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Cache directory
+	 */
+	private final Path directory;
+
+	/**
+	 * Max stored bytes
+	 */
+	private final long maxSize;
+
+	/**
+	 * File sizes by file name in access order
+	 */
+	private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+
+	/**
+	 * Stored bytes
+	 */
+	private long size;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create disk tier. Existing entries are kept, oldest files first in eviction order
+	 *
+	 * @param directory Cache directory
+	 * @param maxSize   Max stored bytes
+	 * @throws IOException Error if directory cannot be created or read
+	 */
+	DiskCacheStore(@NotNull Path directory, long maxSize) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.maxSize = maxSize;
+
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+			for (Path file : stream) files.add(file);
+		}
+		files.sort(Comparator.comparingLong(DiskCacheStore::lastModified));
+
+		for (Path file : files) {
+			long fileSize = Files.size(file);
+			index.put(file.getFileName().toString(), fileSize);
+			size += fileSize;
+		}
+		evict();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	@Nullable
+	@Override
+	public CacheEntry get(@NotNull String key) {
+		String name = fileName(key);
+		synchronized (this) {
+			if (index.get(name) == null) return null;
+		}
+
+		CacheEntry entry;
+		try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			entry = CacheEntry.decode(buffer);
+		} catch (IOException e) {
+			entry = null;
+		}
+
+		// Corrupted files and hash collisions are dropped
+		if (entry == null || !entry.getKey().equals(key)) {
+			remove(key);
+			return null;
+		}
+		return entry;
+	}
+
+	@Override
+	public void put(@NotNull CacheEntry entry) {
+		String name = fileName(entry.getKey());
+		Path temporal = null;
+
+		try {
+			byte[] metadata = entry.encodeMetadata();
+			ByteBuffer body = entry.getBody();
+			if (metadata.length + body.remaining() > maxSize) {
+				remove(entry.getKey());
+				return;
+			}
+
+			temporal = Files.createTempFile(directory, name, ".tmp");
+			try (FileChannel channel = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.wrap(metadata);
+				while (header.hasRemaining()) channel.write(header);
+				while (body.hasRemaining()) channel.write(body);
+			}
+			// Readers see the old file or the new one, never a partial file
+			Files.move(temporal, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			synchronized (this) {
+				Long previous = index.put(name, (long) metadata.length + entry.getBody().remaining());
+				if (previous != null) size -= previous;
+				size += index.get(name);
+			}
+			evict();
+		} catch (IOException e) {
+			// Disk tier is best effort, memory tier still has the entry
+			if (temporal != null) delete(temporal);
+		}
+	}
+
+	@Override
+	public void remove(@NotNull String key) {
+		String name = fileName(key);
+
+		synchronized (this) {
+			Long previous = index.remove(name);
+			if (previous == null) return;
+			size -= previous;
+		}
+		delete(directory.resolve(name));
+	}
+
+	@Override
+	public void clear() {
+		List<String> names;
+
+		synchronized (this) {
+			names = new ArrayList<>(index.keySet());
+			index.clear();
+			size = 0;
+		}
+		for (String name : names) delete(directory.resolve(name));
+	}
+
+	@Override
+	public synchronized long size() {
+		return size;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Remove least recently used files until size is under the max
+	 */
+	private void evict() {
+		List<String> evicted = new ArrayList<>();
+
+		synchronized (this) {
+			Iterator<Map.Entry<String, Long>> iterator = index.entrySet().iterator();
+			while (size > maxSize && iterator.hasNext()) {
+				Map.Entry<String, Long> eldest = iterator.next();
+				size -= eldest.getValue();
+				evicted.add(eldest.getKey());
+				iterator.remove();
+			}
+		}
+		for (String name : evicted) delete(directory.resolve(name));
+	}
+
+	/**
+	 * Get entry file name (SHA-256 of the key)
+	 *
+	 * @param key Cache key
+	 * @return File name
+	 */
+	@NotNull
+	private static String fileName(@NotNull String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			char[] result = new char[digest.length * 2];
+
+			for (int i = 0; i < digest.length; i++) {
+				result[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+				result[i * 2 + 1] = HEX[digest[i] & 0xF];
+			}
+			return new String(result) + EXTENSION;
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get file modification time
+	 *
+	 * @param file Target file
+	 * @return Epoch millis or {@code 0} if time cannot be read
+	 */
+	private static long lastModified(@NotNull Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Delete file ignoring errors
+	 *
+	 * @param file Target file
+	 */
+	private static void delete(@NotNull Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException ignored) {
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.github.ushiosan23.networkutils.http.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size bounded in-memory tier. Least recently used entries are evicted first
+ */
+final class MemoryCacheStore implements CacheStore {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Max stored bytes
+	 */
+	private final long maxSize;
+
+	/**
+	 * Entries in access order
+	 */
+	private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+	/**
+	 * Stored bytes
+	 */
+	private long size;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create memory tier
+	 *
+	 * @param maxSize Max stored bytes
+	 */
+	MemoryCacheStore(long maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	@Nullable
+	@Override
+	public synchronized CacheEntry get(@NotNull String key) {
+		return entries.get(key);
+	}
+
+	@Override
+	public synchronized void put(@NotNull CacheEntry entry) {
+		long entrySize = entry.size();
+		if (entrySize > maxSize) {
+			remove(entry.getKey());
+			return;
+		}
+
+		CacheEntry previous = entries.put(entry.getKey(), entry);
+		if (previous != null) size -= previous.size();
+		size += entrySize;
+
+		Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+		while (size > maxSize && iterator.hasNext()) {
+			size -= iterator.next().getValue().size();
+			iterator.remove();
+		}
+	}
+
+	@Override
+	public synchronized void remove(@NotNull String key) {
+		CacheEntry previous = entries.remove(key);
+		if (previous != null) size -= previous.size();
+	}
+
+	@Override
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	@Override
+	public synchronized long size() {
+		return size;
+	}
+
+}
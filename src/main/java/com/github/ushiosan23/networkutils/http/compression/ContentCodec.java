@@ -0,0 +1,40 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Content coding interface ({@code Content-Encoding} header values).
+ * Implement this interface to add extra codings like brotli or zstd.
+ */
+public interface ContentCodec {
+
+	/**
+	 * Get coding name
+	 *
+	 * @return Coding name used in headers (gzip, deflate, br, etc.)
+	 */
+	@NotNull
+	String getName();
+
+	/**
+	 * Create response body decoder. Every response uses a new decoder
+	 *
+	 * @return {@link ContentDecoder} new decoder
+	 */
+	@NotNull
+	ContentDecoder newDecoder();
+
+	/**
+	 * Create request body encoder
+	 *
+	 * @param output Stream that receives encoded data
+	 * @return Stream that encodes written data
+	 * @throws IOException if an I/O error occurs
+	 */
+	@NotNull
+	OutputStream newEncoder(@NotNull OutputStream output) throws IOException;
+
+}
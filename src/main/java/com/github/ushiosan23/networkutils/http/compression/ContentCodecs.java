@@ -0,0 +1,83 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Built-in content codings.
+ */
+public final class ContentCodecs {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Gzip coding
+	 */
+	public static final ContentCodec GZIP = new ContentCodec() {
+
+		@NotNull
+		@Override
+		public String getName() {
+			return "gzip";
+		}
+
+		@NotNull
+		@Override
+		public ContentDecoder newDecoder() {
+			return new InflaterDecoder(true);
+		}
+
+		@NotNull
+		@Override
+		public OutputStream newEncoder(@NotNull OutputStream output) throws IOException {
+			return new GZIPOutputStream(output, 8 * 1024);
+		}
+
+	};
+
+	/**
+	 * Deflate coding (zlib format)
+	 */
+	public static final ContentCodec DEFLATE = new ContentCodec() {
+
+		@NotNull
+		@Override
+		public String getName() {
+			return "deflate";
+		}
+
+		@NotNull
+		@Override
+		public ContentDecoder newDecoder() {
+			return new InflaterDecoder(false);
+		}
+
+		@NotNull
+		@Override
+		public OutputStream newEncoder(@NotNull OutputStream output) {
+			return new DeflaterOutputStream(output);
+		}
+
+	};
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private ContentCodecs() {
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Incremental content decoder.
+ * Receives body chunks as they arrive and produces decoded chunks.
+ */
+public interface ContentDecoder {
+
+	/**
+	 * Decode body chunk
+	 *
+	 * @param input  Encoded chunk
+	 * @param output List that receives decoded chunks
+	 * @throws IOException if encoded data is not valid
+	 */
+	void decode(@NotNull ByteBuffer input, @NotNull List<ByteBuffer> output) throws IOException;
+
+	/**
+	 * Called when body finished
+	 *
+	 * @param output List that receives last decoded chunks
+	 * @throws IOException if encoded data is incomplete
+	 */
+	void finish(@NotNull List<ByteBuffer> output) throws IOException;
+
+	/**
+	 * Release decoder resources
+	 */
+	default void close() {
+	}
+
+}
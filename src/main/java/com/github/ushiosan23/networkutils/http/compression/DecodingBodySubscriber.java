@@ -0,0 +1,171 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Body subscriber that decodes chunks before passing them to the real subscriber.
+ *
+ * @param <T> Body type
+ */
+final class DecodingBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Real subscriber
+	 */
+	private final HttpResponse.BodySubscriber<T> downstream;
+
+	/**
+	 * Decoders in application order
+	 */
+	private final ContentDecoder[] decoders;
+
+	/**
+	 * Body subscription
+	 */
+	private Flow.Subscription subscription;
+
+	/**
+	 * Decoding failed
+	 */
+	private boolean failed;
+
+	/**
+	 * Encoded bytes were received
+	 */
+	private boolean received;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create decoding subscriber
+	 *
+	 * @param downstream Real subscriber
+	 * @param decoders   Decoders in application order
+	 */
+	DecodingBodySubscriber(@NotNull HttpResponse.BodySubscriber<T> downstream, @NotNull ContentDecoder[] decoders) {
+		this.downstream = downstream;
+		this.decoders = decoders;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Implemented methods
+	 *
+	 * --------------------------------------------------------- */
+
+	@Override
+	public CompletionStage<T> getBody() {
+		return downstream.getBody();
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		this.subscription = subscription;
+		downstream.onSubscribe(subscription);
+	}
+
+	@Override
+	public void onNext(List<ByteBuffer> item) {
+		if (failed) return;
+
+		try {
+			if (!received) received = item.stream().anyMatch(ByteBuffer::hasRemaining);
+
+			List<ByteBuffer> decoded = item;
+			for (ContentDecoder decoder : decoders) {
+				List<ByteBuffer> output = new ArrayList<>();
+				for (ByteBuffer buffer : decoded) decoder.decode(buffer, output);
+				decoded = output;
+			}
+
+			if (decoded.isEmpty()) {
+				// Downstream is waiting data, ask for more encoded chunks
+				subscription.request(1);
+			} else {
+				downstream.onNext(decoded);
+			}
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (failed) return;
+
+		close();
+		downstream.onError(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		if (failed) return;
+
+		// Empty bodies (HEAD, 204, 304, etc.) are not encoded even if they declare a coding
+		if (!received) {
+			close();
+			downstream.onComplete();
+			return;
+		}
+
+		try {
+			List<ByteBuffer> decoded = new ArrayList<>();
+			for (ContentDecoder decoder : decoders) {
+				List<ByteBuffer> output = new ArrayList<>();
+				for (ByteBuffer buffer : decoded) decoder.decode(buffer, output);
+				decoder.finish(output);
+				decoded = output;
+			}
+
+			close();
+			if (!decoded.isEmpty()) downstream.onNext(decoded);
+			downstream.onComplete();
+		} catch (IOException e) {
+			fail(e);
+		}
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Cancel body and notify error
+	 *
+	 * @param error Decoding error
+	 */
+	private void fail(@NotNull IOException error) {
+		failed = true;
+		subscription.cancel();
+		close();
+		downstream.onError(error);
+	}
+
+	/**
+	 * Release decoders
+	 */
+	private void close() {
+		for (ContentDecoder decoder : decoders) decoder.close();
+	}
+
+}
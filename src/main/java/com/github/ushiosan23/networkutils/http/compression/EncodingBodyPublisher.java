@@ -0,0 +1,284 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Body publisher that encodes request body while it is sent.
+ */
+final class EncodingBodyPublisher implements HttpRequest.BodyPublisher {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Real body publisher
+	 */
+	private final HttpRequest.BodyPublisher publisher;
+
+	/**
+	 * Body coding
+	 */
+	private final ContentCodec codec;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create encoding publisher
+	 *
+	 * @param publisher Real body publisher
+	 * @param codec     Body coding
+	 */
+	EncodingBodyPublisher(@NotNull HttpRequest.BodyPublisher publisher, @NotNull ContentCodec codec) {
+		this.publisher = publisher;
+		this.codec = codec;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Implemented methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Encoded size is unknown until body is sent
+	 *
+	 * @return Always {@code -1}
+	 */
+	@Override
+	public long contentLength() {
+		return -1;
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+		publisher.subscribe(new EncodingSubscriber(subscriber));
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Subscriber class
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Upstream subscriber. Every upstream chunk generates at most one encoded chunk.
+	 */
+	private final class EncodingSubscriber implements Flow.Subscriber<ByteBuffer>, Flow.Subscription {
+
+		/**
+		 * Client subscriber
+		 */
+		private final Flow.Subscriber<? super ByteBuffer> downstream;
+
+		/**
+		 * Encoded bytes not sent yet
+		 */
+		private final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+		/**
+		 * Encoder stream
+		 */
+		private OutputStream encoder;
+
+		/**
+		 * Real body subscription
+		 */
+		private Flow.Subscription upstream;
+
+		/**
+		 * Requested chunks not delivered yet
+		 */
+		private long demand;
+
+		/**
+		 * Last encoded chunk waiting demand
+		 */
+		private ByteBuffer pendingLast;
+
+		/**
+		 * Subscription finished
+		 */
+		private boolean done;
+
+		/**
+		 * Create subscriber
+		 *
+		 * @param downstream Client subscriber
+		 */
+		private EncodingSubscriber(@NotNull Flow.Subscriber<? super ByteBuffer> downstream) {
+			this.downstream = downstream;
+		}
+
+		/* ---------------------------------------------------------
+		 *
+		 * Subscriber methods
+		 *
+		 * --------------------------------------------------------- */
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			upstream = subscription;
+
+			try {
+				encoder = codec.newEncoder(sink);
+			} catch (IOException e) {
+				subscription.cancel();
+				downstream.onSubscribe(this);
+				finish(e);
+				return;
+			}
+
+			downstream.onSubscribe(this);
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			ByteBuffer encoded;
+
+			try {
+				if (item.hasArray()) {
+					encoder.write(item.array(), item.arrayOffset() + item.position(), item.remaining());
+				} else {
+					byte[] bytes = new byte[item.remaining()];
+					item.get(bytes);
+					encoder.write(bytes);
+				}
+				encoded = drainSink();
+			} catch (IOException e) {
+				upstream.cancel();
+				finish(e);
+				return;
+			}
+
+			if (encoded == null) {
+				// Encoder is buffering, ask for more data
+				upstream.request(1);
+				return;
+			}
+
+			synchronized (this) {
+				demand--;
+			}
+			downstream.onNext(encoded);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			finish(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			ByteBuffer last;
+
+			try {
+				encoder.close();
+				last = drainSink();
+			} catch (IOException e) {
+				finish(e);
+				return;
+			}
+
+			if (last == null) {
+				finish(null);
+				return;
+			}
+
+			synchronized (this) {
+				if (demand <= 0) {
+					pendingLast = last;
+					return;
+				}
+				demand--;
+			}
+
+			downstream.onNext(last);
+			finish(null);
+		}
+
+		/* ---------------------------------------------------------
+		 *
+		 * Subscription methods
+		 *
+		 * --------------------------------------------------------- */
+
+		@Override
+		public void request(long n) {
+			ByteBuffer last;
+
+			synchronized (this) {
+				if (done) return;
+				demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				last = pendingLast;
+				pendingLast = null;
+			}
+
+			if (last != null) {
+				downstream.onNext(last);
+				finish(null);
+			} else {
+				upstream.request(n);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (this) {
+				done = true;
+			}
+			upstream.cancel();
+		}
+
+		/* ---------------------------------------------------------
+		 *
+		 * Internal methods
+		 *
+		 * --------------------------------------------------------- */
+
+		/**
+		 * Take encoded bytes
+		 *
+		 * @return Encoded chunk or {@code null} if encoder did not generate data
+		 */
+		@Nullable
+		private ByteBuffer drainSink() {
+			if (sink.size() == 0) return null;
+
+			ByteBuffer buffer = ByteBuffer.wrap(sink.toByteArray());
+			sink.reset();
+			return buffer;
+		}
+
+		/**
+		 * Complete downstream once
+		 *
+		 * @param error Error or {@code null} if body finished correctly
+		 */
+		private void finish(@Nullable Throwable error) {
+			synchronized (this) {
+				if (done) return;
+				done = true;
+			}
+
+			if (error != null) downstream.onError(error);
+			else downstream.onComplete();
+		}
+
+	}
+
+}
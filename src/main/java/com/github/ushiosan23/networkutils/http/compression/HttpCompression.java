@@ -0,0 +1,284 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compression configuration.
+ * Negotiates response codings with {@code Accept-Encoding} header, decodes responses while they
+ * are received and optionally encodes large request bodies.
+ */
+public final class HttpCompression {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Default min body size to encode requests
+	 */
+	public static final long DEFAULT_MIN_REQUEST_SIZE = 1024;
+
+	/**
+	 * Supported codings by name
+	 */
+	private final Map<String, ContentCodec> codecs;
+
+	/**
+	 * {@code Accept-Encoding} header value
+	 */
+	private final String acceptEncoding;
+
+	/**
+	 * Request body coding or {@code null} if request bodies are sent without encoding
+	 */
+	private final ContentCodec requestCodec;
+
+	/**
+	 * Min body size to encode requests
+	 */
+	private final long minRequestSize;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create configuration from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private HttpCompression(@NotNull Builder builder) {
+		codecs = new LinkedHashMap<>(builder.codecs);
+		acceptEncoding = String.join(", ", codecs.keySet());
+		requestCodec = builder.requestCodec;
+		minRequestSize = builder.minRequestSize;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create compression builder. Gzip and deflate are registered by default.
+	 *
+	 * @return {@link HttpCompression.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Get {@code Accept-Encoding} header value
+	 *
+	 * @return Header value
+	 */
+	@NotNull
+	public String getAcceptEncoding() {
+		return acceptEncoding;
+	}
+
+	/**
+	 * Get request body coding
+	 *
+	 * @return Request coding or {@code null} if request bodies are not encoded
+	 */
+	@Nullable
+	public ContentCodec getRequestCodec() {
+		return requestCodec;
+	}
+
+	/**
+	 * Wrap body handler. Responses with known {@code Content-Encoding} are decoded before the
+	 * real handler receives the data. Responses without body ({@code 204}, {@code 304}) are not decoded.
+	 *
+	 * @param handler Real body handler
+	 * @param <T>     Body type
+	 * @return {@link HttpResponse.BodyHandler} decoding handler
+	 */
+	@NotNull
+	public <T> HttpResponse.BodyHandler<T> decoding(@NotNull HttpResponse.BodyHandler<T> handler) {
+		return responseInfo -> {
+			HttpResponse.BodySubscriber<T> subscriber = handler.apply(responseInfo);
+			int status = responseInfo.statusCode();
+			if (status == 204 || status == 304) return subscriber;
+
+			ContentDecoder[] decoders = makeDecoders(responseInfo.headers().allValues("Content-Encoding"));
+
+			return decoders == null || decoders.length == 0 ?
+				subscriber :
+				new DecodingBodySubscriber<>(subscriber, decoders);
+		};
+	}
+
+	/**
+	 * Check if request body must be encoded
+	 *
+	 * @param body Request body
+	 * @return {@code true} if body is encoded by {@link #encoding(HttpRequest.BodyPublisher)}
+	 */
+	public boolean shouldEncode(@NotNull HttpRequest.BodyPublisher body) {
+		if (requestCodec == null) return false;
+
+		long length = body.contentLength();
+		return length < 0 || length >= minRequestSize;
+	}
+
+	/**
+	 * Wrap request body. Remember to send {@code Content-Encoding} header with
+	 * {@link #getRequestCodec()} name if {@link #shouldEncode(HttpRequest.BodyPublisher)} is true.
+	 *
+	 * @param body Request body
+	 * @return Encoded body or the same body if encoding is not required
+	 */
+	@NotNull
+	public HttpRequest.BodyPublisher encoding(@NotNull HttpRequest.BodyPublisher body) {
+		if (!shouldEncode(body)) return body;
+		return new EncodingBodyPublisher(body, Objects.requireNonNull(requestCodec));
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create decoders for response codings
+	 *
+	 * @param headerValues {@code Content-Encoding} values
+	 * @return Decoders in application order or {@code null} if any coding is unknown
+	 */
+	@Nullable
+	private ContentDecoder[] makeDecoders(@NotNull List<String> headerValues) {
+		List<String> names = new ArrayList<>();
+
+		for (String value : headerValues) {
+			for (String name : value.split(",")) {
+				String trimmed = name.trim().toLowerCase(Locale.ROOT);
+				if (!trimmed.isEmpty() && !trimmed.equals("identity")) names.add(trimmed);
+			}
+		}
+
+		ContentDecoder[] decoders = new ContentDecoder[names.size()];
+		// Codings are listed in the order they were applied
+		for (int i = 0; i < names.size(); i++) {
+			ContentCodec codec = codecs.get(names.get(names.size() - 1 - i));
+			if (codec == null) return null;
+			decoders[i] = codec.newDecoder();
+		}
+
+		return decoders;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder section
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Builder class.
+	 */
+	public static final class Builder {
+
+		/**
+		 * Supported codings in preference order
+		 */
+		private final Map<String, ContentCodec> codecs = new LinkedHashMap<>();
+
+		/**
+		 * Request body coding
+		 */
+		private ContentCodec requestCodec;
+
+		/**
+		 * Min body size to encode requests
+		 */
+		private long minRequestSize = DEFAULT_MIN_REQUEST_SIZE;
+
+		/**
+		 * Create builder with default codings.
+		 */
+		private Builder() {
+			withCodec(ContentCodecs.GZIP);
+			withCodec(ContentCodecs.DEFLATE);
+		}
+
+		/**
+		 * Add or replace response coding (brotli, zstd, etc.).
+		 *
+		 * @param codec Target coding
+		 * @return Current builder instance.
+		 */
+		public Builder withCodec(@NotNull ContentCodec codec) {
+			codecs.put(codec.getName().toLowerCase(Locale.ROOT), codec);
+			return this;
+		}
+
+		/**
+		 * Remove all response codings.
+		 *
+		 * @return Current builder instance.
+		 */
+		public Builder clearCodecs() {
+			codecs.clear();
+			return this;
+		}
+
+		/**
+		 * Encode request bodies with specific coding. Bodies with unknown size are always encoded.
+		 *
+		 * @param codec   Request coding or {@code null} to send bodies without encoding
+		 * @param minSize Min body size to encode
+		 * @return Current builder instance.
+		 */
+		public Builder withRequestEncoding(@Nullable ContentCodec codec, long minSize) {
+			if (minSize < 0) throw new IllegalArgumentException("Min size cannot be negative.");
+
+			requestCodec = codec;
+			minRequestSize = minSize;
+			return this;
+		}
+
+		/**
+		 * Encode request bodies with specific coding and default min size.
+		 *
+		 * @param codec Request coding or {@code null} to send bodies without encoding
+		 * @return Current builder instance.
+		 */
+		public Builder withRequestEncoding(@Nullable ContentCodec codec) {
+			return withRequestEncoding(codec, DEFAULT_MIN_REQUEST_SIZE);
+		}
+
+		/**
+		 * Build compression configuration.
+		 *
+		 * @return {@link HttpCompression} Instance result.
+		 */
+		@NotNull
+		public HttpCompression build() {
+			return new HttpCompression(this);
+		}
+
+	}
+
+}
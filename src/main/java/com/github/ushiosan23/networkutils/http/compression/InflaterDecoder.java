@@ -0,0 +1,337 @@
+package com.github.ushiosan23.networkutils.http.compression;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Incremental gzip and deflate decoder.
+ */
+final class InflaterDecoder implements ContentDecoder {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Decoded chunk size
+	 */
+	private static final int CHUNK_SIZE = 8 * 1024;
+
+	/**
+	 * Gzip flag: extra field
+	 */
+	private static final int FEXTRA = 4;
+
+	/**
+	 * Gzip flag: file name
+	 */
+	private static final int FNAME = 8;
+
+	/**
+	 * Gzip flag: comment
+	 */
+	private static final int FCOMMENT = 16;
+
+	/**
+	 * Gzip flag: header crc
+	 */
+	private static final int FHCRC = 2;
+
+	/**
+	 * Decoder states
+	 */
+	private enum State {
+		HEADER, EXTRA_LENGTH, EXTRA, NAME, COMMENT, HEADER_CRC, BODY, TRAILER, MEMBER_END
+	}
+
+	/**
+	 * Decode gzip members or zlib data
+	 */
+	private final boolean gzip;
+
+	/**
+	 * Uncompressed data checksum
+	 */
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Deflate decoder
+	 */
+	private Inflater inflater;
+
+	/**
+	 * Current state
+	 */
+	private State state;
+
+	/**
+	 * Fixed size fields buffer
+	 */
+	private final byte[] field = new byte[10];
+
+	/**
+	 * Bytes stored in field buffer
+	 */
+	private int fieldLength;
+
+	/**
+	 * Gzip header flags
+	 */
+	private int flags;
+
+	/**
+	 * Remaining extra field bytes
+	 */
+	private int extraRemaining;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create decoder
+	 *
+	 * @param gzip Decode gzip format. Deflate (zlib or raw) if is false
+	 */
+	InflaterDecoder(boolean gzip) {
+		this.gzip = gzip;
+		this.state = State.HEADER;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Decode body chunk
+	 *
+	 * @param input  Encoded chunk
+	 * @param output List that receives decoded chunks
+	 * @throws IOException if encoded data is not valid
+	 */
+	@Override
+	public void decode(@NotNull ByteBuffer input, @NotNull List<ByteBuffer> output) throws IOException {
+		while (input.hasRemaining()) {
+			switch (state) {
+				case HEADER:
+					if (gzip) readGzipHeader(input);
+					else readDeflateHeader(input);
+					break;
+				case EXTRA_LENGTH:
+					if (fill(input, 2)) {
+						extraRemaining = (field[0] & 0xFF) | ((field[1] & 0xFF) << 8);
+						state = State.EXTRA;
+					}
+					break;
+				case EXTRA:
+					int skip = Math.min(extraRemaining, input.remaining());
+					input.position(input.position() + skip);
+					extraRemaining -= skip;
+					if (extraRemaining == 0) nextHeaderField(State.EXTRA);
+					break;
+				case NAME:
+				case COMMENT:
+					if (input.get() == 0) nextHeaderField(state);
+					break;
+				case HEADER_CRC:
+					if (fill(input, 2)) nextHeaderField(State.HEADER_CRC);
+					break;
+				case BODY:
+					inflate(input, output);
+					break;
+				case TRAILER:
+					if (fill(input, 8)) checkTrailer();
+					break;
+				case MEMBER_END:
+					// Concatenated gzip members
+					if (!gzip) throw new ZipException("Unexpected data after deflate stream.");
+					inflater.reset();
+					crc.reset();
+					fieldLength = 0;
+					state = State.HEADER;
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Called when body finished
+	 *
+	 * @param output List that receives last decoded chunks
+	 * @throws IOException if encoded data is incomplete
+	 */
+	@Override
+	public void finish(@NotNull List<ByteBuffer> output) throws IOException {
+		if (state != State.MEMBER_END)
+			throw new EOFException(String.format("Unexpected end of %s stream.", gzip ? "gzip" : "deflate"));
+	}
+
+	/**
+	 * Release decoder resources
+	 */
+	@Override
+	public void close() {
+		if (inflater != null) inflater.end();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Copy bytes into field buffer
+	 *
+	 * @param input  Source chunk
+	 * @param length Field length
+	 * @return {@code true} if field is complete
+	 */
+	private boolean fill(@NotNull ByteBuffer input, int length) {
+		int count = Math.min(length - fieldLength, input.remaining());
+		input.get(field, fieldLength, count);
+		fieldLength += count;
+
+		if (fieldLength < length) return false;
+		fieldLength = 0;
+		return true;
+	}
+
+	/**
+	 * Read gzip fixed header
+	 *
+	 * @param input Source chunk
+	 * @throws IOException if header is not valid
+	 */
+	private void readGzipHeader(@NotNull ByteBuffer input) throws IOException {
+		if (!fill(input, 10)) return;
+		if ((field[0] & 0xFF) != 0x1F || (field[1] & 0xFF) != 0x8B)
+			throw new ZipException("Not in gzip format.");
+		if (field[2] != 8)
+			throw new ZipException("Unsupported gzip compression method.");
+
+		flags = field[3] & 0xFF;
+		if (inflater == null) inflater = new Inflater(true);
+		nextHeaderField(State.HEADER);
+	}
+
+	/**
+	 * Read deflate header and detect zlib wrapper
+	 *
+	 * @param input Source chunk
+	 */
+	private void readDeflateHeader(@NotNull ByteBuffer input) {
+		if (!fill(input, 2)) return;
+
+		int cmf = field[0] & 0xFF;
+		int flg = field[1] & 0xFF;
+		// Some servers send raw deflate data without zlib wrapper
+		boolean zlib = (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+
+		inflater = new Inflater(!zlib);
+		inflater.setInput(field, 0, 2);
+		state = State.BODY;
+	}
+
+	/**
+	 * Move to next gzip header field
+	 *
+	 * @param current Current field
+	 */
+	private void nextHeaderField(@NotNull State current) {
+		State[] order = {State.HEADER, State.EXTRA, State.NAME, State.COMMENT, State.HEADER_CRC};
+		int[] masks = {0, FEXTRA, FNAME, FCOMMENT, FHCRC};
+		int index = 0;
+
+		while (order[index] != current) index++;
+
+		for (index++; index < order.length; index++) {
+			if ((flags & masks[index]) != 0) {
+				state = order[index] == State.EXTRA ? State.EXTRA_LENGTH : order[index];
+				return;
+			}
+		}
+
+		state = State.BODY;
+	}
+
+	/**
+	 * Inflate compressed data
+	 *
+	 * @param input  Source chunk
+	 * @param output Decoded chunks
+	 * @throws IOException if data is not valid
+	 */
+	private void inflate(@NotNull ByteBuffer input, @NotNull List<ByteBuffer> output) throws IOException {
+		// Header bytes (deflate) are pending before the current input
+		if (inflater.needsInput()) inflater.setInput(input);
+
+		try {
+			while (!inflater.finished()) {
+				ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+				int count = inflater.inflate(chunk);
+
+				if (count > 0) {
+					chunk.flip();
+					if (gzip) crc.update(chunk.duplicate());
+					output.add(chunk);
+				} else if (inflater.needsDictionary()) {
+					throw new ZipException("Deflate dictionary is not supported.");
+				} else if (inflater.needsInput()) {
+					if (!input.hasRemaining()) return;
+					inflater.setInput(input);
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage());
+		}
+
+		// Input position is advanced by inflater, remaining bytes are trailer or next member
+		state = gzip ? State.TRAILER : State.MEMBER_END;
+	}
+
+	/**
+	 * Verify gzip trailer
+	 *
+	 * @throws IOException if checksum or size are not valid
+	 */
+	private void checkTrailer() throws IOException {
+		long expectedCrc = readInt(0);
+		long expectedSize = readInt(4);
+
+		if (expectedCrc != crc.getValue())
+			throw new ZipException("Corrupt gzip trailer (crc).");
+		if (expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL))
+			throw new ZipException("Corrupt gzip trailer (size).");
+
+		state = State.MEMBER_END;
+	}
+
+	/**
+	 * Read little endian unsigned int from field buffer
+	 *
+	 * @param offset Buffer offset
+	 * @return Unsigned value
+	 */
+	private long readInt(int offset) {
+		return (field[offset] & 0xFFL) |
+			((field[offset + 1] & 0xFFL) << 8) |
+			((field[offset + 2] & 0xFFL) << 16) |
+			((field[offset + 3] & 0xFFL) << 24);
+	}
+
+}
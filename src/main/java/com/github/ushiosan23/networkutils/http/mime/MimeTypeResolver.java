@@ -0,0 +1,24 @@
+package com.github.ushiosan23.networkutils.http.mime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * Content type resolver interface.
+ * Used by multipart requests to detect the mime type of every file part.
+ */
+@FunctionalInterface
+public interface MimeTypeResolver {
+
+	/**
+	 * Resolve file mime type
+	 *
+	 * @param path Target file path
+	 * @return File mime type or {@code null} if type cannot be resolved
+	 */
+	@Nullable
+	String resolveMimeType(@NotNull Path path);
+
+}
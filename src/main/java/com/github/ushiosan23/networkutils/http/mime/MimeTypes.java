@@ -0,0 +1,524 @@
+package com.github.ushiosan23.networkutils.http.mime;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Mime type utilities.
+ * Create cached resolvers that check an extension table first, then the file
+ * magic bytes and finally {@link Files#probeContentType(Path)}.
+ */
+public final class MimeTypes {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Mime type used when any resolver cannot detect file type
+	 */
+	public static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+	/**
+	 * Default probe cache size
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 256;
+
+	/**
+	 * Known extensions table
+	 */
+	private static final Map<String, String> EXTENSION_TABLE = new HashMap<>();
+
+	/**
+	 * Known magic signatures. Checked in order
+	 */
+	private static final List<MagicSignature> MAGIC_TABLE = new ArrayList<>();
+
+	/**
+	 * Max bytes read to sniff file content
+	 */
+	private static final int MAGIC_LENGTH = 16;
+
+	/**
+	 * Resolver used by multipart requests
+	 */
+	private static volatile MimeTypeResolver defaultResolver;
+
+	static {
+		/* Text */
+		EXTENSION_TABLE.put("txt", "text/plain");
+		EXTENSION_TABLE.put("html", "text/html");
+		EXTENSION_TABLE.put("htm", "text/html");
+		EXTENSION_TABLE.put("css", "text/css");
+		EXTENSION_TABLE.put("csv", "text/csv");
+		EXTENSION_TABLE.put("md", "text/markdown");
+		EXTENSION_TABLE.put("js", "text/javascript");
+		EXTENSION_TABLE.put("json", "application/json");
+		EXTENSION_TABLE.put("xml", "application/xml");
+		EXTENSION_TABLE.put("yaml", "application/yaml");
+		EXTENSION_TABLE.put("yml", "application/yaml");
+		/* Images */
+		EXTENSION_TABLE.put("png", "image/png");
+		EXTENSION_TABLE.put("jpg", "image/jpeg");
+		EXTENSION_TABLE.put("jpeg", "image/jpeg");
+		EXTENSION_TABLE.put("gif", "image/gif");
+		EXTENSION_TABLE.put("bmp", "image/bmp");
+		EXTENSION_TABLE.put("webp", "image/webp");
+		EXTENSION_TABLE.put("svg", "image/svg+xml");
+		EXTENSION_TABLE.put("ico", "image/vnd.microsoft.icon");
+		EXTENSION_TABLE.put("tif", "image/tiff");
+		EXTENSION_TABLE.put("tiff", "image/tiff");
+		/* Audio and video */
+		EXTENSION_TABLE.put("mp3", "audio/mpeg");
+		EXTENSION_TABLE.put("wav", "audio/wav");
+		EXTENSION_TABLE.put("ogg", "audio/ogg");
+		EXTENSION_TABLE.put("flac", "audio/flac");
+		EXTENSION_TABLE.put("mp4", "video/mp4");
+		EXTENSION_TABLE.put("webm", "video/webm");
+		EXTENSION_TABLE.put("avi", "video/x-msvideo");
+		/* Documents and archives */
+		EXTENSION_TABLE.put("pdf", "application/pdf");
+		EXTENSION_TABLE.put("zip", "application/zip");
+		EXTENSION_TABLE.put("gz", "application/gzip");
+		EXTENSION_TABLE.put("tar", "application/x-tar");
+		EXTENSION_TABLE.put("7z", "application/x-7z-compressed");
+		EXTENSION_TABLE.put("rar", "application/vnd.rar");
+		EXTENSION_TABLE.put("jar", "application/java-archive");
+		EXTENSION_TABLE.put("wasm", "application/wasm");
+		EXTENSION_TABLE.put("doc", "application/msword");
+		EXTENSION_TABLE.put("docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+		EXTENSION_TABLE.put("xls", "application/vnd.ms-excel");
+		EXTENSION_TABLE.put("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+		/* Magic signatures */
+		MAGIC_TABLE.add(new MagicSignature("image/png", 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+		MAGIC_TABLE.add(new MagicSignature("image/jpeg", 0, 0xFF, 0xD8, 0xFF));
+		MAGIC_TABLE.add(new MagicSignature("image/gif", 0, 'G', 'I', 'F', '8'));
+		MAGIC_TABLE.add(new MagicSignature("image/webp", 8, 'W', 'E', 'B', 'P'));
+		MAGIC_TABLE.add(new MagicSignature("image/bmp", 0, 'B', 'M'));
+		MAGIC_TABLE.add(new MagicSignature("application/pdf", 0, '%', 'P', 'D', 'F', '-'));
+		MAGIC_TABLE.add(new MagicSignature("application/zip", 0, 'P', 'K', 0x03, 0x04));
+		MAGIC_TABLE.add(new MagicSignature("application/gzip", 0, 0x1F, 0x8B));
+		MAGIC_TABLE.add(new MagicSignature("application/x-7z-compressed", 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C));
+		MAGIC_TABLE.add(new MagicSignature("application/wasm", 0, 0x00, 'a', 's', 'm'));
+		MAGIC_TABLE.add(new MagicSignature("audio/mpeg", 0, 'I', 'D', '3'));
+		MAGIC_TABLE.add(new MagicSignature("audio/ogg", 0, 'O', 'g', 'g', 'S'));
+		MAGIC_TABLE.add(new MagicSignature("audio/flac", 0, 'f', 'L', 'a', 'C'));
+		MAGIC_TABLE.add(new MagicSignature("video/mp4", 4, 'f', 't', 'y', 'p'));
+		/* Default resolver (requires tables) */
+		defaultResolver = newBuilder().build();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * This class cannot be instantiated.
+	 */
+	private MimeTypes() {
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get resolver used by multipart requests
+	 *
+	 * @return {@link MimeTypeResolver} default resolver
+	 */
+	@NotNull
+	public static MimeTypeResolver getDefaultResolver() {
+		return defaultResolver;
+	}
+
+	/**
+	 * Replace resolver used by multipart requests
+	 *
+	 * @param resolver New default resolver
+	 */
+	public static void setDefaultResolver(@NotNull MimeTypeResolver resolver) {
+		defaultResolver = Objects.requireNonNull(resolver);
+	}
+
+	/**
+	 * Resolve mime type and never return {@code null}
+	 *
+	 * @param resolver Target resolver
+	 * @param path     Target file path
+	 * @return File mime type or {@link #DEFAULT_MIME_TYPE} if type is unknown
+	 */
+	@NotNull
+	public static String resolveOrDefault(@NotNull MimeTypeResolver resolver, @NotNull Path path) {
+		String mimeType = resolver.resolveMimeType(path);
+		return mimeType == null ? DEFAULT_MIME_TYPE : mimeType;
+	}
+
+	/**
+	 * Create resolver builder.
+	 *
+	 * @return {@link MimeTypes.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get lowercase file extension
+	 *
+	 * @param path Target file path
+	 * @return File extension or {@code null} if file has not extension
+	 */
+	@Nullable
+	static String getExtension(@NotNull Path path) {
+		Path fileName = path.getFileName();
+		if (fileName == null) return null;
+
+		String name = fileName.toString();
+		int lastIndex = name.lastIndexOf('.');
+		if (lastIndex == -1 || lastIndex == name.length() - 1) return null;
+
+		return name.substring(lastIndex + 1).toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Sniff file magic bytes
+	 *
+	 * @param path Target file path
+	 * @return Mime type or {@code null} if signature is unknown
+	 */
+	@Nullable
+	static String sniffMagic(@NotNull Path path) {
+		byte[] header = new byte[MAGIC_LENGTH];
+		int length = 0;
+
+		try (InputStream stream = Files.newInputStream(path)) {
+			int read;
+			while (length < header.length && (read = stream.read(header, length, header.length - length)) != -1)
+				length += read;
+		} catch (IOException | SecurityException e) {
+			return null;
+		}
+
+		for (MagicSignature signature : MAGIC_TABLE) {
+			if (signature.matches(header, length)) return signature.mimeType;
+		}
+
+		return null;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder section
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Builder class.
+	 */
+	public static final class Builder {
+
+		/**
+		 * Extension overrides
+		 */
+		private final Map<String, String> extensions = new HashMap<>(EXTENSION_TABLE);
+
+		/**
+		 * Custom resolvers checked after the extension table
+		 */
+		private final List<MimeTypeResolver> resolvers = new ArrayList<>();
+
+		/**
+		 * Check file content signatures
+		 */
+		private boolean magicSniffing = true;
+
+		/**
+		 * Use {@link Files#probeContentType(Path)} as last option
+		 */
+		private boolean probeContentType = true;
+
+		/**
+		 * Max cached probe results
+		 */
+		private int cacheSize = DEFAULT_CACHE_SIZE;
+
+		/**
+		 * Create empty builder.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Register or replace extension mime type.
+		 *
+		 * @param extension File extension without dot
+		 * @param mimeType  Extension mime type
+		 * @return Current builder instance.
+		 */
+		public Builder withExtension(@NotNull String extension, @NotNull String mimeType) {
+			extensions.put(extension.toLowerCase(Locale.ROOT), mimeType);
+			return this;
+		}
+
+		/**
+		 * Add custom resolver. Custom resolvers are checked after the extension table
+		 * and before magic sniffing.
+		 *
+		 * @param resolver Target resolver
+		 * @return Current builder instance.
+		 */
+		public Builder withResolver(@NotNull MimeTypeResolver resolver) {
+			resolvers.add(Objects.requireNonNull(resolver));
+			return this;
+		}
+
+		/**
+		 * Enable or disable file signature detection.
+		 *
+		 * @param enabled Sniffing status
+		 * @return Current builder instance.
+		 */
+		public Builder withMagicSniffing(boolean enabled) {
+			magicSniffing = enabled;
+			return this;
+		}
+
+		/**
+		 * Enable or disable system content type detectors.
+		 *
+		 * @param enabled Probe status
+		 * @return Current builder instance.
+		 */
+		public Builder withProbeContentType(boolean enabled) {
+			probeContentType = enabled;
+			return this;
+		}
+
+		/**
+		 * Set max cached probe results. {@code 0} disables cache.
+		 *
+		 * @param size Cache size
+		 * @return Current builder instance.
+		 */
+		public Builder withCacheSize(int size) {
+			if (size < 0) throw new IllegalArgumentException("Cache size cannot be negative.");
+			cacheSize = size;
+			return this;
+		}
+
+		/**
+		 * Build resolver.
+		 *
+		 * @return {@link MimeTypeResolver} Instance result.
+		 */
+		@NotNull
+		public MimeTypeResolver build() {
+			return new ChainedResolver(this);
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Resolver implementation
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Resolver that checks every configured stage in order
+	 */
+	private static final class ChainedResolver implements MimeTypeResolver {
+
+		/**
+		 * Marker for cached unknown results
+		 */
+		private static final String UNKNOWN = "";
+
+		/**
+		 * Extension table
+		 */
+		private final Map<String, String> extensions;
+
+		/**
+		 * Custom resolvers
+		 */
+		private final MimeTypeResolver[] resolvers;
+
+		/**
+		 * Check magic bytes
+		 */
+		private final boolean magicSniffing;
+
+		/**
+		 * Check system detectors
+		 */
+		private final boolean probeContentType;
+
+		/**
+		 * Probe results by extension. Access order map used as LRU
+		 */
+		private final Map<String, String> probeCache;
+
+		/**
+		 * Create resolver from builder
+		 *
+		 * @param builder Builder configuration
+		 */
+		private ChainedResolver(@NotNull Builder builder) {
+			int maxSize = builder.cacheSize;
+
+			extensions = new HashMap<>(builder.extensions);
+			resolvers = builder.resolvers.toArray(MimeTypeResolver[]::new);
+			magicSniffing = builder.magicSniffing;
+			probeContentType = builder.probeContentType;
+			probeCache = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > maxSize;
+				}
+			};
+		}
+
+		/**
+		 * Resolve file mime type
+		 *
+		 * @param path Target file path
+		 * @return File mime type or {@code null} if type cannot be resolved
+		 */
+		@Nullable
+		@Override
+		public String resolveMimeType(@NotNull Path path) {
+			String extension = getExtension(path);
+
+			// Extension table
+			if (extension != null) {
+				String mimeType = extensions.get(extension);
+				if (mimeType != null) return mimeType;
+			}
+			// Custom resolvers
+			for (MimeTypeResolver resolver : resolvers) {
+				String mimeType = resolver.resolveMimeType(path);
+				if (mimeType != null) return mimeType;
+			}
+			// File signature
+			if (magicSniffing) {
+				String mimeType = sniffMagic(path);
+				if (mimeType != null) return mimeType;
+			}
+			// System detectors
+			return probeContentType ? probe(path, extension) : null;
+		}
+
+		/**
+		 * Call system detectors. Results are cached by extension,
+		 * files without extension are never cached.
+		 *
+		 * @param path      Target file path
+		 * @param extension File extension
+		 * @return File mime type or {@code null} if type cannot be resolved
+		 */
+		@Nullable
+		private String probe(@NotNull Path path, @Nullable String extension) {
+			if (extension != null) {
+				synchronized (probeCache) {
+					String cached = probeCache.get(extension);
+					if (cached != null) return cached.isEmpty() ? null : cached;
+				}
+			}
+
+			String mimeType;
+			try {
+				mimeType = Files.probeContentType(path);
+			} catch (IOException | SecurityException e) {
+				mimeType = null;
+			}
+
+			if (extension != null) {
+				synchronized (probeCache) {
+					probeCache.put(extension, mimeType == null ? UNKNOWN : mimeType);
+				}
+			}
+
+			return mimeType;
+		}
+
+	}
+
+	/**
+	 * File signature
+	 */
+	private static final class MagicSignature {
+
+		/**
+		 * Signature mime type
+		 */
+		private final String mimeType;
+
+		/**
+		 * Signature start position
+		 */
+		private final int offset;
+
+		/**
+		 * Signature bytes
+		 */
+		private final byte[] signature;
+
+		/**
+		 * Create file signature
+		 *
+		 * @param mimeType Signature mime type
+		 * @param offset   Signature start position
+		 * @param bytes    Signature bytes
+		 */
+		private MagicSignature(String mimeType, int offset, int... bytes) {
+			this.mimeType = mimeType;
+			this.offset = offset;
+			this.signature = new byte[bytes.length];
+
+			for (int i = 0; i < bytes.length; i++)
+				signature[i] = (byte) bytes[i];
+		}
+
+		/**
+		 * Check if header matches signature
+		 *
+		 * @param header File header bytes
+		 * @param length Valid header length
+		 * @return Match result
+		 */
+		private boolean matches(byte[] header, int length) {
+			if (offset + signature.length > length) return false;
+
+			for (int i = 0; i < signature.length; i++) {
+				if (header[offset + i] != signature[i]) return false;
+			}
+
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EventObject;
+
+/**
+ * Circuit breaker transition event
+ */
+public final class CircuitBreakerEvent extends EventObject {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Serialization version
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Circuit key (host or route)
+	 */
+	private final String key;
+
+	/**
+	 * Previous state
+	 */
+	private final CircuitBreakerPolicy.State from;
+
+	/**
+	 * New state
+	 */
+	private final CircuitBreakerPolicy.State to;
+
+	/**
+	 * Failure rate (0-1) when transition happened
+	 */
+	private final float failureRate;
+
+	/**
+	 * Slow call rate (0-1) when transition happened
+	 */
+	private final float slowCallRate;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create event
+	 *
+	 * @param source       Circuit breaker policy
+	 * @param key          Circuit key
+	 * @param from         Previous state
+	 * @param to           New state
+	 * @param failureRate  Failure rate
+	 * @param slowCallRate Slow call rate
+	 */
+	CircuitBreakerEvent(
+		@NotNull CircuitBreakerPolicy source,
+		@NotNull String key,
+		@NotNull CircuitBreakerPolicy.State from,
+		@NotNull CircuitBreakerPolicy.State to,
+		float failureRate,
+		float slowCallRate
+	) {
+		super(source);
+		this.key = key;
+		this.from = from;
+		this.to = to;
+		this.failureRate = failureRate;
+		this.slowCallRate = slowCallRate;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get circuit key
+	 *
+	 * @return Circuit key
+	 */
+	@NotNull
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Get previous state
+	 *
+	 * @return {@link CircuitBreakerPolicy.State} state
+	 */
+	@NotNull
+	public CircuitBreakerPolicy.State getFrom() {
+		return from;
+	}
+
+	/**
+	 * Get new state
+	 *
+	 * @return {@link CircuitBreakerPolicy.State} state
+	 */
+	@NotNull
+	public CircuitBreakerPolicy.State getTo() {
+		return to;
+	}
+
+	/**
+	 * Get failure rate when transition happened
+	 *
+	 * @return Failure rate (0-1)
+	 */
+	public float getFailureRate() {
+		return failureRate;
+	}
+
+	/**
+	 * Get slow call rate when transition happened
+	 *
+	 * @return Slow call rate (0-1)
+	 */
+	public float getSlowCallRate() {
+		return slowCallRate;
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format("%s: %s -> %s (failures %.2f, slow %.2f)", key, from, to, failureRate, slowCallRate);
+	}
+
+}
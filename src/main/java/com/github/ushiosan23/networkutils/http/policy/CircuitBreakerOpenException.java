@@ -0,0 +1,42 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Request rejected because the circuit of its host is open
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+	/**
+	 * Serialization version
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Circuit key
+	 */
+	private final String key;
+
+	/**
+	 * Create exception
+	 *
+	 * @param key Circuit key
+	 */
+	public CircuitBreakerOpenException(@NotNull String key) {
+		super(String.format("Circuit \"%s\" is open.", key));
+		this.key = key;
+	}
+
+	/**
+	 * Get circuit key
+	 *
+	 * @return Circuit key
+	 */
+	@NotNull
+	public String getKey() {
+		return key;
+	}
+
+}
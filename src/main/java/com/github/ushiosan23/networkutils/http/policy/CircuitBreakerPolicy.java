@@ -0,0 +1,671 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import com.github.ushiosan23.networkutils.http.policy.event.CircuitBreakerListener;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Circuit breaker policy.
+ * Keeps one circuit per host (or per route). A closed circuit records results in a sliding time window;
+ * when the failure rate or the slow call rate reaches its threshold the circuit opens and requests fail
+ * immediately with {@link CircuitBreakerOpenException}. After the open duration a few probe requests are
+ * allowed (half-open): if all succeed the circuit closes, otherwise it opens again.
+ * The request path only uses atomic operations.
+ */
+public final class CircuitBreakerPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Min calls in window before rates are evaluated
+	 */
+	private final int minimumCalls;
+
+	/**
+	 * Failure rate (0-1) that opens the circuit
+	 */
+	private final float failureRateThreshold;
+
+	/**
+	 * Slow call rate (0-1) that opens the circuit
+	 */
+	private final float slowCallRateThreshold;
+
+	/**
+	 * Calls slower than this are slow calls
+	 */
+	private final long slowCallNanos;
+
+	/**
+	 * Time the circuit stays open before probing
+	 */
+	private final long openNanos;
+
+	/**
+	 * Probe calls allowed in half-open state
+	 */
+	private final int halfOpenCalls;
+
+	/**
+	 * Window bucket duration
+	 */
+	private final long bucketNanos;
+
+	/**
+	 * Window buckets
+	 */
+	private final int buckets;
+
+	/**
+	 * Status codes recorded as failures
+	 */
+	private final IntPredicate failureStatus;
+
+	/**
+	 * Circuit key of each call
+	 */
+	private final Function<HttpCall<?>, String> keyFunction;
+
+	/**
+	 * Circuits by key
+	 */
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * State listeners
+	 */
+	private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Rejected calls
+	 */
+	private final LongAdder rejected = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private CircuitBreakerPolicy(@NotNull Builder builder) {
+		minimumCalls = builder.minimumCalls;
+		failureRateThreshold = builder.failureRateThreshold;
+		slowCallRateThreshold = builder.slowCallRateThreshold;
+		slowCallNanos = builder.slowCallDuration.toNanos();
+		openNanos = builder.openDuration.toNanos();
+		halfOpenCalls = builder.halfOpenCalls;
+		buckets = builder.buckets;
+		bucketNanos = Math.max(1, builder.window.toNanos() / buckets);
+		failureStatus = builder.failureStatus;
+		keyFunction = builder.keyFunction;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create circuit breaker builder
+	 *
+	 * @return {@link CircuitBreakerPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		String key = keyFunction.apply(call);
+		Circuit circuit = circuits.get(key);
+		if (circuit == null) circuit = circuits.computeIfAbsent(key, Circuit::new);
+
+		long start = System.nanoTime();
+		Status status = circuit.acquire(start);
+		if (status == null) {
+			rejected.increment();
+			return CompletableFuture.failedFuture(new CircuitBreakerOpenException(key));
+		}
+
+		Circuit target = circuit;
+		CompletableFuture<HttpResponse<T>> future;
+		try {
+			future = chain.proceed(call);
+		} catch (RuntimeException e) {
+			target.release(status);
+			return CompletableFuture.failedFuture(e);
+		}
+		// Result is recorded before the caller sees the response
+		CompletableFuture<HttpResponse<T>> result = future.whenComplete((response, error) -> {
+			// Cancelled calls say nothing about the host
+			if (error != null && RetryPolicy.unwrap(error) instanceof CancellationException) {
+				target.release(status);
+				return;
+			}
+
+			long end = System.nanoTime();
+			boolean failure = error != null || failureStatus.test(response.statusCode());
+			target.record(status, end, failure, end - start >= slowCallNanos);
+		});
+		// Cancellation reaches the transport and gives back the probe permit
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) future.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * Add state listener
+	 *
+	 * @param listener Target listener
+	 */
+	public void addListener(@NotNull CircuitBreakerListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove state listener
+	 *
+	 * @param listener Target listener
+	 */
+	public void removeListener(@NotNull CircuitBreakerListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Get circuit state
+	 *
+	 * @param key Circuit key (by default {@code host:port})
+	 * @return {@link State} current state. Unknown circuits are closed
+	 */
+	@NotNull
+	public State getState(@NotNull String key) {
+		Circuit circuit = circuits.get(key);
+		return circuit == null ? State.CLOSED : circuit.status.get().state;
+	}
+
+	/**
+	 * Get rejected calls
+	 *
+	 * @return Rejected count
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format("CircuitBreakerPolicy[circuits=%d, rejected=%d]", circuits.size(), getRejected());
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Dispatch transition event
+	 *
+	 * @param event Target event
+	 */
+	private void fireListener(@NotNull CircuitBreakerEvent event) {
+		for (CircuitBreakerListener listener : listeners) {
+			listener.onStateChange(event);
+		}
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * State
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Circuit states
+	 */
+	public enum State {
+		/**
+		 * Requests are sent and results are recorded
+		 */
+		CLOSED,
+		/**
+		 * Requests are rejected
+		 */
+		OPEN,
+		/**
+		 * A few probe requests are sent
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * Immutable circuit status. Replaced with compare-and-set
+	 */
+	private static final class Status {
+
+		/**
+		 * Current state
+		 */
+		private final State state;
+
+		/**
+		 * Time of the transition to this state
+		 */
+		private final long since;
+
+		/**
+		 * Remaining probe permits (half-open)
+		 */
+		private final AtomicInteger permits;
+
+		/**
+		 * Successful probes (half-open)
+		 */
+		private final AtomicInteger successes = new AtomicInteger();
+
+		/**
+		 * Create status
+		 *
+		 * @param state   Current state
+		 * @param since   Transition time
+		 * @param permits Probe permits
+		 */
+		private Status(@NotNull State state, long since, int permits) {
+			this.state = state;
+			this.since = since;
+			this.permits = new AtomicInteger(permits);
+		}
+
+	}
+
+	/**
+	 * Window bucket
+	 */
+	private static final class Bucket {
+
+		/**
+		 * Bucket time index
+		 */
+		private final AtomicLong index = new AtomicLong(Long.MIN_VALUE);
+
+		/**
+		 * Recorded calls
+		 */
+		private final AtomicLong calls = new AtomicLong();
+
+		/**
+		 * Failed calls
+		 */
+		private final AtomicLong failures = new AtomicLong();
+
+		/**
+		 * Slow calls
+		 */
+		private final AtomicLong slow = new AtomicLong();
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Circuit
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Circuit of one host or route
+	 */
+	private final class Circuit {
+
+		/**
+		 * Circuit key
+		 */
+		private final String key;
+
+		/**
+		 * Current status
+		 */
+		private final AtomicReference<Status> status = new AtomicReference<>(new Status(State.CLOSED, System.nanoTime(), 0));
+
+		/**
+		 * Sliding window
+		 */
+		private final Bucket[] window = new Bucket[buckets];
+
+		/**
+		 * Create circuit
+		 *
+		 * @param key Circuit key
+		 */
+		private Circuit(@NotNull String key) {
+			this.key = key;
+			for (int i = 0; i < window.length; i++) window[i] = new Bucket();
+		}
+
+		/**
+		 * Try to start a call
+		 *
+		 * @param now Current time
+		 * @return {@link Status} status the call belongs to or {@code null} if call is rejected
+		 */
+		private Status acquire(long now) {
+			while (true) {
+				Status current = status.get();
+
+				switch (current.state) {
+					case CLOSED:
+						return current;
+					case OPEN:
+						if (now - current.since < openNanos) return null;
+						transition(current, State.HALF_OPEN, now);
+						break;
+					default:
+						return current.permits.getAndDecrement() > 0 ? current : null;
+				}
+			}
+		}
+
+		/**
+		 * Give back a probe permit of a call without result
+		 *
+		 * @param owner Status of the call
+		 */
+		private void release(@NotNull Status owner) {
+			if (owner.state == State.HALF_OPEN) owner.permits.incrementAndGet();
+		}
+
+		/**
+		 * Record call result
+		 *
+		 * @param owner   Status of the call
+		 * @param now     Current time
+		 * @param failure Call failed
+		 * @param slow    Call was slow
+		 */
+		private void record(@NotNull Status owner, long now, boolean failure, boolean slow) {
+			if (owner.state == State.HALF_OPEN) {
+				if (failure || slow) transition(owner, State.OPEN, now);
+				else if (owner.successes.incrementAndGet() >= halfOpenCalls) transition(owner, State.CLOSED, now);
+				return;
+			}
+			if (status.get() != owner) return;
+
+			long index = now / bucketNanos;
+			Bucket bucket = window[(int) Math.floorMod(index, (long) window.length)];
+			long stamp = bucket.index.get();
+			// Reuse expired bucket. Concurrent records of the reset may be lost, rates stay approximate
+			if (stamp != index && bucket.index.compareAndSet(stamp, index)) {
+				bucket.calls.set(0);
+				bucket.failures.set(0);
+				bucket.slow.set(0);
+			}
+			bucket.calls.incrementAndGet();
+			if (failure) bucket.failures.incrementAndGet();
+			if (slow) bucket.slow.incrementAndGet();
+
+			evaluate(owner, index, now);
+		}
+
+		/**
+		 * Open circuit if window rates reached thresholds
+		 *
+		 * @param owner Closed status
+		 * @param index Current bucket index
+		 * @param now   Current time
+		 */
+		private void evaluate(@NotNull Status owner, long index, long now) {
+			long calls = 0, failures = 0, slow = 0;
+
+			for (Bucket bucket : window) {
+				// Empty buckets keep the sentinel index, the subtraction would overflow
+				long stamp = bucket.index.get();
+				if (stamp == Long.MIN_VALUE || stamp > index || index - stamp >= window.length) continue;
+
+				calls += bucket.calls.get();
+				failures += bucket.failures.get();
+				slow += bucket.slow.get();
+			}
+			if (calls < minimumCalls) return;
+
+			float failureRate = (float) failures / calls;
+			float slowRate = (float) slow / calls;
+			if (failureRate >= failureRateThreshold || slowRate >= slowCallRateThreshold)
+				transition(owner, State.OPEN, now, failureRate, slowRate);
+		}
+
+		/**
+		 * Change state without rates
+		 *
+		 * @param expected Expected current status
+		 * @param state    New state
+		 * @param now      Current time
+		 */
+		private void transition(@NotNull Status expected, @NotNull State state, long now) {
+			transition(expected, state, now, 0, 0);
+		}
+
+		/**
+		 * Change state if nobody changed it before
+		 *
+		 * @param expected    Expected current status
+		 * @param state       New state
+		 * @param now         Current time
+		 * @param failureRate Failure rate
+		 * @param slowRate    Slow call rate
+		 */
+		private void transition(@NotNull Status expected, @NotNull State state, long now, float failureRate, float slowRate) {
+			Status next = new Status(state, now, state == State.HALF_OPEN ? halfOpenCalls : 0);
+			if (!status.compareAndSet(expected, next)) return;
+
+			// New closed period starts with an empty window
+			if (state == State.CLOSED) {
+				for (Bucket bucket : window) {
+					bucket.index.set(Long.MIN_VALUE);
+					bucket.calls.set(0);
+					bucket.failures.set(0);
+					bucket.slow.set(0);
+				}
+			}
+			fireListener(new CircuitBreakerEvent(CircuitBreakerPolicy.this, key, expected.state, state, failureRate, slowRate));
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Circuit breaker builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Min calls in window
+		 */
+		private int minimumCalls = 20;
+
+		/**
+		 * Failure rate threshold
+		 */
+		private float failureRateThreshold = 0.5f;
+
+		/**
+		 * Slow call rate threshold. Disabled by default
+		 */
+		private float slowCallRateThreshold = 1.1f;
+
+		/**
+		 * Slow call duration
+		 */
+		private Duration slowCallDuration = Duration.ofSeconds(10);
+
+		/**
+		 * Open duration
+		 */
+		private Duration openDuration = Duration.ofSeconds(30);
+
+		/**
+		 * Probe calls
+		 */
+		private int halfOpenCalls = 3;
+
+		/**
+		 * Window duration
+		 */
+		private Duration window = Duration.ofSeconds(10);
+
+		/**
+		 * Window buckets
+		 */
+		private int buckets = 10;
+
+		/**
+		 * Failure statuses
+		 */
+		private IntPredicate failureStatus = status -> status >= 500;
+
+		/**
+		 * Circuit key function
+		 */
+		private Function<HttpCall<?>, String> keyFunction = HttpCall::getHostKey;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set failure rate threshold.
+		 *
+		 * @param rate         Failure rate (0-1) that opens the circuit
+		 * @param minimumCalls Min calls in window before rates are evaluated
+		 * @return Current builder instance.
+		 */
+		public Builder withFailureRate(float rate, int minimumCalls) {
+			if (rate <= 0 || rate > 1 || minimumCalls < 1)
+				throw new IllegalArgumentException("Rate must be between 0 and 1 and min calls must be positive.");
+
+			failureRateThreshold = rate;
+			this.minimumCalls = minimumCalls;
+			return this;
+		}
+
+		/**
+		 * Open circuit when too many calls are slow.
+		 *
+		 * @param rate     Slow call rate (0-1) that opens the circuit
+		 * @param duration Calls slower than this are slow
+		 * @return Current builder instance.
+		 */
+		public Builder withSlowCallRate(float rate, @NotNull Duration duration) {
+			if (rate <= 0 || rate > 1) throw new IllegalArgumentException("Rate must be between 0 and 1.");
+
+			slowCallRateThreshold = rate;
+			slowCallDuration = duration;
+			return this;
+		}
+
+		/**
+		 * Set time the circuit stays open and probe calls in half-open state.
+		 *
+		 * @param duration      Open duration
+		 * @param halfOpenCalls Probe calls
+		 * @return Current builder instance.
+		 */
+		public Builder withOpenDuration(@NotNull Duration duration, int halfOpenCalls) {
+			if (duration.isNegative() || halfOpenCalls < 1)
+				throw new IllegalArgumentException("Open duration cannot be negative and probe calls must be positive.");
+
+			openDuration = duration;
+			this.halfOpenCalls = halfOpenCalls;
+			return this;
+		}
+
+		/**
+		 * Set sliding window.
+		 *
+		 * @param duration Window duration
+		 * @param buckets  Window buckets
+		 * @return Current builder instance.
+		 */
+		public Builder withWindow(@NotNull Duration duration, int buckets) {
+			if (duration.isNegative() || duration.isZero() || buckets < 1)
+				throw new IllegalArgumentException("Window duration and buckets must be positive.");
+
+			window = duration;
+			this.buckets = buckets;
+			return this;
+		}
+
+		/**
+		 * Set status codes recorded as failures. By default {@code 5xx}.
+		 *
+		 * @param predicate Status predicate
+		 * @return Current builder instance.
+		 */
+		public Builder withFailureStatus(@NotNull IntPredicate predicate) {
+			failureStatus = predicate;
+			return this;
+		}
+
+		/**
+		 * Set circuit key. By default one circuit per host ({@link HttpCall#getHostKey()}).
+		 *
+		 * @param keyFunction Function that returns the circuit of each call (route, service name, etc.)
+		 * @return Current builder instance.
+		 */
+		public Builder withKey(@NotNull Function<HttpCall<?>, String> keyFunction) {
+			this.keyFunction = keyFunction;
+			return this;
+		}
+
+		/**
+		 * Build circuit breaker.
+		 *
+		 * @return {@link CircuitBreakerPolicy} Instance result.
+		 */
+		@NotNull
+		public CircuitBreakerPolicy build() {
+			return new CircuitBreakerPolicy(this);
+		}
+
+	}
+
+}
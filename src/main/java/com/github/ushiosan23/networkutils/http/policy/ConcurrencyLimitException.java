@@ -0,0 +1,42 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Request rejected because its host has no free concurrency slot
+ */
+public class ConcurrencyLimitException extends IOException {
+
+	/**
+	 * Serialization version
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Limiter key
+	 */
+	private final String key;
+
+	/**
+	 * Create exception
+	 *
+	 * @param key Limiter key
+	 */
+	public ConcurrencyLimitException(@NotNull String key) {
+		super(String.format("Concurrency limit of \"%s\" reached.", key));
+		this.key = key;
+	}
+
+	/**
+	 * Get limiter key
+	 *
+	 * @return Limiter key
+	 */
+	@NotNull
+	public String getKey() {
+		return key;
+	}
+
+}
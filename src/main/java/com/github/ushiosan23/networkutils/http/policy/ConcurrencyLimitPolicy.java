@@ -0,0 +1,775 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import com.github.ushiosan23.networkutils.http.ResponseDecodeException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * Adaptive concurrency limit policy.
+ * Each host has an in-flight limit that follows the observed round trip time and drops (errors,
+ * {@code 429} and {@code 503} responses). Requests over the limit wait in a bounded queue for a
+ * bounded time and are rejected with {@link ConcurrencyLimitException} after that.
+ * Waiting requests do not block threads.
+ * <p>
+ * Add it after {@link RetryPolicy} so each attempt takes its own slot. Downloads can share the
+ * same limits with {@link #acquire(String)}.
+ */
+public final class ConcurrencyLimitPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Long RTT average samples (gradient)
+	 */
+	private static final int LONG_WINDOW = 100;
+
+	/**
+	 * Short RTT average samples (gradient)
+	 */
+	private static final int SHORT_WINDOW = 10;
+
+	/**
+	 * Weight of each new limit (gradient)
+	 */
+	private static final double SMOOTHING = 0.2;
+
+	/**
+	 * Limit algorithm
+	 */
+	private final Algorithm algorithm;
+
+	/**
+	 * Initial limit
+	 */
+	private final int initialLimit;
+
+	/**
+	 * Min limit
+	 */
+	private final int minLimit;
+
+	/**
+	 * Max limit
+	 */
+	private final int maxLimit;
+
+	/**
+	 * Limit multiplier on drops
+	 */
+	private final double backoffRatio;
+
+	/**
+	 * Allowed RTT increase before limit is reduced (gradient)
+	 */
+	private final double rttTolerance;
+
+	/**
+	 * Max queue wait
+	 */
+	private final long maxWaitNanos;
+
+	/**
+	 * Max queued requests per host
+	 */
+	private final int maxQueue;
+
+	/**
+	 * Status codes recorded as drops
+	 */
+	private final IntPredicate dropStatus;
+
+	/**
+	 * Limiter key of each call
+	 */
+	private final Function<HttpCall<?>, String> keyFunction;
+
+	/**
+	 * Limiters by key
+	 */
+	private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+	/**
+	 * Rejected requests
+	 */
+	private final LongAdder rejected = new LongAdder();
+
+	/**
+	 * Dropped requests
+	 */
+	private final LongAdder dropped = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private ConcurrencyLimitPolicy(@NotNull Builder builder) {
+		algorithm = builder.algorithm;
+		initialLimit = builder.initialLimit;
+		minLimit = builder.minLimit;
+		maxLimit = builder.maxLimit;
+		backoffRatio = builder.backoffRatio;
+		rttTolerance = builder.rttTolerance;
+		maxWaitNanos = builder.maxWait.toNanos();
+		maxQueue = builder.maxQueue;
+		dropStatus = builder.dropStatus;
+		keyFunction = builder.keyFunction;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create concurrency limit builder
+	 *
+	 * @return {@link ConcurrencyLimitPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		String key = keyFunction.apply(call);
+		CompletableFuture<Permit> pending = limiter(key).acquire();
+		if (pending == null) {
+			rejected.increment();
+			return CompletableFuture.failedFuture(new ConcurrencyLimitException(key));
+		}
+
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		pending.whenComplete((permit, error) -> {
+			if (error != null) {
+				if (!result.isDone()) rejected.increment();
+				result.completeExceptionally(new ConcurrencyLimitException(key));
+				return;
+			}
+			// Cancelled while queued
+			if (result.isDone()) {
+				permit.ignore();
+				return;
+			}
+
+			CompletableFuture<HttpResponse<T>> future;
+			try {
+				future = chain.proceed(call);
+			} catch (RuntimeException e) {
+				permit.ignore();
+				result.completeExceptionally(e);
+				return;
+			}
+
+			future.whenComplete((response, failure) -> {
+				// Permit is released before the caller sees the response
+				release(permit, response, failure);
+				if (failure != null) result.completeExceptionally(failure);
+				else result.complete(response);
+			});
+			result.whenComplete((response, failure) -> {
+				if (result.isCancelled()) future.cancel(true);
+			});
+		});
+		result.whenComplete((response, failure) -> {
+			if (result.isCancelled()) pending.cancel(false);
+		});
+		return result;
+	}
+
+	/**
+	 * Wait for a slot of the host. Used by transfers that do not go through the policy chain (downloads).
+	 * Release the permit when the transfer ends.
+	 *
+	 * @param key Limiter key (by default {@code host:port}, see {@link HttpCall#hostKey(java.net.URI)})
+	 * @return {@link Permit} acquired slot
+	 * @throws ConcurrencyLimitException Error if queue is full or max wait is exceeded
+	 * @throws InterruptedException      Error if current thread is interrupted while waiting
+	 */
+	@NotNull
+	public Permit acquire(@NotNull String key) throws ConcurrencyLimitException, InterruptedException {
+		CompletableFuture<Permit> pending = limiter(key).acquire();
+		if (pending == null) {
+			rejected.increment();
+			throw new ConcurrencyLimitException(key);
+		}
+
+		try {
+			return pending.get();
+		} catch (ExecutionException e) {
+			rejected.increment();
+			throw new ConcurrencyLimitException(key);
+		} catch (InterruptedException e) {
+			// Slot can be granted while thread is interrupted
+			if (!pending.cancel(false) && !pending.isCompletedExceptionally()) pending.join().ignore();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get current limit
+	 *
+	 * @param key Limiter key
+	 * @return Current in-flight limit
+	 */
+	public int getLimit(@NotNull String key) {
+		Limiter limiter = limiters.get(key);
+		if (limiter == null) return initialLimit;
+
+		synchronized (limiter) {
+			return (int) limiter.limit;
+		}
+	}
+
+	/**
+	 * Get in-flight requests
+	 *
+	 * @param key Limiter key
+	 * @return In-flight requests
+	 */
+	public int getInFlight(@NotNull String key) {
+		Limiter limiter = limiters.get(key);
+		if (limiter == null) return 0;
+
+		synchronized (limiter) {
+			return limiter.inFlight;
+		}
+	}
+
+	/**
+	 * Get queued requests
+	 *
+	 * @param key Limiter key
+	 * @return Queued requests
+	 */
+	public int getQueued(@NotNull String key) {
+		Limiter limiter = limiters.get(key);
+		if (limiter == null) return 0;
+
+		synchronized (limiter) {
+			return limiter.waiters.size();
+		}
+	}
+
+	/**
+	 * Get rejected requests
+	 *
+	 * @return Rejected count
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Get dropped requests (errors and drop statuses)
+	 *
+	 * @return Dropped count
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"ConcurrencyLimitPolicy[algorithm=%s, hosts=%d, rejected=%d, dropped=%d]",
+			algorithm, limiters.size(), getRejected(), getDropped()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get host limiter
+	 *
+	 * @param key Limiter key
+	 * @return {@link Limiter} host limiter
+	 */
+	@NotNull
+	private Limiter limiter(@NotNull String key) {
+		Limiter limiter = limiters.get(key);
+		return limiter != null ? limiter : limiters.computeIfAbsent(key, k -> new Limiter());
+	}
+
+	/**
+	 * Release permit with call result
+	 *
+	 * @param permit   Call permit
+	 * @param response Call response or {@code null}
+	 * @param error    Call error or {@code null}
+	 */
+	private void release(@NotNull Permit permit, @Nullable HttpResponse<?> response, @Nullable Throwable error) {
+		if (error == null) {
+			if (dropStatus.test(response.statusCode())) permit.drop();
+			else permit.release();
+			return;
+		}
+
+		Throwable cause = RetryPolicy.unwrap(error);
+		// Errors that say nothing about the host load
+		if (
+			cause instanceof CancellationException ||
+				cause instanceof ResponseDecodeException ||
+				cause instanceof CircuitBreakerOpenException ||
+				!(cause instanceof IOException)
+		) {
+			permit.ignore();
+		} else {
+			permit.drop();
+		}
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Algorithm
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Limit algorithms
+	 */
+	public enum Algorithm {
+		/**
+		 * Additive increase, multiplicative decrease. Limit grows by one each limit-worth of
+		 * successes and is multiplied by the backoff ratio on drops
+		 */
+		AIMD,
+		/**
+		 * Limit follows the ratio between long and short RTT averages, so it shrinks when
+		 * latency grows before requests start failing. Drops are handled like {@link #AIMD}
+		 */
+		GRADIENT
+	}
+
+	/**
+	 * Acquired concurrency slot. Release it exactly once, next calls are ignored
+	 */
+	public static final class Permit {
+
+		/**
+		 * Owner limiter
+		 */
+		private final Limiter limiter;
+
+		/**
+		 * Grant time
+		 */
+		private final long start;
+
+		/**
+		 * In-flight requests when permit was granted (this one included)
+		 */
+		private final int inFlight;
+
+		/**
+		 * Permit was released
+		 */
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		/**
+		 * Create permit
+		 *
+		 * @param limiter  Owner limiter
+		 * @param inFlight In-flight requests
+		 */
+		private Permit(@NotNull Limiter limiter, int inFlight) {
+			this.limiter = limiter;
+			this.inFlight = inFlight;
+			start = System.nanoTime();
+		}
+
+		/**
+		 * Release after a successful request. Elapsed time is used as RTT sample
+		 */
+		public void release() {
+			if (released.compareAndSet(false, true)) limiter.release(this, Limiter.SUCCESS);
+		}
+
+		/**
+		 * Release after an overload signal (timeout, connection error, {@code 503}). Limit is reduced
+		 */
+		public void drop() {
+			if (released.compareAndSet(false, true)) limiter.release(this, Limiter.DROP);
+		}
+
+		/**
+		 * Release without changing the limit (cancelled requests, long transfers)
+		 */
+		public void ignore() {
+			if (released.compareAndSet(false, true)) limiter.release(this, Limiter.IGNORE);
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Limiter
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Limiter of one host. State is guarded by the instance lock, waiters are completed outside it
+	 */
+	private final class Limiter {
+
+		/**
+		 * Successful request
+		 */
+		private static final int SUCCESS = 0;
+
+		/**
+		 * Overloaded request
+		 */
+		private static final int DROP = 1;
+
+		/**
+		 * Request without sample
+		 */
+		private static final int IGNORE = 2;
+
+		/**
+		 * Current limit
+		 */
+		private double limit = initialLimit;
+
+		/**
+		 * In-flight requests
+		 */
+		private int inFlight;
+
+		/**
+		 * Long RTT average in nanoseconds
+		 */
+		private double longRtt;
+
+		/**
+		 * Short RTT average in nanoseconds
+		 */
+		private double shortRtt;
+
+		/**
+		 * Queued requests
+		 */
+		private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+		/**
+		 * Take slot or queue request
+		 *
+		 * @return {@link CompletableFuture} future permit or {@code null} if request is rejected
+		 */
+		@Nullable
+		private CompletableFuture<Permit> acquire() {
+			CompletableFuture<Permit> waiter;
+
+			synchronized (this) {
+				if (inFlight < (int) limit) {
+					inFlight++;
+					return CompletableFuture.completedFuture(new Permit(this, inFlight));
+				}
+				if (maxWaitNanos == 0 || waiters.size() >= maxQueue) return null;
+
+				waiter = new CompletableFuture<>();
+				waiters.add(waiter);
+			}
+
+			// Cancelled waiters leave the queue, expired ones are removed before they fail
+			waiter.whenComplete((permit, error) -> {
+				if (error != null) remove(waiter);
+			});
+			CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+				remove(waiter);
+				waiter.completeExceptionally(new TimeoutException());
+			});
+			return waiter;
+		}
+
+		/**
+		 * Remove expired or cancelled waiter
+		 *
+		 * @param waiter Target waiter
+		 */
+		private synchronized void remove(@NotNull CompletableFuture<Permit> waiter) {
+			waiters.remove(waiter);
+		}
+
+		/**
+		 * Give back slot, update limit and hand free slots to waiters
+		 *
+		 * @param permit  Released permit
+		 * @param outcome Request outcome
+		 */
+		private void release(@NotNull Permit permit, int outcome) {
+			List<CompletableFuture<Permit>> waiting = null;
+			List<Permit> granted = null;
+
+			synchronized (this) {
+				inFlight--;
+				if (outcome != IGNORE) update(System.nanoTime() - permit.start, outcome == DROP, permit.inFlight);
+
+				while (inFlight < (int) limit && !waiters.isEmpty()) {
+					if (waiting == null) {
+						waiting = new ArrayList<>();
+						granted = new ArrayList<>();
+					}
+					inFlight++;
+					waiting.add(waiters.poll());
+					granted.add(new Permit(this, inFlight));
+				}
+			}
+			if (waiting == null) return;
+
+			for (int i = 0; i < waiting.size(); i++) {
+				// Waiter expired after it was polled
+				if (!waiting.get(i).complete(granted.get(i))) granted.get(i).ignore();
+			}
+		}
+
+		/**
+		 * Update limit with a sample
+		 *
+		 * @param rtt      Request time in nanoseconds
+		 * @param drop     Request was dropped
+		 * @param inFlight In-flight requests when request started
+		 */
+		private void update(long rtt, boolean drop, int inFlight) {
+			if (drop) {
+				dropped.increment();
+				limit = Math.max(minLimit, limit * backoffRatio);
+				return;
+			}
+
+			// Limit is not reached, samples say nothing about capacity
+			boolean limited = inFlight * 2 >= limit;
+			if (algorithm == Algorithm.AIMD) {
+				if (limited) limit = Math.min(maxLimit, limit + 1 / limit);
+				return;
+			}
+
+			longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+			shortRtt = shortRtt == 0 ? rtt : shortRtt + (rtt - shortRtt) / SHORT_WINDOW;
+			// Latency improved for good, forget old baseline faster
+			if (longRtt / shortRtt > 2) longRtt *= 0.95;
+			if (!limited) return;
+
+			double gradient = Math.max(0.5, Math.min(1, rttTolerance * longRtt / shortRtt));
+			double next = limit * gradient + Math.sqrt(limit);
+			limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + next * SMOOTHING));
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Concurrency limit builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Limit algorithm
+		 */
+		private Algorithm algorithm = Algorithm.GRADIENT;
+
+		/**
+		 * Initial limit
+		 */
+		private int initialLimit = 20;
+
+		/**
+		 * Min limit
+		 */
+		private int minLimit = 1;
+
+		/**
+		 * Max limit
+		 */
+		private int maxLimit = 200;
+
+		/**
+		 * Limit multiplier on drops
+		 */
+		private double backoffRatio = 0.9;
+
+		/**
+		 * RTT tolerance
+		 */
+		private double rttTolerance = 1.5;
+
+		/**
+		 * Max queue wait
+		 */
+		private Duration maxWait = Duration.ofSeconds(1);
+
+		/**
+		 * Max queued requests
+		 */
+		private int maxQueue = 100;
+
+		/**
+		 * Drop statuses
+		 */
+		private IntPredicate dropStatus = status -> status == 429 || status == 503;
+
+		/**
+		 * Limiter key function
+		 */
+		private Function<HttpCall<?>, String> keyFunction = HttpCall::getHostKey;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set limit algorithm. By default {@link Algorithm#GRADIENT}.
+		 *
+		 * @param algorithm Target algorithm
+		 * @return Current builder instance.
+		 */
+		public Builder withAlgorithm(@NotNull Algorithm algorithm) {
+			this.algorithm = algorithm;
+			return this;
+		}
+
+		/**
+		 * Set limit range.
+		 *
+		 * @param initial Initial limit
+		 * @param min     Min limit
+		 * @param max     Max limit
+		 * @return Current builder instance.
+		 */
+		public Builder withLimit(int initial, int min, int max) {
+			if (min < 1 || initial < min || max < initial)
+				throw new IllegalArgumentException("Limits must be positive and min <= initial <= max.");
+
+			initialLimit = initial;
+			minLimit = min;
+			maxLimit = max;
+			return this;
+		}
+
+		/**
+		 * Set limit multiplier applied on drops.
+		 *
+		 * @param ratio Multiplier (0-1)
+		 * @return Current builder instance.
+		 */
+		public Builder withBackoff(double ratio) {
+			if (ratio <= 0 || ratio >= 1) throw new IllegalArgumentException("Ratio must be between 0 and 1.");
+
+			backoffRatio = ratio;
+			return this;
+		}
+
+		/**
+		 * Set RTT increase tolerated by {@link Algorithm#GRADIENT} before reducing the limit.
+		 *
+		 * @param tolerance Tolerance ({@code 1.5} allows 50% more latency)
+		 * @return Current builder instance.
+		 */
+		public Builder withRttTolerance(double tolerance) {
+			if (tolerance < 1) throw new IllegalArgumentException("Tolerance cannot be less than 1.");
+
+			rttTolerance = tolerance;
+			return this;
+		}
+
+		/**
+		 * Set queue of requests over the limit.
+		 *
+		 * @param maxWait  Max wait. {@link Duration#ZERO} rejects requests immediately
+		 * @param maxQueue Max queued requests per host
+		 * @return Current builder instance.
+		 */
+		public Builder withQueue(@NotNull Duration maxWait, int maxQueue) {
+			if (maxWait.isNegative() || maxQueue < 0)
+				throw new IllegalArgumentException("Wait and queue size cannot be negative.");
+
+			this.maxWait = maxWait;
+			this.maxQueue = maxQueue;
+			return this;
+		}
+
+		/**
+		 * Set status codes recorded as drops. By default {@code 429} and {@code 503}.
+		 *
+		 * @param predicate Status predicate
+		 * @return Current builder instance.
+		 */
+		public Builder withDropStatus(@NotNull IntPredicate predicate) {
+			dropStatus = predicate;
+			return this;
+		}
+
+		/**
+		 * Set limiter key. By default one limiter per host ({@link HttpCall#getHostKey()}).
+		 *
+		 * @param keyFunction Function that returns the limiter of each call
+		 * @return Current builder instance.
+		 */
+		public Builder withKey(@NotNull Function<HttpCall<?>, String> keyFunction) {
+			this.keyFunction = keyFunction;
+			return this;
+		}
+
+		/**
+		 * Build concurrency limit policy.
+		 *
+		 * @return {@link ConcurrencyLimitPolicy} Instance result.
+		 */
+		@NotNull
+		public ConcurrencyLimitPolicy build() {
+			return new ConcurrencyLimitPolicy(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,687 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Hedging policy.
+ * If a safe request ({@code GET}, {@code HEAD}) has no response after the hedge delay, a duplicate request
+ * is sent (optionally to another endpoint). The first response wins and the other request is aborted.
+ * The delay is fixed or follows a latency percentile of recent responses, and a budget limits
+ * hedged requests to a fraction of all requests.
+ */
+public final class HedgePolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Credit units of one hedged request
+	 */
+	private static final long CREDIT_UNIT = 1000;
+
+	/**
+	 * Samples recorded between percentile updates
+	 */
+	private static final int UPDATE_INTERVAL = 32;
+
+	/**
+	 * Hedged methods
+	 */
+	private final Set<String> methods;
+
+	/**
+	 * Hedge delay used before enough latencies are recorded, or always if percentile is disabled
+	 */
+	private final long delayNanos;
+
+	/**
+	 * Latency percentile (0-1) or {@code 0} to use fixed delay
+	 */
+	private final double percentile;
+
+	/**
+	 * Min hedge delay
+	 */
+	private final long minDelayNanos;
+
+	/**
+	 * Credits earned by each request (hedges per request * {@link #CREDIT_UNIT})
+	 */
+	private final long creditsPerRequest;
+
+	/**
+	 * Max stored credits
+	 */
+	private final long maxCredits;
+
+	/**
+	 * Hedged request target or {@code null} to repeat the same uri
+	 */
+	private final UnaryOperator<URI> target;
+
+	/**
+	 * Recent latencies in nanoseconds
+	 */
+	private final AtomicLongArray samples;
+
+	/**
+	 * Recorded samples
+	 */
+	private final AtomicLong recorded = new AtomicLong();
+
+	/**
+	 * Current percentile delay or {@code -1} if there are not enough samples
+	 */
+	private volatile long percentileNanos = -1;
+
+	/**
+	 * Available hedge credits
+	 */
+	private final AtomicLong credits;
+
+	/**
+	 * Eligible requests
+	 */
+	private final LongAdder requests = new LongAdder();
+
+	/**
+	 * Sent hedged requests
+	 */
+	private final LongAdder hedges = new LongAdder();
+
+	/**
+	 * Hedged requests that answered first
+	 */
+	private final LongAdder wins = new LongAdder();
+
+	/**
+	 * Hedges skipped because budget was exhausted
+	 */
+	private final LongAdder denied = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private HedgePolicy(@NotNull Builder builder) {
+		methods = Set.copyOf(builder.methods);
+		delayNanos = builder.delay.toNanos();
+		percentile = builder.percentile;
+		minDelayNanos = builder.minDelay.toNanos();
+		creditsPerRequest = Math.round(builder.budget * CREDIT_UNIT);
+		maxCredits = builder.burst * CREDIT_UNIT;
+		target = builder.target;
+		samples = new AtomicLongArray(builder.window);
+		credits = new AtomicLong(maxCredits);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create hedge builder
+	 *
+	 * @return {@link HedgePolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		if (!methods.contains(call.getMethod().toUpperCase(Locale.ROOT))) return chain.proceed(call);
+
+		requests.increment();
+		deposit();
+
+		Execution<T> execution = new Execution<>(call, chain);
+		execution.start(false);
+		CompletableFuture.delayedExecutor(getHedgeDelay().toNanos(), TimeUnit.NANOSECONDS)
+			.execute(execution::hedge);
+		return execution.result;
+	}
+
+	/**
+	 * Get current hedge delay
+	 *
+	 * @return {@link Duration} delay
+	 */
+	@NotNull
+	public Duration getHedgeDelay() {
+		long current = percentileNanos;
+		return Duration.ofNanos(Math.max(minDelayNanos, current < 0 ? delayNanos : current));
+	}
+
+	/**
+	 * Get eligible requests
+	 *
+	 * @return Requests count
+	 */
+	public long getRequests() {
+		return requests.sum();
+	}
+
+	/**
+	 * Get sent hedged requests
+	 *
+	 * @return Hedges count
+	 */
+	public long getHedges() {
+		return hedges.sum();
+	}
+
+	/**
+	 * Get hedged requests that answered first
+	 *
+	 * @return Wins count
+	 */
+	public long getWins() {
+		return wins.sum();
+	}
+
+	/**
+	 * Get hedges skipped because budget was exhausted
+	 *
+	 * @return Denied count
+	 */
+	public long getDenied() {
+		return denied.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"HedgePolicy[delay=%dms, requests=%d, hedges=%d, wins=%d, denied=%d]",
+			getHedgeDelay().toMillis(), getRequests(), getHedges(), getWins(), getDenied()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Add request credits to the budget
+	 */
+	private void deposit() {
+		long current;
+		do {
+			current = credits.get();
+			if (current >= maxCredits) return;
+		} while (!credits.compareAndSet(current, Math.min(maxCredits, current + creditsPerRequest)));
+	}
+
+	/**
+	 * Take credits of one hedge
+	 *
+	 * @return {@code true} if budget allows a hedge
+	 */
+	private boolean withdraw() {
+		long current;
+		do {
+			current = credits.get();
+			if (current < CREDIT_UNIT) return false;
+		} while (!credits.compareAndSet(current, current - CREDIT_UNIT));
+		return true;
+	}
+
+	/**
+	 * Record response latency and update percentile delay periodically
+	 *
+	 * @param nanos Latency in nanoseconds
+	 */
+	private void record(long nanos) {
+		if (percentile <= 0) return;
+
+		long count = recorded.incrementAndGet();
+		samples.set((int) ((count - 1) % samples.length()), nanos);
+
+		if (count % UPDATE_INTERVAL == 0) {
+			int size = (int) Math.min(count, samples.length());
+			long[] values = new long[size];
+			for (int i = 0; i < size; i++) values[i] = samples.get(i);
+
+			Arrays.sort(values);
+			percentileNanos = values[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+		}
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Execution
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Hedging state of one call
+	 *
+	 * @param <T> Response body type
+	 */
+	private final class Execution<T> {
+
+		/**
+		 * Original call
+		 */
+		private final HttpCall<T> call;
+
+		/**
+		 * Rest of the chain
+		 */
+		private final Chain chain;
+
+		/**
+		 * First response
+		 */
+		private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+		/**
+		 * Started attempts
+		 */
+		private final List<Attempt<T>> attempts = new ArrayList<>(2);
+
+		/**
+		 * Failed attempts
+		 */
+		private int failures;
+
+		/**
+		 * Hedge was sent or can no longer be sent
+		 */
+		private boolean hedgeDone;
+
+		/**
+		 * Create execution
+		 *
+		 * @param call  Original call
+		 * @param chain Rest of the chain
+		 */
+		private Execution(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+			this.call = call;
+			this.chain = chain;
+
+			// Abort every attempt that did not win
+			result.whenComplete((response, error) -> {
+				List<Attempt<T>> current;
+				synchronized (this) {
+					hedgeDone = true;
+					current = List.copyOf(attempts);
+				}
+				for (Attempt<T> attempt : current) {
+					if (response == null || !attempt.produced(response)) attempt.abort();
+				}
+			});
+		}
+
+		/**
+		 * Send hedge if first request did not answer yet
+		 */
+		private void hedge() {
+			synchronized (this) {
+				if (hedgeDone) return;
+				hedgeDone = true;
+			}
+
+			if (!withdraw()) {
+				denied.increment();
+				return;
+			}
+			hedges.increment();
+			start(true);
+		}
+
+		/**
+		 * Start attempt
+		 *
+		 * @param hedged Attempt is the hedged request
+		 */
+		private void start(boolean hedged) {
+			HttpCall<T> target = hedged && HedgePolicy.this.target != null ?
+				call.withUri(HedgePolicy.this.target.apply(call.getUri())) :
+				call;
+			Attempt<T> attempt = new Attempt<>(target.getHandler());
+
+			synchronized (this) {
+				attempts.add(attempt);
+			}
+
+			long start = System.nanoTime();
+			CompletableFuture<HttpResponse<T>> future;
+			try {
+				future = chain.proceed(target.withHandler(attempt.handler()));
+			} catch (RuntimeException e) {
+				future = CompletableFuture.failedFuture(e);
+			}
+			attempt.future = future;
+			if (result.isDone() && !future.isDone()) attempt.abort();
+
+			future.whenComplete((response, error) -> {
+				if (error == null) {
+					record(System.nanoTime() - start);
+					// Count before completing, callers may read metrics as soon as they get the response
+					if (hedged && !result.isDone()) wins.increment();
+					result.complete(response);
+					return;
+				}
+
+				boolean last;
+				synchronized (this) {
+					failures++;
+					hedgeDone = true;
+					last = failures == attempts.size();
+				}
+				if (last) result.completeExceptionally(RetryPolicy.unwrap(error));
+			});
+		}
+
+	}
+
+	/**
+	 * Request attempt that can be aborted after the response started
+	 *
+	 * @param <T> Response body type
+	 */
+	private static final class Attempt<T> {
+
+		/**
+		 * Subscription marker used after abort
+		 */
+		private static final Flow.Subscription ABORTED = new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+			}
+
+			@Override
+			public void cancel() {
+			}
+		};
+
+		/**
+		 * Real handler
+		 */
+		private final HttpResponse.BodyHandler<T> delegate;
+
+		/**
+		 * Current body subscription
+		 */
+		private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+
+		/**
+		 * Attempt future
+		 */
+		private volatile CompletableFuture<HttpResponse<T>> future;
+
+		/**
+		 * Create attempt
+		 *
+		 * @param delegate Real handler
+		 */
+		private Attempt(@NotNull HttpResponse.BodyHandler<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Create handler that registers body subscription
+		 *
+		 * @return {@link HttpResponse.BodyHandler} tracking handler
+		 */
+		@NotNull
+		private HttpResponse.BodyHandler<T> handler() {
+			return info -> {
+				HttpResponse.BodySubscriber<T> downstream = delegate.apply(info);
+
+				return new HttpResponse.BodySubscriber<>() {
+					@Override
+					public CompletionStage<T> getBody() {
+						return downstream.getBody();
+					}
+
+					@Override
+					public void onSubscribe(Flow.Subscription current) {
+						downstream.onSubscribe(current);
+
+						Flow.Subscription previous = subscription.getAndUpdate(value -> value == ABORTED ? ABORTED : current);
+						if (previous == ABORTED) current.cancel();
+					}
+
+					@Override
+					public void onNext(List<ByteBuffer> item) {
+						downstream.onNext(item);
+					}
+
+					@Override
+					public void onError(Throwable throwable) {
+						downstream.onError(throwable);
+					}
+
+					@Override
+					public void onComplete() {
+						downstream.onComplete();
+					}
+				};
+			};
+		}
+
+		/**
+		 * Check if this attempt produced the response
+		 *
+		 * @param response Target response
+		 * @return {@code true} if attempt completed with the response
+		 */
+		private boolean produced(@NotNull HttpResponse<T> response) {
+			CompletableFuture<HttpResponse<T>> current = future;
+			return current != null && current.isDone() && !current.isCompletedExceptionally() && current.join() == response;
+		}
+
+		/**
+		 * Abort request and response transfer
+		 */
+		private void abort() {
+			CompletableFuture<HttpResponse<T>> current = future;
+			if (current != null) current.cancel(true);
+
+			Flow.Subscription active = subscription.getAndSet(ABORTED);
+			if (active != null) active.cancel();
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Hedge policy builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Hedged methods
+		 */
+		private Set<String> methods = Set.of("GET", "HEAD");
+
+		/**
+		 * Fixed or initial delay
+		 */
+		private Duration delay = Duration.ofMillis(100);
+
+		/**
+		 * Latency percentile or {@code 0}
+		 */
+		private double percentile = 0;
+
+		/**
+		 * Min delay
+		 */
+		private Duration minDelay = Duration.ofMillis(1);
+
+		/**
+		 * Latency window size
+		 */
+		private int window = 256;
+
+		/**
+		 * Hedges per request
+		 */
+		private double budget = 0.05;
+
+		/**
+		 * Max hedges without earned credits
+		 */
+		private long burst = 10;
+
+		/**
+		 * Hedged request target
+		 */
+		private UnaryOperator<URI> target;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Use fixed hedge delay.
+		 *
+		 * @param delay Time to wait first response before sending the hedge
+		 * @return Current builder instance.
+		 */
+		public Builder withDelay(@NotNull Duration delay) {
+			if (delay.isNegative()) throw new IllegalArgumentException("Hedge delay cannot be negative.");
+
+			this.delay = delay;
+			percentile = 0;
+			return this;
+		}
+
+		/**
+		 * Use latency percentile of recent responses as hedge delay.
+		 *
+		 * @param percentile   Latency percentile (for example {@code 0.95})
+		 * @param initialDelay Delay used until enough latencies are recorded
+		 * @param minDelay     Min hedge delay
+		 * @return Current builder instance.
+		 */
+		public Builder withPercentileDelay(double percentile, @NotNull Duration initialDelay, @NotNull Duration minDelay) {
+			if (percentile <= 0 || percentile >= 1)
+				throw new IllegalArgumentException("Percentile must be between 0 and 1.");
+
+			this.percentile = percentile;
+			this.delay = initialDelay;
+			this.minDelay = minDelay;
+			return this;
+		}
+
+		/**
+		 * Set latency window size.
+		 *
+		 * @param size Recent latencies used to compute the percentile
+		 * @return Current builder instance.
+		 */
+		public Builder withWindow(int size) {
+			if (size <= 0) throw new IllegalArgumentException("Window size must be positive.");
+
+			window = size;
+			return this;
+		}
+
+		/**
+		 * Set hedge budget.
+		 *
+		 * @param ratio Max hedges per request (for example {@code 0.05} is 5% extra load)
+		 * @param burst Max hedges that can be sent without earned credits
+		 * @return Current builder instance.
+		 */
+		public Builder withBudget(double ratio, long burst) {
+			if (ratio < 0 || burst < 0) throw new IllegalArgumentException("Budget cannot be negative.");
+
+			budget = ratio;
+			this.burst = burst;
+			return this;
+		}
+
+		/**
+		 * Send hedged requests to another endpoint.
+		 *
+		 * @param target Function that receives the original uri and returns the hedge uri, or {@code null} to repeat the same uri
+		 * @return Current builder instance.
+		 */
+		public Builder withTarget(@Nullable UnaryOperator<URI> target) {
+			this.target = target;
+			return this;
+		}
+
+		/**
+		 * Set hedged methods. Only safe methods should be hedged.
+		 *
+		 * @param methods Methods names
+		 * @return Current builder instance.
+		 */
+		public Builder withMethods(@NotNull String... methods) {
+			Set<String> result = new HashSet<>();
+			for (String method : methods) result.add(method.toUpperCase(Locale.ROOT));
+
+			this.methods = result;
+			return this;
+		}
+
+		/**
+		 * Build hedge policy.
+		 *
+		 * @return {@link HedgePolicy} Instance result.
+		 */
+		@NotNull
+		public HedgePolicy build() {
+			return new HedgePolicy(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,226 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Request in transit through the policy chain.
+ * Immutable, policies create modified copies ({@link #withHandler(HttpResponse.BodyHandler)},
+ * {@link #withUri(URI)}) and pass them to the next element.
+ *
+ * @param <T> Response body type
+ */
+public final class HttpCall<T> {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Methods that can be repeated without changing the result (RFC 9110 section 9.2.2)
+	 */
+	private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE");
+
+	/**
+	 * Target request
+	 */
+	private final HttpRequest request;
+
+	/**
+	 * Response body handler
+	 */
+	private final HttpResponse.BodyHandler<T> handler;
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create call
+	 *
+	 * @param request Target request
+	 * @param handler Response body handler
+	 */
+	private HttpCall(@NotNull HttpRequest request, @NotNull HttpResponse.BodyHandler<T> handler) {
+		this.request = Objects.requireNonNull(request);
+		this.handler = Objects.requireNonNull(handler);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create call
+	 *
+	 * @param request Target request
+	 * @param handler Response body handler
+	 * @param <T>     Response body type
+	 * @return {@link HttpCall} Instance result.
+	 */
+	@NotNull
+	@Contract("_, _ -> new")
+	public static <T> HttpCall<T> of(@NotNull HttpRequest request, @NotNull HttpResponse.BodyHandler<T> handler) {
+		return new HttpCall<>(request, handler);
+	}
+
+	/**
+	 * Get target request
+	 *
+	 * @return {@link HttpRequest} request
+	 */
+	@NotNull
+	public HttpRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Get response body handler
+	 *
+	 * @return {@link HttpResponse.BodyHandler} handler
+	 */
+	@NotNull
+	public HttpResponse.BodyHandler<T> getHandler() {
+		return handler;
+	}
+
+	/**
+	 * Get request method
+	 *
+	 * @return Request method
+	 */
+	@NotNull
+	public String getMethod() {
+		return request.method();
+	}
+
+	/**
+	 * Get request uri
+	 *
+	 * @return {@link URI} request uri
+	 */
+	@NotNull
+	public URI getUri() {
+		return request.uri();
+	}
+
+	/**
+	 * Get request host with port. Default port is used if uri has no port
+	 *
+	 * @return Host key ({@code host:port})
+	 */
+	@NotNull
+	public String getHostKey() {
+		return hostKey(request.uri());
+	}
+
+	/**
+	 * Get uri host with port. Default port is used if uri has no port
+	 *
+	 * @param uri Target uri
+	 * @return Host key ({@code host:port})
+	 */
+	@NotNull
+	public static String hostKey(@NotNull URI uri) {
+		int port = uri.getPort();
+		if (port == -1) port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+
+		return uri.getHost() + ":" + port;
+	}
+
+	/**
+	 * Check if request can be repeated safely
+	 *
+	 * @return {@code true} if request method is idempotent
+	 */
+	public boolean isIdempotent() {
+		return IDEMPOTENT_METHODS.contains(request.method().toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Create copy with another response handler
+	 *
+	 * @param handler Target handler
+	 * @return {@link HttpCall} call copy
+	 */
+	@NotNull
+	@Contract("_ -> new")
+	public HttpCall<T> withHandler(@NotNull HttpResponse.BodyHandler<T> handler) {
+		return new HttpCall<>(request, handler);
+	}
+
+	/**
+	 * Create copy with another request
+	 *
+	 * @param request Target request
+	 * @return {@link HttpCall} call copy
+	 */
+	@NotNull
+	@Contract("_ -> new")
+	public HttpCall<T> withRequest(@NotNull HttpRequest request) {
+		return new HttpCall<>(request, handler);
+	}
+
+	/**
+	 * Create copy that targets another uri. Method, headers, body and timeout are kept
+	 *
+	 * @param uri Target uri
+	 * @return {@link HttpCall} call copy
+	 */
+	@NotNull
+	@Contract("_ -> new")
+	public HttpCall<T> withUri(@NotNull URI uri) {
+		HttpRequest copy = newRequestBuilder()
+			.uri(uri)
+			.method(request.method(), request.bodyPublisher().orElse(HttpRequest.BodyPublishers.noBody()))
+			.build();
+
+		return new HttpCall<>(copy, handler);
+	}
+
+	/**
+	 * Create request builder with the same uri, headers, timeout, version and expectation.
+	 * Method and body are not copied.
+	 *
+	 * @return {@link HttpRequest.Builder} builder copy
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public HttpRequest.Builder newRequestBuilder() {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri())
+			.expectContinue(request.expectContinue());
+
+		for (Map.Entry<String, List<String>> entry : request.headers().map().entrySet()) {
+			for (String value : entry.getValue()) builder.header(entry.getKey(), value);
+		}
+		request.timeout().ifPresent(builder::timeout);
+		request.version().ifPresent(builder::version);
+		return builder;
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return request.method() + " " + request.uri();
+	}
+
+}
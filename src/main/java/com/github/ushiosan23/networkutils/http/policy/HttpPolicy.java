@@ -0,0 +1,45 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Request policy.
+ * Policies wrap every request sent by a request action (retries, limits, caching, etc.).
+ * Each policy receives the call and the rest of the chain and decides how and when the call continues.
+ * Policies must never block: waits are scheduled and results are returned as futures.
+ * Cancelling the returned future must cancel any in-flight request started by the policy.
+ */
+public interface HttpPolicy {
+
+	/**
+	 * Process call
+	 *
+	 * @param call  Target call
+	 * @param chain Next policies and the client
+	 * @param <T>   Response body type
+	 * @return {@link CompletableFuture} request response
+	 */
+	@NotNull
+	<T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain);
+
+	/**
+	 * Rest of the policy chain
+	 */
+	interface Chain {
+
+		/**
+		 * Continue call with next policy (or send it if this is the last policy)
+		 *
+		 * @param call Target call
+		 * @param <T>  Response body type
+		 * @return {@link CompletableFuture} request response
+		 */
+		@NotNull
+		<T> CompletableFuture<HttpResponse<T>> proceed(@NotNull HttpCall<T> call);
+
+	}
+
+}
@@ -0,0 +1,755 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+/**
+ * Client-side load balancing policy.
+ * Requests are sent to one endpoint of a pool chosen with power of two choices: two random healthy
+ * endpoints are compared and the one with the lowest cost (peak EWMA latency times outstanding requests)
+ * receives the request. Endpoints with consecutive failures are ejected for a growing time, and
+ * recovered endpoints receive a growing share of traffic during slow start.
+ * <p>
+ * Path and query of the request are appended to the endpoint base uri. If a service name is set, only
+ * requests to that host are balanced ({@code http://users/api/items} with service {@code users}).
+ */
+public final class LoadBalancerPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Min traffic weight of an endpoint in slow start
+	 */
+	private static final double MIN_WEIGHT = 0.1;
+
+	/**
+	 * Pool endpoints
+	 */
+	private final List<Endpoint> endpoints;
+
+	/**
+	 * Balanced host or {@code null} to balance every request
+	 */
+	private final String service;
+
+	/**
+	 * EWMA decay time
+	 */
+	private final long decayNanos;
+
+	/**
+	 * Consecutive failures that eject an endpoint
+	 */
+	private final int failureThreshold;
+
+	/**
+	 * Base ejection time
+	 */
+	private final long ejectionNanos;
+
+	/**
+	 * Max ejection time
+	 */
+	private final long maxEjectionNanos;
+
+	/**
+	 * Max ejected endpoints
+	 */
+	private final int maxEjected;
+
+	/**
+	 * Slow start duration
+	 */
+	private final long slowStartNanos;
+
+	/**
+	 * Failure statuses
+	 */
+	private final IntPredicate failureStatus;
+
+	/**
+	 * Ejected endpoints count
+	 */
+	private final AtomicInteger ejected = new AtomicInteger();
+
+	/**
+	 * Total ejections
+	 */
+	private final LongAdder ejections = new LongAdder();
+
+	/**
+	 * Requests sent while every endpoint was ejected
+	 */
+	private final LongAdder panics = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private LoadBalancerPolicy(@NotNull Builder builder) {
+		List<Endpoint> list = new ArrayList<>();
+		for (URI uri : builder.endpoints) list.add(new Endpoint(uri));
+
+		endpoints = List.copyOf(list);
+		service = builder.service;
+		decayNanos = builder.decay.toNanos();
+		failureThreshold = builder.failureThreshold;
+		ejectionNanos = builder.ejection.toNanos();
+		maxEjectionNanos = builder.maxEjection.toNanos();
+		maxEjected = (int) Math.floor(list.size() * builder.maxEjectedRate);
+		slowStartNanos = builder.slowStart.toNanos();
+		failureStatus = builder.failureStatus;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create load balancer builder
+	 *
+	 * @return {@link LoadBalancerPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		URI uri = call.getUri();
+		if (service != null && !service.equalsIgnoreCase(uri.getHost())) return chain.proceed(call);
+
+		long start = System.nanoTime();
+		Endpoint endpoint = choose(start);
+		HttpCall<T> target;
+		try {
+			target = call.withUri(resolve(endpoint.uri, uri));
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		endpoint.outstanding.incrementAndGet();
+		endpoint.requests.increment();
+		CompletableFuture<HttpResponse<T>> future;
+		try {
+			future = chain.proceed(target);
+		} catch (RuntimeException e) {
+			endpoint.outstanding.decrementAndGet();
+			return CompletableFuture.failedFuture(e);
+		}
+		// Endpoint state is updated before the caller sees the response
+		CompletableFuture<HttpResponse<T>> result = future.whenComplete((response, error) -> {
+			endpoint.outstanding.decrementAndGet();
+			if (error != null && RetryPolicy.unwrap(error) instanceof CancellationException) return;
+
+			long end = System.nanoTime();
+			endpoint.observe(end, end - start, decayNanos);
+			if (error != null || failureStatus.test(response.statusCode())) failure(endpoint, end);
+			else success(endpoint, end);
+		});
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) future.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * Get pool endpoints
+	 *
+	 * @return {@link Endpoint} endpoints in configuration order
+	 */
+	@NotNull
+	public List<Endpoint> getEndpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * Get total ejections
+	 *
+	 * @return Ejections count
+	 */
+	public long getEjections() {
+		return ejections.sum();
+	}
+
+	/**
+	 * Get requests sent while every endpoint was ejected (ejection is ignored in that case)
+	 *
+	 * @return Panic requests count
+	 */
+	public long getPanics() {
+		return panics.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format("LoadBalancerPolicy[service=%s, endpoints=%s]", service, endpoints);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Append request path and query to endpoint base uri
+	 *
+	 * @param base    Endpoint base uri
+	 * @param request Request uri
+	 * @return {@link URI} target uri
+	 */
+	@NotNull
+	static URI resolve(@NotNull URI base, @NotNull URI request) {
+		String basePath = base.getRawPath() == null ? "" : base.getRawPath();
+		String path = request.getRawPath() == null ? "" : request.getRawPath();
+		if (basePath.endsWith("/") && path.startsWith("/")) basePath = basePath.substring(0, basePath.length() - 1);
+
+		StringBuilder builder = new StringBuilder()
+			.append(base.getScheme()).append("://").append(base.getRawAuthority())
+			.append(basePath).append(path);
+		if (request.getRawQuery() != null) builder.append('?').append(request.getRawQuery());
+
+		try {
+			return new URI(builder.toString());
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+	/**
+	 * Choose endpoint with power of two choices
+	 *
+	 * @param now Current time
+	 * @return {@link Endpoint} chosen endpoint
+	 */
+	@NotNull
+	private Endpoint choose(long now) {
+		int size = endpoints.size();
+		if (size == 1) return endpoints.get(0);
+
+		List<Endpoint> healthy = endpoints;
+		if (ejected.get() > 0) {
+			healthy = new ArrayList<>(size);
+			for (Endpoint endpoint : endpoints) {
+				if (!endpoint.isEjected(now)) healthy.add(endpoint);
+			}
+			if (healthy.isEmpty()) {
+				// Every endpoint failed, ejection would only reject traffic
+				panics.increment();
+				healthy = endpoints;
+			}
+			if (healthy.size() == 1) return healthy.get(0);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(healthy.size());
+		int second = random.nextInt(healthy.size() - 1);
+		if (second >= first) second++;
+
+		Endpoint a = healthy.get(first);
+		Endpoint b = healthy.get(second);
+		return cost(a, now) <= cost(b, now) ? a : b;
+	}
+
+	/**
+	 * Calculate endpoint cost. Endpoints in slow start look more expensive
+	 *
+	 * @param endpoint Target endpoint
+	 * @param now      Current time
+	 * @return Endpoint cost
+	 */
+	private double cost(@NotNull Endpoint endpoint, long now) {
+		double latency = endpoint.latency(now, decayNanos);
+		double cost = (latency + 1) * (endpoint.outstanding.get() + 1);
+
+		return cost / weight(endpoint, now);
+	}
+
+	/**
+	 * Get slow start weight
+	 *
+	 * @param endpoint Target endpoint
+	 * @param now      Current time
+	 * @return Weight between {@link #MIN_WEIGHT} and {@code 1}
+	 */
+	private double weight(@NotNull Endpoint endpoint, long now) {
+		long recovered = endpoint.recoveredAt;
+		if (recovered == 0 || slowStartNanos == 0) return 1;
+
+		long elapsed = now - recovered;
+		if (elapsed < 0) return MIN_WEIGHT;
+		if (elapsed >= slowStartNanos) return 1;
+		return Math.max(MIN_WEIGHT, (double) elapsed / slowStartNanos);
+	}
+
+	/**
+	 * Record successful request
+	 *
+	 * @param endpoint Target endpoint
+	 * @param now      Current time
+	 */
+	private void success(@NotNull Endpoint endpoint, long now) {
+		synchronized (endpoint) {
+			endpoint.failures = 0;
+			// Ejection time grows again from the base once the endpoint is stable
+			if (endpoint.recoveredAt != 0 && now - endpoint.recoveredAt >= slowStartNanos) endpoint.ejectionCount = 0;
+		}
+	}
+
+	/**
+	 * Record failed request and eject endpoint if it has too many consecutive failures
+	 *
+	 * @param endpoint Target endpoint
+	 * @param now      Current time
+	 */
+	private void failure(@NotNull Endpoint endpoint, long now) {
+		long duration;
+
+		synchronized (endpoint) {
+			endpoint.errors.increment();
+			if (++endpoint.failures < failureThreshold || endpoint.isEjected(now)) return;
+			if (!tryEject()) return;
+
+			int shift = Math.min(endpoint.ejectionCount++, 16);
+			duration = Math.max(1, Math.min(maxEjectionNanos, ejectionNanos << shift));
+			endpoint.ejectedUntil = now + duration;
+			endpoint.recoveredAt = now + duration;
+			endpoint.failures = 0;
+		}
+
+		endpoint.ejections.increment();
+		ejections.increment();
+		// Ejection slot is given back when the endpoint returns
+		CompletableFuture.delayedExecutor(duration, TimeUnit.NANOSECONDS).execute(ejected::decrementAndGet);
+	}
+
+	/**
+	 * Reserve ejection slot
+	 *
+	 * @return {@code true} if another endpoint can be ejected
+	 */
+	private boolean tryEject() {
+		int current;
+		do {
+			current = ejected.get();
+			if (current >= maxEjected) return false;
+		} while (!ejected.compareAndSet(current, current + 1));
+		return true;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Endpoint
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Pool endpoint and its state
+	 */
+	public static final class Endpoint {
+
+		/**
+		 * Endpoint base uri
+		 */
+		private final URI uri;
+
+		/**
+		 * In-flight requests
+		 */
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		/**
+		 * Sent requests
+		 */
+		private final LongAdder requests = new LongAdder();
+
+		/**
+		 * Failed requests
+		 */
+		private final LongAdder errors = new LongAdder();
+
+		/**
+		 * Times the endpoint was ejected
+		 */
+		private final LongAdder ejections = new LongAdder();
+
+		/**
+		 * Peak EWMA latency in nanoseconds
+		 */
+		private double ewma;
+
+		/**
+		 * Last EWMA update
+		 */
+		private long updatedAt;
+
+		/**
+		 * Consecutive failures
+		 */
+		private int failures;
+
+		/**
+		 * Consecutive ejections (ejection time multiplier)
+		 */
+		private int ejectionCount;
+
+		/**
+		 * End of current ejection
+		 */
+		private volatile long ejectedUntil;
+
+		/**
+		 * Start of slow start or {@code 0} if endpoint was never ejected
+		 */
+		private volatile long recoveredAt;
+
+		/**
+		 * Create endpoint
+		 *
+		 * @param uri Endpoint base uri
+		 */
+		private Endpoint(@NotNull URI uri) {
+			this.uri = uri;
+		}
+
+		/**
+		 * Get endpoint base uri
+		 *
+		 * @return {@link URI} base uri
+		 */
+		@NotNull
+		public URI getUri() {
+			return uri;
+		}
+
+		/**
+		 * Get current latency estimation
+		 *
+		 * @return {@link Duration} peak EWMA latency
+		 */
+		@NotNull
+		public synchronized Duration getLatency() {
+			return Duration.ofNanos((long) ewma);
+		}
+
+		/**
+		 * Get in-flight requests
+		 *
+		 * @return Outstanding requests
+		 */
+		public int getOutstanding() {
+			return outstanding.get();
+		}
+
+		/**
+		 * Get sent requests
+		 *
+		 * @return Requests count
+		 */
+		public long getRequests() {
+			return requests.sum();
+		}
+
+		/**
+		 * Get failed requests
+		 *
+		 * @return Errors count
+		 */
+		public long getErrors() {
+			return errors.sum();
+		}
+
+		/**
+		 * Get times the endpoint was ejected
+		 *
+		 * @return Ejections count
+		 */
+		public long getEjections() {
+			return ejections.sum();
+		}
+
+		/**
+		 * Check if endpoint is ejected
+		 *
+		 * @return {@code true} if endpoint does not receive traffic
+		 */
+		public boolean isEjected() {
+			return isEjected(System.nanoTime());
+		}
+
+		/**
+		 * Check ejection at time
+		 *
+		 * @param now Current time
+		 * @return {@code true} if endpoint is ejected
+		 */
+		private boolean isEjected(long now) {
+			long until = ejectedUntil;
+			return until != 0 && now - until < 0;
+		}
+
+		/**
+		 * Get latency decayed to current time
+		 *
+		 * @param now        Current time
+		 * @param decayNanos Decay time
+		 * @return Latency in nanoseconds
+		 */
+		private synchronized double latency(long now, long decayNanos) {
+			if (updatedAt == 0) return ewma;
+
+			long elapsed = Math.max(0, now - updatedAt);
+			return ewma * Math.exp(-(double) elapsed / decayNanos);
+		}
+
+		/**
+		 * Add latency sample. Slower samples replace the estimation (peak EWMA)
+		 *
+		 * @param now        Current time
+		 * @param rtt        Sample latency
+		 * @param decayNanos Decay time
+		 */
+		private synchronized void observe(long now, long rtt, long decayNanos) {
+			if (rtt > ewma || updatedAt == 0) {
+				ewma = rtt;
+			} else {
+				double weight = Math.exp(-(double) Math.max(0, now - updatedAt) / decayNanos);
+				ewma = ewma * weight + rtt * (1 - weight);
+			}
+			updatedAt = now;
+		}
+
+		/**
+		 * Object string representation
+		 *
+		 * @return Object string representation
+		 */
+		@Override
+		public String toString() {
+			return String.format(
+				"%s[latency=%dms, outstanding=%d, ejected=%s]",
+				uri, getLatency().toMillis(), getOutstanding(), isEjected()
+			);
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Load balancer builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Endpoint base uris
+		 */
+		private final List<URI> endpoints = new ArrayList<>();
+
+		/**
+		 * Balanced host
+		 */
+		private String service;
+
+		/**
+		 * EWMA decay time
+		 */
+		private Duration decay = Duration.ofSeconds(10);
+
+		/**
+		 * Consecutive failures that eject an endpoint
+		 */
+		private int failureThreshold = 5;
+
+		/**
+		 * Base ejection time
+		 */
+		private Duration ejection = Duration.ofSeconds(30);
+
+		/**
+		 * Max ejection time
+		 */
+		private Duration maxEjection = Duration.ofMinutes(5);
+
+		/**
+		 * Max ejected endpoints rate
+		 */
+		private double maxEjectedRate = 0.5;
+
+		/**
+		 * Slow start duration
+		 */
+		private Duration slowStart = Duration.ofSeconds(30);
+
+		/**
+		 * Failure statuses
+		 */
+		private IntPredicate failureStatus = status -> status >= 500;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Add endpoint to the pool.
+		 *
+		 * @param uri Endpoint base uri ({@code http://10.0.0.1:8080} or {@code https://host/base})
+		 * @return Current builder instance.
+		 */
+		public Builder withEndpoint(@NotNull URI uri) {
+			if (uri.getScheme() == null || uri.getRawAuthority() == null)
+				throw new IllegalArgumentException("Endpoint must be an absolute uri with host.");
+
+			endpoints.add(uri);
+			return this;
+		}
+
+		/**
+		 * Add endpoint to the pool.
+		 *
+		 * @param uri Endpoint base uri
+		 * @return Current builder instance.
+		 */
+		public Builder withEndpoint(@NotNull String uri) {
+			return withEndpoint(URI.create(uri));
+		}
+
+		/**
+		 * Only balance requests to this host. By default every request is balanced.
+		 *
+		 * @param host Service host name or {@code null} to balance every request
+		 * @return Current builder instance.
+		 */
+		public Builder withService(@Nullable String host) {
+			service = host == null ? null : host.toLowerCase(Locale.ROOT);
+			return this;
+		}
+
+		/**
+		 * Set latency decay time. Older samples lose half their weight in about 70% of this time.
+		 * By default 10 seconds.
+		 *
+		 * @param decay Decay time
+		 * @return Current builder instance.
+		 */
+		public Builder withDecay(@NotNull Duration decay) {
+			if (decay.isNegative() || decay.isZero()) throw new IllegalArgumentException("Decay must be positive.");
+
+			this.decay = decay;
+			return this;
+		}
+
+		/**
+		 * Set passive health ejection. Ejection time doubles with each consecutive ejection.
+		 *
+		 * @param failures    Consecutive failures that eject an endpoint
+		 * @param duration    Base ejection time
+		 * @param maxDuration Max ejection time
+		 * @return Current builder instance.
+		 */
+		public Builder withEjection(int failures, @NotNull Duration duration, @NotNull Duration maxDuration) {
+			if (failures < 1 || duration.isNegative() || maxDuration.compareTo(duration) < 0)
+				throw new IllegalArgumentException("Failures must be positive and max duration cannot be less than duration.");
+
+			failureThreshold = failures;
+			ejection = duration;
+			maxEjection = maxDuration;
+			return this;
+		}
+
+		/**
+		 * Set max rate of ejected endpoints. By default half of the pool.
+		 *
+		 * @param rate Max ejected endpoints (0-1)
+		 * @return Current builder instance.
+		 */
+		public Builder withMaxEjected(double rate) {
+			if (rate < 0 || rate > 1) throw new IllegalArgumentException("Rate must be between 0 and 1.");
+
+			maxEjectedRate = rate;
+			return this;
+		}
+
+		/**
+		 * Set slow start. Recovered endpoints receive traffic gradually during this time. By default 30 seconds.
+		 *
+		 * @param duration Slow start duration or {@link Duration#ZERO} to disable it
+		 * @return Current builder instance.
+		 */
+		public Builder withSlowStart(@NotNull Duration duration) {
+			if (duration.isNegative()) throw new IllegalArgumentException("Slow start cannot be negative.");
+
+			slowStart = duration;
+			return this;
+		}
+
+		/**
+		 * Set status codes recorded as failures. By default {@code 5xx}.
+		 *
+		 * @param predicate Status predicate
+		 * @return Current builder instance.
+		 */
+		public Builder withFailureStatus(@NotNull IntPredicate predicate) {
+			failureStatus = predicate;
+			return this;
+		}
+
+		/**
+		 * Build load balancer.
+		 *
+		 * @return {@link LoadBalancerPolicy} Instance result.
+		 */
+		@NotNull
+		public LoadBalancerPolicy build() {
+			if (endpoints.isEmpty()) throw new IllegalStateException("Load balancer needs at least one endpoint.");
+
+			return new LoadBalancerPolicy(this);
+		}
+
+	}
+
+}
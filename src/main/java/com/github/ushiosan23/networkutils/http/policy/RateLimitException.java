@@ -0,0 +1,42 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Request rejected because its rate limit has no slot within the max wait
+ */
+public class RateLimitException extends IOException {
+
+	/**
+	 * Serialization version
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Limit key
+	 */
+	private final String key;
+
+	/**
+	 * Create exception
+	 *
+	 * @param key Limit key
+	 */
+	public RateLimitException(@NotNull String key) {
+		super(String.format("Rate limit of \"%s\" exceeded.", key));
+		this.key = key;
+	}
+
+	/**
+	 * Get limit key
+	 *
+	 * @return Limit key ({@code host:port} or {@code host:port pattern})
+	 */
+	@NotNull
+	public String getKey() {
+		return key;
+	}
+
+}
@@ -0,0 +1,601 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Client side rate limit policy.
+ * Uses the generic cell rate algorithm (GCRA): each host or route keeps only its theoretical arrival
+ * time, updated with compare-and-set. Requests over the rate are delayed without blocking threads
+ * and rejected with {@link RateLimitException} when the delay is longer than the max wait.
+ * <p>
+ * Limits follow the server quota headers: {@code RateLimit-Remaining}/{@code RateLimit-Reset}
+ * (also {@code X-RateLimit-*} and the combined {@code RateLimit} header) slow down the rate until the
+ * quota window resets and {@code Retry-After} on {@code 429}/{@code 503} pauses the host.
+ */
+public final class RateLimitPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Reset values over this are epoch seconds instead of delta seconds
+	 */
+	private static final long EPOCH_THRESHOLD = 1_000_000_000L;
+
+	/**
+	 * Route limits in evaluation order
+	 */
+	private final List<Route> routes;
+
+	/**
+	 * Host limit or {@code null} if unmatched requests are not limited
+	 */
+	private final Route hostRoute;
+
+	/**
+	 * Max delay of a request
+	 */
+	private final long maxWaitNanos;
+
+	/**
+	 * Adapt limits to response headers
+	 */
+	private final boolean adaptive;
+
+	/**
+	 * Buckets by key
+	 */
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * Delayed requests
+	 */
+	private final LongAdder delayed = new LongAdder();
+
+	/**
+	 * Rejected requests
+	 */
+	private final LongAdder rejected = new LongAdder();
+
+	/**
+	 * Limit changes from response headers
+	 */
+	private final LongAdder adapted = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private RateLimitPolicy(@NotNull Builder builder) {
+		routes = List.copyOf(builder.routes);
+		hostRoute = builder.hostRoute;
+		maxWaitNanos = builder.maxWait.toNanos();
+		adaptive = builder.adaptive;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create rate limit builder
+	 *
+	 * @return {@link RateLimitPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		Bucket bucket = bucket(call.getUri());
+		if (bucket == null) return chain.proceed(call);
+
+		long delay = reserve(bucket);
+		if (delay < 0) return CompletableFuture.failedFuture(new RateLimitException(bucket.key));
+
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+		Runnable send = () -> {
+			// Cancelled while delayed
+			if (result.isDone()) return;
+
+			CompletableFuture<HttpResponse<T>> future;
+			try {
+				future = chain.proceed(call);
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+				return;
+			}
+
+			future.whenComplete((response, error) -> {
+				// Limits are updated before the caller sees the response
+				if (response != null && adaptive) adapt(bucket, response.statusCode(), response.headers());
+				if (error != null) result.completeExceptionally(error);
+				else result.complete(response);
+			});
+			result.whenComplete((response, error) -> {
+				if (result.isCancelled()) future.cancel(true);
+			});
+		};
+
+		if (delay == 0) send.run();
+		else CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(send);
+		return result;
+	}
+
+	/**
+	 * Wait in current thread until uri can be requested.
+	 * Used by transfers that do not go through the policy chain.
+	 *
+	 * @param uri Target uri
+	 * @throws RateLimitException   Error if wait is longer than max wait
+	 * @throws InterruptedException Error if current thread is interrupted while waiting
+	 */
+	public void acquire(@NotNull URI uri) throws RateLimitException, InterruptedException {
+		Bucket bucket = bucket(uri);
+		if (bucket == null) return;
+
+		long delay = reserve(bucket);
+		if (delay < 0) throw new RateLimitException(bucket.key);
+		if (delay > 0) TimeUnit.NANOSECONDS.sleep(delay);
+	}
+
+	/**
+	 * Get a future that completes when uri can be requested
+	 *
+	 * @param uri Target uri
+	 * @return {@link CompletableFuture} future completed after the delay or failed with {@link RateLimitException}
+	 */
+	@NotNull
+	public CompletableFuture<Void> acquireAsync(@NotNull URI uri) {
+		Bucket bucket = bucket(uri);
+		if (bucket == null) return CompletableFuture.completedFuture(null);
+
+		long delay = reserve(bucket);
+		if (delay < 0) return CompletableFuture.failedFuture(new RateLimitException(bucket.key));
+		if (delay == 0) return CompletableFuture.completedFuture(null);
+
+		return CompletableFuture.runAsync(() -> {
+		}, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Get delayed requests
+	 *
+	 * @return Delayed count
+	 */
+	public long getDelayed() {
+		return delayed.sum();
+	}
+
+	/**
+	 * Get rejected requests
+	 *
+	 * @return Rejected count
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	/**
+	 * Get limit changes from response headers
+	 *
+	 * @return Adaptation count
+	 */
+	public long getAdapted() {
+		return adapted.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"RateLimitPolicy[routes=%d, delayed=%d, rejected=%d, adapted=%d]",
+			routes.size(), getDelayed(), getRejected(), getAdapted()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Get bucket of uri
+	 *
+	 * @param uri Target uri
+	 * @return {@link Bucket} bucket or {@code null} if uri is not limited
+	 */
+	@Nullable
+	private Bucket bucket(@NotNull URI uri) {
+		Route route = hostRoute;
+		String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+
+		for (Route current : routes) {
+			if (current.pattern.matcher(path).matches()) {
+				route = current;
+				break;
+			}
+		}
+		if (route == null) return null;
+
+		String key = route.pattern == null ? HttpCall.hostKey(uri) : HttpCall.hostKey(uri) + " " + route.pattern;
+		Bucket bucket = buckets.get(key);
+		if (bucket != null) return bucket;
+
+		Route target = route;
+		return buckets.computeIfAbsent(key, k -> new Bucket(k, target));
+	}
+
+	/**
+	 * Reserve next slot and update metrics
+	 *
+	 * @param bucket Target bucket
+	 * @return Delay in nanoseconds or {@code -1} if delay is longer than max wait
+	 */
+	private long reserve(@NotNull Bucket bucket) {
+		long delay = bucket.reserve(System.nanoTime(), maxWaitNanos);
+
+		if (delay < 0) rejected.increment();
+		else if (delay > 0) delayed.increment();
+		return delay;
+	}
+
+	/**
+	 * Update bucket with server quota headers
+	 *
+	 * @param bucket  Target bucket
+	 * @param status  Response status
+	 * @param headers Response headers
+	 */
+	private void adapt(@NotNull Bucket bucket, int status, @NotNull HttpHeaders headers) {
+		long now = System.nanoTime();
+
+		if (status == 429 || status == 503) {
+			long retryAfter = RetryPolicy.parseRetryAfter(headers);
+			if (retryAfter >= 0) {
+				bucket.pause(now + TimeUnit.MILLISECONDS.toNanos(retryAfter));
+				adapted.increment();
+				return;
+			}
+		}
+
+		long remaining = quotaValue(headers, "remaining", "r");
+		long reset = quotaValue(headers, "reset", "t");
+		if (remaining < 0 || reset < 0) return;
+		// Some servers send reset as epoch seconds
+		if (reset > EPOCH_THRESHOLD) reset = Math.max(0, reset - System.currentTimeMillis() / 1000);
+
+		long resetNanos = TimeUnit.SECONDS.toNanos(reset);
+		if (remaining == 0) bucket.pause(now + resetNanos);
+		else bucket.slowDown(resetNanos / remaining, now + resetNanos);
+		adapted.increment();
+	}
+
+	/**
+	 * Read quota header value. Checks {@code RateLimit-Name}, {@code X-RateLimit-Name} and the
+	 * combined {@code RateLimit} header ({@code remaining=10, reset=30} or {@code r=10;t=30})
+	 *
+	 * @param headers Response headers
+	 * @param name    Field name
+	 * @param alias   Short field name
+	 * @return Field value or {@code -1} if value is missing or invalid
+	 */
+	private static long quotaValue(@NotNull HttpHeaders headers, @NotNull String name, @NotNull String alias) {
+		OptionalLong value;
+		try {
+			value = headers.firstValueAsLong("RateLimit-" + name);
+			if (value.isEmpty()) value = headers.firstValueAsLong("X-RateLimit-" + name);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+		if (value.isPresent()) return value.getAsLong();
+
+		String combined = headers.firstValue("RateLimit").orElse(null);
+		if (combined == null) return -1;
+
+		for (String parameter : combined.split("[,;]")) {
+			int index = parameter.indexOf('=');
+			if (index == -1) continue;
+
+			String key = parameter.substring(0, index).trim();
+			if (!key.equalsIgnoreCase(name) && !key.equalsIgnoreCase(alias)) continue;
+			try {
+				return Long.parseLong(parameter.substring(index + 1).trim());
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Bucket
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Configured rate
+	 */
+	private static final class Route {
+
+		/**
+		 * Path pattern or {@code null} for host limit
+		 */
+		private final Pattern pattern;
+
+		/**
+		 * Time between requests in nanoseconds
+		 */
+		private final long interval;
+
+		/**
+		 * Requests allowed at once
+		 */
+		private final int burst;
+
+		/**
+		 * Create route
+		 *
+		 * @param pattern  Path pattern
+		 * @param interval Time between requests
+		 * @param burst    Burst size
+		 */
+		private Route(@Nullable Pattern pattern, long interval, int burst) {
+			this.pattern = pattern;
+			this.interval = interval;
+			this.burst = burst;
+		}
+
+	}
+
+	/**
+	 * GCRA state of one host or route
+	 */
+	private static final class Bucket {
+
+		/**
+		 * Bucket key
+		 */
+		private final String key;
+
+		/**
+		 * Configured time between requests
+		 */
+		private final long interval;
+
+		/**
+		 * Burst tolerance
+		 */
+		private final long tolerance;
+
+		/**
+		 * Theoretical arrival time
+		 */
+		private final AtomicLong arrival;
+
+		/**
+		 * Time between requests required by the server
+		 */
+		private volatile long serverInterval;
+
+		/**
+		 * End of server quota window
+		 */
+		private volatile long serverUntil;
+
+		/**
+		 * Create bucket
+		 *
+		 * @param key   Bucket key
+		 * @param route Bucket rate
+		 */
+		private Bucket(@NotNull String key, @NotNull Route route) {
+			long now = System.nanoTime();
+
+			this.key = key;
+			interval = route.interval;
+			tolerance = route.interval * (route.burst - 1);
+			arrival = new AtomicLong(now);
+			serverUntil = now;
+		}
+
+		/**
+		 * Reserve next slot
+		 *
+		 * @param now     Current time
+		 * @param maxWait Max delay
+		 * @return Delay in nanoseconds or {@code -1} if delay is longer than max wait
+		 */
+		private long reserve(long now, long maxWait) {
+			long step = now - serverUntil < 0 ? Math.max(interval, serverInterval) : interval;
+
+			while (true) {
+				long current = arrival.get();
+				long allowAt = Math.max(now, current - tolerance);
+				long delay = allowAt - now;
+				if (delay > maxWait) return -1;
+
+				if (arrival.compareAndSet(current, Math.max(current, allowAt) + step)) return delay;
+			}
+		}
+
+		/**
+		 * Stop requests until time
+		 *
+		 * @param until Pause end
+		 */
+		private void pause(long until) {
+			arrival.accumulateAndGet(until + tolerance, Math::max);
+		}
+
+		/**
+		 * Use server pace until quota window ends
+		 *
+		 * @param interval Time between requests
+		 * @param until    Quota window end
+		 */
+		private void slowDown(long interval, long until) {
+			serverInterval = interval;
+			serverUntil = until;
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Rate limit builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Route limits
+		 */
+		private final List<Route> routes = new ArrayList<>();
+
+		/**
+		 * Host limit
+		 */
+		private Route hostRoute;
+
+		/**
+		 * Max delay
+		 */
+		private Duration maxWait = Duration.ofSeconds(10);
+
+		/**
+		 * Adapt to response headers
+		 */
+		private boolean adaptive = true;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set limit of each host. Requests that match no route use it.
+		 * Without host limit those requests are not limited.
+		 *
+		 * @param permits Requests per period
+		 * @param period  Rate period
+		 * @param burst   Requests allowed at once
+		 * @return Current builder instance.
+		 */
+		public Builder withRate(int permits, @NotNull Duration period, int burst) {
+			hostRoute = route(null, permits, period, burst);
+			return this;
+		}
+
+		/**
+		 * Add route limit. Routes are checked in order and each host has its own bucket per route.
+		 *
+		 * @param pathRegex Regular expression that matches the whole raw path (e.g. {@code /api/search.*})
+		 * @param permits   Requests per period
+		 * @param period    Rate period
+		 * @param burst     Requests allowed at once
+		 * @return Current builder instance.
+		 */
+		public Builder withRoute(@NotNull String pathRegex, int permits, @NotNull Duration period, int burst) {
+			routes.add(route(Pattern.compile(pathRegex), permits, period, burst));
+			return this;
+		}
+
+		/**
+		 * Set max delay. Requests that would wait more are rejected. By default 10 seconds.
+		 *
+		 * @param maxWait Max delay
+		 * @return Current builder instance.
+		 */
+		public Builder withMaxWait(@NotNull Duration maxWait) {
+			if (maxWait.isNegative()) throw new IllegalArgumentException("Max wait cannot be negative.");
+
+			this.maxWait = maxWait;
+			return this;
+		}
+
+		/**
+		 * Enable or disable adaptation to {@code RateLimit-*} and {@code Retry-After} headers. Enabled by default.
+		 *
+		 * @param adaptive Adaptation status
+		 * @return Current builder instance.
+		 */
+		public Builder withAdaptive(boolean adaptive) {
+			this.adaptive = adaptive;
+			return this;
+		}
+
+		/**
+		 * Build rate limit policy.
+		 *
+		 * @return {@link RateLimitPolicy} Instance result.
+		 */
+		@NotNull
+		public RateLimitPolicy build() {
+			return new RateLimitPolicy(this);
+		}
+
+		/**
+		 * Create validated route
+		 *
+		 * @param pattern Path pattern
+		 * @param permits Requests per period
+		 * @param period  Rate period
+		 * @param burst   Burst size
+		 * @return {@link Route} route result
+		 */
+		@NotNull
+		private static Route route(@Nullable Pattern pattern, int permits, @NotNull Duration period, int burst) {
+			if (permits < 1 || burst < 1 || period.isNegative() || period.isZero())
+				throw new IllegalArgumentException("Permits, burst and period must be positive.");
+
+			return new Route(pattern, period.toNanos() / permits, burst);
+		}
+
+	}
+
+}
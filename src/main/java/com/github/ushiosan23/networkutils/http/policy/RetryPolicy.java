@@ -0,0 +1,518 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import com.github.ushiosan23.networkutils.http.ResponseDecodeException;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry policy.
+ * Repeats calls that fail with transient errors (connection errors, {@code 429}, {@code 502},
+ * {@code 503}, {@code 504}). Waits use exponential backoff with decorrelated jitter or the server
+ * {@code Retry-After} header, and are scheduled without blocking threads.
+ * Only idempotent methods are repeated by default; connection failures are always repeated because
+ * the request never reached the server.
+ */
+public final class RetryPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Attempt marker used when response is returned to the caller
+	 */
+	private static final long NO_RETRY = -2;
+
+	/**
+	 * Max calls, including the first one
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * First retry delay and jitter lower bound
+	 */
+	private final Duration baseDelay;
+
+	/**
+	 * Max retry delay
+	 */
+	private final Duration maxDelay;
+
+	/**
+	 * Max accepted {@code Retry-After} delay or {@code null} to ignore the header
+	 */
+	private final Duration maxRetryAfter;
+
+	/**
+	 * Status codes that can be repeated
+	 */
+	private final Set<Integer> statuses;
+
+	/**
+	 * Repeat non idempotent methods too
+	 */
+	private final boolean retryNonIdempotent;
+
+	/**
+	 * Started calls
+	 */
+	private final LongAdder calls = new LongAdder();
+
+	/**
+	 * Scheduled retries
+	 */
+	private final LongAdder retries = new LongAdder();
+
+	/**
+	 * Calls that succeeded after at least one retry
+	 */
+	private final LongAdder recovered = new LongAdder();
+
+	/**
+	 * Calls that failed with a transient error after all attempts
+	 */
+	private final LongAdder exhausted = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private RetryPolicy(@NotNull Builder builder) {
+		maxAttempts = builder.maxAttempts;
+		baseDelay = builder.baseDelay;
+		maxDelay = builder.maxDelay;
+		maxRetryAfter = builder.maxRetryAfter;
+		statuses = Set.copyOf(builder.statuses);
+		retryNonIdempotent = builder.retryNonIdempotent;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create retry builder
+	 *
+	 * @return {@link RetryPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		calls.increment();
+
+		Execution<T> execution = new Execution<>(call, chain);
+		execution.attempt(1, baseDelay.toMillis());
+		return execution.result;
+	}
+
+	/**
+	 * Get started calls
+	 *
+	 * @return Calls count
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * Get scheduled retries
+	 *
+	 * @return Retries count
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+
+	/**
+	 * Get calls that succeeded after at least one retry
+	 *
+	 * @return Recovered count
+	 */
+	public long getRecovered() {
+		return recovered.sum();
+	}
+
+	/**
+	 * Get calls that failed with a transient error after all attempts
+	 *
+	 * @return Exhausted count
+	 */
+	public long getExhausted() {
+		return exhausted.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"RetryPolicy[calls=%d, retries=%d, recovered=%d, exhausted=%d]",
+			getCalls(), getRetries(), getRecovered(), getExhausted()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Check if call method can be repeated after the server received it
+	 *
+	 * @param call Target call
+	 * @return {@code true} if call can be repeated
+	 */
+	private boolean canRepeat(@NotNull HttpCall<?> call) {
+		return retryNonIdempotent || call.isIdempotent();
+	}
+
+	/**
+	 * Check if error is transient
+	 *
+	 * @param call  Failed call
+	 * @param error Call error
+	 * @return {@code true} if call can be repeated
+	 */
+	private boolean isTransient(@NotNull HttpCall<?> call, @NotNull Throwable error) {
+		if (error instanceof ConnectException) return true;
+		if (
+			error instanceof ResponseDecodeException ||
+				error instanceof CircuitBreakerOpenException ||
+				error instanceof ConcurrencyLimitException ||
+				error instanceof RateLimitException
+		) return false;
+
+		return error instanceof IOException && canRepeat(call);
+	}
+
+	/**
+	 * Calculate next delay with decorrelated jitter: {@code random(base, previous * 3)} limited to max delay
+	 *
+	 * @param previous Previous delay in milliseconds
+	 * @return Next delay in milliseconds
+	 */
+	private long nextDelay(long previous) {
+		long base = baseDelay.toMillis();
+		long upper = Math.max(base + 1, Math.min(maxDelay.toMillis(), previous * 3));
+
+		return Math.min(maxDelay.toMillis(), ThreadLocalRandom.current().nextLong(base, upper));
+	}
+
+	/**
+	 * Parse {@code Retry-After} header (seconds or http date)
+	 *
+	 * @param headers Response headers
+	 * @return Delay in milliseconds or {@code -1} if header is missing or invalid
+	 */
+	static long parseRetryAfter(@NotNull HttpHeaders headers) {
+		String value = headers.firstValue("Retry-After").orElse(null);
+		if (value == null) return -1;
+
+		value = value.trim();
+		try {
+			return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+		} catch (NumberFormatException ignored) {
+		}
+
+		try {
+			ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+			return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+		} catch (DateTimeParseException ignored) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Remove future wrappers from error
+	 *
+	 * @param error Target error
+	 * @return Real error
+	 */
+	@NotNull
+	static Throwable unwrap(@NotNull Throwable error) {
+		while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null)
+			error = error.getCause();
+		return error;
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Execution
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Retry state of one call
+	 *
+	 * @param <T> Response body type
+	 */
+	private final class Execution<T> {
+
+		/**
+		 * Original call
+		 */
+		private final HttpCall<T> call;
+
+		/**
+		 * Rest of the chain
+		 */
+		private final Chain chain;
+
+		/**
+		 * Final result. Cancelling it stops retries
+		 */
+		private final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+		/**
+		 * Current attempt
+		 */
+		private volatile CompletableFuture<HttpResponse<T>> current;
+
+		/**
+		 * Create execution
+		 *
+		 * @param call  Original call
+		 * @param chain Rest of the chain
+		 */
+		private Execution(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+			this.call = call;
+			this.chain = chain;
+
+			result.whenComplete((response, error) -> {
+				CompletableFuture<HttpResponse<T>> attempt = current;
+				if (error instanceof CancellationException && attempt != null) attempt.cancel(true);
+			});
+		}
+
+		/**
+		 * Start attempt
+		 *
+		 * @param attempt  Attempt number (first is 1)
+		 * @param previous Previous delay in milliseconds
+		 */
+		private void attempt(int attempt, long previous) {
+			if (result.isDone()) return;
+
+			// Retryable responses are discarded before reading the body
+			long[] retryAfter = {NO_RETRY};
+			HttpResponse.BodyHandler<T> handler = info -> {
+				if (attempt < maxAttempts && statuses.contains(info.statusCode()) && canRepeat(call)) {
+					long delay = maxRetryAfter == null ? -1 : parseRetryAfter(info.headers());
+
+					if (delay <= (maxRetryAfter == null ? 0 : maxRetryAfter.toMillis())) {
+						retryAfter[0] = delay;
+						return HttpResponse.BodySubscribers.replacing(null);
+					}
+				}
+				return call.getHandler().apply(info);
+			};
+
+			CompletableFuture<HttpResponse<T>> future;
+			try {
+				future = chain.proceed(call.withHandler(handler));
+			} catch (RuntimeException e) {
+				future = CompletableFuture.failedFuture(e);
+			}
+
+			current = future;
+			if (result.isCancelled()) future.cancel(true);
+
+			future.whenComplete((response, error) -> {
+				if (result.isDone()) return;
+
+				if (error == null && retryAfter[0] == NO_RETRY) {
+					if (attempt > 1) recovered.increment();
+					result.complete(response);
+					return;
+				}
+
+				if (error != null) {
+					Throwable cause = unwrap(error);
+					boolean transientError = isTransient(call, cause);
+
+					if (!transientError || attempt >= maxAttempts) {
+						if (transientError) exhausted.increment();
+						result.completeExceptionally(cause);
+						return;
+					}
+				}
+
+				long delay = nextDelay(previous);
+				long wait = retryAfter[0] >= 0 ? retryAfter[0] : delay;
+
+				retries.increment();
+				CompletableFuture.delayedExecutor(wait, TimeUnit.MILLISECONDS).execute(() -> attempt(attempt + 1, delay));
+			});
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Retry policy builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Max calls, including the first one
+		 */
+		private int maxAttempts = 3;
+
+		/**
+		 * First retry delay
+		 */
+		private Duration baseDelay = Duration.ofMillis(100);
+
+		/**
+		 * Max retry delay
+		 */
+		private Duration maxDelay = Duration.ofSeconds(10);
+
+		/**
+		 * Max accepted {@code Retry-After} delay
+		 */
+		private Duration maxRetryAfter = Duration.ofSeconds(30);
+
+		/**
+		 * Status codes that can be repeated
+		 */
+		private Set<Integer> statuses = Set.of(429, 502, 503, 504);
+
+		/**
+		 * Repeat non idempotent methods
+		 */
+		private boolean retryNonIdempotent = false;
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set max calls, including the first one.
+		 *
+		 * @param maxAttempts Max calls
+		 * @return Current builder instance.
+		 */
+		public Builder withMaxAttempts(int maxAttempts) {
+			if (maxAttempts < 1) throw new IllegalArgumentException("Max attempts must be positive.");
+
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Set backoff delays.
+		 *
+		 * @param base First retry delay and jitter lower bound
+		 * @param max  Max retry delay
+		 * @return Current builder instance.
+		 */
+		public Builder withBackoff(@NotNull Duration base, @NotNull Duration max) {
+			if (base.isNegative() || base.isZero() || max.compareTo(base) < 0)
+				throw new IllegalArgumentException("Backoff delays must be positive and max cannot be lower than base.");
+
+			baseDelay = base;
+			maxDelay = max;
+			return this;
+		}
+
+		/**
+		 * Honor {@code Retry-After} header. Responses that ask for longer waits are returned to the caller.
+		 *
+		 * @param max Max accepted delay or {@code null} to ignore the header
+		 * @return Current builder instance.
+		 */
+		public Builder withRetryAfter(@Nullable Duration max) {
+			if (max != null && max.isNegative())
+				throw new IllegalArgumentException("Max Retry-After delay cannot be negative.");
+
+			maxRetryAfter = max;
+			return this;
+		}
+
+		/**
+		 * Set status codes that can be repeated.
+		 *
+		 * @param statuses Status codes
+		 * @return Current builder instance.
+		 */
+		public Builder withStatuses(int... statuses) {
+			Set<Integer> result = new HashSet<>();
+			for (int status : statuses) result.add(status);
+
+			this.statuses = result;
+			return this;
+		}
+
+		/**
+		 * Repeat non idempotent methods ({@code POST}, {@code PATCH}) too.
+		 * Request bodies must support many subscriptions.
+		 *
+		 * @param enabled Repeat all methods
+		 * @return Current builder instance.
+		 */
+		public Builder withRetryNonIdempotent(boolean enabled) {
+			retryNonIdempotent = enabled;
+			return this;
+		}
+
+		/**
+		 * Build retry policy.
+		 *
+		 * @return {@link RetryPolicy} Instance result.
+		 */
+		@NotNull
+		public RetryPolicy build() {
+			return new RetryPolicy(this);
+		}
+
+	}
+
+}
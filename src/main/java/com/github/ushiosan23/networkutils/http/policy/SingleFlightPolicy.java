@@ -0,0 +1,530 @@
+package com.github.ushiosan23.networkutils.http.policy;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request coalescing policy.
+ * Concurrent identical requests (same method, uri and headers) share one exchange: the first one is sent
+ * and the next ones wait for its response. Raw response bytes are kept in memory and replayed into the
+ * body handler of each caller, so every caller receives its own body type. The exchange is aborted only
+ * when every caller cancelled.
+ * <p>
+ * Only {@code GET} and {@code HEAD} requests are coalesced by default. Add it first so retries and
+ * other policies run once per shared exchange.
+ */
+public final class SingleFlightPolicy implements HttpPolicy {
+
+	/* ---------------------------------------------------------
+	 *
+	 * Properties
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Coalesced methods
+	 */
+	private final Set<String> methods;
+
+	/**
+	 * In-flight exchanges by request key
+	 */
+	private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+	/**
+	 * Sent exchanges
+	 */
+	private final LongAdder exchanges = new LongAdder();
+
+	/**
+	 * Requests that joined an exchange
+	 */
+	private final LongAdder coalesced = new LongAdder();
+
+	/* ---------------------------------------------------------
+	 *
+	 * Constructors
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create policy from builder
+	 *
+	 * @param builder Builder configuration
+	 */
+	private SingleFlightPolicy(@NotNull Builder builder) {
+		methods = Set.copyOf(builder.methods);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Create single flight builder
+	 *
+	 * @return {@link SingleFlightPolicy.Builder}
+	 */
+	@NotNull
+	@Contract(" -> new")
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	@NotNull
+	@Override
+	public <T> CompletableFuture<HttpResponse<T>> intercept(@NotNull HttpCall<T> call, @NotNull Chain chain) {
+		HttpRequest request = call.getRequest();
+		boolean hasBody = request.bodyPublisher().map(body -> body.contentLength() != 0).orElse(false);
+		if (hasBody || !methods.contains(request.method().toUpperCase(Locale.ROOT))) return chain.proceed(call);
+
+		String key = request.method() + " " + request.uri() + " " + request.headers().map();
+		Flight flight;
+
+		while (true) {
+			Flight current = flights.get(key);
+			if (current != null && current.join()) {
+				coalesced.increment();
+				flight = current;
+				break;
+			}
+
+			Flight created = new Flight();
+			boolean owner = current == null
+				? flights.putIfAbsent(key, created) == null
+				: flights.replace(key, current, created);
+			if (owner) {
+				exchanges.increment();
+				start(key, created, call, chain);
+				flight = created;
+				break;
+			}
+		}
+
+		return deliver(flight, call);
+	}
+
+	/**
+	 * Get sent exchanges
+	 *
+	 * @return Exchanges count
+	 */
+	public long getExchanges() {
+		return exchanges.sum();
+	}
+
+	/**
+	 * Get requests that shared another exchange
+	 *
+	 * @return Coalesced count
+	 */
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * Object string representation
+	 *
+	 * @return Object string representation
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+			"SingleFlightPolicy[methods=%s, in-flight=%d, exchanges=%d, coalesced=%d]",
+			methods, flights.size(), getExchanges(), getCoalesced()
+		);
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Internal methods
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Send shared exchange
+	 *
+	 * @param key    Request key
+	 * @param flight Target flight
+	 * @param call   First call
+	 * @param chain  Rest of the chain
+	 */
+	private void start(@NotNull String key, @NotNull Flight flight, @NotNull HttpCall<?> call, @NotNull Chain chain) {
+		CompletableFuture<HttpResponse<Captured>> future;
+		try {
+			future = chain.proceed(HttpCall.of(call.getRequest(), flight.handler()));
+		} catch (RuntimeException e) {
+			future = CompletableFuture.failedFuture(e);
+		}
+
+		flight.exchange = future;
+		// Finished flights leave the map before callers see the response, next requests start a new exchange
+		future.whenComplete((response, error) -> {
+			flights.remove(key, flight);
+			if (error != null) flight.result.completeExceptionally(error);
+			else flight.result.complete(response);
+		});
+	}
+
+	/**
+	 * Replay shared response into the call handler
+	 *
+	 * @param flight Shared flight
+	 * @param call   Target call
+	 * @param <T>    Response body type
+	 * @return {@link CompletableFuture} call response
+	 */
+	@NotNull
+	private static <T> CompletableFuture<HttpResponse<T>> deliver(@NotNull Flight flight, @NotNull HttpCall<T> call) {
+		CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+		flight.result.whenComplete((shared, error) -> {
+			if (error != null) {
+				result.completeExceptionally(error);
+				return;
+			}
+
+			Captured captured = shared.body();
+			HttpResponse.BodySubscriber<T> subscriber;
+			try {
+				subscriber = call.getHandler().apply(captured.info);
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+				return;
+			}
+
+			subscriber.getBody().whenComplete((body, failure) -> {
+				if (failure != null) result.completeExceptionally(failure);
+				else result.complete(new SharedResponse<>(shared, call.getRequest(), body));
+			});
+			replay(subscriber, captured.body);
+		});
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) flight.leave();
+		});
+		return result;
+	}
+
+	/**
+	 * Publish bytes to subscriber when it requests them
+	 *
+	 * @param subscriber Target subscriber
+	 * @param body       Response bytes
+	 */
+	private static void replay(@NotNull HttpResponse.BodySubscriber<?> subscriber, @NotNull byte[] body) {
+		AtomicBoolean done = new AtomicBoolean();
+
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				if (n <= 0 || !done.compareAndSet(false, true)) return;
+
+				if (body.length > 0) subscriber.onNext(List.of(ByteBuffer.wrap(body).asReadOnlyBuffer()));
+				subscriber.onComplete();
+			}
+
+			@Override
+			public void cancel() {
+				done.set(true);
+			}
+		});
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Flight
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Raw response of a shared exchange
+	 */
+	private static final class Captured {
+
+		/**
+		 * Response status and headers
+		 */
+		private final HttpResponse.ResponseInfo info;
+
+		/**
+		 * Raw body bytes
+		 */
+		private final byte[] body;
+
+		/**
+		 * Create captured response
+		 *
+		 * @param info Response info
+		 * @param body Raw body
+		 */
+		private Captured(@NotNull HttpResponse.ResponseInfo info, @NotNull byte[] body) {
+			this.info = info;
+			this.body = body;
+		}
+
+	}
+
+	/**
+	 * Shared exchange and its callers
+	 */
+	private static final class Flight {
+
+		/**
+		 * Subscription marker used after abort
+		 */
+		private static final Flow.Subscription ABORTED = new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+			}
+
+			@Override
+			public void cancel() {
+			}
+		};
+
+		/**
+		 * Callers waiting for the response. Zero means the flight was abandoned
+		 */
+		private final AtomicInteger callers = new AtomicInteger(1);
+
+		/**
+		 * Body subscription of the exchange
+		 */
+		private final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+
+		/**
+		 * Shared response, completed after the flight left the map
+		 */
+		private final CompletableFuture<HttpResponse<Captured>> result = new CompletableFuture<>();
+
+		/**
+		 * Exchange future
+		 */
+		private volatile CompletableFuture<HttpResponse<Captured>> exchange;
+
+		/**
+		 * Join flight if it was not abandoned
+		 *
+		 * @return {@code true} if caller joined
+		 */
+		private boolean join() {
+			while (true) {
+				int current = callers.get();
+				if (current == 0) return false;
+				if (callers.compareAndSet(current, current + 1)) return true;
+			}
+		}
+
+		/**
+		 * Leave flight. Last caller aborts the exchange
+		 */
+		private void leave() {
+			if (callers.decrementAndGet() != 0) return;
+
+			CompletableFuture<HttpResponse<Captured>> current = exchange;
+			if (current != null) current.cancel(true);
+
+			Flow.Subscription active = subscription.getAndSet(ABORTED);
+			if (active != null) active.cancel();
+		}
+
+		/**
+		 * Create handler that keeps raw bytes and registers body subscription
+		 *
+		 * @return {@link HttpResponse.BodyHandler} capture handler
+		 */
+		@NotNull
+		private HttpResponse.BodyHandler<Captured> handler() {
+			return info -> {
+				HttpResponse.BodySubscriber<byte[]> bytes = HttpResponse.BodySubscribers.ofByteArray();
+
+				return HttpResponse.BodySubscribers.mapping(new HttpResponse.BodySubscriber<byte[]>() {
+					@Override
+					public CompletionStage<byte[]> getBody() {
+						return bytes.getBody();
+					}
+
+					@Override
+					public void onSubscribe(Flow.Subscription current) {
+						bytes.onSubscribe(current);
+
+						Flow.Subscription previous = subscription.getAndUpdate(value -> value == ABORTED ? ABORTED : current);
+						if (previous == ABORTED) current.cancel();
+					}
+
+					@Override
+					public void onNext(List<ByteBuffer> item) {
+						bytes.onNext(item);
+					}
+
+					@Override
+					public void onError(Throwable throwable) {
+						bytes.onError(throwable);
+					}
+
+					@Override
+					public void onComplete() {
+						bytes.onComplete();
+					}
+				}, body -> new Captured(info, body));
+			};
+		}
+
+	}
+
+	/**
+	 * Response of one caller built from the shared response
+	 *
+	 * @param <T> Response body type
+	 */
+	private static final class SharedResponse<T> implements HttpResponse<T> {
+
+		/**
+		 * Shared response
+		 */
+		private final HttpResponse<Captured> shared;
+
+		/**
+		 * Caller request
+		 */
+		private final HttpRequest request;
+
+		/**
+		 * Caller body
+		 */
+		private final T body;
+
+		/**
+		 * Create response
+		 *
+		 * @param shared  Shared response
+		 * @param request Caller request
+		 * @param body    Caller body
+		 */
+		private SharedResponse(@NotNull HttpResponse<Captured> shared, @NotNull HttpRequest request, T body) {
+			this.shared = shared;
+			this.request = request;
+			this.body = body;
+		}
+
+		@Override
+		public int statusCode() {
+			return shared.statusCode();
+		}
+
+		@Override
+		public HttpRequest request() {
+			return request;
+		}
+
+		@Override
+		public Optional<HttpResponse<T>> previousResponse() {
+			return Optional.empty();
+		}
+
+		@Override
+		public HttpHeaders headers() {
+			return shared.headers();
+		}
+
+		@Override
+		public T body() {
+			return body;
+		}
+
+		@Override
+		public Optional<SSLSession> sslSession() {
+			return shared.sslSession();
+		}
+
+		@Override
+		public URI uri() {
+			return shared.uri();
+		}
+
+		@Override
+		public HttpClient.Version version() {
+			return shared.version();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("(%s %s) %d", request.method(), shared.uri(), statusCode());
+		}
+
+	}
+
+	/* ---------------------------------------------------------
+	 *
+	 * Builder
+	 *
+	 * --------------------------------------------------------- */
+
+	/**
+	 * Single flight builder
+	 */
+	public static final class Builder {
+
+		/**
+		 * Coalesced methods
+		 */
+		private Set<String> methods = Set.of("GET", "HEAD");
+
+		/**
+		 * Create builder with default configuration.
+		 */
+		private Builder() {
+		}
+
+		/**
+		 * Set coalesced methods. Only idempotent methods should be coalesced.
+		 * Requests with body are never coalesced.
+		 *
+		 * @param methods Methods names
+		 * @return Current builder instance.
+		 */
+		public Builder withMethods(@NotNull String... methods) {
+			Set<String> result = new HashSet<>();
+			for (String method : methods) result.add(method.toUpperCase(Locale.ROOT));
+
+			this.methods = result;
+			return this;
+		}
+
+		/**
+		 * Build single flight policy.
+		 *
+		 * @return {@link SingleFlightPolicy} Instance result.
+		 */
+		@NotNull
+		public SingleFlightPolicy build() {
+			return new SingleFlightPolicy(this);
+		}
+
+	}
+
+}
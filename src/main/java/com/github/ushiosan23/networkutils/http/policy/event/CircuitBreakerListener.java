@@ -0,0 +1,19 @@
+package com.github.ushiosan23.networkutils.http.policy.event;
+
+import com.github.ushiosan23.networkutils.http.policy.CircuitBreakerEvent;
+
+import java.util.EventListener;
+
+/**
+ * Circuit breaker state listener
+ */
+public interface CircuitBreakerListener extends EventListener {
+
+	/**
+	 * Called when a circuit changes its state. Runs in the thread that completed the request
+	 *
+	 * @param event Transition event
+	 */
+	void onStateChange(CircuitBreakerEvent event);
+
+}
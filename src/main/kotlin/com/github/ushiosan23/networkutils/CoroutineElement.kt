@@ -1,32 +1,107 @@
 package com.github.ushiosan23.networkutils
 
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.asCoroutineDispatcher
 import kotlinx.coroutines.launch
+import java.io.Closeable
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.coroutines.CoroutineContext
 
-abstract class CoroutineElement : CoroutineScope {
+/**
+ * Element with its own coroutine scope.
+ * Children are supervised (one failing block does not cancel the others) and are cancelled when element is closed.
+ */
+abstract class CoroutineElement : CoroutineScope, Closeable {
 
 	/**
 	 * Coroutine job executor
 	 */
 	@Suppress("MemberVisibilityCanBePrivate")
-	protected val coroutineJob: Job = Job()
+	protected val coroutineJob: Job = SupervisorJob()
 
 	/**
 	 * Coroutine context property
 	 */
-	override val coroutineContext: CoroutineContext
-		get() = coroutineJob + Dispatchers.Default
+	override val coroutineContext: CoroutineContext = coroutineJob + Dispatchers.Default
 
 	/**
-	 * Coroutine launch. Launch specific block in coroutine context
+	 * Check if element accepts new coroutines
+	 */
+	val isActive: Boolean
+		get() = coroutineJob.isActive
+
+	/**
+	 * Coroutine launch. Launch specific block in coroutine context.
+	 * Block runs on [ioDispatcher] because it usually makes blocking requests.
 	 *
 	 * @param block Target block to launch
+	 * @return [Job] block job. Nothing is executed if element is closed
 	 */
-	fun coroutineLaunch(block: () -> Unit) = launch {
+	fun coroutineLaunch(block: () -> Unit): Job = launch(ioDispatcher) {
 		block.invoke()
 	}
 
+	/**
+	 * Coroutine async. Run blocking block on [ioDispatcher] and get its result
+	 *
+	 * @param block Target block to run
+	 * @return [Deferred] block result
+	 */
+	fun <T> coroutineAsync(block: () -> T): Deferred<T> = async(ioDispatcher) {
+		block.invoke()
+	}
+
+	/**
+	 * Cancel all running coroutines. Element does not accept new coroutines after cancellation
+	 */
+	fun cancel() {
+		coroutineJob.cancel()
+	}
+
+	/**
+	 * Close element. Same as [cancel]
+	 */
+	override fun close() = cancel()
+
+	companion object {
+
+		/**
+		 * Max threads used by [ioDispatcher]
+		 */
+		@JvmField
+		val IO_PARALLELISM: Int = System.getProperty("networkutils.io.parallelism")?.toIntOrNull()
+			?: maxOf(16, Runtime.getRuntime().availableProcessors() * 4)
+
+		/**
+		 * Bounded dispatcher for blocking calls. Keeps blocking requests out of [Dispatchers.Default]
+		 * and limits how many requests are blocked at the same time. Idle threads are released.
+		 */
+		@JvmStatic
+		val ioDispatcher: CoroutineDispatcher by lazy {
+			val counter = AtomicInteger()
+			val executor = ThreadPoolExecutor(
+				IO_PARALLELISM,
+				IO_PARALLELISM,
+				60,
+				TimeUnit.SECONDS,
+				LinkedBlockingQueue()
+			) { runnable ->
+				Thread(runnable, "network-io-${counter.incrementAndGet()}").apply { isDaemon = true }
+			}
+
+			executor.allowCoreThreadTimeOut(true)
+			executor.asCoroutineDispatcher()
+		}
+
+	}
+
 }
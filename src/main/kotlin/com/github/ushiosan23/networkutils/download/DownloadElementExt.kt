@@ -0,0 +1,59 @@
+package com.github.ushiosan23.networkutils.download
+
+import com.github.ushiosan23.networkutils.CoroutineElement
+import com.github.ushiosan23.networkutils.download.event.DownloadListener
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.asExecutor
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.suspendCancellableCoroutine
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/* ---------------------------------------------------------
+ *
+ * Extension methods
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Download on [CoroutineElement.ioDispatcher] and suspend until download ends.
+ * Cancelling the coroutine cancels the download and aborts the transfer.
+ *
+ * @return [DownloadStatusEvent] final status (finished, paused or cancelled)
+ * @throws java.io.IOException Error if download fails
+ */
+suspend fun DownloadElement.downloadC(): DownloadStatusEvent = suspendCancellableCoroutine { continuation ->
+	val task = CompletableFuture.supplyAsync({ download() }, CoroutineElement.ioDispatcher.asExecutor())
+
+	continuation.invokeOnCancellation { abort() }
+	task.whenComplete { status, error ->
+		if (error == null) continuation.resume(status)
+		else continuation.resumeWithException(if (error is CompletionException) error.cause ?: error else error)
+	}
+}
+
+/**
+ * Download status as conflated [Flow]. Download never waits for collectors: a slow collector only
+ * receives the newest progress, the last status (finished, paused, cancelled or failed) is always received
+ * and completes the flow. If download is already done the flow emits its last status.
+ *
+ * @return [Flow] status events
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+fun DownloadElement.statusFlow(): Flow<DownloadStatusEvent> = callbackFlow<DownloadStatusEvent> {
+	val listener = DownloadListener { event ->
+		trySend(event)
+		if (event.isDone) channel.close()
+	}
+
+	addDownloadListener(listener)
+	// Download ended before listener was registered
+	status?.let { current -> if (current.isDone) listener.onDownloadEvent(current) }
+
+	awaitClose { removeDownloadListener(listener) }
+}.conflate()
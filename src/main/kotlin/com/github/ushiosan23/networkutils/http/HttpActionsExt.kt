@@ -1,15 +1,18 @@
 package com.github.ushiosan23.networkutils.http
 
-import com.github.ushiosan23.networkutils.http.response.HttpAction
 import kotlinx.coroutines.suspendCancellableCoroutine
-import java.net.URI
-import java.net.http.HttpClient
-import java.net.http.HttpHeaders
+import kotlinx.serialization.DeserializationStrategy
+import kotlinx.serialization.SerializationStrategy
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.serializer
 import java.net.http.HttpRequest
 import java.net.http.HttpResponse
-import java.util.*
-import javax.net.ssl.SSLSession
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
 import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
 
 
 /* ---------------------------------------------------------
@@ -19,72 +22,29 @@ import kotlin.coroutines.resume
  * --------------------------------------------------------- */
 
 /**
- * Create response error result.
- *
- * @param throwable Exception error
- * @param request Source request
- *
- * @return [HttpResponse] result request.
- */
-private fun makeResponseError(throwable: Throwable, request: HttpRequest): HttpResponse<String> =
-	object : HttpResponse<String> {
-
-		/**
-		 * Return status code
-		 *
-		 * @return status code
-		 */
-		override fun statusCode(): Int = 404
-
-		/**
-		 * Get current request
-		 *
-		 * @return [HttpRequest] current request
-		 */
-		override fun request(): HttpRequest = request
-
-		/**
-		 * Return empty previous response
-		 *
-		 * @return [Optional] empty response.
-		 */
-		override fun previousResponse(): Optional<HttpResponse<String>> = Optional.empty()
-
-		/**
-		 * Get request headers
-		 *
-		 * @return [HttpHeaders] current request headers
-		 */
-		override fun headers(): HttpHeaders? = request.headers()
-
-		/**
-		 * Get request body
-		 *
-		 * @return request body string
-		 */
-		override fun body(): String? = throwable.message
-
-		/**
-		 * Get empty ssl session
-		 *
-		 * @return [Optional] empty ssl session
-		 */
-		override fun sslSession(): Optional<SSLSession> = Optional.empty()
-
-		/**
-		 * Get request uri
-		 *
-		 * @return [URI] request uri
-		 */
-		override fun uri(): URI? = request.uri()
-
-		/**
-		 * Get [HttpClient] version
-		 *
-		 * @return [HttpClient.Version] client version
-		 */
-		override fun version(): HttpClient.Version? = HttpConnector.getHttpClient().version()
+ * Wait future result without blocking. Coroutine cancellation cancels the future,
+ * request futures abort the exchange when they are cancelled.
+ *
+ * @return [T] future result
+ */
+internal suspend fun <T> CompletableFuture<T>.awaitResult(): T {
+	// Fast path
+	if (isDone) {
+		try {
+			return get()
+		} catch (e: ExecutionException) {
+			throw e.cause ?: e
+		}
+	}
+
+	return suspendCancellableCoroutine { coroutine ->
+		whenComplete { value, throwable ->
+			if (throwable == null) coroutine.resume(value)
+			else coroutine.resumeWithException((throwable as? CompletionException)?.cause ?: throwable)
+		}
+		coroutine.invokeOnCancellation { cancel(true) }
 	}
+}
 
 
 /* ---------------------------------------------------------
@@ -95,154 +55,233 @@ private fun makeResponseError(throwable: Throwable, request: HttpRequest): HttpR
 
 
 /**
- * Make coroutine request action.
+ * Make coroutine GET request. Cancelling the coroutine (or [kotlinx.coroutines.withTimeout]) aborts the request.
  *
  * @return [HttpResponse] request result.
+ * @throws java.io.IOException if request fails
  */
-suspend fun HttpRequestAction.getAsyncC(): HttpResponse<String> = suspendCancellableCoroutine { coroutine ->
-	getAsync(object : HttpAction<HttpResponse<String>> {
-
-		/**
-		 * Called when request is valid.
-		 */
-		override fun invoke(item: HttpResponse<String>): HttpResponse<String> {
-			coroutine.resume(item)
-			return item
-		}
-
-		/**
-		 * Called when request failed.
-		 *
-		 * @param throwable Error exception
-		 */
-		override fun exceptionally(throwable: Throwable, source: Any): HttpResponse<String>? {
-			coroutine.resume(makeResponseError(throwable, source as HttpRequest))
-			return super.exceptionally(throwable, source)
-		}
-
-	})
-}
+suspend fun HttpRequestAction.getAsyncC(): HttpResponse<String> = getAsync().awaitResult()
 
 /**
- * Make coroutine request action.
+ * Make coroutine POST request. Cancelling the coroutine aborts the request.
  *
  * @param data Data to send
  * @return [HttpResponse] request result.
+ * @throws java.io.IOException if request fails
  *
  * @see HttpRequestAction.postAsync
  */
 suspend fun HttpRequestAction.postAsyncC(data: Map<String, String>? = null): HttpResponse<String> =
-	suspendCancellableCoroutine { coroutine ->
-		postAsync(object : HttpAction<HttpResponse<String>> {
-
-			/**
-			 * Called when request is valid.
-			 */
-			override fun invoke(item: HttpResponse<String>): HttpResponse<String> {
-				coroutine.resume(item)
-				return item
-			}
-
-			/**
-			 * Called when request failed.
-			 *
-			 * @param throwable Error exception
-			 */
-			override fun exceptionally(throwable: Throwable, source: Any): HttpResponse<String>? {
-				coroutine.resume(makeResponseError(throwable, source as HttpRequest))
-				return super.exceptionally(throwable, source)
-			}
-
-		}, data)
-	}
+	postAsync(data).awaitResult()
 
 /**
- * Make coroutine request action.
+ * Make coroutine POST request with data (files and documents). Cancelling the coroutine aborts the request.
  *
  * @param data Data to send
  * @return [HttpResponse] request result.
+ * @throws java.io.IOException if request fails or any file not exists
  *
  * @see HttpRequestAction.postAsyncD
  */
 suspend fun HttpRequestAction.postAsyncCD(data: Map<String, Any>? = null): HttpResponse<String> =
-	suspendCancellableCoroutine { coroutine ->
-		postAsyncD(object : HttpAction<HttpResponse<String>> {
-
-			/**
-			 * Called when request is valid.
-			 */
-			override fun invoke(item: HttpResponse<String>): HttpResponse<String> {
-				coroutine.resume(item)
-				return item
-			}
-
-			/**
-			 * Called when request failed.
-			 *
-			 * @param throwable Error exception
-			 */
-			override fun exceptionally(throwable: Throwable, source: Any): HttpResponse<String>? {
-				coroutine.resume(makeResponseError(throwable, source as HttpRequest))
-				return super.exceptionally(throwable, source)
-			}
-
-		}, data)
-	}
+	postAsyncD(data).awaitResult()
 
 /**
- * Make coroutine request action.
+ * Make coroutine PUT request. Cancelling the coroutine aborts the request.
  *
  * @return [HttpResponse] request result.
+ * @throws java.io.IOException if request fails
  */
-suspend fun HttpRequestAction.putAsyncC(): HttpResponse<String> = suspendCancellableCoroutine { coroutine ->
-	putAsync(object : HttpAction<HttpResponse<String>> {
+suspend fun HttpRequestAction.putAsyncC(): HttpResponse<String> = putAsync().awaitResult()
 
-		/**
-		 * Called when request is valid.
-		 */
-		override fun invoke(item: HttpResponse<String>): HttpResponse<String> {
-			coroutine.resume(item)
-			return item
-		}
+/**
+ * Make coroutine DELETE request. Cancelling the coroutine aborts the request.
+ *
+ * @return [HttpResponse] request result.
+ * @throws java.io.IOException if request fails
+ */
+suspend fun HttpRequestAction.deleteAsyncC(): HttpResponse<String> = deleteAsync().awaitResult()
 
-		/**
-		 * Called when request failed.
-		 *
-		 * @param throwable Error exception
-		 */
-		override fun exceptionally(throwable: Throwable, source: Any): HttpResponse<String>? {
-			coroutine.resume(makeResponseError(throwable, source as HttpRequest))
-			return super.exceptionally(throwable, source)
-		}
+/**
+ * Make coroutine request with custom response handler.
+ *
+ * @param method Request method
+ * @param handler Response body handler
+ * @param contentType Body content type
+ * @param body Request body or `null` if request has no body
+ * @return [HttpResponse] request result.
+ *
+ * @see HttpRequestAction.sendAsync
+ */
+suspend fun <T> HttpRequestAction.sendC(
+	method: String,
+	handler: HttpResponse.BodyHandler<T>,
+	contentType: String? = null,
+	body: HttpRequest.BodyPublisher? = null
+): HttpResponse<T> = sendAsync(method, contentType, body, handler).awaitResult()
 
-	})
-}
+/**
+ * Make coroutine GET request and decode json body directly from response bytes.
+ *
+ * @param deserializer Target type deserializer
+ * @param json Json configuration
+ * @param executor Decoding executor
+ * @return [HttpResponse] request result with decoded body.
+ *
+ * @see jsonBodyHandler
+ */
+suspend fun <T> HttpRequestAction.getJsonC(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	executor: Executor = jsonDecodeExecutor
+): HttpResponse<T> = sendC("GET", jsonBodyHandler(deserializer, json, executor))
+
+/**
+ * Make coroutine GET request and decode json body directly from response bytes.
+ *
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend inline fun <reified T> HttpRequestAction.getJsonC(): HttpResponse<T> = getJsonC(serializer<T>())
 
 /**
- * Make coroutine request action.
+ * Make coroutine POST request with json body.
  *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param json Json configuration. Compact output by default
  * @return [HttpResponse] request result.
+ *
+ * @see jsonBodyPublisher
  */
-suspend fun HttpRequestAction.deleteAsyncC(): HttpResponse<String> = suspendCancellableCoroutine { coroutine ->
-	deleteAsync(object : HttpAction<HttpResponse<String>> {
+suspend fun <T> HttpRequestAction.postJsonC(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	json: Json = jsonCompactEncoder
+): HttpResponse<String> =
+	sendC("POST", HttpResponse.BodyHandlers.ofString(), JSON_CONTENT_TYPE, jsonBodyPublisher(serializer, value, json))
 
-		/**
-		 * Called when request is valid.
-		 */
-		override fun invoke(item: HttpResponse<String>): HttpResponse<String> {
-			coroutine.resume(item)
-			return item
-		}
+/**
+ * Make coroutine POST request with json body.
+ *
+ * @param value Target value
+ * @return [HttpResponse] request result.
+ */
+suspend inline fun <reified T> HttpRequestAction.postJsonC(value: T): HttpResponse<String> =
+	postJsonC(serializer(), value)
 
-		/**
-		 * Called when request failed.
-		 *
-		 * @param throwable Error exception
-		 */
-		override fun exceptionally(throwable: Throwable, source: Any): HttpResponse<String>? {
-			coroutine.resume(makeResponseError(throwable, source as HttpRequest))
-			return super.exceptionally(throwable, source)
-		}
+/**
+ * Make coroutine PUT request with json body.
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param json Json configuration. Compact output by default
+ * @return [HttpResponse] request result.
+ *
+ * @see jsonBodyPublisher
+ */
+suspend fun <T> HttpRequestAction.putJsonC(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	json: Json = jsonCompactEncoder
+): HttpResponse<String> =
+	sendC("PUT", HttpResponse.BodyHandlers.ofString(), JSON_CONTENT_TYPE, jsonBodyPublisher(serializer, value, json))
 
-	})
-}
+/**
+ * Make coroutine PUT request with json body.
+ *
+ * @param value Target value
+ * @return [HttpResponse] request result.
+ */
+suspend inline fun <reified T> HttpRequestAction.putJsonC(value: T): HttpResponse<String> =
+	putJsonC(serializer(), value)
+
+/**
+ * Make coroutine GET request and decode body with negotiated format (json, CBOR, ProtoBuf, etc.).
+ *
+ * @param deserializer Target type deserializer
+ * @param negotiation Accepted formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ *
+ * @see HttpContentNegotiation
+ */
+suspend fun <T> HttpRequestAction.getTypedC(
+	deserializer: DeserializationStrategy<T>,
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<T> =
+	sendAsync("GET", negotiation.headers(false), null, negotiation.bodyHandler(deserializer)).awaitResult()
+
+/**
+ * Make coroutine GET request and decode body with negotiated format.
+ *
+ * @param negotiation Accepted formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend inline fun <reified T> HttpRequestAction.getTypedC(
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<T> = getTypedC(serializer<T>(), negotiation)
+
+/**
+ * Make coroutine POST request. Body is encoded with preferred format and response is decoded with negotiated format.
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param deserializer Response type deserializer
+ * @param negotiation Supported formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend fun <T, R> HttpRequestAction.postTypedC(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	deserializer: DeserializationStrategy<R>,
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<R> = sendAsync(
+	"POST",
+	negotiation.headers(true),
+	negotiation.bodyPublisher(serializer, value),
+	negotiation.bodyHandler(deserializer)
+).awaitResult()
+
+/**
+ * Make coroutine POST request with negotiated formats.
+ *
+ * @param value Target value
+ * @param negotiation Supported formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend inline fun <reified T, reified R> HttpRequestAction.postTypedC(
+	value: T,
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<R> = postTypedC(serializer(), value, serializer<R>(), negotiation)
+
+/**
+ * Make coroutine PUT request. Body is encoded with preferred format and response is decoded with negotiated format.
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param deserializer Response type deserializer
+ * @param negotiation Supported formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend fun <T, R> HttpRequestAction.putTypedC(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	deserializer: DeserializationStrategy<R>,
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<R> = sendAsync(
+	"PUT",
+	negotiation.headers(true),
+	negotiation.bodyPublisher(serializer, value),
+	negotiation.bodyHandler(deserializer)
+).awaitResult()
+
+/**
+ * Make coroutine PUT request with negotiated formats.
+ *
+ * @param value Target value
+ * @param negotiation Supported formats. Json by default
+ * @return [HttpResponse] request result with decoded body.
+ */
+suspend inline fun <reified T, reified R> HttpRequestAction.putTypedC(
+	value: T,
+	negotiation: HttpContentNegotiation = HttpContentNegotiation.JSON
+): HttpResponse<R> = putTypedC(serializer(), value, serializer<R>(), negotiation)
@@ -1,11 +1,31 @@
 package com.github.ushiosan23.networkutils.http
 
+import com.github.ushiosan23.networkutils.CoroutineElement
+import kotlinx.serialization.DeserializationStrategy
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.SerializationException
 import kotlinx.serialization.decodeFromString
 import kotlinx.serialization.json.Json
 import kotlinx.serialization.json.JsonElement
 import kotlinx.serialization.json.JsonObject
 import kotlinx.serialization.json.decodeFromJsonElement
+import kotlinx.serialization.json.decodeFromStream
+import kotlinx.serialization.serializer
+import java.io.IOException
+import java.io.InputStream
+import java.net.http.HttpHeaders
 import java.net.http.HttpResponse
+import java.nio.ByteBuffer
+import java.nio.charset.Charset
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.Flow
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Custom json encoder
@@ -17,63 +37,318 @@ val jsonEncoder = Json {
 	allowStructuredMapKeys = true
 }
 
+/* ---------------------------------------------------------
+ *
+ * Json errors
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Error thrown when response body cannot be decoded to the target type.
+ *
+ * @param message Error message
+ * @param cause Decode error
+ * @param statusCode Response status code
+ */
+open class ResponseDecodeException(
+	message: String,
+	cause: Throwable?,
+	val statusCode: Int
+) : IOException(message, cause)
+
+/**
+ * Error thrown when response body is not valid json or cannot be decoded to the target type.
+ *
+ * @param message Error message
+ * @param cause Parse error
+ * @param statusCode Response status code
+ */
+class JsonResponseException(
+	message: String,
+	cause: Throwable?,
+	statusCode: Int
+) : ResponseDecodeException(message, cause, statusCode)
+
+/* ---------------------------------------------------------
+ *
+ * Json response
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Json response wrapper. Body is parsed at most once and the result (or the error) is memoized.
+ *
+ * @param response Source response
+ * @param json Json configuration used to parse the body
+ */
+class JsonHttpResponse internal constructor(
+	val response: HttpResponse<String>,
+	val json: Json = jsonEncoder
+) : HttpResponse<String> by response {
+
+	/**
+	 * Parse result. [JsonElement] or [JsonResponseException]
+	 */
+	private val parsed: Any by lazy {
+		try {
+			json.parseToJsonElement(response.body() ?: "")
+		} catch (e: SerializationException) {
+			JsonResponseException("Response body is not valid json: ${e.message}", e, response.statusCode())
+		}
+	}
+
+	/**
+	 * Typed values by deserializer
+	 */
+	private val decoded = ConcurrentHashMap<DeserializationStrategy<*>, Any>()
+
+	/**
+	 * Check if response body is valid json
+	 */
+	val isValid: Boolean
+		get() = parsed is JsonElement
+
+	/**
+	 * Parsed json body
+	 *
+	 * @throws JsonResponseException if body is not valid json
+	 */
+	val element: JsonElement
+		get() = when (val result = parsed) {
+			is JsonElement -> result
+			else -> throw result as JsonResponseException
+		}
+
+	/**
+	 * Parsed json body as object
+	 *
+	 * @throws JsonResponseException if body is not a json object
+	 */
+	val jsonObject: JsonObject
+		get() = element as? JsonObject
+			?: throw JsonResponseException("Response body is not a json object.", null, statusCode())
+
+	/**
+	 * Decode body to specific type. Values are decoded from the parsed element and memoized by deserializer.
+	 *
+	 * @param deserializer Target type deserializer
+	 * @return [T] decoded value
+	 * @throws JsonResponseException if body cannot be decoded
+	 */
+	@Suppress("UNCHECKED_CAST")
+	@OptIn(ExperimentalSerializationApi::class)
+	fun <T> decode(deserializer: DeserializationStrategy<T>): T {
+		decoded[deserializer]?.let { return it as T }
+
+		val value = try {
+			json.decodeFromJsonElement(deserializer, element)
+		} catch (e: SerializationException) {
+			throw JsonResponseException(
+				"Response body cannot be decoded as ${deserializer.descriptor.serialName}: ${e.message}",
+				e,
+				statusCode()
+			)
+		}
+
+		if (value != null) decoded[deserializer] = value
+		return value
+	}
+
+	/**
+	 * Decode body to specific type
+	 *
+	 * @return [T] decoded value
+	 * @throws JsonResponseException if body cannot be decoded
+	 */
+	inline fun <reified T> decode(): T = decode(json.serializersModule.serializer())
+
+}
+
+/**
+ * Wrap response as json response. Body is parsed once on first access
+ *
+ * @param json Json configuration
+ * @return [JsonHttpResponse] response wrapper
+ */
+fun HttpResponse<String>.json(json: Json = jsonEncoder): JsonHttpResponse =
+	this as? JsonHttpResponse ?: JsonHttpResponse(this, json)
+
 /**
- * Check if request is valid json response
+ * Executor used to decode streamed json bodies, never client threads. Each decode blocks one thread
+ * waiting network data, so at most [CoroutineElement.IO_PARALLELISM] bodies are decoded at the same time
+ * and the rest wait in order. Separate from [CoroutineElement.ioDispatcher], so blocking requests running
+ * there cannot wait for their own decode. Idle threads are released.
+ */
+val jsonDecodeExecutor: Executor by lazy {
+	val counter = AtomicInteger()
+	val executor = ThreadPoolExecutor(
+		CoroutineElement.IO_PARALLELISM,
+		CoroutineElement.IO_PARALLELISM,
+		60,
+		TimeUnit.SECONDS,
+		LinkedBlockingQueue()
+	) { runnable ->
+		Thread(runnable, "json-decoder-${counter.incrementAndGet()}").apply { isDaemon = true }
+	}
+
+	executor.allowCoreThreadTimeOut(true)
+	executor
+}
+
+/**
+ * Body handler that parses response body as json element.
+ * Invalid bodies complete the request with [JsonResponseException].
+ *
+ * @param json Json configuration
+ * @return [HttpResponse.BodyHandler] json handler
+ * @see jsonBodyHandler
+ */
+fun jsonBodyHandler(json: Json = jsonEncoder): HttpResponse.BodyHandler<JsonElement> =
+	jsonBodyHandler(JsonElement.serializer(), json)
+
+/**
+ * Body handler that decodes typed value directly from response bytes, without creating the body string.
+ * Decoding runs on [executor] while data is received, invalid bodies complete the request with [JsonResponseException].
+ *
+ * @param deserializer Target type deserializer
+ * @param json Json configuration
+ * @param executor Decoding executor. Decoding blocks waiting network data, don't use client executor
+ * @return [HttpResponse.BodyHandler] json handler
+ */
+fun <T> jsonBodyHandler(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	executor: Executor = jsonDecodeExecutor
+): HttpResponse.BodyHandler<T> = HttpResponse.BodyHandler { info ->
+	val upstream = HttpResponse.BodySubscribers.ofInputStream()
+	val charset = charsetOf(info.headers())
+
+	DecodedBodySubscriber(upstream, upstream.body.thenApplyAsync({ stream ->
+		stream.use { decodeStream(json, deserializer, it, charset, info.statusCode()) }
+	}, executor))
+}
+
+/**
+ * Decode value from response stream
+ *
+ * @param json Json configuration
+ * @param deserializer Target type deserializer
+ * @param stream Body stream
+ * @param charset Body charset
+ * @param statusCode Response status code
+ * @return [T] decoded value
+ * @throws JsonResponseException if body cannot be decoded
+ */
+@OptIn(ExperimentalSerializationApi::class)
+private fun <T> decodeStream(
+	json: Json,
+	deserializer: DeserializationStrategy<T>,
+	stream: InputStream,
+	charset: Charset,
+	statusCode: Int
+): T = try {
+	if (charset == StandardCharsets.UTF_8) json.decodeFromStream(deserializer, stream)
+	else json.decodeFromString(deserializer, stream.reader(charset).readText())
+} catch (e: SerializationException) {
+	throw JsonResponseException("Response body cannot be decoded: ${e.message}", e, statusCode)
+}
+
+/**
+ * Body subscriber that receives raw data (stream, bytes, etc.) and completes with decoded value
+ *
+ * @param upstream Raw data subscriber
+ * @param body Decoded value
+ */
+internal class DecodedBodySubscriber<T>(
+	upstream: HttpResponse.BodySubscriber<*>,
+	private val body: CompletionStage<T>
+) : HttpResponse.BodySubscriber<T>, Flow.Subscriber<List<ByteBuffer>> by upstream {
+
+	/**
+	 * Get decoded value
+	 *
+	 * @return [CompletionStage] body result
+	 */
+	override fun getBody(): CompletionStage<T> = body
+
+}
+
+/**
+ * Get charset from content type header
+ *
+ * @param headers Response headers
+ * @return [Charset] body charset. UTF-8 by default
+ */
+internal fun charsetOf(headers: HttpHeaders): Charset {
+	val contentType = headers.firstValue("Content-Type").orElse("")
+	val parameter = contentType.split(';')
+		.map { it.trim() }
+		.firstOrNull { it.startsWith("charset=", ignoreCase = true) }
+		?: return StandardCharsets.UTF_8
+
+	return try {
+		Charset.forName(parameter.substringAfter('=').trim('"', ' '))
+	} catch (e: IllegalArgumentException) {
+		StandardCharsets.UTF_8
+	}
+}
+
+/* ---------------------------------------------------------
+ *
+ * Compatibility extensions
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Check if request is valid json response.
+ * String bodies are parsed to check them, use [json] to reuse the parsed value.
  */
 val HttpResponse<*>.isValidJson: Boolean
-	get() = try {
-		when (val body = body()) {
-			is JsonElement, JsonObject -> true
-			is String -> {
-				jsonEncoder.decodeFromString<JsonElement>(body)
-				true
-			}
-			else -> false
+	get() = if (this is JsonHttpResponse) isValid else when (val body = body()) {
+		is JsonElement -> true
+		is String -> try {
+			jsonEncoder.parseToJsonElement(body)
+			true
+		} catch (ignored: SerializationException) {
+			false
 		}
-	} catch (ignored: Exception) {
-		false
+		else -> false
 	}
 
 /**
- * Get json element from response object
+ * Get json element from response object. Body is parsed once.
  *
  * @return [JsonElement] if is valid json or `null` if not
  */
 fun HttpResponse<*>.getJson(): JsonObject? {
-	// Check if is valid json
-	if (!isValidJson) return null
+	if (this is JsonHttpResponse) return if (isValid) element as? JsonObject else null
 
 	// Decode element
 	return try {
 		when (val body = body()) {
-			is JsonElement -> body as JsonObject?
-			is JsonObject -> body
-			is String -> jsonEncoder.decodeFromString(body)
+			is JsonElement -> body as? JsonObject
+			is String -> jsonEncoder.parseToJsonElement(body) as? JsonObject
 			else -> null
 		}
-	} catch (ignored: Exception) {
+	} catch (ignored: SerializationException) {
 		null
 	}
 }
 
 /**
- * Get custom element from response object
+ * Get custom element from response object. Body is parsed once.
  *
  * @return [T] object or `null` if is not valid json object
  */
 inline fun <reified T> HttpResponse<*>.getJson(): T? {
-	// Check if is valid json
-	if (!isValidJson) return null
-
 	// Decode element
 	return try {
 		when (val body = body()) {
 			is JsonElement -> jsonEncoder.decodeFromJsonElement<T>(body)
-			is JsonObject -> jsonEncoder.decodeFromJsonElement<T>(body)
 			is String -> jsonEncoder.decodeFromString<T>(body)
 			else -> null
 		}
-	} catch (ignored: Exception) {
+	} catch (ignored: SerializationException) {
 		null
 	}
 }
@@ -0,0 +1,242 @@
+package com.github.ushiosan23.networkutils.http
+
+import kotlinx.serialization.BinaryFormat
+import kotlinx.serialization.DeserializationStrategy
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.SerialFormat
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.SerializationStrategy
+import kotlinx.serialization.StringFormat
+import kotlinx.serialization.cbor.Cbor
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.protobuf.ProtoBuf
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.util.concurrent.Executor
+
+/* ---------------------------------------------------------
+ *
+ * Serial format
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Serialization format bound to a media type. Json bodies are decoded from the response stream,
+ * binary bodies (CBOR, ProtoBuf) from the received bytes. No intermediate strings are created.
+ *
+ * @param mediaType Body media type (without parameters)
+ * @param format Serialization format. [Json], [BinaryFormat] or [StringFormat]
+ */
+class HttpSerialFormat(
+	mediaType: String,
+	val format: SerialFormat
+) {
+
+	/**
+	 * Normalized media type
+	 */
+	val mediaType: String = mediaType.substringBefore(';').trim().lowercase()
+
+	/**
+	 * Request body content type
+	 */
+	val contentType: String = if (format is StringFormat) "${this.mediaType}; charset=utf-8" else this.mediaType
+
+	init {
+		require(format is BinaryFormat || format is StringFormat) { "Unsupported serial format: $format" }
+	}
+
+	/**
+	 * Check if content type header matches this format
+	 *
+	 * @param contentType Response content type
+	 * @return `true` if media type is the same
+	 */
+	fun matches(contentType: String): Boolean =
+		contentType.substringBefore(';').trim().equals(mediaType, ignoreCase = true)
+
+	/**
+	 * Create request body
+	 *
+	 * @param serializer Value serializer
+	 * @param value Target value
+	 * @return [HttpRequest.BodyPublisher] encoded body
+	 */
+	fun <T> bodyPublisher(serializer: SerializationStrategy<T>, value: T): HttpRequest.BodyPublisher = when (format) {
+		is Json -> jsonBodyPublisher(serializer, value, format)
+		is BinaryFormat -> HttpRequest.BodyPublishers.ofByteArray(format.encodeToByteArray(serializer, value))
+		else -> HttpRequest.BodyPublishers.ofString((format as StringFormat).encodeToString(serializer, value))
+	}
+
+	/**
+	 * Create response handler. Decoding runs on [executor]
+	 *
+	 * @param deserializer Target type deserializer
+	 * @param executor Decoding executor
+	 * @return [HttpResponse.BodyHandler] decoding handler
+	 */
+	fun <T> bodyHandler(
+		deserializer: DeserializationStrategy<T>,
+		executor: Executor = jsonDecodeExecutor
+	): HttpResponse.BodyHandler<T> = when (format) {
+		is Json -> jsonBodyHandler(deserializer, format, executor)
+		else -> HttpResponse.BodyHandler { info ->
+			val upstream = HttpResponse.BodySubscribers.ofByteArray()
+
+			DecodedBodySubscriber(upstream, upstream.body.thenApplyAsync({ bytes ->
+				decodeBytes(deserializer, bytes, info.statusCode())
+			}, executor))
+		}
+	}
+
+	/**
+	 * Decode received bytes
+	 *
+	 * @param deserializer Target type deserializer
+	 * @param bytes Body bytes
+	 * @param statusCode Response status code
+	 * @return [T] decoded value
+	 */
+	private fun <T> decodeBytes(deserializer: DeserializationStrategy<T>, bytes: ByteArray, statusCode: Int): T = try {
+		when (format) {
+			is BinaryFormat -> format.decodeFromByteArray(deserializer, bytes)
+			else -> (format as StringFormat).decodeFromString(deserializer, String(bytes, Charsets.UTF_8))
+		}
+	} catch (e: SerializationException) {
+		throw ResponseDecodeException("Response body cannot be decoded as $mediaType: ${e.message}", e, statusCode)
+	}
+
+	override fun toString(): String = mediaType
+
+	companion object {
+
+		/**
+		 * Json format (`application/json`)
+		 */
+		@JvmField
+		val JSON = HttpSerialFormat("application/json", jsonCompactEncoder)
+
+		/**
+		 * CBOR format (`application/cbor`)
+		 */
+		@JvmField
+		@OptIn(ExperimentalSerializationApi::class)
+		val CBOR = HttpSerialFormat("application/cbor", Cbor { ignoreUnknownKeys = true })
+
+		/**
+		 * Protocol buffers format (`application/x-protobuf`)
+		 */
+		@JvmField
+		@OptIn(ExperimentalSerializationApi::class)
+		val PROTOBUF = HttpSerialFormat("application/x-protobuf", ProtoBuf)
+
+	}
+
+}
+
+/* ---------------------------------------------------------
+ *
+ * Content negotiation
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Content negotiation. Requests are encoded with the first format and ask for all formats
+ * in preference order with `Accept` header, responses are decoded by `Content-Type`.
+ *
+ * @param formats Supported formats in preference order
+ */
+class HttpContentNegotiation(vararg formats: HttpSerialFormat) {
+
+	/**
+	 * Supported formats in preference order
+	 */
+	val formats: List<HttpSerialFormat> = formats.toList()
+
+	/**
+	 * `Accept` header value
+	 */
+	val accept: String
+
+	init {
+		require(formats.isNotEmpty()) { "At least one format is required." }
+
+		accept = this.formats.mapIndexed { index, format ->
+			val quality = maxOf(1, 10 - index)
+			if (quality == 10) format.mediaType else "${format.mediaType};q=0.$quality"
+		}.joinToString(", ")
+	}
+
+	/**
+	 * Request body format
+	 */
+	val preferred: HttpSerialFormat
+		get() = formats[0]
+
+	/**
+	 * Get format for response content type
+	 *
+	 * @param contentType Response content type or `null` if response has no content type
+	 * @return [HttpSerialFormat] matching format or `null` if content type is not supported
+	 */
+	fun formatOf(contentType: String?): HttpSerialFormat? =
+		if (contentType == null) preferred else formats.firstOrNull { it.matches(contentType) }
+
+	/**
+	 * Request headers
+	 *
+	 * @param withBody Request has body
+	 * @return [Map] negotiation headers
+	 */
+	fun headers(withBody: Boolean): Map<String, String> =
+		if (withBody) mapOf("Accept" to accept, "Content-Type" to preferred.contentType)
+		else mapOf("Accept" to accept)
+
+	/**
+	 * Create request body with preferred format
+	 *
+	 * @param serializer Value serializer
+	 * @param value Target value
+	 * @return [HttpRequest.BodyPublisher] encoded body
+	 */
+	fun <T> bodyPublisher(serializer: SerializationStrategy<T>, value: T): HttpRequest.BodyPublisher =
+		preferred.bodyPublisher(serializer, value)
+
+	/**
+	 * Create response handler. Format is selected by response `Content-Type`,
+	 * unsupported types complete the request with [ResponseDecodeException].
+	 *
+	 * @param deserializer Target type deserializer
+	 * @param executor Decoding executor
+	 * @return [HttpResponse.BodyHandler] decoding handler
+	 */
+	fun <T> bodyHandler(
+		deserializer: DeserializationStrategy<T>,
+		executor: Executor = jsonDecodeExecutor
+	): HttpResponse.BodyHandler<T> = HttpResponse.BodyHandler { info ->
+		val contentType = info.headers().firstValue("Content-Type").orElse(null)
+		val format = formatOf(contentType)
+
+		format?.bodyHandler(deserializer, executor)?.apply(info)
+			?: HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.discarding()) {
+				throw ResponseDecodeException("Unsupported response content type: $contentType", null, info.statusCode())
+			}
+	}
+
+	companion object {
+
+		/**
+		 * Binary formats first, json as fallback
+		 */
+		@JvmField
+		val DEFAULT = HttpContentNegotiation(HttpSerialFormat.CBOR, HttpSerialFormat.PROTOBUF, HttpSerialFormat.JSON)
+
+		/**
+		 * Json only
+		 */
+		@JvmField
+		val JSON = HttpContentNegotiation(HttpSerialFormat.JSON)
+
+	}
+
+}
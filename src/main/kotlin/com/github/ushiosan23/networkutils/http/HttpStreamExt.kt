@@ -0,0 +1,133 @@
+package com.github.ushiosan23.networkutils.http
+
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.ByteBuffer
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionStage
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.Flow as JavaFlow
+
+/* ---------------------------------------------------------
+ *
+ * Internal classes
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Body subscriber that exposes response data as [Flow]. Response completes when headers are received,
+ * data is only requested from the connection when the flow collector is ready for it.
+ */
+private class FlowBodySubscriber : HttpResponse.BodySubscriber<Flow<ByteBuffer>> {
+
+	/**
+	 * Connection subscription
+	 */
+	private val subscription = CompletableDeferred<JavaFlow.Subscription>()
+
+	/**
+	 * Received data. At most one item is buffered because data is requested one by one
+	 */
+	private val channel = Channel<List<ByteBuffer>>(Channel.UNLIMITED)
+
+	/**
+	 * Flow collected flag. Response body can be consumed only once
+	 */
+	private val collected = AtomicBoolean()
+
+	/**
+	 * Body flow
+	 */
+	private val body: Flow<ByteBuffer> = flow {
+		check(collected.compareAndSet(false, true)) { "Response body can be collected only once." }
+
+		val upstream = subscription.await()
+		var finished = false
+
+		try {
+			while (true) {
+				upstream.request(1)
+
+				val result = channel.receiveCatching()
+				if (result.isClosed) {
+					finished = true
+					result.exceptionOrNull()?.let { throw it }
+					break
+				}
+
+				for (buffer in result.getOrThrow()) emit(buffer)
+			}
+		} finally {
+			// Collector cancelled or failed, abort transfer
+			if (!finished) upstream.cancel()
+		}
+	}
+
+	override fun getBody(): CompletionStage<Flow<ByteBuffer>> = CompletableFuture.completedFuture(body)
+
+	override fun onSubscribe(subscription: JavaFlow.Subscription) {
+		if (!this.subscription.complete(subscription)) subscription.cancel()
+	}
+
+	override fun onNext(item: List<ByteBuffer>) {
+		channel.trySend(item)
+	}
+
+	override fun onError(throwable: Throwable) {
+		channel.close(throwable)
+	}
+
+	override fun onComplete() {
+		channel.close()
+	}
+
+}
+
+/* ---------------------------------------------------------
+ *
+ * Body handlers
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Body handler that exposes response data as cold [Flow]. Collector demand drives network reads,
+ * so data can be proxied or transformed with constant memory. Stopping collection aborts the transfer.
+ * Body must be collected (or the flow cancelled) to release the connection.
+ *
+ * @return [HttpResponse.BodyHandler] flow handler
+ */
+fun byteFlowBodyHandler(): HttpResponse.BodyHandler<Flow<ByteBuffer>> =
+	HttpResponse.BodyHandler { FlowBodySubscriber() }
+
+/* ---------------------------------------------------------
+ *
+ * Extension methods
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Make coroutine request and return as soon as headers are received. Body is exposed as cold [Flow].
+ *
+ * @param method Request method
+ * @param contentType Body content type
+ * @param body Request body or `null` if request has no body
+ * @return [HttpResponse] response with body flow
+ *
+ * @see byteFlowBodyHandler
+ */
+suspend fun HttpRequestAction.sendStreamC(
+	method: String = "GET",
+	contentType: String? = null,
+	body: HttpRequest.BodyPublisher? = null
+): HttpResponse<Flow<ByteBuffer>> = sendC(method, byteFlowBodyHandler(), contentType, body)
+
+/**
+ * Make coroutine GET request and return as soon as headers are received. Body is exposed as cold [Flow].
+ *
+ * @return [HttpResponse] response with body flow
+ */
+suspend fun HttpRequestAction.getStreamC(): HttpResponse<Flow<ByteBuffer>> = sendStreamC("GET")
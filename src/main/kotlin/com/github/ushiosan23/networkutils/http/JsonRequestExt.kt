@@ -0,0 +1,205 @@
+package com.github.ushiosan23.networkutils.http
+
+import kotlinx.serialization.ExperimentalSerializationApi
+import kotlinx.serialization.SerializationStrategy
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.encodeToStream
+import kotlinx.serialization.serializer
+import java.io.OutputStream
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.ByteBuffer
+import java.util.concurrent.Flow
+
+/**
+ * Json request bodies content type
+ */
+const val JSON_CONTENT_TYPE = "application/json; charset=utf-8"
+
+/**
+ * Compact json encoder for request bodies. Same configuration as [jsonEncoder] without pretty print
+ */
+val jsonCompactEncoder = Json(jsonEncoder) {
+	prettyPrint = false
+}
+
+/* ---------------------------------------------------------
+ *
+ * Internal classes
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Output stream that stores data in fixed size chunks. Data is never copied to a contiguous array
+ */
+private class ChunkedOutputStream : OutputStream() {
+
+	/**
+	 * Filled chunks
+	 */
+	val chunks = ArrayList<ByteArray>()
+
+	/**
+	 * Current chunk
+	 */
+	private var current = ByteArray(CHUNK_SIZE)
+
+	/**
+	 * Bytes written in current chunk
+	 */
+	private var position = 0
+
+	/**
+	 * Total written bytes
+	 */
+	var size = 0L
+		private set
+
+	override fun write(b: Int) {
+		if (position == current.size) nextChunk()
+		current[position++] = b.toByte()
+		size++
+	}
+
+	override fun write(b: ByteArray, off: Int, len: Int) {
+		var offset = off
+		var remaining = len
+
+		while (remaining > 0) {
+			if (position == current.size) nextChunk()
+
+			val count = minOf(remaining, current.size - position)
+			System.arraycopy(b, offset, current, position, count)
+			position += count
+			offset += count
+			remaining -= count
+		}
+		size += len
+	}
+
+	override fun close() {
+		if (position > 0) chunks.add(current.copyOf(position))
+		position = 0
+	}
+
+	/**
+	 * Store current chunk and start a new one
+	 */
+	private fun nextChunk() {
+		chunks.add(current)
+		current = ByteArray(CHUNK_SIZE)
+		position = 0
+	}
+
+	companion object {
+
+		/**
+		 * Chunk size
+		 */
+		const val CHUNK_SIZE = 8 * 1024
+
+	}
+
+}
+
+/**
+ * Json body publisher over already encoded chunks. Each subscription replays the same chunks,
+ * so retry policies and redirects send the same body without encoding it again
+ *
+ * @param chunks Encoded chunks
+ * @param length Body size
+ */
+private class JsonBodyPublisher(
+	private val chunks: List<ByteArray>,
+	private val length: Long
+) : HttpRequest.BodyPublisher {
+
+	override fun contentLength(): Long = length
+
+	override fun subscribe(subscriber: Flow.Subscriber<in ByteBuffer>) =
+		HttpRequest.BodyPublishers.ofByteArrays(chunks).subscribe(subscriber)
+
+}
+
+/* ---------------------------------------------------------
+ *
+ * Body publishers
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Create json request body. Value is encoded directly into 8 KiB body chunks, without creating a json string
+ * or a contiguous copy. Encoding runs before the request starts, not on subscriber demand: the body is
+ * buffered and then published, so the request has a known `Content-Length` and can be replayed.
+ * Memory use is the encoded size of [value].
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param json Json configuration. Compact output by default
+ * @return [HttpRequest.BodyPublisher] body with known size
+ */
+@OptIn(ExperimentalSerializationApi::class)
+fun <T> jsonBodyPublisher(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	json: Json = jsonCompactEncoder
+): HttpRequest.BodyPublisher {
+	val output = ChunkedOutputStream()
+	output.use { json.encodeToStream(serializer, value, it) }
+
+	return JsonBodyPublisher(output.chunks, output.size)
+}
+
+/* ---------------------------------------------------------
+ *
+ * Extension methods
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Send POST http request with json body.
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param json Json configuration. Compact output by default
+ * @return [HttpResponse] request result.
+ */
+fun <T> HttpRequestAction.postJson(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	json: Json = jsonCompactEncoder
+): HttpResponse<String> =
+	send("POST", JSON_CONTENT_TYPE, jsonBodyPublisher(serializer, value, json), HttpResponse.BodyHandlers.ofString())
+
+/**
+ * Send POST http request with json body.
+ *
+ * @param value Target value
+ * @return [HttpResponse] request result.
+ */
+inline fun <reified T> HttpRequestAction.postJson(value: T): HttpResponse<String> =
+	postJson(serializer(), value)
+
+/**
+ * Send PUT http request with json body.
+ *
+ * @param serializer Value serializer
+ * @param value Target value
+ * @param json Json configuration. Compact output by default
+ * @return [HttpResponse] request result.
+ */
+fun <T> HttpRequestAction.putJson(
+	serializer: SerializationStrategy<T>,
+	value: T,
+	json: Json = jsonCompactEncoder
+): HttpResponse<String> =
+	send("PUT", JSON_CONTENT_TYPE, jsonBodyPublisher(serializer, value, json), HttpResponse.BodyHandlers.ofString())
+
+/**
+ * Send PUT http request with json body.
+ *
+ * @param value Target value
+ * @return [HttpResponse] request result.
+ */
+inline fun <reified T> HttpRequestAction.putJson(value: T): HttpResponse<String> =
+	putJson(serializer(), value)
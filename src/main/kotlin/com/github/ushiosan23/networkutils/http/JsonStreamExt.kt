@@ -0,0 +1,436 @@
+package com.github.ushiosan23.networkutils.http
+
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.jdk9.asPublisher
+import kotlinx.serialization.DeserializationStrategy
+import kotlinx.serialization.SerializationException
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.serializer
+import java.io.EOFException
+import java.io.InputStream
+import java.net.http.HttpResponse
+import java.util.Spliterator
+import java.util.Spliterators
+import java.util.stream.Stream
+import java.util.stream.StreamSupport
+import java.util.concurrent.Flow as JavaFlow
+
+/* ---------------------------------------------------------
+ *
+ * Stream format
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Layout of streamed json documents
+ */
+enum class JsonStreamFormat {
+
+	/**
+	 * Detect format from first token
+	 */
+	AUTO,
+
+	/**
+	 * Top level json array. `[{...}, {...}]`
+	 */
+	ARRAY,
+
+	/**
+	 * Newline delimited json (NDJSON). One document per line
+	 */
+	LINES
+
+}
+
+/* ---------------------------------------------------------
+ *
+ * Internal methods
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Split top level json elements from byte stream. Only structural characters are inspected,
+ * element bytes are copied to a reusable buffer so memory depends on the biggest element.
+ *
+ * @param stream UTF-8 body stream
+ * @param format Document layout
+ */
+private class JsonElementReader(
+	private val stream: InputStream,
+	private var format: JsonStreamFormat
+) {
+
+	/**
+	 * Read buffer
+	 */
+	private val input = ByteArray(8 * 1024)
+
+	/**
+	 * Read buffer position
+	 */
+	private var position = 0
+
+	/**
+	 * Read buffer limit
+	 */
+	private var limit = 0
+
+	/**
+	 * Current element bytes
+	 */
+	var element = ByteArray(1024)
+		private set
+
+	/**
+	 * Current element size
+	 */
+	var size = 0
+		private set
+
+	/**
+	 * Array layout started
+	 */
+	private var started = false
+
+	/**
+	 * Elements finished
+	 */
+	private var finished = false
+
+	/**
+	 * Read next element
+	 *
+	 * @return `false` if document finished
+	 */
+	fun next(): Boolean {
+		if (finished) return false
+		size = 0
+
+		var byte = skipWhitespace()
+		if (!started) {
+			started = true
+			if (format == JsonStreamFormat.AUTO)
+				format = if (byte == '['.code) JsonStreamFormat.ARRAY else JsonStreamFormat.LINES
+			if (format == JsonStreamFormat.ARRAY) {
+				if (byte != '['.code) throw SerializationException("Expected json array.")
+				byte = skipWhitespace()
+				if (byte == ']'.code) return finish()
+				return readElement(byte)
+			}
+		}
+
+		if (format == JsonStreamFormat.LINES) {
+			if (byte == -1) return finish()
+			return readElement(byte)
+		}
+
+		// Array separator
+		return when (byte) {
+			','.code -> readElement(skipWhitespace())
+			']'.code -> finish()
+			else -> throw SerializationException("Expected ',' or ']' in json array.")
+		}
+	}
+
+	/**
+	 * Mark document as finished. Array documents only accept whitespace after end
+	 *
+	 * @return Always `false`
+	 */
+	private fun finish(): Boolean {
+		if (format == JsonStreamFormat.ARRAY && skipWhitespace() != -1)
+			throw SerializationException("Unexpected data after json array.")
+
+		finished = true
+		return false
+	}
+
+	/**
+	 * Copy element bytes
+	 *
+	 * @param first First element byte
+	 * @return Always `true`
+	 */
+	private fun readElement(first: Int): Boolean {
+		if (first == -1) throw EOFException("Unexpected end of json document.")
+
+		var byte = first
+		var depth = 0
+		var inString = false
+		var escaped = false
+
+		while (true) {
+			if (inString) {
+				when {
+					escaped -> escaped = false
+					byte == '\\'.code -> escaped = true
+					byte == '"'.code -> inString = false
+				}
+			} else when (byte) {
+				'"'.code -> inString = true
+				'{'.code, '['.code -> depth++
+				'}'.code, ']'.code -> depth--
+			}
+
+			append(byte)
+			if (depth == 0 && !inString && isElementEnd(byte)) return true
+
+			byte = read()
+			if (byte == -1) {
+				if (depth == 0 && !inString && size > 0) return true
+				throw EOFException("Unexpected end of json document.")
+			}
+		}
+	}
+
+	/**
+	 * Check if element finished after current byte
+	 *
+	 * @param byte Current byte
+	 * @return `true` if element is complete
+	 */
+	private fun isElementEnd(byte: Int): Boolean {
+		if (byte == '}'.code || byte == ']'.code || byte == '"'.code) return true
+		// Scalars finish before separator
+		val next = peek()
+		return next == -1 || next == ','.code || next == ']'.code || next == '}'.code || isWhitespace(next)
+	}
+
+	/**
+	 * Skip whitespace bytes
+	 *
+	 * @return Next byte or `-1` at end
+	 */
+	private fun skipWhitespace(): Int {
+		var byte = read()
+		while (byte != -1 && isWhitespace(byte)) byte = read()
+		return byte
+	}
+
+	/**
+	 * Check json whitespace
+	 *
+	 * @param byte Target byte
+	 * @return `true` if byte is whitespace
+	 */
+	private fun isWhitespace(byte: Int): Boolean =
+		byte == ' '.code || byte == '\n'.code || byte == '\r'.code || byte == '\t'.code
+
+	/**
+	 * Append byte to current element
+	 *
+	 * @param byte Target byte
+	 */
+	private fun append(byte: Int) {
+		if (size == element.size) element = element.copyOf(size * 2)
+		element[size++] = byte.toByte()
+	}
+
+	/**
+	 * Read next byte
+	 *
+	 * @return Byte value or `-1` at end
+	 */
+	private fun read(): Int {
+		if (position == limit && !fill()) return -1
+		return input[position++].toInt() and 0xFF
+	}
+
+	/**
+	 * Get next byte without consuming it
+	 *
+	 * @return Byte value or `-1` at end
+	 */
+	private fun peek(): Int {
+		if (position == limit && !fill()) return -1
+		return input[position].toInt() and 0xFF
+	}
+
+	/**
+	 * Read more data from network
+	 *
+	 * @return `false` at end of stream
+	 */
+	private fun fill(): Boolean {
+		val count = stream.read(input)
+		if (count <= 0) return false
+
+		position = 0
+		limit = count
+		return true
+	}
+
+}
+
+/**
+ * Decode elements one by one from body stream. Data is read from network only when next element is requested.
+ *
+ * @param json Json configuration
+ * @param deserializer Element deserializer
+ * @param stream UTF-8 body stream
+ * @param format Document layout
+ * @param statusCode Response status code
+ * @return [Iterator] lazy elements
+ */
+private fun <T> decodeElements(
+	json: Json,
+	deserializer: DeserializationStrategy<T>,
+	stream: InputStream,
+	format: JsonStreamFormat,
+	statusCode: Int
+): Iterator<T> = object : Iterator<T> {
+
+	/**
+	 * Element splitter
+	 */
+	private val reader = JsonElementReader(stream, format)
+
+	/**
+	 * Next element is loaded in reader
+	 */
+	private var ready: Boolean? = null
+
+	override fun hasNext(): Boolean {
+		if (ready == null) ready = wrap { reader.next() }
+		return ready!!
+	}
+
+	override fun next(): T {
+		if (!hasNext()) throw NoSuchElementException()
+		ready = null
+
+		return wrap { json.decodeFromString(deserializer, String(reader.element, 0, reader.size, Charsets.UTF_8)) }
+	}
+
+	/**
+	 * Convert decoding errors
+	 *
+	 * @param block Decode action
+	 * @return [R] action result
+	 */
+	private inline fun <R> wrap(block: () -> R): R = try {
+		block()
+	} catch (e: SerializationException) {
+		throw JsonResponseException("Response element cannot be decoded: ${e.message}", e, statusCode)
+	}
+
+}
+
+/**
+ * Create lazy java stream from body stream. Closing the stream cancels the response.
+ *
+ * @param json Json configuration
+ * @param deserializer Element deserializer
+ * @param stream UTF-8 body stream
+ * @param format Document layout
+ * @param statusCode Response status code
+ * @return [Stream] lazy elements
+ */
+private fun <T> makeElementStream(
+	json: Json,
+	deserializer: DeserializationStrategy<T>,
+	stream: InputStream,
+	format: JsonStreamFormat,
+	statusCode: Int
+): Stream<T> = StreamSupport.stream({
+	Spliterators.spliteratorUnknownSize(
+		decodeElements(json, deserializer, stream, format, statusCode),
+		Spliterator.ORDERED
+	)
+}, Spliterator.ORDERED, false).onClose { stream.close() }
+
+/* ---------------------------------------------------------
+ *
+ * Body handlers
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Body handler that decodes json array or NDJSON elements while they are consumed.
+ * Network data is only read when the stream requests the next element, so memory stays bounded.
+ * Body must be UTF-8 (RFC 8259) and the stream must be closed to release the connection.
+ *
+ * @param deserializer Element deserializer
+ * @param json Json configuration
+ * @param format Document layout
+ * @return [HttpResponse.BodyHandler] stream handler
+ */
+fun <T> jsonStreamBodyHandler(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	format: JsonStreamFormat = JsonStreamFormat.AUTO
+): HttpResponse.BodyHandler<Stream<T>> = HttpResponse.BodyHandler { info ->
+	HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofInputStream()) { stream ->
+		makeElementStream(json, deserializer, stream, format, info.statusCode())
+	}
+}
+
+/* ---------------------------------------------------------
+ *
+ * Extension methods
+ *
+ * --------------------------------------------------------- */
+
+/**
+ * Make GET request and emit json array or NDJSON elements one by one.
+ * Request starts when flow is collected, slow collectors pause network reads.
+ *
+ * @param deserializer Element deserializer
+ * @param json Json configuration
+ * @param format Document layout
+ * @return [Flow] response elements
+ */
+fun <T> HttpRequestAction.getJsonFlow(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	format: JsonStreamFormat = JsonStreamFormat.AUTO
+): Flow<T> = flow {
+	val response = sendC("GET", HttpResponse.BodyHandlers.ofInputStream())
+
+	response.body().use { stream ->
+		val elements = decodeElements(json, deserializer, stream, format, response.statusCode())
+		while (elements.hasNext()) emit(elements.next())
+	}
+}.flowOn(Dispatchers.IO)
+
+/**
+ * Make GET request and emit json array or NDJSON elements one by one.
+ *
+ * @param format Document layout
+ * @return [Flow] response elements
+ */
+inline fun <reified T> HttpRequestAction.getJsonFlow(format: JsonStreamFormat = JsonStreamFormat.AUTO): Flow<T> =
+	getJsonFlow(serializer<T>(), jsonEncoder, format)
+
+/**
+ * Make GET request and decode json array or NDJSON elements as java stream.
+ * Stream must be closed to release the connection.
+ *
+ * @param deserializer Element deserializer
+ * @param json Json configuration
+ * @param format Document layout
+ * @return [Stream] response elements
+ */
+fun <T> HttpRequestAction.getJsonStream(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	format: JsonStreamFormat = JsonStreamFormat.AUTO
+): Stream<T> = send("GET", null, null, jsonStreamBodyHandler(deserializer, json, format)).body()
+
+/**
+ * Make GET request and publish json array or NDJSON elements. Elements are decoded on subscriber demand.
+ *
+ * @param deserializer Element deserializer
+ * @param json Json configuration
+ * @param format Document layout
+ * @return [JavaFlow.Publisher] response elements
+ */
+fun <T : Any> HttpRequestAction.getJsonPublisher(
+	deserializer: DeserializationStrategy<T>,
+	json: Json = jsonEncoder,
+	format: JsonStreamFormat = JsonStreamFormat.AUTO
+): JavaFlow.Publisher<T> = getJsonFlow(deserializer, json, format).asPublisher()
@@ -0,0 +1,159 @@
+package http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local http server started before each test and stopped after it.
+ * Use it as a JUnit rule and register handlers in the test setup.
+ */
+public final class TestServer extends ExternalResource {
+
+	/**
+	 * Handler threads or {@code null} to handle exchanges one by one
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Running server
+	 */
+	private HttpServer server;
+
+	/**
+	 * Create server that handles exchanges one by one
+	 */
+	public TestServer() {
+		this(null);
+	}
+
+	/**
+	 * Create server
+	 *
+	 * @param executor Handler threads or {@code null} to handle exchanges one by one
+	 */
+	private TestServer(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Create server that handles exchanges concurrently (slow or blocked handlers)
+	 *
+	 * @return {@link TestServer} new server
+	 */
+	public static TestServer concurrent() {
+		return new TestServer(Executors.newCachedThreadPool());
+	}
+
+	@Override
+	protected void before() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		if (executor != null) server.setExecutor(executor);
+		server.start();
+	}
+
+	@Override
+	protected void after() {
+		server.stop(0);
+		if (executor != null) executor.shutdownNow();
+	}
+
+	/**
+	 * Register path handler
+	 *
+	 * @param path    Path prefix
+	 * @param handler Exchange handler
+	 * @return Current server
+	 */
+	public TestServer handle(String path, HttpHandler handler) {
+		server.createContext(path, handler);
+		return this;
+	}
+
+	/**
+	 * Get server port
+	 *
+	 * @return Local port
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Get server host key ({@code host:port})
+	 *
+	 * @return Host key
+	 */
+	public String getHostKey() {
+		return "127.0.0.1:" + getPort();
+	}
+
+	/**
+	 * Get server url without path
+	 *
+	 * @return Base url
+	 */
+	public String getUrl() {
+		return "http://" + getHostKey();
+	}
+
+	/**
+	 * Get url of a path
+	 *
+	 * @param path Target path
+	 * @return Path url
+	 */
+	public String getUrl(String path) {
+		return getUrl() + path;
+	}
+
+	/**
+	 * Send response with body
+	 *
+	 * @param exchange Target exchange
+	 * @param status   Response status
+	 * @param body     Response body
+	 * @throws IOException Error if response cannot be sent
+	 */
+	public static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+	/**
+	 * Send response with text body
+	 *
+	 * @param exchange Target exchange
+	 * @param status   Response status
+	 * @param body     UTF-8 response body
+	 * @throws IOException Error if response cannot be sent
+	 */
+	public static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Send response without body. Request body is consumed
+	 *
+	 * @param exchange Target exchange
+	 * @param status   Response status
+	 * @throws IOException Error if response cannot be sent
+	 */
+	public static void respond(HttpExchange exchange, int status) throws IOException {
+		exchange.getRequestBody().readAllBytes();
+		respond(exchange, status, new byte[0]);
+	}
+
+}
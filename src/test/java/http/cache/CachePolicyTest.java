@@ -0,0 +1,159 @@
+package http.cache;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.cache.CachePolicy;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachePolicyTest {
+
+	@Rule
+	public final TestServer server = TestServer.concurrent();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final AtomicBoolean failing = new AtomicBoolean();
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/fresh", exchange -> {
+			exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+			respond(exchange, 200, "fresh-" + hits.incrementAndGet());
+		});
+		server.handle("/etag", exchange -> {
+			hits.incrementAndGet();
+			exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+			exchange.getResponseHeaders().add("ETag", "\"v1\"");
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				respond(exchange, 304);
+			} else {
+				respond(exchange, 200, "tagged");
+			}
+		});
+		server.handle("/vary", exchange -> {
+			hits.incrementAndGet();
+			exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+			exchange.getResponseHeaders().add("Vary", "Accept-Language");
+			respond(exchange, 200, "lang-" + exchange.getRequestHeaders().getFirst("Accept-Language"));
+		});
+		server.handle("/stale", exchange -> {
+			exchange.getResponseHeaders().add("Cache-Control", "max-age=0, stale-while-revalidate=60");
+			respond(exchange, 200, "stale-" + hits.incrementAndGet());
+		});
+		server.handle("/error", exchange -> {
+			hits.incrementAndGet();
+			exchange.getResponseHeaders().add("Cache-Control", "max-age=0, stale-if-error=60");
+			if (failing.get()) respond(exchange, 500, "error");
+			else respond(exchange, 200, "stored");
+		});
+		url = server.getUrl();
+	}
+
+	@Test
+	public void freshResponseIsServedFromCache() throws Exception {
+		CachePolicy policy = CachePolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/fresh").addPolicy(policy);
+
+		assertEquals("fresh-1", action.get().body());
+		HttpResponse<String> cached = action.get();
+		assertEquals("fresh-1", cached.body());
+		assertTrue(cached.headers().firstValue("Age").isPresent());
+		assertEquals(1, hits.get());
+		assertEquals(1, policy.getHits());
+
+		// Unsafe requests invalidate stored response
+		action.post(Map.of("data", "value"));
+		assertEquals("fresh-3", action.get().body());
+	}
+
+	@Test
+	public void storedResponseIsRevalidated() throws Exception {
+		CachePolicy policy = CachePolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/etag").addPolicy(policy);
+
+		assertEquals("tagged", action.get().body());
+		HttpResponse<String> revalidated = action.get();
+
+		assertEquals(200, revalidated.statusCode());
+		assertEquals("tagged", revalidated.body());
+		assertEquals(2, hits.get());
+		assertEquals(1, policy.getNotModified());
+	}
+
+	@Test
+	public void varyHeadersSelectStoredResponse() throws Exception {
+		CachePolicy policy = CachePolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/vary").addPolicy(policy);
+
+		action.setRequestHeaders(new HashMap<>(Map.of("Accept-Language", "en")));
+		assertEquals("lang-en", action.get().body());
+		assertEquals("lang-en", action.get().body());
+		assertEquals(1, hits.get());
+
+		action.setRequestHeaders(new HashMap<>(Map.of("Accept-Language", "es")));
+		assertEquals("lang-es", action.get().body());
+		assertEquals(2, hits.get());
+	}
+
+	@Test
+	public void staleResponseIsServedWhileRevalidating() throws Exception {
+		CachePolicy policy = CachePolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/stale").addPolicy(policy);
+
+		assertEquals("stale-1", action.get().body());
+		assertEquals("stale-1", action.get().body());
+		Thread.sleep(300);
+		assertEquals(2, hits.get());
+		assertEquals("stale-2", action.get().body());
+		assertEquals(2, policy.getStaleHits());
+	}
+
+	@Test
+	public void staleResponseIsServedOnServerError() throws Exception {
+		CachePolicy policy = CachePolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/error").addPolicy(policy);
+
+		assertEquals("stored", action.get().body());
+		failing.set(true);
+
+		HttpResponse<String> response = action.get();
+		assertEquals(200, response.statusCode());
+		assertEquals("stored", response.body());
+		assertEquals(2, hits.get());
+		assertEquals(1, policy.getRevalidations());
+	}
+
+	@Test
+	public void diskTierSurvivesNewInstance() throws Exception {
+		Path directory = Files.createTempDirectory("cache-test");
+		HttpRequestAction first = new HttpRequestAction(url + "/fresh")
+			.addPolicy(CachePolicy.newBuilder().withDisk(directory, 1024 * 1024).build());
+		assertEquals("fresh-1", first.get().body());
+
+		CachePolicy policy = CachePolicy.newBuilder().withDisk(directory, 1024 * 1024).build();
+		HttpRequestAction second = new HttpRequestAction(url + "/fresh").addPolicy(policy);
+
+		assertEquals("fresh-1", second.get().body());
+		assertEquals(1, hits.get());
+		assertTrue(policy.getDiskSize() > 0);
+		policy.clear();
+		assertEquals(0, policy.getDiskSize());
+	}
+
+}
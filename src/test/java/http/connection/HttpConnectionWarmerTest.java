@@ -0,0 +1,131 @@
+package http.connection;
+
+import com.github.ushiosan23.networkutils.http.HttpClientProfile;
+import com.github.ushiosan23.networkutils.http.HttpConnectionStats;
+import com.github.ushiosan23.networkutils.http.HttpConnectionWarmer;
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HttpConnectionWarmerTest {
+
+	@Rule
+	public final TestServer server = TestServer.concurrent();
+
+	private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+
+	private final CountDownLatch streamed = new CountDownLatch(1);
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/", exchange -> {
+			connections.add(exchange.getRemoteAddress().getPort());
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException ignored) {
+			}
+			inFlight.decrementAndGet();
+			TestServer.respond(exchange, 200, "ok");
+		});
+		server.handle("/stream", exchange -> {
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(new byte[1024]);
+				output.flush();
+				// Body stays open until the test ends it
+				streamed.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException | IOException ignored) {
+			}
+		});
+		url = server.getUrl();
+	}
+
+	@Test
+	public void warmedConnectionsAreReused() throws Exception {
+		HttpClientProfile profile = HttpClientProfile.newBuilder().build();
+		HttpConnectionWarmer warmer = HttpConnectionWarmer.newBuilder()
+			.withProfile(profile)
+			.withTarget(url + "/health")
+			.withConnections(3)
+			.build();
+
+		assertEquals(3, (int) warmer.start().join());
+		assertEquals(3, connections.size());
+
+		HttpRequestAction action = new HttpRequestAction(url + "/data").setProfile(profile);
+		for (int i = 0; i < 3; i++) assertEquals("ok", action.get().body());
+		assertEquals(3, connections.size());
+
+		HttpConnectionStats stats = profile.getConnectionStats();
+		assertEquals(3, stats.getWarmed());
+		assertEquals(3, stats.getOpened());
+		assertEquals(3, stats.getReused());
+		assertEquals(3, stats.getIdle());
+		assertEquals(0.5, stats.getReuseRate(), 0.001);
+	}
+
+	@Test
+	public void connectionsPerHostAreLimited() {
+		HttpClientProfile profile = HttpClientProfile.newBuilder().withMaxConnectionsPerHost(2).build();
+		HttpRequestAction action = new HttpRequestAction(url + "/data").setProfile(profile);
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+
+		for (int i = 0; i < 6; i++) futures.add(action.getAsync());
+		for (CompletableFuture<HttpResponse<String>> future : futures) assertEquals("ok", future.join().body());
+
+		assertEquals(2, maxInFlight.get());
+		assertTrue(connections.size() <= 2);
+		assertEquals(4, profile.getConnectionStats().getWaited());
+		assertEquals(0, profile.getConnectionStats().getActive());
+	}
+
+	@Test
+	public void streamedBodyHoldsConnection() throws Exception {
+		HttpClientProfile profile = HttpClientProfile.newBuilder().withMaxConnectionsPerHost(1).build();
+		HttpResponse<InputStream> stream = new HttpRequestAction(url + "/stream")
+			.setProfile(profile)
+			.send("GET", (String) null, null, HttpResponse.BodyHandlers.ofInputStream());
+		CompletableFuture<HttpResponse<String>> next = new HttpRequestAction(url + "/data")
+			.setProfile(profile)
+			.getAsync();
+
+		// Headers arrived but the body is still being received
+		Thread.sleep(300);
+		assertFalse(next.isDone());
+		assertEquals(1, profile.getConnectionStats().getActive());
+		assertEquals(1, profile.getConnectionStats().getQueued());
+
+		stream.body().close();
+		streamed.countDown();
+		assertEquals("ok", next.get(5, TimeUnit.SECONDS).body());
+		assertEquals(2, profile.getConnectionStats().getOpened());
+		assertEquals(0, profile.getConnectionStats().getReused());
+	}
+
+}
@@ -0,0 +1,119 @@
+package http.get;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.compression.ContentCodecs;
+import com.github.ushiosan23.networkutils.http.compression.HttpCompression;
+import com.sun.net.httpserver.HttpExchange;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpActionCompressionTest {
+
+	private static final String PAYLOAD = "{\"value\":\"compressed json payload\"},".repeat(20000);
+
+	@Rule
+	public final TestServer server = new TestServer();
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/data", this::handleData);
+		server.handle("/echo", this::handleEcho);
+		server.handle("/empty", this::handleEmpty);
+		url = server.getUrl();
+	}
+
+	private void handleData(HttpExchange exchange) throws IOException {
+		String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		String coding = accept == null ? "identity" : accept.split(",")[0].trim();
+		byte[] body = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+
+		if (!coding.equals("identity")) exchange.getResponseHeaders().add("Content-Encoding", coding);
+		exchange.sendResponseHeaders(200, 0);
+
+		try (OutputStream output = wrap(coding, exchange.getResponseBody())) {
+			output.write(body);
+		}
+	}
+
+	private void handleEcho(HttpExchange exchange) throws IOException {
+		String coding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+		InputStream input = "gzip".equals(coding) ?
+			new GZIPInputStream(exchange.getRequestBody()) :
+			exchange.getRequestBody();
+		TestServer.respond(exchange, 200, coding + ":" + new String(input.readAllBytes(), StandardCharsets.UTF_8));
+	}
+
+	private void handleEmpty(HttpExchange exchange) throws IOException {
+		// Headers of the selected representation, without body
+		exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+		TestServer.respond(exchange, exchange.getRequestURI().getQuery() == null ? 304 : 200);
+	}
+
+	private static OutputStream wrap(String coding, OutputStream output) throws IOException {
+		switch (coding) {
+			case "gzip":
+				return new GZIPOutputStream(output);
+			case "deflate":
+				return new DeflaterOutputStream(output);
+			default:
+				return output;
+		}
+	}
+
+	@Test
+	public void gzipResponse() throws Exception {
+		HttpRequestAction action = new HttpRequestAction(url + "/data")
+			.setCompression(HttpCompression.newBuilder().build());
+		HttpResponse<String> response = action.get();
+
+		assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+		assertEquals(PAYLOAD, response.body());
+	}
+
+	@Test
+	public void deflateResponse() throws Exception {
+		HttpRequestAction action = new HttpRequestAction(url + "/data")
+			.setCompression(HttpCompression.newBuilder().clearCodecs().withCodec(ContentCodecs.DEFLATE).build());
+
+		assertEquals(PAYLOAD, action.get().body());
+	}
+
+	@Test
+	public void gzipRequestBody() throws Exception {
+		String value = "x".repeat(64 * 1024);
+		HttpRequestAction action = new HttpRequestAction(url + "/echo")
+			.setCompression(HttpCompression.newBuilder().withRequestEncoding(ContentCodecs.GZIP).build());
+
+		assertEquals("gzip:value=" + value, action.post(Collections.singletonMap("value", value)).body());
+		assertEquals("null:value=small", action.post(Collections.singletonMap("value", "small")).body());
+	}
+
+	@Test
+	public void emptyEncodedResponse() throws Exception {
+		HttpCompression compression = HttpCompression.newBuilder().build();
+		HttpResponse<String> notModified = new HttpRequestAction(url + "/empty").setCompression(compression).get();
+		HttpResponse<String> empty = new HttpRequestAction(url + "/empty?status=200").setCompression(compression).get();
+
+		assertEquals(304, notModified.statusCode());
+		assertEquals("", notModified.body());
+		assertEquals(200, empty.statusCode());
+		assertEquals("", empty.body());
+	}
+
+}
@@ -0,0 +1,87 @@
+package http.get;
+
+import com.github.ushiosan23.networkutils.http.HttpCallbackExecutor;
+import com.github.ushiosan23.networkutils.http.HttpClientProfile;
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.response.HttpAction;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpCallbackExecutorTest {
+
+	@Rule
+	public final TestServer server = new TestServer();
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/data", exchange -> TestServer.respond(exchange, 200, "ok"));
+		url = server.getUrl();
+	}
+
+	@Test
+	public void callbacksRunOnProfileExecutor() throws Exception {
+		HttpClientProfile profile = HttpClientProfile.newBuilder()
+			.withCallbackExecutor(HttpCallbackExecutor.newFixed("callbacks", 2, 16))
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/data").setProfile(profile);
+		CompletableFuture<String> thread = new CompletableFuture<>();
+
+		action.getAsync(new HttpAction<>() {
+			@Override
+			public HttpResponse<String> invoke(HttpResponse<String> item) {
+				thread.complete(Thread.currentThread().getName());
+				return item;
+			}
+		});
+
+		assertTrue(thread.get(5, TimeUnit.SECONDS).startsWith("callbacks-"));
+		assertEquals("ok", action.getAsync().thenApply(HttpResponse::body).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void saturatedExecutorRejectsCallbacks() throws Exception {
+		HttpCallbackExecutor executor = HttpCallbackExecutor.newFixed("slow", 1, 1);
+		HttpRequestAction action = new HttpRequestAction(url + "/data").setCallbackExecutor(executor);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		// Slow handler holds the only slot
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ignored) {
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		try {
+			action.getAsync().get(5, TimeUnit.SECONDS);
+			fail("Callback was not rejected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+		// Blocking requests do not use the callback executor
+		assertEquals("ok", action.get().body());
+
+		release.countDown();
+		assertEquals(1, executor.getRejected());
+		assertEquals(1, executor.getSubmitted());
+	}
+
+}
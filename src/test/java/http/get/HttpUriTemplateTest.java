@@ -0,0 +1,78 @@
+package http.get;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.HttpUriTemplate;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpUriTemplateTest {
+
+	private final Map<String, Object> values = new HashMap<>();
+
+	public HttpUriTemplateTest() {
+		Map<String, String> keys = new LinkedHashMap<>();
+		keys.put("semi", ";");
+		keys.put("dot", ".");
+		keys.put("comma", ",");
+
+		values.put("var", "value");
+		values.put("hello", "Hello World!");
+		values.put("path", "/foo/bar");
+		values.put("empty", "");
+		values.put("x", 1024);
+		values.put("y", 768);
+		values.put("list", Arrays.asList("red", "green", "blue"));
+		values.put("keys", keys);
+	}
+
+	private String expand(String template) {
+		return HttpUriTemplate.compile(template).expand(values);
+	}
+
+	@Test
+	public void rfcExamples() {
+		assertEquals("value", expand("{var}"));
+		assertEquals("Hello%20World%21", expand("{hello}"));
+		assertEquals("/foo/bar/here", expand("{+path}/here"));
+		assertEquals("#/foo/bar", expand("{#path}"));
+		assertEquals("map?1024,768", expand("map?{x,y}"));
+		assertEquals("X.value", expand("X{.var}"));
+		assertEquals("/value/1024/here", expand("{/var,x}/here"));
+		assertEquals(";x=1024;y=768;empty", expand("{;x,y,empty}"));
+		assertEquals("?x=1024&y=768&empty=", expand("{?x,y,empty}"));
+		assertEquals("?fixed=yes&x=1024", expand("?fixed=yes{&x}"));
+		assertEquals("val", expand("{var:3}"));
+		assertEquals("red,green,blue", expand("{list}"));
+		assertEquals("/red/green/blue", expand("{/list*}"));
+		assertEquals("?list=red,green,blue", expand("{?list}"));
+		assertEquals("?list=red&list=green&list=blue", expand("{?list*}"));
+		assertEquals("semi,%3B,dot,.,comma,%2C", expand("{keys}"));
+		assertEquals("?semi=%3B&dot=.&comma=%2C", expand("{?keys*}"));
+		assertEquals("", expand("{undefined}"));
+	}
+
+	@Test
+	public void requestQuery() {
+		HttpUriTemplate template = HttpUriTemplate.compile("http://127.0.0.1/users/{id}{?page}");
+		Map<String, Object> query = new HashMap<>();
+		query.put("id", 42);
+		query.put("page", 3);
+
+		HttpRequestAction action = new HttpRequestAction(template, query);
+		assertEquals(URI.create("http://127.0.0.1/users/42?page=3"), action.getUri());
+
+		Map<String, String> data = new LinkedHashMap<>();
+		data.put("name", "Brian O'Connor");
+		data.put("ids", "1,2");
+		action.setQuery(data);
+		assertEquals(URI.create("http://127.0.0.1/users/42?page=3&name=Brian+O%27Connor&ids=1%2C2"), action.getUri());
+	}
+
+}
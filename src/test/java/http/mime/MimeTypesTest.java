@@ -0,0 +1,45 @@
+package http.mime;
+
+import com.github.ushiosan23.networkutils.http.mime.MimeTypeResolver;
+import com.github.ushiosan23.networkutils.http.mime.MimeTypes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class MimeTypesTest {
+
+	private final MimeTypeResolver resolver = MimeTypes.newBuilder()
+		.withExtension("custom", "application/x-custom")
+		.withProbeContentType(false)
+		.build();
+
+	@Test
+	public void extensionTable() throws IOException {
+		Path file = Files.createTempFile("mime", ".JSON");
+		Path custom = Files.createTempFile("mime", ".custom");
+
+		assertEquals("application/json", MimeTypes.resolveOrDefault(resolver, file));
+		assertEquals("application/x-custom", MimeTypes.resolveOrDefault(resolver, custom));
+	}
+
+	@Test
+	public void magicSniffing() throws IOException {
+		Path file = Files.createTempFile("mime", ".bin");
+		Files.write(file, new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0});
+
+		assertEquals("image/png", MimeTypes.resolveOrDefault(resolver, file));
+	}
+
+	@Test
+	public void unknownFallback() throws IOException {
+		Path file = Files.createTempFile("mime", ".unknown-type");
+		Files.write(file, new byte[]{1, 2, 3});
+
+		assertEquals(MimeTypes.DEFAULT_MIME_TYPE, MimeTypes.resolveOrDefault(resolver, file));
+	}
+
+}
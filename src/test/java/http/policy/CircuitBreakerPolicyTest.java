@@ -0,0 +1,139 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.CircuitBreakerEvent;
+import com.github.ushiosan23.networkutils.http.policy.CircuitBreakerOpenException;
+import com.github.ushiosan23.networkutils.http.policy.CircuitBreakerPolicy;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerPolicyTest {
+
+	@Rule
+	public final TestServer server = new TestServer();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final AtomicInteger status = new AtomicInteger(500);
+
+	private String url;
+
+	private String key;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/", exchange -> {
+			hits.incrementAndGet();
+			TestServer.respond(exchange, status.get());
+		});
+		key = server.getHostKey();
+		url = server.getUrl();
+	}
+
+	@Test
+	public void opensProbesAndCloses() throws Exception {
+		List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+		CircuitBreakerPolicy policy = CircuitBreakerPolicy.newBuilder()
+			.withFailureRate(0.5f, 4)
+			.withOpenDuration(Duration.ofMillis(200), 2)
+			.build();
+		policy.addListener(events::add);
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+
+		for (int i = 0; i < 4; i++) assertEquals(500, action.get().statusCode());
+		assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState(key));
+
+		// Open circuit fails without reaching the server
+		try {
+			action.get();
+			fail("Circuit is open");
+		} catch (CircuitBreakerOpenException e) {
+			assertEquals(key, e.getKey());
+		}
+		assertEquals(4, hits.get());
+		assertEquals(1, policy.getRejected());
+
+		Thread.sleep(250);
+		status.set(200);
+		assertEquals(200, action.get().statusCode());
+		assertEquals(CircuitBreakerPolicy.State.HALF_OPEN, policy.getState(key));
+		assertEquals(200, action.get().statusCode());
+		assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState(key));
+
+		assertEquals(3, events.size());
+		assertEquals(CircuitBreakerPolicy.State.OPEN, events.get(0).getTo());
+		assertEquals(1f, events.get(0).getFailureRate(), 0f);
+		assertEquals(CircuitBreakerPolicy.State.HALF_OPEN, events.get(1).getTo());
+		assertEquals(CircuitBreakerPolicy.State.CLOSED, events.get(2).getTo());
+	}
+
+	@Test
+	public void failedProbeOpensAgain() throws Exception {
+		CircuitBreakerPolicy policy = CircuitBreakerPolicy.newBuilder()
+			.withFailureRate(0.5f, 2)
+			.withOpenDuration(Duration.ofMillis(100), 1)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+
+		action.get();
+		action.get();
+		Thread.sleep(150);
+		assertEquals(500, action.get().statusCode());
+		assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState(key));
+	}
+
+	@Test
+	public void closedCircuitStartsWithEmptyWindow() throws Exception {
+		List<CircuitBreakerEvent> events = new CopyOnWriteArrayList<>();
+		CircuitBreakerPolicy policy = CircuitBreakerPolicy.newBuilder()
+			.withFailureRate(0.5f, 4)
+			.withOpenDuration(Duration.ofMillis(300), 1)
+			.withWindow(Duration.ofSeconds(1), 10)
+			.build();
+		policy.addListener(events::add);
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+
+		for (int i = 0; i < 4; i++) action.get();
+		Thread.sleep(350);
+		status.set(200);
+		action.get();
+		assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState(key));
+
+		// Failures recorded before the circuit opened are still inside the window, in other buckets
+		for (int i = 0; i < 4; i++) assertEquals(200, action.get().statusCode());
+		assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState(key));
+		assertEquals(3, events.size());
+	}
+
+	@Test
+	public void asyncRejectionIsReported() throws Exception {
+		CircuitBreakerPolicy policy = CircuitBreakerPolicy.newBuilder()
+			.withFailureRate(1f, 1)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+		action.get();
+
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		try {
+			action.getAsync().join();
+		} catch (CompletionException e) {
+			error.set(e.getCause());
+		}
+		assertTrue(error.get() instanceof CircuitBreakerOpenException);
+		assertEquals(1, hits.get());
+	}
+
+}
@@ -0,0 +1,177 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.download.DownloadElement;
+import com.github.ushiosan23.networkutils.download.DownloadStatusEvent;
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.ConcurrencyLimitException;
+import com.github.ushiosan23.networkutils.http.policy.ConcurrencyLimitPolicy;
+import http.TestServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrencyLimitPolicyTest {
+
+	@Rule
+	public final TestServer server = TestServer.concurrent();
+
+	private final CountDownLatch gate = new CountDownLatch(1);
+
+	private final AtomicLong delay = new AtomicLong();
+
+	private String url;
+
+	private String key;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/gate", exchange -> {
+			try {
+				gate.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException ignored) {
+			}
+			respond(exchange, 200, "data");
+		});
+		server.handle("/delay", exchange -> {
+			try {
+				Thread.sleep(delay.get());
+			} catch (InterruptedException ignored) {
+			}
+			respond(exchange, 200, "data");
+		});
+		server.handle("/unavailable", exchange -> respond(exchange, 503, "data"));
+		key = server.getHostKey();
+		url = server.getUrl();
+	}
+
+	@Test
+	public void excessRequestsQueueOrAreRejected() throws Exception {
+		ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.newBuilder()
+			.withAlgorithm(ConcurrencyLimitPolicy.Algorithm.AIMD)
+			.withLimit(2, 1, 2)
+			.withQueue(Duration.ofSeconds(5), 1)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/gate").addPolicy(policy);
+
+		List<CompletableFuture<HttpResponse<String>>> accepted = new ArrayList<>();
+		for (int i = 0; i < 3; i++) accepted.add(action.getAsync());
+		CompletableFuture<HttpResponse<String>> rejected = action.getAsync();
+
+		assertEquals(2, policy.getInFlight(key));
+		assertEquals(1, policy.getQueued(key));
+		try {
+			rejected.join();
+			fail("Queue is full");
+		} catch (CompletionException e) {
+			assertTrue(e.getCause() instanceof ConcurrencyLimitException);
+		}
+
+		gate.countDown();
+		for (CompletableFuture<HttpResponse<String>> future : accepted) assertEquals(200, future.join().statusCode());
+		assertEquals(1, policy.getRejected());
+		assertEquals(0, policy.getInFlight(key));
+	}
+
+	@Test
+	public void queuedRequestExpires() throws Exception {
+		ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.newBuilder()
+			.withLimit(1, 1, 1)
+			.withQueue(Duration.ofMillis(100), 10)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/gate").addPolicy(policy);
+
+		CompletableFuture<HttpResponse<String>> first = action.getAsync();
+		try {
+			action.get();
+			fail("Wait is bounded");
+		} catch (ConcurrencyLimitException e) {
+			assertEquals(key, e.getKey());
+		}
+		assertEquals(0, policy.getQueued(key));
+
+		gate.countDown();
+		assertEquals(200, first.join().statusCode());
+	}
+
+	@Test
+	public void dropsReduceLimit() throws Exception {
+		ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.newBuilder()
+			.withAlgorithm(ConcurrencyLimitPolicy.Algorithm.AIMD)
+			.withLimit(10, 2, 10)
+			.withBackoff(0.5)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/unavailable").addPolicy(policy);
+
+		for (int i = 0; i < 3; i++) assertEquals(503, action.get().statusCode());
+		assertEquals(2, policy.getLimit(key));
+		assertEquals(3, policy.getDropped());
+	}
+
+	@Test
+	public void gradientFollowsLatency() throws Exception {
+		ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.newBuilder()
+			.withLimit(4, 1, 16)
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/delay").addPolicy(policy);
+
+		delay.set(20);
+		for (int i = 0; i < 20; i++) burst(action, policy.getLimit(key));
+		int grown = policy.getLimit(key);
+		assertTrue("Limit did not grow: " + grown, grown > 4);
+
+		delay.set(500);
+		for (int i = 0; i < 3; i++) burst(action, policy.getLimit(key));
+		int reduced = policy.getLimit(key);
+		assertTrue(String.format("Limit did not shrink: %d -> %d", grown, reduced), reduced < grown);
+	}
+
+	private static void burst(HttpRequestAction action, int count) {
+		List<CompletableFuture<HttpResponse<String>>> futures = new ArrayList<>();
+		for (int i = 0; i < count; i++) futures.add(action.getAsync());
+		for (CompletableFuture<HttpResponse<String>> future : futures) future.join();
+	}
+
+	@Test
+	public void downloadSharesLimit() throws Exception {
+		ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.newBuilder()
+			.withLimit(1, 1, 1)
+			.withQueue(Duration.ZERO, 0)
+			.build();
+		DownloadElement download = new DownloadElement(url + "/delay");
+		download.setLimiter(policy);
+
+		ConcurrencyLimitPolicy.Permit permit = policy.acquire(key);
+		try {
+			download.download();
+			fail("Host has no free slot");
+		} catch (ConcurrencyLimitException ignored) {
+		}
+		permit.ignore();
+
+		DownloadStatusEvent status = download.download();
+		assertTrue(status.isFinished());
+		assertEquals(0, policy.getInFlight(key));
+	}
+
+	@After
+	public void openGate() {
+		gate.countDown();
+	}
+
+}
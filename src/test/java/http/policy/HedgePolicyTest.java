@@ -0,0 +1,118 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.HedgePolicy;
+import com.sun.net.httpserver.HttpExchange;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HedgePolicyTest {
+
+	@Rule
+	public final TestServer server = TestServer.concurrent();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final CountDownLatch aborted = new CountDownLatch(1);
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		// First request is slow and streams its body, next ones answer immediately
+		server.handle("/slow-first", exchange -> {
+			if (hits.incrementAndGet() == 1) slow(exchange);
+			else respond(exchange, 200, "fast");
+		});
+		server.handle("/fast", exchange -> {
+			hits.incrementAndGet();
+			respond(exchange, 200, "fast");
+		});
+		server.handle("/mirror", exchange -> respond(exchange, 200, "mirror"));
+		url = server.getUrl();
+	}
+
+	private void slow(HttpExchange exchange) throws IOException {
+		exchange.sendResponseHeaders(200, 0);
+
+		try (OutputStream output = exchange.getResponseBody()) {
+			for (int i = 0; i < 100; i++) {
+				output.write(new byte[1024]);
+				output.flush();
+				Thread.sleep(50);
+			}
+		} catch (IOException e) {
+			aborted.countDown();
+		} catch (InterruptedException ignored) {
+		}
+	}
+
+	@Test
+	public void hedgeWinsAndLoserIsAborted() throws Exception {
+		HedgePolicy policy = HedgePolicy.newBuilder().withDelay(Duration.ofMillis(100)).build();
+		long start = System.nanoTime();
+		HttpResponse<String> response = new HttpRequestAction(url + "/slow-first").addPolicy(policy).get();
+
+		assertEquals("fast", response.body());
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+		assertEquals(1, policy.getHedges());
+		assertEquals(1, policy.getWins());
+		assertTrue("Slow request was not aborted", aborted.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void hedgeCanTargetAnotherEndpoint() throws Exception {
+		HedgePolicy policy = HedgePolicy.newBuilder()
+			.withDelay(Duration.ofMillis(100))
+			.withTarget(uri -> URI.create(url + "/mirror"))
+			.build();
+		HttpResponse<String> response = new HttpRequestAction(url + "/slow-first").addPolicy(policy).get();
+
+		assertEquals("mirror", response.body());
+	}
+
+	@Test
+	public void budgetLimitsHedges() throws Exception {
+		HedgePolicy policy = HedgePolicy.newBuilder()
+			.withDelay(Duration.ofMillis(100))
+			.withBudget(0, 0)
+			.build();
+		HttpResponse<String> response = new HttpRequestAction(url + "/slow-first").addPolicy(policy).get();
+
+		assertEquals(200, response.statusCode());
+		assertEquals(0, policy.getHedges());
+		assertEquals(1, policy.getDenied());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	public void percentileDelayFollowsLatency() throws Exception {
+		HedgePolicy policy = HedgePolicy.newBuilder()
+			.withPercentileDelay(0.9, Duration.ofSeconds(5), Duration.ofMillis(1))
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url + "/fast").addPolicy(policy);
+
+		assertEquals(Duration.ofSeconds(5), policy.getHedgeDelay());
+		for (int i = 0; i < 64; i++) action.get();
+
+		assertTrue(policy.getHedgeDelay().compareTo(Duration.ofSeconds(1)) < 0);
+		// Budget: 5% of requests plus burst
+		assertTrue(policy.getHedges() <= 10 + 64 / 20);
+	}
+
+}
@@ -0,0 +1,123 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.HttpCall;
+import com.github.ushiosan23.networkutils.http.policy.HttpPolicy;
+import com.github.ushiosan23.networkutils.http.policy.LoadBalancerPolicy;
+import com.sun.net.httpserver.HttpHandler;
+import http.TestServer;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadBalancerPolicyTest {
+
+	@Rule
+	public final TestServer fast = TestServer.concurrent();
+
+	@Rule
+	public final TestServer slow = TestServer.concurrent();
+
+	private final AtomicInteger fastHits = new AtomicInteger();
+
+	private final AtomicInteger slowHits = new AtomicInteger();
+
+	private final AtomicInteger slowStatus = new AtomicInteger(200);
+
+	@Before
+	public void registerHandlers() {
+		fast.handle("/", echo(fastHits, 0, new AtomicInteger(200)));
+		slow.handle("/", echo(slowHits, 100, slowStatus));
+	}
+
+	@Test
+	public void fasterEndpointReceivesMoreRequests() throws Exception {
+		// Short decay forgets the connection setup of the first request
+		LoadBalancerPolicy policy = policy().withDecay(Duration.ofMillis(500)).build();
+		HttpRequestAction action = new HttpRequestAction("http://backend/api/items?page=2").addPolicy(policy);
+
+		for (int i = 0; i < 40; i++) assertEquals("/api/items?page=2", action.get().body());
+
+		assertEquals(40, fastHits.get() + slowHits.get());
+		assertTrue("Slow endpoint received " + slowHits.get() + " requests", slowHits.get() < 10);
+		assertTrue(policy.getEndpoints().get(1).getLatency().toMillis() >= 100);
+	}
+
+	@Test
+	public void failingEndpointIsEjected() throws Exception {
+		slowStatus.set(500);
+		LoadBalancerPolicy policy = policy()
+			.withEjection(2, Duration.ofSeconds(30), Duration.ofMinutes(1))
+			.build();
+		HttpRequestAction action = new HttpRequestAction("http://backend/").addPolicy(policy);
+
+		// Unknown endpoints look cheap, so the failing one is chosen soon
+		for (int i = 0; i < 200 && policy.getEjections() == 0; i++) action.get();
+		assertEquals(1, policy.getEjections());
+		assertTrue(policy.getEndpoints().get(1).isEjected());
+
+		int before = slowHits.get();
+		for (int i = 0; i < 20; i++) assertEquals(200, action.get().statusCode());
+		assertEquals(before, slowHits.get());
+	}
+
+	@Test
+	public void otherHostsAreNotBalanced() throws Exception {
+		LoadBalancerPolicy policy = policy().build();
+		String direct = fast.getUrl("/direct");
+
+		assertEquals("/direct", new HttpRequestAction(direct).addPolicy(policy).get().body());
+		assertEquals(0, policy.getEndpoints().get(0).getRequests() + policy.getEndpoints().get(1).getRequests());
+	}
+
+	@Test
+	public void failedDispatchDoesNotLeakOutstanding() {
+		LoadBalancerPolicy policy = policy().build();
+		HttpPolicy.Chain broken = new HttpPolicy.Chain() {
+			@NotNull
+			@Override
+			public <T> CompletableFuture<HttpResponse<T>> proceed(@NotNull HttpCall<T> call) {
+				throw new IllegalStateException("Dispatch failed");
+			}
+		};
+		HttpCall<Void> call = HttpCall.of(
+			HttpRequest.newBuilder(URI.create("http://backend/")).build(),
+			HttpResponse.BodyHandlers.discarding()
+		);
+
+		for (int i = 0; i < 4; i++) assertTrue(policy.intercept(call, broken).isCompletedExceptionally());
+		assertEquals(0, policy.getEndpoints().get(0).getOutstanding());
+		assertEquals(0, policy.getEndpoints().get(1).getOutstanding());
+	}
+
+	private LoadBalancerPolicy.Builder policy() {
+		return LoadBalancerPolicy.newBuilder()
+			.withService("backend")
+			.withEndpoint(fast.getUrl())
+			.withEndpoint(slow.getUrl());
+	}
+
+	private static HttpHandler echo(AtomicInteger hits, long delay, AtomicInteger status) {
+		return exchange -> {
+			hits.incrementAndGet();
+			try {
+				// Errors are fast
+				if (status.get() == 200) Thread.sleep(delay);
+			} catch (InterruptedException ignored) {
+			}
+			TestServer.respond(exchange, status.get(), exchange.getRequestURI().toString());
+		};
+	}
+
+}
@@ -0,0 +1,136 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.RateLimitException;
+import com.github.ushiosan23.networkutils.http.policy.RateLimitPolicy;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RateLimitPolicyTest {
+
+	@Rule
+	public final TestServer server = new TestServer();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/", exchange -> {
+			hits.incrementAndGet();
+			respond(exchange, 200);
+		});
+		// First request exceeds the quota
+		server.handle("/retry-after", exchange -> {
+			if (hits.incrementAndGet() == 1) exchange.getResponseHeaders().add("Retry-After", "1");
+			respond(exchange, hits.get() == 1 ? 429 : 200);
+		});
+		server.handle("/quota", exchange -> {
+			if (hits.incrementAndGet() == 1) exchange.getResponseHeaders().add("RateLimit", "limit=10, remaining=0, reset=1");
+			respond(exchange, 200);
+		});
+		url = server.getUrl();
+	}
+
+	@Test
+	public void requestsArePaced() throws Exception {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder().withRate(10, Duration.ofSeconds(1), 1).build();
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+		long start = System.nanoTime();
+
+		for (int i = 0; i < 5; i++) action.get();
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(380));
+		assertEquals(4, policy.getDelayed());
+	}
+
+	@Test
+	public void burstIsAllowedAndExcessIsRejected() throws Exception {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder()
+			.withRate(1, Duration.ofSeconds(10), 3)
+			.withMaxWait(Duration.ofSeconds(1))
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+
+		for (int i = 0; i < 3; i++) action.get();
+		try {
+			action.get();
+			fail("Burst is exhausted");
+		} catch (RateLimitException e) {
+			assertEquals(1, policy.getRejected());
+		}
+		assertEquals(0, policy.getDelayed());
+		assertEquals(3, hits.get());
+	}
+
+	@Test
+	public void routesHaveTheirOwnLimits() throws Exception {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder()
+			.withRoute("/search.*", 1, Duration.ofSeconds(10), 1)
+			.withMaxWait(Duration.ZERO)
+			.build();
+
+		new HttpRequestAction(url + "/search?q=1").addPolicy(policy).get();
+		try {
+			new HttpRequestAction(url + "/search/next").addPolicy(policy).get();
+			fail("Route limit is exhausted");
+		} catch (RateLimitException e) {
+			assertTrue(e.getKey().endsWith("/search.*"));
+		}
+		// Paths without route and host limit are not limited
+		for (int i = 0; i < 3; i++) new HttpRequestAction(url + "/other").addPolicy(policy).get();
+	}
+
+	@Test
+	public void asyncRequestsAreScheduled() {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder().withRate(2, Duration.ofSeconds(1), 1).build();
+		HttpRequestAction action = new HttpRequestAction(url).addPolicy(policy);
+		long start = System.nanoTime();
+
+		action.getAsync().join();
+		CompletableFuture<HttpResponse<String>> delayed = action.getAsync();
+		assertFalse(delayed.isDone());
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+
+		assertEquals(200, delayed.join().statusCode());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(450));
+	}
+
+	@Test
+	public void retryAfterPausesHost() throws Exception {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder().withRate(100, Duration.ofSeconds(1), 10).build();
+		HttpRequestAction action = new HttpRequestAction(url + "/retry-after").addPolicy(policy);
+
+		assertEquals(429, action.get().statusCode());
+		long start = System.nanoTime();
+		assertEquals(200, action.get().statusCode());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+		assertEquals(1, policy.getAdapted());
+	}
+
+	@Test
+	public void exhaustedQuotaPausesHost() throws Exception {
+		RateLimitPolicy policy = RateLimitPolicy.newBuilder().withRate(100, Duration.ofSeconds(1), 10).build();
+		HttpRequestAction action = new HttpRequestAction(url + "/quota").addPolicy(policy);
+
+		action.get();
+		long start = System.nanoTime();
+		action.get();
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900));
+	}
+
+}
@@ -0,0 +1,154 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.RetryPolicy;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetryPolicyTest {
+
+	@Rule
+	public final TestServer server = new TestServer();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		// Fails twice, then succeeds
+		server.handle("/flaky", exchange -> {
+			if (hits.incrementAndGet() <= 2) respond(exchange, 503, "unavailable");
+			else respond(exchange, 200, "ok");
+		});
+		server.handle("/quota", exchange -> {
+			if (hits.incrementAndGet() == 1) {
+				exchange.getResponseHeaders().add("Retry-After", "1");
+				respond(exchange, 429, "slow down");
+			} else {
+				respond(exchange, 200, "ok");
+			}
+		});
+		url = server.getUrl();
+	}
+
+	private static RetryPolicy.Builder fastRetries() {
+		return RetryPolicy.newBuilder()
+			.withMaxAttempts(3)
+			.withBackoff(Duration.ofMillis(10), Duration.ofMillis(50));
+	}
+
+	@Test
+	public void transientStatusIsRetried() throws Exception {
+		RetryPolicy policy = fastRetries().build();
+		HttpResponse<String> response = new HttpRequestAction(url + "/flaky").addPolicy(policy).get();
+
+		assertEquals(200, response.statusCode());
+		assertEquals("ok", response.body());
+		assertEquals(3, hits.get());
+		assertEquals(2, policy.getRetries());
+		assertEquals(1, policy.getRecovered());
+	}
+
+	@Test
+	public void headRequestsUsePolicies() throws Exception {
+		server.handle("/head", exchange -> respond(exchange, hits.incrementAndGet() % 3 == 0 ? 200 : 503));
+		RetryPolicy policy = fastRetries().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/head").addPolicy(policy);
+
+		assertEquals(200, action.head(true).statusCode());
+		assertEquals(3, hits.get());
+		assertTrue(action.getHeaders().firstValue("Date").isPresent());
+		assertEquals(6, hits.get());
+		assertEquals(4, policy.getRetries());
+	}
+
+	@Test
+	public void lastResponseIsReturnedWhenAttemptsAreExhausted() throws Exception {
+		RetryPolicy policy = fastRetries().withMaxAttempts(2).build();
+		HttpResponse<String> response = new HttpRequestAction(url + "/flaky").addPolicy(policy).get();
+
+		assertEquals(503, response.statusCode());
+		assertEquals("unavailable", response.body());
+		assertEquals(2, hits.get());
+	}
+
+	@Test
+	public void retryAfterIsHonored() throws Exception {
+		RetryPolicy policy = fastRetries().build();
+		long start = System.nanoTime();
+		HttpResponse<String> response = new HttpRequestAction(url + "/quota").addPolicy(policy).getAsync()
+			.get(5, TimeUnit.SECONDS);
+
+		assertEquals(200, response.statusCode());
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(950));
+	}
+
+	@Test
+	public void postIsNotRetriedByDefault() throws Exception {
+		RetryPolicy policy = fastRetries().build();
+		HttpResponse<String> response = new HttpRequestAction(url + "/flaky")
+			.addPolicy(policy)
+			.post(Collections.singletonMap("key", "value"));
+
+		assertEquals(503, response.statusCode());
+		assertEquals(1, hits.get());
+
+		RetryPolicy all = fastRetries().withRetryNonIdempotent(true).build();
+		response = new HttpRequestAction(url + "/flaky")
+			.addPolicy(all)
+			.post(Collections.singletonMap("key", "value"));
+		assertEquals(200, response.statusCode());
+	}
+
+	@Test
+	public void connectionErrorsAreRetriedAndReported() throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = socket.getLocalPort();
+		}
+		RetryPolicy policy = fastRetries().build();
+
+		try {
+			new HttpRequestAction("http://127.0.0.1:" + port + "/").addPolicy(policy).get();
+			fail("Connection did not fail");
+		} catch (ConnectException e) {
+			assertEquals(2, policy.getRetries());
+			assertEquals(1, policy.getExhausted());
+		}
+	}
+
+	@Test
+	public void cancelStopsRetries() throws Exception {
+		RetryPolicy policy = RetryPolicy.newBuilder()
+			.withMaxAttempts(5)
+			.withBackoff(Duration.ofMillis(500), Duration.ofSeconds(1))
+			.build();
+		CompletableFuture<HttpResponse<String>> future = new HttpRequestAction(url + "/flaky")
+			.addPolicy(policy)
+			.getAsync();
+
+		Thread.sleep(200);
+		future.cancel(true);
+		Thread.sleep(1500);
+		assertEquals(1, hits.get());
+	}
+
+}
@@ -0,0 +1,125 @@
+package http.policy;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.policy.SingleFlightPolicy;
+import http.TestServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static http.TestServer.respond;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightPolicyTest {
+
+	@Rule
+	public final TestServer server = TestServer.concurrent();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final CountDownLatch aborted = new CountDownLatch(1);
+
+	private String url;
+
+	@Before
+	public void registerHandlers() {
+		server.handle("/config", exchange -> {
+			hits.incrementAndGet();
+			try {
+				Thread.sleep(300);
+			} catch (InterruptedException ignored) {
+			}
+			respond(exchange, 200, "config");
+		});
+		server.handle("/stream", exchange -> {
+			hits.incrementAndGet();
+			exchange.sendResponseHeaders(200, 0);
+			try (OutputStream output = exchange.getResponseBody()) {
+				for (int i = 0; i < 100; i++) {
+					output.write(new byte[1024]);
+					output.flush();
+					Thread.sleep(50);
+				}
+			} catch (IOException e) {
+				aborted.countDown();
+			} catch (InterruptedException ignored) {
+			}
+		});
+		url = server.getUrl();
+	}
+
+	@Test
+	public void concurrentRequestsShareExchange() throws Exception {
+		SingleFlightPolicy policy = SingleFlightPolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/config").addPolicy(policy);
+		ExecutorService executor = Executors.newFixedThreadPool(20);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<HttpResponse<String>>> futures = new ArrayList<>();
+
+		for (int i = 0; i < 20; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return action.get();
+			}));
+		}
+		start.countDown();
+
+		for (Future<HttpResponse<String>> future : futures) assertEquals("config", future.get(5, TimeUnit.SECONDS).body());
+		executor.shutdown();
+		assertEquals(1, hits.get());
+		assertEquals(1, policy.getExchanges());
+		assertEquals(19, policy.getCoalesced());
+
+		// Finished exchanges are not reused
+		assertEquals("config", action.get().body());
+		assertEquals(2, hits.get());
+	}
+
+	@Test
+	public void callersReceiveTheirOwnBodyType() {
+		SingleFlightPolicy policy = SingleFlightPolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/config").addPolicy(policy);
+
+		CompletableFuture<HttpResponse<String>> text = action.getAsync();
+		CompletableFuture<HttpResponse<byte[]>> bytes = action.sendAsync("GET", (String) null, null, HttpResponse.BodyHandlers.ofByteArray());
+
+		assertEquals("config", text.join().body());
+		assertArrayEquals("config".getBytes(StandardCharsets.UTF_8), bytes.join().body());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	public void exchangeIsAbortedWhenEveryCallerCancels() throws Exception {
+		SingleFlightPolicy policy = SingleFlightPolicy.newBuilder().build();
+		HttpRequestAction action = new HttpRequestAction(url + "/stream").addPolicy(policy);
+
+		CompletableFuture<HttpResponse<String>> first = action.getAsync();
+		CompletableFuture<HttpResponse<String>> second = action.getAsync();
+		Thread.sleep(200);
+
+		first.cancel(true);
+		Thread.sleep(200);
+		assertEquals(1, aborted.getCount());
+
+		second.cancel(true);
+		assertTrue("Shared exchange was not aborted", aborted.await(5, TimeUnit.SECONDS));
+		assertEquals(1, hits.get());
+	}
+
+}
@@ -0,0 +1,199 @@
+package http.post;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpActionPostExpectContinue {
+
+	private static final int BODY_SIZE = 1024 * 1024;
+
+	private ServerSocket serverSocket;
+
+	/**
+	 * Start single connection server.
+	 *
+	 * @param accept Send {@code 100 Continue} or reject request with 413
+	 * @return Bytes received after request headers
+	 */
+	private CompletableFuture<Long> startServer(boolean accept) throws IOException {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		CompletableFuture<Long> received = new CompletableFuture<>();
+
+		Thread thread = new Thread(() -> {
+			try (Socket socket = serverSocket.accept()) {
+				socket.setSoTimeout(2000);
+				InputStream input = socket.getInputStream();
+				OutputStream output = socket.getOutputStream();
+				String headers = readHeaders(input);
+				assertTrue(headers.toLowerCase().contains("expect: 100-continue"));
+
+				if (accept) {
+					output.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+					output.flush();
+					long count = readBytes(input, BODY_SIZE);
+					output.write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+					output.flush();
+					received.complete(count);
+				} else {
+					output.write(
+						"HTTP/1.1 413 Payload Too Large\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII)
+					);
+					output.flush();
+					// Any byte received here is wasted upload
+					received.complete(readBytes(input, Long.MAX_VALUE));
+				}
+			} catch (Throwable e) {
+				received.completeExceptionally(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+
+		return received;
+	}
+
+	/**
+	 * Start server that answers the expectation too late.
+	 *
+	 * @param delay Time before {@code 100 Continue} is sent
+	 * @return Received requests and bytes received after request headers
+	 */
+	private CompletableFuture<long[]> startSilentServer(long delay) throws IOException {
+		serverSocket = new ServerSocket(0, 2, InetAddress.getLoopbackAddress());
+		CompletableFuture<long[]> received = new CompletableFuture<>();
+
+		Thread thread = new Thread(() -> {
+			long requests = 0;
+			long count;
+
+			try (Socket socket = serverSocket.accept()) {
+				socket.setSoTimeout(1000);
+				InputStream input = socket.getInputStream();
+				OutputStream output = socket.getOutputStream();
+				readHeaders(input);
+				requests++;
+
+				Thread.sleep(delay);
+				output.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+				output.flush();
+				count = readBytes(input, BODY_SIZE);
+
+				// Request must not be sent again
+				serverSocket.setSoTimeout(500);
+				try (Socket ignored = serverSocket.accept()) {
+					requests++;
+				} catch (SocketTimeoutException ignored) {
+				}
+				received.complete(new long[]{requests, count});
+			} catch (Throwable e) {
+				received.completeExceptionally(e);
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+
+		return received;
+	}
+
+	private static String readHeaders(InputStream input) throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		int matched = 0;
+		int read;
+
+		while (matched < 4 && (read = input.read()) != -1) {
+			stream.write(read);
+			matched = (read == '\r' || read == '\n') ? matched + 1 : 0;
+		}
+
+		return stream.toString(StandardCharsets.US_ASCII);
+	}
+
+	private static long readBytes(InputStream input, long max) throws IOException {
+		byte[] buffer = new byte[8192];
+		long count = 0;
+
+		try {
+			int read;
+			while (count < max && (read = input.read(buffer)) != -1)
+				count += read;
+		} catch (SocketTimeoutException ignored) {
+		}
+
+		return count;
+	}
+
+	private Map<String, String> largeForm() {
+		Map<String, String> data = new HashMap<>();
+		data.put("payload", "x".repeat(BODY_SIZE - "payload=".length()));
+		return data;
+	}
+
+	@Test
+	public void rejectedUploadSendsNoBody() throws Exception {
+		CompletableFuture<Long> received = startServer(false);
+		HttpRequestAction action = new HttpRequestAction("http://127.0.0.1:" + serverSocket.getLocalPort() + "/upload")
+			.setExpectContinue(Duration.ofSeconds(5));
+
+		HttpResponse<String> response = action.post(largeForm());
+
+		assertEquals(413, response.statusCode());
+		assertEquals(0L, (long) received.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void acceptedUploadSendsBody() throws Exception {
+		CompletableFuture<Long> received = startServer(true);
+		HttpRequestAction action = new HttpRequestAction("http://127.0.0.1:" + serverSocket.getLocalPort() + "/upload")
+			.setExpectContinue(Duration.ofSeconds(5));
+
+		HttpResponse<String> response = action.post(largeForm());
+
+		assertEquals(200, response.statusCode());
+		assertEquals(BODY_SIZE, (long) received.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void unansweredExpectationFailsWithoutSendingTwice() throws Exception {
+		CompletableFuture<long[]> received = startSilentServer(600);
+		HttpRequestAction action = new HttpRequestAction("http://127.0.0.1:" + serverSocket.getLocalPort() + "/upload")
+			.setExpectContinue(Duration.ofMillis(200));
+
+		try {
+			action.post(largeForm());
+			fail("Expectation was not answered");
+		} catch (HttpTimeoutException ignored) {
+		}
+
+		long[] result = received.get(10, TimeUnit.SECONDS);
+		assertEquals(1L, result[0]);
+		assertEquals(0L, result[1]);
+	}
+
+	@After
+	public void close() throws IOException {
+		if (serverSocket != null) serverSocket.close();
+	}
+
+}
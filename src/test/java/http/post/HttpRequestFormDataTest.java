@@ -0,0 +1,90 @@
+package http.post;
+
+import com.github.ushiosan23.networkutils.http.HttpRequestFormData;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.assertEquals;
+
+public class HttpRequestFormDataTest {
+
+	private static String readBody(HttpRequest.BodyPublisher publisher) {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		publisher.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			@Override
+			public void onNext(ByteBuffer item) {
+				byte[] bytes = new byte[item.remaining()];
+				item.get(bytes);
+				stream.writeBytes(bytes);
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				throw new AssertionError(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+			}
+		});
+
+		return stream.toString(StandardCharsets.US_ASCII);
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void typedValues() {
+		HttpRequestFormData formData = HttpRequestFormData.newBuilder()
+			.add("name", "Brian O'Connor & ñandú 😁")
+			.add("id", -489182994L)
+			.add("min", Long.MIN_VALUE)
+			.add("enabled", true)
+			.add("ratio", 0.5)
+			.addAll("tag", Arrays.asList("a b", 2, false))
+			.build();
+		String expected = "name=" + encode("Brian O'Connor & ñandú 😁") +
+			"&id=-489182994&min=" + Long.MIN_VALUE +
+			"&enabled=true&ratio=0.5&tag=a+b&tag=2&tag=false";
+
+		assertEquals(expected, readBody(formData.getBodyPublisher()));
+		assertEquals(expected.length(), formData.getContentLength());
+	}
+
+	@Test
+	public void largeFormIsChunkedAndReusable() {
+		Map<String, Object> data = new LinkedHashMap<>();
+		StringBuilder expected = new StringBuilder();
+
+		for (int i = 0; i < 5000; i++) {
+			String value = "value ñ/" + i;
+			data.put("key" + i, value);
+			if (expected.length() != 0) expected.append('&');
+			expected.append("key").append(i).append('=').append(encode(value));
+		}
+
+		HttpRequest.BodyPublisher publisher = HttpRequestFormData.of(data).getBodyPublisher();
+
+		assertEquals(expected.length(), publisher.contentLength());
+		assertEquals(expected.toString(), readBody(publisher));
+		assertEquals(expected.toString(), readBody(publisher));
+	}
+
+}
@@ -0,0 +1,132 @@
+package http.tls;
+
+import com.github.ushiosan23.networkutils.http.HttpClientProfile;
+import com.github.ushiosan23.networkutils.http.HttpRequestAction;
+import com.github.ushiosan23.networkutils.http.HttpTlsConfig;
+import com.github.ushiosan23.networkutils.http.HttpTlsStats;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HttpTlsConfigTest {
+
+	private static final char[] PASSWORD = "changeit".toCharArray();
+
+	private static KeyStore keyStore;
+
+	private static HttpsServer server;
+
+	private static String url;
+
+	@BeforeClass
+	public static void startServer() throws Exception {
+		// Self-signed certificate valid for the loopback address
+		Path file = Files.createTempDirectory("tls-test").resolve("server.p12");
+		Process keytool = new ProcessBuilder(
+			Paths.get(System.getProperty("java.home"), "bin", "keytool").toString(),
+			"-genkeypair", "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1",
+			"-dname", "CN=localhost", "-ext", "SAN=ip:127.0.0.1,dns:localhost", "-validity", "1",
+			"-storetype", "PKCS12", "-keystore", file.toString(),
+			"-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD)
+		).inheritIO().start();
+		assertEquals(0, keytool.waitFor());
+
+		keyStore = KeyStore.getInstance("PKCS12");
+		try (InputStream input = Files.newInputStream(file)) {
+			keyStore.load(input, PASSWORD);
+		}
+		KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		keys.init(keyStore, PASSWORD);
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(keys.getKeyManagers(), null, null);
+
+		server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.setHttpsConfigurator(new HttpsConfigurator(context));
+		server.createContext("/", exchange -> {
+			// Every request needs a new connection and a new handshake
+			exchange.getResponseHeaders().add("Connection", "close");
+			byte[] data = "secure".getBytes();
+			exchange.sendResponseHeaders(200, data.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(data);
+			}
+		});
+		server.start();
+		url = "https://127.0.0.1:" + server.getAddress().getPort() + "/";
+	}
+
+	@Test
+	public void handshakesAndResumptionsAreCounted() throws Exception {
+		HttpClientProfile profile = HttpClientProfile.newBuilder()
+			.withTls(HttpTlsConfig.newBuilder()
+				.withTrustStore(keyStore)
+				.withSessionCache(16, Duration.ofMinutes(5))
+				.build())
+			.build();
+		HttpRequestAction action = new HttpRequestAction(url).setProfile(profile);
+
+		for (int i = 0; i < 3; i++) assertEquals("secure", action.get().body());
+
+		HttpTlsStats stats = profile.getTlsStats();
+		assertEquals(3, stats.getHandshakes());
+		assertEquals(2, stats.getResumed());
+		assertEquals(0, stats.getFailed());
+		assertTrue(stats.getAverageTime().toNanos() > 0);
+	}
+
+	@Test
+	public void protocolsAndCipherSuitesAreApplied() throws Exception {
+		String suite = "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256";
+		HttpClientProfile profile = HttpClientProfile.newBuilder()
+			.withTls(HttpTlsConfig.newBuilder()
+				.withTrustStore(keyStore)
+				.withProtocols("TLSv1.2")
+				.withCipherSuites(suite)
+				.withApplicationProtocols("http/1.1")
+				.build())
+			.build();
+
+		HttpResponse<String> response = new HttpRequestAction(url).setProfile(profile).get();
+		assertEquals("TLSv1.2", response.sslSession().orElseThrow().getProtocol());
+		assertEquals(suite, response.sslSession().orElseThrow().getCipherSuite());
+	}
+
+	@Test
+	public void untrustedServerFailsHandshake() throws Exception {
+		HttpClientProfile profile = HttpClientProfile.newBuilder().build();
+
+		try {
+			new HttpRequestAction(url).setProfile(profile).get();
+			fail("Self-signed certificate was trusted");
+		} catch (SSLHandshakeException e) {
+			assertEquals(1, profile.getTlsStats().getFailed());
+			assertEquals(0, profile.getTlsStats().getHandshakes());
+		}
+	}
+
+	@AfterClass
+	public static void stopServer() {
+		server.stop(0);
+	}
+
+}
@@ -0,0 +1,48 @@
+package coroutine
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class CoroutineElementKtTest {
+
+	private val action = HttpRequestAction("http://127.0.0.1/")
+
+	@Test
+	fun blocksRunOnIoDispatcher() = runBlocking {
+		val name = action.coroutineAsync { Thread.currentThread().name }.await()
+
+		assertTrue(name.startsWith("network-io-"))
+	}
+
+	@Test
+	fun failuresDoNotCancelSiblings() = runBlocking {
+		val failed = action.coroutineLaunch { throw IllegalStateException("Request failed") }
+		failed.join()
+
+		assertEquals("done", action.coroutineAsync { "done" }.await())
+		assertTrue(action.isActive)
+	}
+
+	@Test
+	fun closeCancelsChildren() {
+		val started = CountDownLatch(1)
+		val job = action.coroutineLaunch {
+			started.countDown()
+			Thread.sleep(200)
+		}
+
+		assertTrue(started.await(5, TimeUnit.SECONDS))
+		action.close()
+
+		assertTrue(job.isCancelled)
+		assertFalse(action.isActive)
+		assertTrue(action.coroutineLaunch { }.isCancelled)
+	}
+
+}
@@ -0,0 +1,114 @@
+package download
+
+import com.github.ushiosan23.networkutils.download.DownloadElement
+import com.github.ushiosan23.networkutils.download.DownloadStatusEvent
+import com.github.ushiosan23.networkutils.download.downloadC
+import com.github.ushiosan23.networkutils.download.statusFlow
+import http.TestServer
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.async
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.onEach
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeoutOrNull
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class DownloadElementKtTest {
+
+	private val content = ByteArray(CHUNK_SIZE * CHUNK_COUNT + 123) { (it % 251).toByte() }
+
+	private val aborted = CountDownLatch(1)
+
+	@get:Rule
+	val server = TestServer.concurrent()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/file.bin") { exchange ->
+			// HEAD responses keep content length (server prints a warning)
+			exchange.sendResponseHeaders(200, content.size.toLong())
+			exchange.responseBody.use { if (exchange.requestMethod != "HEAD") it.write(content) }
+		}
+		server.handle("/endless.bin") { exchange ->
+			val chunk = ByteArray(CHUNK_SIZE)
+			exchange.sendResponseHeaders(200, 0)
+
+			try {
+				exchange.responseBody.use { output ->
+					while (true) {
+						output.write(chunk)
+						Thread.sleep(5)
+					}
+				}
+			} catch (e: IOException) {
+				aborted.countDown()
+			}
+		}
+		url = server.url
+	}
+
+	@Test
+	fun downloadWritesReadBytesOnly() = runBlocking<Unit> {
+		val status = DownloadElement("$url/file.bin").downloadC()
+
+		assertTrue(status.isFinished)
+		assertEquals(content.size.toLong(), status.downloaded)
+		assertArrayEquals(content, status.tmpFile!!.readBytes())
+		status.tmpFile!!.delete()
+	}
+
+	@Test
+	fun slowCollectorReceivesLastStatus() = runBlocking<Unit> {
+		val element = DownloadElement("$url/file.bin")
+		val events = async(start = CoroutineStart.UNDISPATCHED) {
+			element.statusFlow().onEach { delay(50) }.toList()
+		}
+		val status = element.downloadC()
+		val received = events.await()
+
+		// Progress is conflated, download did not wait for the collector
+		assertTrue(received.size < CHUNK_COUNT)
+		assertTrue(received.last().isFinished)
+		assertEquals(status.downloaded, received.last().downloaded)
+		status.tmpFile!!.delete()
+	}
+
+	@Test
+	fun cancellationAbortsTransfer() = runBlocking<Unit> {
+		val element = DownloadElement("$url/endless.bin")
+		var last: DownloadStatusEvent? = null
+		val events = async(start = CoroutineStart.UNDISPATCHED) {
+			element.statusFlow().collect { last = it }
+		}
+
+		assertNull(withTimeoutOrNull(500) { element.downloadC() })
+		events.await()
+
+		assertTrue(element.isCancelled)
+		assertTrue(last!!.isCancelled)
+		assertNull(last!!.tmpFile)
+		assertTrue("Transfer was not aborted", aborted.await(5, TimeUnit.SECONDS))
+	}
+
+	companion object {
+
+		const val CHUNK_SIZE = 8 * 1024
+
+		const val CHUNK_COUNT = 256
+
+	}
+
+}
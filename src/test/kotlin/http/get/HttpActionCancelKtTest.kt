@@ -0,0 +1,81 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.getAsyncC
+import http.TestServer
+import http.TestServer.respond
+import kotlinx.coroutines.TimeoutCancellationException
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.io.IOException
+import java.net.ConnectException
+import java.net.ServerSocket
+import java.net.http.HttpTimeoutException
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class HttpActionCancelKtTest {
+
+	private val aborted = CountDownLatch(1)
+
+	@get:Rule
+	val server = TestServer.concurrent()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/slow-body") { exchange ->
+			exchange.sendResponseHeaders(200, 0)
+			try {
+				exchange.responseBody.use { output ->
+					repeat(200) {
+						output.write(ByteArray(1024) { 'x'.code.toByte() })
+						output.flush()
+						Thread.sleep(50)
+					}
+				}
+			} catch (e: IOException) {
+				aborted.countDown()
+			}
+		}
+		server.handle("/slow-headers") { exchange ->
+			Thread.sleep(2000)
+			respond(exchange, 204)
+		}
+		url = server.url
+	}
+
+	@Test
+	fun cancelAbortsTransfer() = runBlocking {
+		val error = runCatching {
+			withTimeout(300) { HttpRequestAction("$url/slow-body").getAsyncC() }
+		}.exceptionOrNull()
+
+		assertTrue(error is TimeoutCancellationException)
+		assertTrue("Server still sending body", aborted.await(5, TimeUnit.SECONDS))
+	}
+
+	@Test
+	fun errorsPropagate() = runBlocking {
+		val port = ServerSocket(0).use { it.localPort }
+		val error = runCatching { HttpRequestAction("http://127.0.0.1:$port/").getAsyncC() }.exceptionOrNull()
+
+		assertTrue(error is ConnectException)
+	}
+
+	@Test
+	fun requestTimeout() = runBlocking {
+		val error = runCatching {
+			HttpRequestAction("$url/slow-headers").setTimeout(Duration.ofMillis(200)).getAsyncC()
+		}.exceptionOrNull()
+
+		assertTrue(error is HttpTimeoutException)
+	}
+
+}
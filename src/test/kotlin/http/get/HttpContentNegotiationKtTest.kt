@@ -0,0 +1,101 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpContentNegotiation
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.HttpSerialFormat
+import com.github.ushiosan23.networkutils.http.ResponseDecodeException
+import com.github.ushiosan23.networkutils.http.getTypedC
+import com.github.ushiosan23.networkutils.http.postTypedC
+import com.sun.net.httpserver.HttpExchange
+import http.TestServer
+import http.TestServer.respond
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.BinaryFormat
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.StringFormat
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+class HttpContentNegotiationKtTest {
+
+	private val formats = listOf(HttpSerialFormat.CBOR, HttpSerialFormat.PROTOBUF, HttpSerialFormat.JSON)
+
+	@get:Rule
+	val server = TestServer()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/engine") { negotiate(it, ENGINE) }
+		server.handle("/echo") { exchange ->
+			val format = formats.first { it.matches(exchange.requestHeaders.getFirst("Content-Type")) }
+			negotiate(exchange, decode(format, exchange.requestBody.readBytes()).copy(name = "echo"))
+		}
+		url = server.url
+	}
+
+	private fun negotiate(exchange: HttpExchange, engine: Engine) {
+		val accept = exchange.requestHeaders.getFirst("Accept").split(",")[0]
+		val format = formats.first { it.matches(accept) }
+
+		exchange.responseHeaders.add("Content-Type", format.contentType)
+		respond(exchange, 200, encode(format, engine))
+	}
+
+	private fun encode(format: HttpSerialFormat, engine: Engine): ByteArray = when (val serial = format.format) {
+		is BinaryFormat -> serial.encodeToByteArray(Engine.serializer(), engine)
+		else -> (serial as StringFormat).encodeToString(Engine.serializer(), engine).toByteArray()
+	}
+
+	private fun decode(format: HttpSerialFormat, bytes: ByteArray): Engine = when (val serial = format.format) {
+		is BinaryFormat -> serial.decodeFromByteArray(Engine.serializer(), bytes)
+		else -> (serial as StringFormat).decodeFromString(Engine.serializer(), String(bytes))
+	}
+
+	@Test
+	fun negotiateFormats() = runBlocking {
+		for (format in formats) {
+			val response = HttpRequestAction("$url/engine").getTypedC<Engine>(HttpContentNegotiation(format))
+
+			assertEquals(format.contentType, response.headers().firstValue("Content-Type").get())
+			assertEquals(ENGINE, response.body())
+		}
+	}
+
+	@Test
+	fun postBinary() = runBlocking {
+		val response = HttpRequestAction("$url/echo")
+			.postTypedC<Engine, Engine>(ENGINE, HttpContentNegotiation(HttpSerialFormat.PROTOBUF))
+
+		assertEquals(ENGINE.copy(name = "echo"), response.body())
+	}
+
+	@Test
+	fun unsupportedResponse() = runBlocking {
+		val negotiation = HttpContentNegotiation(HttpSerialFormat.JSON)
+		val error = runCatching {
+			// Server answers with first accepted format only
+			HttpRequestAction("$url/engine")
+				.setRequestHeaders(mutableMapOf("Accept" to "application/cbor"))
+				.getTypedC<Engine>(negotiation)
+		}.exceptionOrNull()
+
+		assertTrue(error is ResponseDecodeException)
+	}
+
+	@Serializable
+	data class Engine(
+		val name: String,
+		val version: Int,
+		val platforms: List<String>
+	)
+
+	companion object {
+		private val ENGINE = Engine("godot", 3, listOf("windows", "linux"))
+	}
+
+}
@@ -0,0 +1,66 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpSerialFormat
+import kotlinx.serialization.BinaryFormat
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.StringFormat
+import kotlinx.serialization.builtins.ListSerializer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Round trip of every format with a representative catalog payload.
+ */
+class HttpSerialFormatKtTest {
+
+	private val payload = (0 until 2_000).map { index ->
+		Release(
+			id = index.toLong() * 7919,
+			name = "release-$index",
+			version = "3.$index.${index % 10}",
+			size = 1_048_576L + index,
+			stable = index % 3 != 0,
+			downloads = List(8) { it * index },
+			tags = listOf("mono", "x64", "platform-${index % 4}")
+		)
+	}
+
+	private val serializer = ListSerializer(Release.serializer())
+
+	@Test
+	fun roundTrip() {
+		for (format in listOf(HttpSerialFormat.JSON, HttpSerialFormat.CBOR, HttpSerialFormat.PROTOBUF))
+			assertEquals(payload, decode(format, encode(format)))
+	}
+
+	@Test
+	fun binaryFormatsAreSmaller() {
+		val json = encode(HttpSerialFormat.JSON).size
+
+		assertTrue(encode(HttpSerialFormat.CBOR).size < json)
+		assertTrue(encode(HttpSerialFormat.PROTOBUF).size < json)
+	}
+
+	private fun encode(format: HttpSerialFormat): ByteArray = when (val serial = format.format) {
+		is BinaryFormat -> serial.encodeToByteArray(serializer, payload)
+		else -> (serial as StringFormat).encodeToString(serializer, payload).toByteArray()
+	}
+
+	private fun decode(format: HttpSerialFormat, bytes: ByteArray): List<Release> = when (val serial = format.format) {
+		is BinaryFormat -> serial.decodeFromByteArray(serializer, bytes)
+		else -> (serial as StringFormat).decodeFromString(serializer, String(bytes))
+	}
+
+	@Serializable
+	data class Release(
+		val id: Long,
+		val name: String,
+		val version: String,
+		val size: Long,
+		val stable: Boolean,
+		val downloads: List<Int>,
+		val tags: List<String>
+	)
+
+}
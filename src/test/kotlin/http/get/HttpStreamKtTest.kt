@@ -0,0 +1,76 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.getStreamC
+import http.TestServer
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+class HttpStreamKtTest {
+
+	private val aborted = CountDownLatch(1)
+
+	private val written = AtomicLong()
+
+	@get:Rule
+	val server = TestServer.concurrent()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/data") { exchange ->
+			val chunk = ByteArray(CHUNK_SIZE) { (it % 251).toByte() }
+			exchange.sendResponseHeaders(200, 0)
+
+			try {
+				exchange.responseBody.use { output ->
+					repeat(CHUNK_COUNT) {
+						output.write(chunk)
+						written.addAndGet(chunk.size.toLong())
+					}
+				}
+			} catch (e: IOException) {
+				aborted.countDown()
+			}
+		}
+		url = server.url
+	}
+
+	@Test
+	fun collectBody() = runBlocking {
+		val response = HttpRequestAction("$url/data").getStreamC()
+		var size = 0L
+
+		assertEquals(200, response.statusCode())
+		response.body().collect { size += it.remaining() }
+		assertEquals(CHUNK_SIZE.toLong() * CHUNK_COUNT, size)
+	}
+
+	@Test
+	fun slowCollectorPausesServer() = runBlocking {
+		val response = HttpRequestAction("$url/data").getStreamC()
+
+		response.body().take(4).collect { delay(200) }
+		// Socket buffers only, the server cannot write the whole body
+		assertTrue(written.get() < CHUNK_SIZE.toLong() * CHUNK_COUNT / 2)
+		assertTrue("Transfer was not aborted", aborted.await(5, TimeUnit.SECONDS))
+	}
+
+	companion object {
+		private const val CHUNK_SIZE = 64 * 1024
+		private const val CHUNK_COUNT = 1024
+	}
+
+}
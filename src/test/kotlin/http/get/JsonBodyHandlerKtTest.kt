@@ -0,0 +1,90 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.CoroutineElement
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.JsonResponseException
+import com.github.ushiosan23.networkutils.http.compression.HttpCompression
+import com.github.ushiosan23.networkutils.http.getJsonC
+import com.github.ushiosan23.networkutils.http.jsonBodyHandler
+import com.github.ushiosan23.networkutils.http.jsonDecodeExecutor
+import com.sun.net.httpserver.HttpExchange
+import http.TestServer
+import http.TestServer.respond
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.Serializable
+import kotlinx.serialization.builtins.ListSerializer
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.zip.GZIPOutputStream
+
+class JsonBodyHandlerKtTest {
+
+	@get:Rule
+	val server = TestServer()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/items", ::handleItems)
+		server.handle("/invalid") { respond(it, 200, """[{"id":1,""") }
+		url = server.url
+	}
+
+	private fun handleItems(exchange: HttpExchange) {
+		val body = (0 until ITEM_COUNT).joinToString(",", "[", "]") { """{"id":$it,"name":"item $it"}""" }
+		val gzip = exchange.requestHeaders.getFirst("Accept-Encoding")?.contains("gzip") == true
+
+		if (gzip) exchange.responseHeaders.add("Content-Encoding", "gzip")
+		exchange.responseHeaders.add("Content-Type", "application/json; charset=utf-8")
+		exchange.sendResponseHeaders(200, 0)
+		exchange.responseBody.let { if (gzip) GZIPOutputStream(it) else it }.use { it.write(body.toByteArray()) }
+	}
+
+	@Test
+	fun decodeStream() {
+		val response = HttpRequestAction("$url/items")
+			.send("GET", null, null, jsonBodyHandler(ListSerializer(Item.serializer())))
+
+		assertEquals(ITEM_COUNT, response.body().size)
+		assertEquals("item 42", response.body()[42].name)
+	}
+
+	@Test
+	fun decodeCompressedStream() = runBlocking {
+		val action = HttpRequestAction("$url/items")
+			.setCompression(HttpCompression.newBuilder().build())
+		val items = action.getJsonC<List<Item>>().body()
+
+		assertEquals(ITEM_COUNT - 1, items.last().id)
+	}
+
+	@Test
+	fun decodeExecutorIsBounded() {
+		val executor = jsonDecodeExecutor as ThreadPoolExecutor
+
+		assertEquals(CoroutineElement.IO_PARALLELISM, executor.maximumPoolSize)
+	}
+
+	@Test
+	fun invalidStream() = runBlocking {
+		val error = runCatching { HttpRequestAction("$url/invalid").getJsonC<List<Item>>() }.exceptionOrNull()
+
+		assertTrue(error is JsonResponseException)
+	}
+
+	@Serializable
+	data class Item(
+		val id: Int,
+		val name: String
+	)
+
+	companion object {
+		private const val ITEM_COUNT = 50_000
+	}
+
+}
@@ -0,0 +1,57 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.JsonResponseException
+import com.github.ushiosan23.networkutils.http.getJson
+import com.github.ushiosan23.networkutils.http.json
+import http.TestServer
+import http.TestServer.respond
+import kotlinx.serialization.Serializable
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+class JsonHttpResponseKtTest {
+
+	@get:Rule
+	val server = TestServer()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/valid") { respond(it, 200, """{"name":"engine","version":3}""") }
+		server.handle("/invalid") { respond(it, 200, """{"name":""") }
+		url = server.url
+	}
+
+	@Test
+	fun parseOnce() {
+		val response = HttpRequestAction("$url/valid").get().json()
+
+		assertSame(response.element, response.element)
+		assertEquals("engine", response.decode<Engine>().name)
+		assertSame(response.decode<Engine>(), response.decode<Engine>())
+		assertEquals(3, response.getJson<Engine>()!!.version)
+	}
+
+	@Test(expected = JsonResponseException::class)
+	fun invalidBody() {
+		val response = HttpRequestAction("$url/invalid").get().json()
+
+		assertFalse(response.isValid)
+		assertNull(response.getJson())
+		response.element
+	}
+
+	@Serializable
+	data class Engine(
+		val name: String,
+		val version: Int
+	)
+
+}
@@ -0,0 +1,116 @@
+package http.get
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.JsonStreamFormat
+import com.github.ushiosan23.networkutils.http.getJsonFlow
+import com.github.ushiosan23.networkutils.http.getJsonPublisher
+import com.github.ushiosan23.networkutils.http.getJsonStream
+import com.sun.net.httpserver.HttpExchange
+import http.TestServer
+import kotlinx.coroutines.flow.count
+import kotlinx.coroutines.flow.take
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.Serializable
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.io.IOException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Flow
+import java.util.concurrent.TimeUnit
+
+class JsonStreamKtTest {
+
+	@get:Rule
+	val server = TestServer()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/array") { write(it, "[", ",", "]") }
+		server.handle("/lines") { write(it, "", "\n", "\n") }
+		url = server.url
+	}
+
+	private fun write(exchange: HttpExchange, prefix: String, separator: String, suffix: String) {
+		exchange.sendResponseHeaders(200, 0)
+
+		try {
+			exchange.responseBody.bufferedWriter().use { writer ->
+				writer.write(prefix)
+				for (i in 0 until RECORD_COUNT) {
+					if (i > 0) writer.write(separator)
+					writer.write("""{"id":$i,"name":"record $i"}""")
+				}
+				writer.write(suffix)
+			}
+		} catch (ignored: IOException) {
+			// Client closed the stream
+		}
+	}
+
+	@Test
+	fun arrayFlow() = runBlocking {
+		val count = HttpRequestAction("$url/array").getJsonFlow<Record>().count()
+
+		assertEquals(RECORD_COUNT, count)
+	}
+
+	@Test
+	fun linesFlowCancel() = runBlocking {
+		val records = HttpRequestAction("$url/lines").getJsonFlow<Record>(JsonStreamFormat.LINES).take(5).toList()
+
+		assertEquals(listOf(0, 1, 2, 3, 4), records.map { it.id })
+	}
+
+	@Test
+	fun javaStream() {
+		HttpRequestAction("$url/lines").getJsonStream(Record.serializer()).use { stream ->
+			assertEquals("record 10", stream.skip(10).findFirst().get().name)
+		}
+	}
+
+	@Test
+	fun publisher() {
+		val result = CompletableFuture<Int>()
+
+		HttpRequestAction("$url/array").getJsonPublisher(Record.serializer()).subscribe(object : Flow.Subscriber<Record> {
+			private lateinit var subscription: Flow.Subscription
+			private var count = 0
+
+			override fun onSubscribe(subscription: Flow.Subscription) {
+				this.subscription = subscription
+				subscription.request(1)
+			}
+
+			override fun onNext(item: Record) {
+				count++
+				subscription.request(1)
+			}
+
+			override fun onError(throwable: Throwable) {
+				result.completeExceptionally(throwable)
+			}
+
+			override fun onComplete() {
+				result.complete(count)
+			}
+		})
+
+		assertEquals(RECORD_COUNT, result.get(30, TimeUnit.SECONDS))
+	}
+
+	@Serializable
+	data class Record(
+		val id: Int,
+		val name: String
+	)
+
+	companion object {
+		private const val RECORD_COUNT = 100_000
+	}
+
+}
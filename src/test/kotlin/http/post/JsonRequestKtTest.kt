@@ -0,0 +1,67 @@
+package http.post
+
+import com.github.ushiosan23.networkutils.http.HttpRequestAction
+import com.github.ushiosan23.networkutils.http.postJson
+import com.github.ushiosan23.networkutils.http.putJsonC
+import com.sun.net.httpserver.HttpExchange
+import http.TestServer
+import http.TestServer.respond
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.Serializable
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+class JsonRequestKtTest {
+
+	@get:Rule
+	val server = TestServer()
+
+	private lateinit var url: String
+
+	@Before
+	fun registerHandlers() {
+		server.handle("/echo", ::handleEcho)
+		url = server.getUrl("/echo")
+	}
+
+	private fun handleEcho(exchange: HttpExchange) {
+		val body = exchange.requestBody.readBytes()
+		val result = listOf(
+			exchange.requestMethod,
+			exchange.requestHeaders.getFirst("Content-Type"),
+			exchange.requestHeaders.getFirst("Content-Length"),
+			String(body)
+		).joinToString("\n")
+
+		respond(exchange, 200, result)
+	}
+
+	@Test
+	fun postCompactJson() {
+		val response = HttpRequestAction(url).postJson(Engine("godot", 3)).body().lines()
+
+		assertEquals("POST", response[0])
+		assertEquals("application/json; charset=utf-8", response[1])
+		assertEquals("""{"name":"godot","version":3}""", response[3])
+		assertEquals(response[3].length.toString(), response[2])
+	}
+
+	@Test
+	fun putLargeJson() = runBlocking {
+		val engines = (0 until 5000).map { Engine("engine $it", it) }
+		val response = HttpRequestAction(url).putJsonC(engines).body().lines()
+
+		assertEquals("PUT", response[0])
+		assertEquals(response[3].toByteArray().size.toString(), response[2])
+		assertEquals("""{"name":"engine 4999","version":4999}]""", response[3].takeLast(38))
+	}
+
+	@Serializable
+	data class Engine(
+		val name: String,
+		val version: Int
+	)
+
+}